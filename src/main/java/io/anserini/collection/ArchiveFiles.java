@@ -0,0 +1,150 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the files of a collection that come bundled in archives, without extracting them: <code>.zip</code> files,
+ * and <code>.tar</code> files that may be compressed (<code>.tar.gz</code>, <code>.tgz</code>, or
+ * <code>.tar.zst</code>). The files in a zip archive can be read in any order through its central directory, e.g.,
+ * with {@link java.util.zip.ZipFile}, whereas the files in a tar archive can only be read in order. Files in an
+ * archive that are themselves compressed are decompressed based on their suffix; see {@link CompressedFiles}.
+ */
+public final class ArchiveFiles {
+  /**
+   * Size of the largest file in an archive read in order that is read into memory, so that the archive can move on
+   * while the file is indexed. Larger files, and files of unknown size, are read straight from the archive.
+   */
+  public static final long MAX_IN_MEMORY_SIZE = 64L << 20;
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  // Longer suffixes first, so that ".tar.gz" is matched before ".gz" would be.
+  private static final List<String> SUFFIXES = List.of(".tar.gz", ".tar.zst", ".tar.zstd", ".tgz", ".tar", ".zip");
+
+  private ArchiveFiles() {}
+
+  /**
+   * Returns the suffix of an archive, e.g., <code>.tar.gz</code>.
+   *
+   * @param path path of the file
+   * @return suffix of the archive, or null if the file isn't an archive
+   */
+  public static String getArchiveSuffix(Path path) {
+    String name = path.toString();
+    for (String suffix : SUFFIXES) {
+      if (name.endsWith(suffix)) {
+        return suffix;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks whether a file is an archive.
+   *
+   * @param path path of the file
+   * @return whether the file is an archive
+   */
+  public static boolean isArchive(Path path) {
+    return getArchiveSuffix(path) != null;
+  }
+
+  /**
+   * Checks whether a file is a zip archive.
+   *
+   * @param path path of the file
+   * @return whether the file is a zip archive
+   */
+  public static boolean isZip(Path path) {
+    return path.toString().endsWith(".zip");
+  }
+
+  /**
+   * Checks whether a file in an archive read in order is small enough to be read into memory; see
+   * {@link #MAX_IN_MEMORY_SIZE}.
+   *
+   * @param entry entry of the file
+   * @return whether the file is read into memory
+   */
+  public static boolean fitsInMemory(ArchiveEntry entry) {
+    return entry.getSize() != ArchiveEntry.SIZE_UNKNOWN && entry.getSize() <= MAX_IN_MEMORY_SIZE;
+  }
+
+  /**
+   * Returns a stream of the current file of an archive read in order, which leaves the archive open when it's closed.
+   * The stream can only be read until the archive moves on to its next file.
+   *
+   * @param archive archive
+   * @return stream of the bytes of the current file
+   */
+  @SuppressWarnings("rawtypes")
+  public static InputStream currentFile(ArchiveInputStream archive) {
+    return new FilterInputStream(archive) {
+      @Override
+      public void close() {
+        // The archive is closed by its reader.
+      }
+    };
+  }
+
+  /**
+   * Opens an archive for reading its files in order.
+   *
+   * @param path path of the archive
+   * @return stream of the entries of the archive
+   * @throws IOException if error encountered opening the archive
+   */
+  @SuppressWarnings("rawtypes")
+  public static ArchiveInputStream open(Path path) throws IOException {
+    if (isZip(path)) {
+      return new ZipArchiveInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE));
+    } else if (path.toString().endsWith(".tgz")) {
+      return new TarArchiveInputStream(new GZIPInputStream(Files.newInputStream(path), BUFFER_SIZE));
+    }
+    return new TarArchiveInputStream(CompressedFiles.open(path, BUFFER_SIZE));
+  }
+
+  /**
+   * Creates a reader of a file in an archive, decompressing it if it's compressed.
+   *
+   * @param stream stream of the bytes of the file
+   * @param name name of the file
+   * @return reader of the (decompressed) file
+   * @throws IOException if error encountered reading the stream
+   */
+  public static BufferedReader newReader(InputStream stream, String name) throws IOException {
+    return new BufferedReader(new InputStreamReader(CompressedFiles.decompress(stream, name, BUFFER_SIZE),
+        StandardCharsets.UTF_8), BUFFER_SIZE);
+  }
+}
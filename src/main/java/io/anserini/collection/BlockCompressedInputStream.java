@@ -0,0 +1,413 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import com.github.luben.zstd.Zstd;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Stream over a file compressed as a sequence of independently compressed blocks, namely BGZF (gzip members that
+ * record their own size, as written by <code>bgzip</code>) and the seekable zstd format (zstd frames followed by a
+ * seek table, as written by <code>t2sz</code> or <code>zstd --seekable</code>). The compressed bytes of the blocks are
+ * read sequentially, and the blocks are decompressed ahead of the reader on a pool of threads shared by all streams,
+ * so that a single large file isn't limited to the speed of one decompressing thread. Blocks are returned in order.
+ */
+public class BlockCompressedInputStream extends InputStream {
+  private static final byte[] EMPTY = new byte[0];
+
+  // Daemon threads, so that streams that are never closed don't keep the JVM alive.
+  private static final ExecutorService POOL;
+  static {
+    AtomicInteger count = new AtomicInteger();
+    POOL = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+      Thread thread = new Thread(r, "anserini-decompress-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Source of the blocks of a file.
+   */
+  interface BlockReader extends Closeable {
+    /**
+     * Reads the compressed bytes of the next block.
+     *
+     * @return task that decompresses the block, or null at the end of the file
+     * @throws IOException if error encountered reading the file
+     */
+    Callable<byte[]> next() throws IOException;
+  }
+
+  private final BlockReader reader;
+  private final int readAhead;
+  private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+  private boolean exhausted = false;
+
+  private byte[] block = EMPTY;
+  private int position = 0;
+
+  BlockCompressedInputStream(BlockReader reader, int readAhead) {
+    this.reader = reader;
+    this.readAhead = readAhead;
+  }
+
+  /**
+   * Checks whether a file is in the BGZF format, from the header of its first member.
+   *
+   * @param path path of the file
+   * @return whether the file is in the BGZF format
+   * @throws IOException if error encountered reading the file
+   */
+  public static boolean isBgzf(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(18).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining() && channel.read(header) >= 0) {
+      }
+      if (header.hasRemaining()) {
+        return false;
+      }
+      // Magic, deflate, FEXTRA, then the first subfield is "BC" of length 2.
+      return (header.get(0) & 0xFF) == 0x1F && (header.get(1) & 0xFF) == 0x8B && header.get(2) == 8 &&
+          (header.get(3) & 0x04) != 0 && header.get(12) == 'B' && header.get(13) == 'C' && header.getShort(14) == 2;
+    }
+  }
+
+  /**
+   * Checks whether a file is in the seekable zstd format, from the footer of its seek table.
+   *
+   * @param path path of the file
+   * @return whether the file is in the seekable zstd format
+   * @throws IOException if error encountered reading the file
+   */
+  public static boolean isSeekableZstd(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return ZstdFrames.footer(channel) != null;
+    }
+  }
+
+  /**
+   * Opens a BGZF file.
+   *
+   * @param path path of the file
+   * @param readAhead number of blocks to decompress ahead of the reader
+   * @return stream of the decompressed bytes
+   * @throws IOException if error encountered opening the file
+   */
+  public static BlockCompressedInputStream openBgzf(Path path, int readAhead) throws IOException {
+    return new BlockCompressedInputStream(new BgzfBlocks(FileChannel.open(path, StandardOpenOption.READ)), readAhead);
+  }
+
+  /**
+   * Opens a seekable zstd file.
+   *
+   * @param path path of the file
+   * @param readAhead number of frames to decompress ahead of the reader
+   * @return stream of the decompressed bytes
+   * @throws IOException if error encountered opening the file
+   */
+  public static BlockCompressedInputStream openSeekableZstd(Path path, int readAhead) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      return new BlockCompressedInputStream(new ZstdFrames(channel), readAhead);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private boolean nextBlock() throws IOException {
+    while (true) {
+      while (!exhausted && pending.size() < readAhead) {
+        Callable<byte[]> task = reader.next();
+        if (task == null) {
+          exhausted = true;
+        } else {
+          pending.add(POOL.submit(task));
+        }
+      }
+
+      Future<byte[]> future = pending.poll();
+      if (future == null) {
+        return false;
+      }
+      try {
+        block = future.get();
+      } catch (ExecutionException e) {
+        throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      position = 0;
+      // Skips empty blocks, such as the end-of-file marker of BGZF.
+      if (block.length > 0) {
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (position == block.length && !nextBlock()) {
+      return -1;
+    }
+    return block[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (position == block.length && !nextBlock()) {
+      return -1;
+    }
+    int n = Math.min(len, block.length - position);
+    System.arraycopy(block, position, b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return block.length - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (Future<byte[]> future : pending) {
+      future.cancel(false);
+    }
+    pending.clear();
+    exhausted = true;
+    block = EMPTY;
+    position = 0;
+    reader.close();
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int n = channel.read(buffer, position);
+      if (n < 0) {
+        throw new EOFException("Truncated block");
+      }
+      position += n;
+    }
+    buffer.flip();
+  }
+
+  /**
+   * Members of a BGZF file. Each member's header records its compressed size, and its trailer its CRC and decompressed
+   * size, so that members can be delimited without decompressing them and each decompressed into an array of the
+   * right size.
+   */
+  static class BgzfBlocks implements BlockReader {
+    private final FileChannel channel;
+    private long position = 0;
+
+    BgzfBlocks(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public Callable<byte[]> next() throws IOException {
+      if (position >= channel.size()) {
+        return null;
+      }
+
+      ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, header, position);
+      if ((header.get(0) & 0xFF) != 0x1F || (header.get(1) & 0xFF) != 0x8B || header.get(2) != 8 ||
+          (header.get(3) & 0x04) == 0) {
+        throw new IOException(String.format("Not a BGZF member at offset %d", position));
+      }
+      int extraLength = header.getShort(10) & 0xFFFF;
+
+      ByteBuffer extra = ByteBuffer.allocate(extraLength).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, extra, position + 12);
+      int blockSize = -1;
+      while (extra.remaining() >= 4) {
+        byte si1 = extra.get();
+        byte si2 = extra.get();
+        int length = extra.getShort() & 0xFFFF;
+        if (si1 == 'B' && si2 == 'C' && length == 2) {
+          blockSize = (extra.getShort() & 0xFFFF) + 1;
+          break;
+        }
+        extra.position(Math.min(extra.limit(), extra.position() + length));
+      }
+      if (blockSize < 0) {
+        throw new IOException(String.format("Gzip member without a BGZF block size at offset %d", position));
+      }
+
+      int dataOffset = 12 + extraLength;
+      int dataLength = blockSize - dataOffset - 8;
+      if (dataLength < 0) {
+        throw new IOException(String.format("Invalid BGZF block size at offset %d", position));
+      }
+      ByteBuffer data = ByteBuffer.allocate(blockSize - dataOffset).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, data, position + dataOffset);
+      long start = position;
+      position += blockSize;
+
+      byte[] compressed = data.array();
+      int crc = data.getInt(dataLength);
+      int size = data.getInt(dataLength + 4);
+      return () -> {
+        byte[] out = new byte[size];
+        Inflater inflater = new Inflater(true);
+        try {
+          inflater.setInput(compressed, 0, dataLength);
+          int n = 0;
+          while (n < size && !inflater.finished()) {
+            int inflated = inflater.inflate(out, n, size - n);
+            if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+              break;
+            }
+            n += inflated;
+          }
+          if (n != size) {
+            throw new IOException(String.format("Truncated BGZF block at offset %d", start));
+          }
+        } catch (DataFormatException e) {
+          throw new IOException(String.format("Corrupt BGZF block at offset %d", start), e);
+        } finally {
+          inflater.end();
+        }
+
+        CRC32 checksum = new CRC32();
+        checksum.update(out, 0, size);
+        if ((int) checksum.getValue() != crc) {
+          throw new IOException(String.format("CRC mismatch in BGZF block at offset %d", start));
+        }
+        return out;
+      };
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  /**
+   * Frames of a seekable zstd file, delimited by the seek table at the end of the file, which records the compressed
+   * and decompressed size of each frame.
+   */
+  static class ZstdFrames implements BlockReader {
+    private static final int SEEKABLE_MAGIC = 0x8F92EAB1;
+    private static final int SKIPPABLE_MAGIC = 0x184D2A5E;
+    private static final int FOOTER_SIZE = 9;
+
+    private final FileChannel channel;
+    private final ByteBuffer entries;
+    private final int entrySize;
+    private final int frames;
+    private int frame = 0;
+    private long position = 0;
+
+    ZstdFrames(FileChannel channel) throws IOException {
+      this.channel = channel;
+      ByteBuffer footer = footer(channel);
+      if (footer == null) {
+        throw new IOException("Not a seekable zstd file");
+      }
+      this.frames = footer.getInt(0);
+      this.entrySize = (footer.get(4) & 0x80) != 0 ? 12 : 8;
+
+      long tableSize = (long) frames * entrySize;
+      long tableStart = channel.size() - FOOTER_SIZE - tableSize;
+      if (frames < 0 || tableSize > Integer.MAX_VALUE || tableStart < 8) {
+        throw new IOException("Invalid seekable zstd seek table");
+      }
+      ByteBuffer skippable = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, skippable, tableStart - 8);
+      if (skippable.getInt(0) != SKIPPABLE_MAGIC || skippable.getInt(4) != tableSize + FOOTER_SIZE) {
+        throw new IOException("Invalid seekable zstd seek table");
+      }
+      this.entries = ByteBuffer.allocate((int) tableSize).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, entries, tableStart);
+    }
+
+    static ByteBuffer footer(FileChannel channel) throws IOException {
+      long size = channel.size();
+      if (size < 8 + FOOTER_SIZE) {
+        return null;
+      }
+      ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, footer, size - FOOTER_SIZE);
+      return footer.getInt(5) == SEEKABLE_MAGIC ? footer : null;
+    }
+
+    @Override
+    public Callable<byte[]> next() throws IOException {
+      if (frame == frames) {
+        return null;
+      }
+      int compressedSize = entries.getInt(frame * entrySize);
+      int size = entries.getInt(frame * entrySize + 4);
+      if (compressedSize < 0 || size < 0) {
+        throw new IOException(String.format("Seekable zstd frame %d is too large", frame));
+      }
+      frame++;
+
+      ByteBuffer data = ByteBuffer.allocate(compressedSize);
+      readFully(channel, data, position);
+      long start = position;
+      position += compressedSize;
+
+      byte[] compressed = data.array();
+      return () -> {
+        byte[] out = new byte[size];
+        long n = Zstd.decompressByteArray(out, 0, size, compressed, 0, compressedSize);
+        if (Zstd.isError(n)) {
+          throw new IOException(String.format("Corrupt zstd frame at offset %d: %s", start, Zstd.getErrorName(n)));
+        }
+        if (n != size) {
+          throw new IOException(String.format("Truncated zstd frame at offset %d", start));
+        }
+        return out;
+      };
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
@@ -27,14 +27,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.time.Instant;
-import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 
 public class C4Collection extends DocumentCollection<C4Collection.Document> {
@@ -80,9 +75,8 @@ public class C4Collection extends DocumentCollection<C4Collection.Document> {
   }
 
   @Override
-  public List<Path> getSegmentPaths(int shardCount, int currShard) {
-    List<Path> segments = super.getSegmentPaths();
-    return segments.stream().filter(x -> getFileNumber(x.toString()) % shardCount == currShard).collect(Collectors.toList());
+  protected boolean inShard(Path path, int shardCount, int currShard) {
+    return Math.floorMod(getFileNumber(path.toString()), shardCount) == currShard;
   }
 
   public static class Segment extends FileSegment<C4Collection.Document> {
@@ -97,9 +91,8 @@ public class C4Collection extends DocumentCollection<C4Collection.Document> {
       filePath = path.toString();
       int fileNumStart = filePath.indexOf("c4-train.") + 9;
       fileName = filePath.substring(fileNumStart + 1, fileNumStart + 5);
-      if (filePath.endsWith(".gz")) { //.gz
-        InputStream stream = new GZIPInputStream(
-                Files.newInputStream(path, StandardOpenOption.READ), BUFFER_SIZE);
+      if (CompressedFiles.isCompressed(path)) { // .gz, .zst
+        InputStream stream = CompressedFiles.open(path, BUFFER_SIZE);
         CtrlFilterStream filteredStream = new CtrlFilterStream(stream);
         bufferedReader = new BufferedReader(new InputStreamReader(filteredStream, StandardCharsets.UTF_8));
       } else { // plain text file
@@ -20,15 +20,12 @@ import org.apache.commons.io.input.ReaderInputStream;
 import org.apache.logging.log4j.LogManager;
 
 import java.io.BufferedReader;
-import java.io.DataInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 /**
  * An instance of the <a href="https://www.lemurproject.org/clueweb09.php/">ClueWeb09 collection</a>.
@@ -59,12 +56,12 @@ public class ClueWeb09Collection extends DocumentCollection<ClueWeb09Collection.
    */
   public static class Segment extends FileSegment<ClueWeb09Collection.Document> {
 
-    protected DataInputStream stream;
+    protected WarcReader stream;
     private String rawContent = null; // raw content from buffered string
 
     public Segment(Path path) throws IOException {
       super(path);
-      this.stream = new DataInputStream(new GZIPInputStream(Files.newInputStream(path, StandardOpenOption.READ)));
+      this.stream = WarcReader.open(path);
     }
 
     public Segment(BufferedReader bufferedReader) throws IOException {
@@ -100,19 +97,21 @@ public class ClueWeb09Collection extends DocumentCollection<ClueWeb09Collection.
    * This class derives from tools provided by CMU for reading the ClueWeb09 collection.
    */
   public static class Document extends WarcBaseDocument {
+    private static final byte[] CONTENT_LENGTH = "Content-Length:".getBytes(StandardCharsets.US_ASCII);
+
     static {
       LOG = LogManager.getLogger(Document.class);
       WARC_VERSION = "WARC/0.18";
     }
 
     /**
-     * Reads in a WARC record from a data input stream.
+     * Reads in a WARC record from a WARC reader.
      *
-     * @param in      the input stream
+     * @param in      the WARC reader
      * @return a WARC record (or null if EOF)
      * @throws IOException if error encountered reading from stream
      */
-    public static Document readNextWarcRecord(DataInputStream in)
+    public static Document readNextWarcRecord(WarcReader in)
         throws IOException {
       StringBuilder recordHeader = new StringBuilder();
       byte[] recordContent = readNextRecord(in, recordHeader, "Content-Length");
@@ -143,11 +142,11 @@ public class ClueWeb09Collection extends DocumentCollection<ClueWeb09Collection.
 
     @Override
     public String getContent() {
-      String str = getContentUTF8();
-      int i = str.indexOf("Content-Length:");
-      int j = str.indexOf("\n", i);
+      byte[] content = getByteContent();
+      int i = WarcReader.indexOf(content, CONTENT_LENGTH, 0, content.length);
+      int j = WarcReader.indexOf(content, (byte) '\n', Math.max(i, 0), content.length);
 
-      return str.substring(j + 1);
+      return getContentUTF8(j + 1, content.length);
     }
 
     @Override
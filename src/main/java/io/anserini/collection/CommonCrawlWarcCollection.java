@@ -20,15 +20,11 @@ import org.apache.commons.io.input.ReaderInputStream;
 import org.apache.logging.log4j.LogManager;
 
 import java.io.BufferedReader;
-import java.io.DataInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 /**
  * A collection of WARC files from CommonCrawl (https://commoncrawl.org/the-data/get-started/#WARC-Format).
@@ -59,12 +55,12 @@ public class CommonCrawlWarcCollection extends DocumentCollection<CommonCrawlWar
    */
   public static class Segment extends FileSegment<CommonCrawlWarcCollection.Document> {
 
-    protected DataInputStream stream;
+    protected WarcReader stream;
     private String rawContent = null; // raw content from buffered string
 
     public Segment(Path path) throws IOException {
       super(path);
-      this.stream = new DataInputStream(new GZIPInputStream(Files.newInputStream(path, StandardOpenOption.READ)));
+      this.stream = WarcReader.open(path);
     }
 
     public Segment(BufferedReader bufferedReader) throws IOException {
@@ -108,14 +104,14 @@ public class CommonCrawlWarcCollection extends DocumentCollection<CommonCrawlWar
     }
 
     /**
-     * Reads in a WARC record from a data input stream.
+     * Reads in a WARC record from a WARC reader.
      *
-     * @param in      the input stream
+     * @param in      the WARC reader
      * @return a WARC record (or null if EOF)
      * @throws IOException if error encountered reading from stream
      */
 
-    public static Document readNextWarcRecord(DataInputStream in)
+    public static Document readNextWarcRecord(WarcReader in)
         throws IOException {
       StringBuilder recordHeader = new StringBuilder();
       byte[] recordContent = readNextRecord(in, recordHeader, "WARC-Block-Digest");
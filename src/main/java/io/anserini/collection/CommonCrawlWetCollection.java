@@ -20,17 +20,11 @@ import org.apache.commons.io.input.ReaderInputStream;
 import org.apache.logging.log4j.LogManager;
 
 import java.io.BufferedReader;
-import java.io.DataInputStream;
-import java.io.EOFException;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.util.Locale;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 /**
  * A collection of WET files from CommonCrawl (https://commoncrawl.org/the-data/get-started/#WET-Format).
@@ -61,12 +55,12 @@ public class CommonCrawlWetCollection extends DocumentCollection<CommonCrawlWetC
    */
   public static class Segment extends FileSegment<CommonCrawlWetCollection.Document> {
 
-    protected DataInputStream stream;
+    protected WarcReader stream;
     private String rawContent = null; // raw content from buffered string
 
     public Segment(Path path) throws IOException {
       super(path);
-      this.stream = new DataInputStream(new GZIPInputStream(Files.newInputStream(path, StandardOpenOption.READ)));
+      this.stream = WarcReader.open(path);
     }
 
     public Segment(BufferedReader bufferedReader) throws IOException {
@@ -108,14 +102,14 @@ public class CommonCrawlWetCollection extends DocumentCollection<CommonCrawlWetC
     }
 
     /**
-     * Reads in a WARC record from a data input stream.
+     * Reads in a WARC record from a WARC reader.
      *
-     * @param in the input stream
+     * @param in the WARC reader
      * @return a WARC record (or null if EOF)
      * @throws IOException if error encountered reading from stream
      */
 
-    public static Document readNextWarcRecord(DataInputStream in)
+    public static Document readNextWarcRecord(WarcReader in)
         throws IOException {
       StringBuilder recordHeader = new StringBuilder();
       byte[] recordContent = readNextRecord(in, recordHeader, "Content-Length");
@@ -147,91 +141,19 @@ public class CommonCrawlWetCollection extends DocumentCollection<CommonCrawlWetC
     /**
      * Performs the actual heavy lifting of reading in the next WARC record.
      *
-     * @param in the data input stream
+     * @param in the WARC reader
      * @param headerBuffer a blank string buffer to contain the WARC header
      * @param headerEndKey delimiter of the end of the header
      * @return the content bytes (with the headerBuffer populated)
      * @throws IOException if error encountered reading from stream
      */
-    protected static byte[] readNextRecord(DataInputStream in, StringBuilder headerBuffer, String headerEndKey) throws IOException {
+    protected static byte[] readNextRecord(WarcReader in, StringBuilder headerBuffer, String headerEndKey) throws IOException {
       if (in == null || headerBuffer == null) {
         throw new NoSuchElementException();
       }
 
-      String line = null;
-      boolean foundMark = false;
-      boolean inHeader = true;
-      byte[] retContent = null;
-
-      // read WARC header
-      // first - find the beginning of WARC header
-      while ((!foundMark) && ((line = readLineFromInputStream(in)) != null)) {
-        if (line.startsWith(WARC_VERSION)) {
-          foundMark = true;
-        }
-      }
-
-      // no WARC mark?
-      if (!foundMark) {
-        throw new NoSuchElementException();
-      }
-
-      // then read to the first newline
-      // make sure we get the content length here
-      int contentLength = -1;
-      boolean reachHeaderEnd = false;
-      while (!reachHeaderEnd && inHeader && ((line = readLineFromInputStream(in)) != null)) {
-        if ((line.trim().length() == 0 && reachHeaderEnd)) {
-          inHeader = false;
-        } else {
-          headerBuffer.append(line);
-          headerBuffer.append(WarcBaseDocument.NEWLINE);
-          String[] thisHeaderPieceParts = line.split(":", 2);
-          if (thisHeaderPieceParts.length == 2) {
-            if (thisHeaderPieceParts[0].toLowerCase(Locale.US).startsWith(headerEndKey.toLowerCase(Locale.US))){
-              reachHeaderEnd = true;
-            }
-            if (thisHeaderPieceParts[0].toLowerCase(Locale.US).startsWith("content-length")) {
-              try {
-                contentLength = Integer.parseInt(thisHeaderPieceParts[1].trim()) + 1;
-              } catch (NumberFormatException nfEx) {
-                contentLength = -1;
-              }
-            }
-          }
-        }
-      }
-
-      if (contentLength < 0) {
-        throw new NoSuchElementException();
-      }
-
-      // now read the bytes of the content
-      retContent = new byte[contentLength];
-      int totalWant = contentLength;
-      int totalRead = 0;
-      while (totalRead < contentLength) {
-        try {
-          int numRead = in.read(retContent, totalRead, totalWant);
-          if (numRead < 0) {
-            throw new NoSuchElementException();
-          } else {
-            totalRead += numRead;
-            totalWant = contentLength - totalRead;
-          } // end if (numRead < 0) / else
-        } catch (EOFException eofEx) {
-          // resize to what we have
-          if (totalRead > 0) {
-            byte[] newReturn = new byte[totalRead];
-            System.arraycopy(retContent, 0, newReturn, 0, totalRead);
-            return newReturn;
-          } else {
-            throw new NoSuchElementException();
-          }
-        } // end try/catch (EOFException)
-      } // end while (totalRead < contentLength)
-
-      return retContent;
+      // The content extends one byte beyond its length.
+      return in.readRecord(WARC_VERSION, headerEndKey, headerBuffer, 1);
     }
 
     @Override
@@ -0,0 +1,100 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens the files of a collection that may be compressed, based on their suffix: <code>.gz</code> for gzip and
+ * <code>.zst</code> (or <code>.zstd</code>) for zstd. Files in a block-compressed variant of either format (BGZF, or
+ * seekable zstd) are decompressed block by block in parallel; see {@link BlockCompressedInputStream}.
+ */
+public final class CompressedFiles {
+  /** Number of blocks decompressed ahead of the reader of a block-compressed file. */
+  public static final int READ_AHEAD = 8;
+
+  private CompressedFiles() {}
+
+  /**
+   * Checks whether a file is compressed in a format that {@link #open(Path, int)} decompresses.
+   *
+   * @param path path of the file
+   * @return whether the file is compressed
+   */
+  public static boolean isCompressed(Path path) {
+    return isGzip(path) || isZstd(path);
+  }
+
+  private static boolean isGzip(Path path) {
+    return path.toString().endsWith(".gz");
+  }
+
+  private static boolean isZstd(Path path) {
+    String name = path.toString();
+    return name.endsWith(".zst") || name.endsWith(".zstd");
+  }
+
+  /**
+   * Opens a file, decompressing it if it's compressed.
+   *
+   * @param path path of the file
+   * @param bufferSize size of the buffer for reading the file
+   * @return stream of the (decompressed) bytes of the file
+   * @throws IOException if error encountered opening the file
+   */
+  public static InputStream open(Path path, int bufferSize) throws IOException {
+    if (isGzip(path)) {
+      if (BlockCompressedInputStream.isBgzf(path)) {
+        return BlockCompressedInputStream.openBgzf(path, READ_AHEAD);
+      }
+      return new GZIPInputStream(Files.newInputStream(path, StandardOpenOption.READ), bufferSize);
+    } else if (isZstd(path)) {
+      if (BlockCompressedInputStream.isSeekableZstd(path)) {
+        return BlockCompressedInputStream.openSeekableZstd(path, READ_AHEAD);
+      }
+      return new BufferedInputStream(new ZstdInputStream(Files.newInputStream(path, StandardOpenOption.READ)),
+          bufferSize);
+    }
+    return new BufferedInputStream(Files.newInputStream(path, StandardOpenOption.READ), bufferSize);
+  }
+
+  /**
+   * Decompresses a stream of the bytes of a file, e.g., a file read out of an archive, if the file is compressed.
+   *
+   * @param stream stream of the bytes of the file
+   * @param name name of the file
+   * @param bufferSize size of the buffer for reading the stream
+   * @return stream of the (decompressed) bytes of the file
+   * @throws IOException if error encountered reading the stream
+   */
+  public static InputStream decompress(InputStream stream, String name, int bufferSize) throws IOException {
+    if (name.endsWith(".gz")) {
+      return new GZIPInputStream(stream, bufferSize);
+    } else if (name.endsWith(".zst") || name.endsWith(".zstd")) {
+      return new BufferedInputStream(new ZstdInputStream(stream), bufferSize);
+    }
+    return stream;
+  }
+}
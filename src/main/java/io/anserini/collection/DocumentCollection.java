@@ -16,11 +16,15 @@
 
 package io.anserini.collection;
 
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
@@ -35,6 +39,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -47,6 +52,13 @@ import java.util.stream.Collectors;
  * directory. The file segment implementation is responsible for reading each file to generate
  * {@link SourceDocument}s for indexing. </p>
  *
+ * <p>Files may also come bundled in archives (see {@link ArchiveFiles}), either inside the
+ * directory or as the collection itself, unless the collection reads the archive as a file of
+ * its own (see {@link #handlesArchive(Path)}, e.g., <code>.tgz</code> files of the New York Times
+ * collection). Qualified
+ * files in an archive are read without extracting the archive, each through
+ * {@link #createFileSegment(BufferedReader)}.</p>
+ *
  * <p>The steps of adding a new collection class are:</p>
  *
  * <ol>
@@ -77,6 +89,7 @@ public abstract class DocumentCollection<T extends SourceDocument> implements It
   protected Set<String> skippedFileSuffix = new HashSet<>();
   protected Set<String> allowedFileSuffix = new HashSet<>();
   protected Set<String> skippedDir = new HashSet<>();
+  protected StringTransform htmlTransform = JsoupStringTransform.SINGLETON;
 
   /**
    * Returns the path of the collection.
@@ -87,6 +100,27 @@ public abstract class DocumentCollection<T extends SourceDocument> implements It
     return path;
   }
 
+  /**
+   * Returns the transform that extracts the text of the HTML documents of the collection.
+   *
+   * @return transform for HTML documents
+   */
+  public final StringTransform getHtmlTransform() {
+    return htmlTransform;
+  }
+
+  /**
+   * Sets the transform that extracts the text of the HTML documents of the collection (see {@link HtmlDocument}),
+   * which is {@link JsoupStringTransform} unless set otherwise. The transform applies to the segments of the
+   * collection's iterator; segments created directly with {@code createFileSegment} get it through
+   * {@link FileSegment#setHtmlTransform(StringTransform)}.
+   *
+   * @param transform transform for HTML documents
+   */
+  public final void setHtmlTransform(StringTransform transform) {
+    this.htmlTransform = transform;
+  }
+
   /**
    * Creates a {@code FileSegment} from a path.
    *
@@ -105,18 +139,68 @@ public abstract class DocumentCollection<T extends SourceDocument> implements It
    */
   public abstract FileSegment<T> createFileSegment(BufferedReader bufferedReader) throws IOException;
 
+  /**
+   * Creates a {@code FileSegment} from a file in an archive, decompressing the file if it's
+   * compressed.
+   *
+   * @param name name of the file in the archive
+   * @param stream stream of the bytes of the file
+   * @return {@code FileSegment} with the contents of the file
+   * @throws IOException if file access error encountered
+   */
+  public FileSegment<T> createFileSegment(String name, InputStream stream) throws IOException {
+    return createFileSegment(ArchiveFiles.newReader(stream, name));
+  }
+
+  /**
+   * Checks whether a file can be split into ranges of lines that are read as file segments of their own; see
+   * {@link FileSplits}. By default, files can't be split.
+   *
+   * @param p path
+   * @return whether the file can be split
+   */
+  public boolean isSplittable(Path p) {
+    return false;
+  }
+
+  /**
+   * Creates a {@code FileSegment} from a range of a file that can be split; see {@link #isSplittable(Path)}. By
+   * default, only the range covering the whole file is accepted, and read as the file itself.
+   *
+   * @param p path
+   * @param start start of the range (inclusive), at the start of a line
+   * @param end end of the range (exclusive), at the start of a line or the end of the file
+   * @return {@code FileSegment} with the documents in the range
+   * @throws IOException if file access error encountered
+   * @throws IllegalArgumentException if the collection can't split the file and the range isn't the whole file
+   */
+  public FileSegment<T> createFileSegment(Path p, long start, long end) throws IOException {
+    if (start == 0 && end == Files.size(p)) {
+      return createFileSegment(p);
+    }
+    throw new IllegalArgumentException(String.format("%s can't split %s, but was given the range [%d, %d)",
+        getClass().getSimpleName(), p, start, end));
+  }
+
   /**
    * An iterator over {@code FileSegment} for the {@code DocumentCollection} iterable.
-   * A collection is comprised of one or more file segments.
+   * A collection is comprised of one or more file segments. The files in archives come after the
+   * other files, and are each read into memory in turn, unless they're too large (see
+   * {@link ArchiveFiles#MAX_IN_MEMORY_SIZE}): those are read straight from the archive, so their
+   * segments can only be read until the iterator moves on.
    */
   @Override
   public final Iterator<FileSegment<T>> iterator() {
-    List<Path> paths = discover(this.path);
+    List<Path> paths = new ArrayList<>();
+    List<Path> archives = new ArrayList<>();
+    discover(this.path, paths::add, archives::add);
     Iterator<Path> pathsIterator = paths.iterator();
+    Iterator<Path> archivesIterator = archives.iterator();
 
     return new Iterator<>() {
       Path segmentPath;
       FileSegment<T> segment;
+      ArchiveInputStream archive;
 
       @Override
       public boolean hasNext() {
@@ -124,11 +208,12 @@ public abstract class DocumentCollection<T extends SourceDocument> implements It
           return true;
         }
         if (!pathsIterator.hasNext()) {
-          return false;
+          return nextArchivedSegment();
         } else {
           try {
             segmentPath = pathsIterator.next();
             segment = createFileSegment(segmentPath);
+            segment.setHtmlTransform(htmlTransform);
           } catch (IOException e) {
             return false;
           }
@@ -136,6 +221,37 @@ public abstract class DocumentCollection<T extends SourceDocument> implements It
         return true;
       }
 
+      private boolean nextArchivedSegment() {
+        try {
+          while (true) {
+            if (archive == null) {
+              if (!archivesIterator.hasNext()) {
+                return false;
+              }
+              archive = ArchiveFiles.open(archivesIterator.next());
+            }
+
+            ArchiveEntry entry = archive.getNextEntry();
+            if (entry == null) {
+              archive.close();
+              archive = null;
+            } else if (!entry.isDirectory() && acceptsArchivedFile(entry.getName())) {
+              if (ArchiveFiles.fitsInMemory(entry)) {
+                // The file is read before the archive moves on, so that the segment stands on its own.
+                byte[] bytes = archive.readAllBytes();
+                segment = createFileSegment(entry.getName(), new ByteArrayInputStream(bytes));
+              } else {
+                segment = createFileSegment(entry.getName(), ArchiveFiles.currentFile(archive));
+              }
+              segment.setHtmlTransform(htmlTransform);
+              return true;
+            }
+          }
+        } catch (IOException e) {
+          return false;
+        }
+      }
+
       @Override
       public FileSegment<T> next() throws NoSuchElementException {
         if (!hasNext()) {
@@ -160,7 +276,9 @@ public abstract class DocumentCollection<T extends SourceDocument> implements It
    * @return paths in the collection
    */
   public List<Path> getSegmentPaths() {
-    return discover(this.path);
+    List<Path> paths = new ArrayList<>();
+    discover(this.path, paths::add, null);
+    return paths;
   }
 
   /**
@@ -171,56 +289,156 @@ public abstract class DocumentCollection<T extends SourceDocument> implements It
    * @return file segments in current shard
    */
   public List<Path> getSegmentPaths(int shardCount, int currShard) {
-    List<Path> segments = discover(this.path);
-    return segments.stream().filter(x -> x.toString().hashCode() % shardCount == currShard).collect(Collectors.toList());
+    List<Path> segments = getSegmentPaths();
+    return segments.stream().filter(x -> inShard(x, shardCount, currShard)).collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the archives in the collection, whose qualified files are file segments.
+   *
+   * @return archives in the collection
+   */
+  public List<Path> getArchivePaths() {
+    List<Path> archives = new ArrayList<>();
+    discover(this.path, null, archives::add);
+    return archives;
+  }
+
+  /**
+   * Returns the archives in the collection, taking into account sharding. All the files in an
+   * archive are in the same shard.
+   *
+   * @param currShard the current shard
+   * @param shardCount the total number of shards
+   * @return archives in current shard
+   */
+  public List<Path> getArchivePaths(int shardCount, int currShard) {
+    List<Path> archives = getArchivePaths();
+    return archives.stream().filter(x -> inShard(x, shardCount, currShard)).collect(Collectors.toList());
   }
 
-  // Private method for walking a path.
-  private List<Path> discover(Path p) {
-    final List<Path> paths = new ArrayList<>();
+  /**
+   * Walks the collection, handing over each file segment and archive as soon as it's found, rather
+   * than once the whole collection has been walked as {@link #getSegmentPaths()} does. Files are
+   * handed over in the same order, with the same filtering, as {@link #getSegmentPaths()} and
+   * {@link #getArchivePaths()} return them. The walk stops early if the walking thread is
+   * interrupted.
+   *
+   * @param shardCount the total number of shards, or a number less than 2 for no sharding
+   * @param currShard the current shard
+   * @param segmentConsumer consumer of the paths of file segments in the current shard
+   * @param archiveConsumer consumer of the archives in the current shard
+   */
+  public void walk(int shardCount, int currShard, Consumer<Path> segmentConsumer, Consumer<Path> archiveConsumer) {
+    discover(this.path,
+        x -> {
+          if (shardCount < 2 || inShard(x, shardCount, currShard)) {
+            segmentConsumer.accept(x);
+          }
+        },
+        x -> {
+          if (shardCount < 2 || inShard(x, shardCount, currShard)) {
+            archiveConsumer.accept(x);
+          }
+        });
+  }
 
+  /**
+   * Checks whether a file segment or archive is in the current shard.
+   *
+   * @param path path of the file segment or archive
+   * @param shardCount the total number of shards
+   * @param currShard the current shard
+   * @return whether the file is in the current shard
+   */
+  protected boolean inShard(Path path, int shardCount, int currShard) {
+    return Math.floorMod(path.toString().hashCode(), shardCount) == currShard;
+  }
+
+  /**
+   * Checks whether the collection reads an archive as a file segment of its own, rather than
+   * having the files in it read one by one. By default, that's the case if the collection
+   * explicitly accepts the archive suffix.
+   *
+   * @param p path of the archive
+   * @return whether the archive is a file segment
+   */
+  protected boolean handlesArchive(Path p) {
+    return allowedFileSuffix.contains(ArchiveFiles.getArchiveSuffix(p));
+  }
+
+  /**
+   * Checks whether a file in an archive is a file segment of the collection, applying the same
+   * rules as to the files in the collection directory.
+   *
+   * @param name name of the file in the archive, e.g., <code>dir/file.jsonl</code>
+   * @return whether the file is a file segment
+   */
+  public boolean acceptsArchivedFile(String name) {
+    String[] parts = name.split("/");
+    for (int i = 0; i < parts.length - 1; i++) {
+      if (skippedDir.contains(parts[i])) {
+        return false;
+      }
+    }
+    return accepts(parts[parts.length - 1]);
+  }
+
+  // Checks the name of a file against the allowed and skipped prefixes and suffixes.
+  private boolean accepts(String fileName) {
+    boolean shouldAdd = true;
+    for (String s : skippedFileSuffix) {
+      if (fileName.endsWith(s)) {
+        shouldAdd = false;
+        break;
+      }
+    }
+    if (shouldAdd && !allowedFileSuffix.isEmpty()) {
+      shouldAdd = false;
+      for (String s : allowedFileSuffix) {
+        if (fileName.endsWith(s)) {
+          shouldAdd = true;
+          break;
+        }
+      }
+    }
+    if (shouldAdd) {
+      for (String s : skippedFilePrefix) {
+        if (fileName.startsWith(s)) {
+          shouldAdd = false;
+          break;
+        }
+      }
+    }
+    if (shouldAdd && !allowedFilePrefix.isEmpty()) {
+      shouldAdd = false;
+      for (String s : allowedFilePrefix) {
+        if (fileName.startsWith(s)) {
+          shouldAdd = true;
+          break;
+        }
+      }
+    }
+    return shouldAdd;
+  }
+
+  // Private method for walking a path, handing the files and archives it contains over to the consumers that aren't null.
+  private void discover(Path p, Consumer<Path> paths, Consumer<Path> archives) {
     FileVisitor<Path> fv = new SimpleFileVisitor<>() {
       @Override
       public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+          return FileVisitResult.TERMINATE;
+        }
         Path name = file.getFileName();
-        boolean shouldAdd = true;
-        if (name != null) {
-          String fileName = name.toString();
-          for (String s : skippedFileSuffix) {
-            if (fileName.endsWith(s)) {
-              shouldAdd = false;
-              break;
-            }
+        if (ArchiveFiles.isArchive(file) && !handlesArchive(file)) {
+          if (archives != null) {
+            archives.accept(file);
           }
-          if (shouldAdd && !allowedFileSuffix.isEmpty()) {
-            shouldAdd = false;
-            for (String s : allowedFileSuffix) {
-              if (fileName.endsWith(s)) {
-                shouldAdd = true;
-                break;
-              }
-            }
+        } else if (name == null || accepts(name.toString())) {
+          if (paths != null) {
+            paths.accept(file);
           }
-          if (shouldAdd) {
-            for (String s : skippedFilePrefix) {
-              if (fileName.startsWith(s)) {
-                shouldAdd = false;
-                break;
-              }
-            }
-          }
-          if (shouldAdd && !allowedFilePrefix.isEmpty()) {
-            shouldAdd = false;
-            for (String s : allowedFilePrefix) {
-              if (fileName.startsWith(s)) {
-                shouldAdd = true;
-                break;
-              }
-            }
-          }
-        }
-        if (shouldAdd) {
-          paths.add(file);
         }
         return FileVisitResult.CONTINUE;
       }
@@ -246,6 +464,5 @@ public abstract class DocumentCollection<T extends SourceDocument> implements It
     } catch (IOException e) {
       LOG.error("IOException during file visiting", e);
     }
-    return paths;
   }
 }
@@ -58,6 +58,9 @@ public abstract class FileSegment<T extends SourceDocument> implements Iterable<
    */
   protected boolean error = false;
 
+  // Transform set on the HTML documents of the segment as they are returned.
+  private StringTransform htmlTransform = JsoupStringTransform.SINGLETON;
+
   public FileSegment(Path segmentPath) {
     this.path = segmentPath;
   }
@@ -74,6 +77,16 @@ public abstract class FileSegment<T extends SourceDocument> implements Iterable<
     return error;
   }
 
+  /**
+   * Sets the transform that extracts the text of the {@link HtmlDocument}s of this segment; see
+   * {@link DocumentCollection#setHtmlTransform(StringTransform)}.
+   *
+   * @param transform transform for HTML documents
+   */
+  public final void setHtmlTransform(StringTransform transform) {
+    this.htmlTransform = transform;
+  }
+
   public final Path getSegmentPath() {
     return path;
   }
@@ -121,6 +134,9 @@ public abstract class FileSegment<T extends SourceDocument> implements Iterable<
         }
         T ret = bufferedRecord;
         bufferedRecord = null;
+        if (ret instanceof HtmlDocument) {
+          ((HtmlDocument) ret).setHtmlTransform(htmlTransform);
+        }
         return ret;
       }
 
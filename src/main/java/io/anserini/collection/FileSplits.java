@@ -0,0 +1,142 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Splits uncompressed files with one document per line into byte ranges that start at the start of a line, so that
+ * the parts of a large file can be read as file segments of their own; see
+ * {@link DocumentCollection#createFileSegment(Path, long, long)}.
+ */
+public final class FileSplits {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private FileSplits() {}
+
+  /**
+   * Splits a file into ranges of about the given size. Each range but the first starts right after a newline, and
+   * runs to the start of the next range, so the lines of the file are each in exactly one range.
+   *
+   * @param path path of the file
+   * @param splitSize target size of a range, in bytes
+   * @return bounds of the ranges: range <i>i</i> runs from <code>bounds[i]</code> (inclusive) to
+   *         <code>bounds[i + 1]</code> (exclusive)
+   * @throws IOException if error encountered reading the file
+   */
+  public static long[] split(Path path, long splitSize) throws IOException {
+    if (splitSize <= 0) {
+      throw new IllegalArgumentException("Split size must be positive: " + splitSize);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long[] bounds = new long[(int) Math.min(size / splitSize + 2, Integer.MAX_VALUE)];
+      int count = 0;
+      bounds[count++] = 0;
+
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      long start = 0;
+      while (size - start > splitSize) {
+        long next = nextLineStart(channel, start + splitSize, buffer);
+        if (next < 0 || next >= size) {
+          break;
+        }
+        bounds[count++] = next;
+        start = next;
+      }
+      bounds[count++] = size;
+      return Arrays.copyOf(bounds, count);
+    }
+  }
+
+  // Returns the position right after the first newline at or after the given position, or -1 if there's none.
+  private static long nextLineStart(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+    while (true) {
+      buffer.clear();
+      int n = channel.read(buffer, position);
+      if (n <= 0) {
+        return -1;
+      }
+      for (int i = 0; i < n; i++) {
+        if (buffer.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += n;
+    }
+  }
+
+  /**
+   * Opens a range of a file.
+   *
+   * @param path path of the file
+   * @param start start of the range (inclusive)
+   * @param end end of the range (exclusive)
+   * @param bufferSize size of the buffer
+   * @return stream of the bytes in the range
+   * @throws IOException if error encountered opening the file
+   */
+  public static InputStream open(Path path, long start, long end, int bufferSize) throws IOException {
+    return new BufferedInputStream(new RangeInputStream(FileChannel.open(path, StandardOpenOption.READ), start, end),
+        bufferSize);
+  }
+
+  private static class RangeInputStream extends InputStream {
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+
+    RangeInputStream(FileChannel channel, long start, long end) {
+      this.channel = channel;
+      this.position = start;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (position >= end) {
+        return -1;
+      }
+      int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+      if (n > 0) {
+        position += n;
+      }
+      return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
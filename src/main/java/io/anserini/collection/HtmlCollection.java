@@ -26,6 +26,7 @@ import org.apache.logging.log4j.Logger;
 import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
@@ -48,6 +49,14 @@ public class HtmlCollection extends DocumentCollection<HtmlCollection.Document>
   public HtmlCollection() {
   }
 
+  /**
+   * Gzipped tar archives of HTML files are read by {@link Segment} itself.
+   */
+  @Override
+  protected boolean handlesArchive(Path p) {
+    return p.toString().endsWith(".tgz") || p.toString().endsWith(".tar.gz");
+  }
+
   @Override
   public FileSegment<HtmlCollection.Document> createFileSegment(Path p) throws IOException {
     return new Segment(p);
@@ -58,6 +67,14 @@ public class HtmlCollection extends DocumentCollection<HtmlCollection.Document>
     return new Segment(bufferedReader);
   }
 
+  /**
+   * Each file in an archive (e.g., a zip archive) is a document of its own.
+   */
+  @Override
+  public FileSegment<HtmlCollection.Document> createFileSegment(String name, InputStream stream) throws IOException {
+    return new Segment(Paths.get(name), ArchiveFiles.newReader(stream, name));
+  }
+
   /**
    * An individual file in {@code HtmlCollection}.
    */
@@ -78,20 +95,33 @@ public class HtmlCollection extends DocumentCollection<HtmlCollection.Document>
       inputStream = new TarArchiveInputStream(new ReaderInputStream(bufferedReader, StandardCharsets.UTF_8));
     }
 
+    /**
+     * Reads a single document, e.g., a file in an archive, whose name gives the docid.
+     *
+     * @param path path of the file
+     * @param bufferedReader reader of the file
+     */
+    public Segment(Path path, BufferedReader bufferedReader) {
+      super(path);
+      this.bufferedReader = bufferedReader;
+    }
+
     @Override
     public void readNext() throws IOException {
       try {
-        if (path.toString().endsWith(".tgz") || path.toString().endsWith(".tar.gz")) {
+        if (inputStream != null) {
           getNextEntry();
           bufferedReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
           bufferedRecord = new Document(bufferedReader, Paths.get(nextEntry.getName()).getFileName().toString().replaceAll("\\.html$", ""));
         } else {
-          bufferedReader = new BufferedReader(new InputStreamReader(new FileInputStream(path.toFile()), StandardCharsets.UTF_8));
+          if (bufferedReader == null) {
+            bufferedReader = new BufferedReader(new InputStreamReader(new FileInputStream(path.toFile()), StandardCharsets.UTF_8));
+          }
           bufferedRecord = new Document(bufferedReader, path.getFileName().toString().replaceAll("\\.html$", ""));
           atEOF = true;
         }
       } catch (IOException e1) {
-        if (path.toString().endsWith(".html")) {
+        if (inputStream == null) {
           atEOF = true;
         }
         throw e1;
@@ -114,9 +144,10 @@ public class HtmlCollection extends DocumentCollection<HtmlCollection.Document>
   /**
    * A generic document in {@code HtmlCollection}.
    */
-  public static class Document implements SourceDocument {
+  public static class Document implements HtmlDocument {
     private String id;
     private String raw;
+    private StringTransform htmlTransform = JsoupStringTransform.SINGLETON;
 
     public Document(BufferedReader bRdr, String fileName) {
       StringBuilder sb = new StringBuilder();
@@ -141,7 +172,7 @@ public class HtmlCollection extends DocumentCollection<HtmlCollection.Document>
     @Override
     public String contents() {
       try {
-        return JsoupStringTransform.SINGLETON.apply(raw).trim();
+        return htmlTransform.apply(raw).trim();
       } catch (Exception e) {
         // If there's an exception, just eat it and return empty contents.
         return "";
@@ -153,6 +184,11 @@ public class HtmlCollection extends DocumentCollection<HtmlCollection.Document>
       return raw;
     }
 
+    @Override
+    public void setHtmlTransform(StringTransform transform) {
+      htmlTransform = transform;
+    }
+
     @Override
     public boolean indexable() {
       return true;
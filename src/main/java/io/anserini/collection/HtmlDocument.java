@@ -0,0 +1,31 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+/**
+ * A {@link SourceDocument} whose contents are extracted from HTML. The transform that extracts the text is that of
+ * the collection the document comes from (see {@link DocumentCollection#setHtmlTransform(StringTransform)}), which
+ * the {@link FileSegment} sets on each document it returns.
+ */
+public interface HtmlDocument extends SourceDocument {
+  /**
+   * Sets the transform that extracts the text of the document.
+   *
+   * @param transform transform for HTML documents
+   */
+  void setHtmlTransform(StringTransform transform);
+}
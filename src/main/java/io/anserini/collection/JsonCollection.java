@@ -16,6 +16,11 @@
 
 package io.anserini.collection;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -24,22 +29,21 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.Paths;
+import java.text.ParseException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.zip.GZIPInputStream;
+import java.util.Set;
 
 /**
  * A JSON document collection.
@@ -71,23 +75,58 @@ import java.util.zip.GZIPInputStream;
  * {"id": "doc1", "contents": "this is the contents 1."}
  * {"id": "doc2", "contents": "this is the contents 2."}
  * </pre>
- *
+ * Files are parsed as a stream of tokens rather than into trees (see {@link StreamingSegment}): only the
+ * <code>id</code>, the <code>contents</code>, and the fields set by {@link #setFields(Set)} are extracted, and the
+ * raw document is the original text of its JSON object.
  */
 public class JsonCollection extends DocumentCollection<JsonCollection.Document> {
   private static final Logger LOG = LogManager.getLogger(JsonCollection.class);
+  private static final int READ_BUFFER_SIZE = 1 << 16;
+
+  private Set<String> fields = null;
 
   public JsonCollection() {
   }
 
   public JsonCollection(Path path) {
     this.path = path;
-    this.allowedFileSuffix = new HashSet<>(Arrays.asList(".json", ".jsonl", ".gz"));
+    this.allowedFileSuffix = new HashSet<>(Arrays.asList(".json", ".jsonl", ".gz", ".zst"));
+  }
+
+  /**
+   * Restricts the fields other than <code>id</code> and <code>contents</code> extracted from each document, e.g., to
+   * the fields that are going to be indexed.
+   *
+   * @param fields names of the fields to extract, or null to extract all fields
+   */
+  public void setFields(Set<String> fields) {
+    this.fields = fields;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public FileSegment<JsonCollection.Document> createFileSegment(Path p) throws IOException {
-    return new Segment(p);
+    return new StreamingSegment(p, fields);
+  }
+
+  /**
+   * Files in archives are parsed as a stream of tokens as well, rather than read through a {@link BufferedReader}.
+   */
+  @Override
+  public FileSegment<JsonCollection.Document> createFileSegment(String name, InputStream stream) throws IOException {
+    return new StreamingSegment(Paths.get(name), CompressedFiles.decompress(stream, name, READ_BUFFER_SIZE), fields);
+  }
+
+  /**
+   * Files with one JSON object per line (<code>.jsonl</code>) can be split, unless they're compressed.
+   */
+  @Override
+  public boolean isSplittable(Path p) {
+    return p.toString().endsWith(".jsonl");
+  }
+
+  @Override
+  public FileSegment<JsonCollection.Document> createFileSegment(Path p, long start, long end) throws IOException {
+    return new StreamingSegment(p, FileSplits.open(p, start, end, READ_BUFFER_SIZE), fields);
   }
 
   @SuppressWarnings("unchecked")
@@ -107,8 +146,8 @@ public class JsonCollection extends DocumentCollection<JsonCollection.Document>
     public Segment(Path path) throws IOException {
       super(path);
 
-      if (path.toString().endsWith(".gz")) {
-        InputStream stream = new GZIPInputStream(Files.newInputStream(path, StandardOpenOption.READ), BUFFER_SIZE);
+      if (CompressedFiles.isCompressed(path)) {
+        InputStream stream = CompressedFiles.open(path, BUFFER_SIZE);
         bufferedReader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
       } else {
         bufferedReader = new BufferedReader(new FileReader(path.toString()));
@@ -159,25 +198,230 @@ public class JsonCollection extends DocumentCollection<JsonCollection.Document>
     }
   }
 
+  /**
+   * A file in a JSON collection read as a stream of tokens. The bytes of each top-level JSON object (or each element of
+   * a top-level array) are delimited by a scan that only tracks nesting and strings, and then parsed by a streaming
+   * parser that skips the values of the fields that aren't wanted without decoding them. The bytes of the object are
+   * kept as the raw document, and only decoded into a string if the raw document is asked for.
+   */
+  public static class StreamingSegment extends FileSegment<Document> {
+    private final Set<String> fields;
+    private final InputStream stream;
+
+    private final byte[] chunk = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private byte[] object = new byte[BUFFER_SIZE];
+
+    /**
+     * Opens a file.
+     *
+     * @param path path of the file, compressed if its name ends with <code>.gz</code> or <code>.zst</code>
+     * @param fields names of the fields other than <code>id</code> and <code>contents</code> to extract, or null to
+     *               extract all fields
+     * @throws IOException if error encountered opening the file
+     */
+    public StreamingSegment(Path path, Set<String> fields) throws IOException {
+      this(path, CompressedFiles.open(path, READ_BUFFER_SIZE), fields);
+    }
+
+    /**
+     * Reads a stream of (decompressed) JSON objects, e.g., a range of a file; see {@link FileSplits}.
+     *
+     * @param path path of the file, for error messages
+     * @param stream stream
+     * @param fields names of the fields other than <code>id</code> and <code>contents</code> to extract, or null to
+     *               extract all fields
+     * @throws IOException if error encountered reading from the stream
+     */
+    public StreamingSegment(Path path, InputStream stream, Set<String> fields) throws IOException {
+      super(path);
+      this.fields = fields;
+
+      this.stream = stream;
+
+      // Skips the byte order mark, if any.
+      if (fill() && limit - position >= 3 &&
+          (chunk[0] & 0xFF) == 0xEF && (chunk[1] & 0xFF) == 0xBB && (chunk[2] & 0xFF) == 0xBF) {
+        position = 3;
+      }
+    }
+
+    private boolean fill() throws IOException {
+      if (position < limit) {
+        return true;
+      }
+      int n = stream.read(chunk, 0, chunk.length);
+      position = 0;
+      limit = Math.max(n, 0);
+      return n > 0;
+    }
+
+    // Reads the bytes of the next top-level object into object[]; returns their length, or -1 at the end of the file.
+    private int nextObject() throws IOException, ParseException {
+      // Whitespace, commas and brackets between top-level objects are skipped; anything else is an error.
+      boolean junk = false;
+      while (true) {
+        if (!fill()) {
+          if (junk) {
+            throw new ParseException("Unexpected content outside of JSON objects in " + path, 0);
+          }
+          return -1;
+        }
+        byte b = chunk[position];
+        if (b == '{') {
+          if (junk) {
+            throw new ParseException("Unexpected content outside of JSON objects in " + path, 0);
+          }
+          break;
+        }
+        if (b != ' ' && b != '\n' && b != '\r' && b != '\t' && b != ',' && b != '[' && b != ']') {
+          junk = true;
+        }
+        position++;
+      }
+
+      int length = 0;
+      int depth = 0;
+      boolean inString = false;
+      boolean escaped = false;
+      do {
+        if (!fill()) {
+          throw new ParseException("Truncated JSON object at the end of " + path, 0);
+        }
+
+        // Scans the rest of the chunk, or up to the end of the object.
+        int start = position;
+        while (position < limit) {
+          byte b = chunk[position++];
+          if (inString) {
+            if (escaped) {
+              escaped = false;
+            } else if (b == '\\') {
+              escaped = true;
+            } else if (b == '"') {
+              inString = false;
+            }
+          } else if (b == '"') {
+            inString = true;
+          } else if (b == '{' || b == '[') {
+            depth++;
+          } else if (b == '}' || b == ']') {
+            if (--depth == 0) {
+              break;
+            }
+          }
+        }
+
+        int n = position - start;
+        if (length + n > object.length) {
+          object = Arrays.copyOf(object, Math.max(object.length * 2, length + n));
+        }
+        System.arraycopy(chunk, start, object, length, n);
+        length += n;
+      } while (depth > 0);
+
+      return length;
+    }
+
+    @Override
+    public void readNext() throws IOException, ParseException, NoSuchElementException {
+      int length = nextObject();
+      if (length < 0) {
+        atEOF = true;
+        throw new NoSuchElementException("Reached end of file");
+      }
+
+      try {
+        bufferedRecord = Document.parse(object, 0, length, fields);
+      } catch (JsonProcessingException e) {
+        throw new ParseException(e.getOriginalMessage(), 0);
+      }
+    }
+
+    @Override
+    public void close() {
+      super.close();
+      try {
+        stream.close();
+      } catch (IOException e) {
+        // There's really nothing to be done, so just silently eat the exception.
+      }
+    }
+  }
+
   /**
    * A document in a JSON collection.
    */
   public static class Document extends MultifieldSourceDocument {
     private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = new JsonFactory();
 
     private String id;
     private String contents;
     private String raw;
+    // Sources of the raw document until it is asked for.
+    private byte[] rawBytes;
+    private JsonNode json;
     private Map<String, String> fields;
 
     public static Document fromString(String raw) throws IOException {
-      MappingIterator<JsonNode> iterator =
-          MAPPER.readerFor(JsonNode.class).readValues(new ByteArrayInputStream(raw.getBytes()));
-      if (iterator.hasNext()) {
-        return new Document(iterator.next());
+      byte[] bytes = raw.getBytes(StandardCharsets.UTF_8);
+      try (JsonParser parser = FACTORY.createParser(bytes)) {
+        if (parser.nextToken() == null) {
+          return null;
+        }
       }
 
-      return null;
+      Document doc = parse(bytes, 0, bytes.length, null);
+      doc.raw = raw;
+      doc.rawBytes = null;
+      return doc;
+    }
+
+    /**
+     * Parses a document from the bytes of a JSON object, with a streaming parser.
+     *
+     * @param bytes bytes
+     * @param offset offset of the object
+     * @param length length of the object
+     * @param fields names of the fields other than <code>id</code> and <code>contents</code> to extract, or null to
+     *               extract all fields
+     * @return document, whose raw document is a copy of the bytes of the object
+     * @throws IOException if the object isn't valid JSON
+     */
+    public static Document parse(byte[] bytes, int offset, int length, Set<String> fields) throws IOException {
+      Document doc = new Document();
+      doc.fields = new HashMap<>();
+      try (JsonParser parser = FACTORY.createParser(bytes, offset, length)) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          throw new JsonParseException(parser, "Expected a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String name = parser.getCurrentName();
+          parser.nextToken();
+          if ("id".equals(name)) {
+            doc.id = text(parser);
+          } else if ("contents".equals(name)) {
+            doc.contents = text(parser);
+          } else if (fields == null || fields.contains(name)) {
+            doc.fields.put(name, text(parser));
+          } else {
+            parser.skipChildren();
+          }
+        }
+      }
+      doc.rawBytes = Arrays.copyOfRange(bytes, offset, offset + length);
+      return doc;
+    }
+
+    // The value the parser is at as text, the same as JsonNode.asText(), i.e., empty for objects and arrays.
+    private static String text(JsonParser parser) throws IOException {
+      if (parser.currentToken().isStructStart()) {
+        parser.skipChildren();
+        return "";
+      }
+      return parser.getText();
     }
 
     public static Document fromFields(String id, String contents) throws IOException {
@@ -191,7 +435,7 @@ public class JsonCollection extends DocumentCollection<JsonCollection.Document>
     }
 
     public Document(JsonNode json) {
-      this.raw = json.toPrettyString();
+      this.json = json;
       this.fields = new HashMap<>();
 
       json.fields().forEachRemaining( e -> {
@@ -223,6 +467,15 @@ public class JsonCollection extends DocumentCollection<JsonCollection.Document>
 
     @Override
     public String raw() {
+      if (raw == null) {
+        if (rawBytes != null) {
+          raw = new String(rawBytes, StandardCharsets.UTF_8);
+          rawBytes = null;
+        } else if (json != null) {
+          raw = json.toPrettyString();
+          json = null;
+        }
+      }
       return raw;
     }
 
@@ -28,15 +28,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 public class MsMarcoV2DocCollection extends DocumentCollection<MsMarcoV2DocCollection.Document> {
   private static final Logger LOG = LogManager.getLogger(JsonCollection.class);
@@ -71,8 +68,8 @@ public class MsMarcoV2DocCollection extends DocumentCollection<MsMarcoV2DocColle
     public Segment(Path path) throws IOException {
       super(path);
 
-      if (path.toString().endsWith(".gz")) {
-        InputStream stream = new GZIPInputStream(Files.newInputStream(path, StandardOpenOption.READ), BUFFER_SIZE);
+      if (CompressedFiles.isCompressed(path)) {
+        InputStream stream = CompressedFiles.open(path, BUFFER_SIZE);
         bufferedReader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
       } else {
         bufferedReader = new BufferedReader(new FileReader(path.toString()));
@@ -28,9 +28,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -38,14 +36,13 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 public class NeuClirCollection extends DocumentCollection<NeuClirCollection.Document> {
   private static final Logger LOG = LogManager.getLogger(JsonCollection.class);
 
   public NeuClirCollection(Path path) {
     this.path = path;
-    this.allowedFileSuffix = new HashSet<>(Arrays.asList(".json", ".jsonl", ".gz"));
+    this.allowedFileSuffix = new HashSet<>(Arrays.asList(".json", ".jsonl", ".gz", ".zst"));
   }
 
   public NeuClirCollection() {
@@ -74,8 +71,8 @@ public class NeuClirCollection extends DocumentCollection<NeuClirCollection.Docu
     public Segment(Path path) throws IOException {
       super(path);
       
-      if (path.toString().endsWith(".gz")) {
-        InputStream stream = new GZIPInputStream(Files.newInputStream(path, StandardOpenOption.READ), BUFFER_SIZE);
+      if (CompressedFiles.isCompressed(path)) {
+        InputStream stream = CompressedFiles.open(path, BUFFER_SIZE);
         bufferedReader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
       } else {
         bufferedReader = new BufferedReader(new FileReader(path.toString()));
@@ -30,6 +30,10 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -38,6 +42,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -45,12 +50,15 @@ import java.nio.file.Path;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -88,7 +96,11 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
    * files.
    */
   public static class Segment extends FileSegment<NewYorkTimesCollection.Document> {
-    private final NewYorkTimesCollection.Parser parser = new NewYorkTimesCollection.Parser();
+    // Parsers, with their configured XML input factories, are reused across segments by each thread, since many
+    // segments are single xml files.
+    private static final ThreadLocal<NewYorkTimesCollection.Parser> PARSERS =
+        ThreadLocal.withInitial(NewYorkTimesCollection.Parser::new);
+
     private TarArchiveInputStream tarInput = null;
     private ArchiveEntry nextEntry = null;
 
@@ -105,6 +117,7 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
 
     @Override
     protected void readNext() throws IOException, NoSuchElementException {
+      final NewYorkTimesCollection.Parser parser = PARSERS.get();
       if (path != null) {
         try {
           if (path != null && path.toString().endsWith(".tgz")) {
@@ -1663,6 +1676,10 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
     /** NITF Constant */
     private final DateFormat format = new SimpleDateFormat("yyyyMMdd'T'HHmmss");
 
+    // Readers created from a factory shared across threads aren't guaranteed to be thread-safe, so each parser has its
+    // own factory.
+    private final XMLInputFactory xmlInputFactory = newXMLInputFactory();
+
     /** NITF Constant */
     private static final String TAGLINE_TAG = "tagline";
 
@@ -1859,7 +1876,7 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
     private static final String GENERAL_DESCRIPTOR_ATTRIBUTE = "general_descriptor";
 
     public Document parseFile(BufferedReader bRdr, File fileName) throws IOException {
-      RawDocument raw = parseNYTCorpusDocumentFromBufferedReader(bRdr, fileName);
+      RawDocument raw = parseNYTCorpusDocumentFromReader(bRdr, fileName);
 
       Document d = new Document(raw);
       d.id = String.valueOf(raw.getGuid());
@@ -1910,6 +1927,34 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
       return parseNYTCorpusDocumentFromDOMDocument(file, document);
     }
 
+    /**
+     * Parse a New York Times Document from a Reader in a single streaming pass, without building a DOM. The parsed
+     * document is the same as the one that {@link #parseNYTCorpusDocumentFromBufferedReader} returns. The parameter
+     * `file` is used only to feed in other methods
+     *
+     * @param reader the Reader of file
+     * @param file the file from which to parse the document
+     * @return the parsed document
+     * @throws IOException if error encountered reading or parsing the document
+     */
+    public RawDocument parseNYTCorpusDocumentFromReader(Reader reader, File file) throws IOException {
+      RawDocument ldcDocument = new RawDocument();
+      ldcDocument.setSourceFile(file);
+      try {
+        XMLStreamReader xml = xmlInputFactory.createXMLStreamReader(reader);
+        try {
+          handleStream(xml, ldcDocument);
+        } finally {
+          // Doesn't close the underlying reader.
+          xml.close();
+        }
+      } catch (XMLStreamException e) {
+        throw new IOException("Error parsing file " + file + ".", e);
+      }
+
+      return ldcDocument;
+    }
+
     public RawDocument parseNYTCorpusDocumentFromDOMDocument(File file, org.w3c.dom.Document document) {
       RawDocument ldcDocument = new RawDocument();
       ldcDocument.setSourceFile(file);
@@ -1925,6 +1970,120 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
       return ldcDocument;
     }
 
+    private static XMLInputFactory newXMLInputFactory() {
+      XMLInputFactory factory = XMLInputFactory.newFactory();
+      // Reports each text node as a single event, as it is a single node in a DOM.
+      factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+      // Ignores the doctype declaration, so that the NITF DTD is never fetched.
+      factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+      return factory;
+    }
+
+    private void handleStream(XMLStreamReader xml, RawDocument ldcDocument) throws XMLStreamException {
+      // The elements the parser is in; it only ever descends into the elements that contain fields.
+      Deque<String> elements = new ArrayDeque<>();
+      while (xml.hasNext()) {
+        int event = xml.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          if (handleElement(xml, elements.peek(), ldcDocument)) {
+            elements.push(xml.getLocalName());
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          elements.pop();
+        }
+      }
+    }
+
+    /**
+     * Handles the element the parser is at the start of. The element is either one that contains fields, which the
+     * parser descends into, or one that is read through its end tag.
+     *
+     * @return true if the parser should descend into the element
+     */
+    private boolean handleElement(XMLStreamReader xml, String parent, RawDocument ldcDocument)
+        throws XMLStreamException {
+      String name = xml.getLocalName();
+      if (parent == null) {
+        if (name.equals(NITF_TAG)) {
+          return true;
+        }
+      } else if (parent.equals(NITF_TAG)) {
+        if (name.equals(HEAD_TAG) || name.equals(BODY_TAG)) {
+          return true;
+        }
+      } else if (parent.equals(HEAD_TAG)) {
+        if (name.equals(DOCDATA_TAG)) {
+          return true;
+        } else if (name.equals(META_TAG)) {
+          String metaName = getAttributeValue(xml, NAME_ATTRIBUTE);
+          String content = getAttributeValue(xml, CONTENT_ATTRIBUTE);
+          if (metaName != null && content != null) {
+            handleMeta(metaName, content, ldcDocument);
+          }
+        } else if (name.equals(PUBDATA_TAG)) {
+          handlePubdata(attribute -> getAttributeValue(xml, attribute), ldcDocument);
+        }
+      } else if (parent.equals(DOCDATA_TAG)) {
+        if (name.equals(IDENTIFIED_CONTENT_TAG)) {
+          return true;
+        } else if (name.equals(DOC_ID_TAG)) {
+          handleDocumentId(ldcDocument, getAttributeValue(xml, ID_STRING_ATTRIBUTE));
+        } else if (name.equals(SERIES_TAG)) {
+          ldcDocument.setKicker(getAttributeValue(xml, SERIES_NAME_TAG));
+        }
+      } else if (parent.equals(IDENTIFIED_CONTENT_TAG)) {
+        String classAttribute = getAttributeValue(xml, CLASS_ATTRIBUTE);
+        String typeAttribute = getAttributeValue(xml, TYPE_ATTRIBUTE);
+        addIdentifiedContent(name, classAttribute, typeAttribute, readAllText(xml), ldcDocument);
+        return false;
+      } else if (parent.equals(BODY_TAG)) {
+        if (name.equals(BODY_HEAD_TAG) || name.equals(BODY_CONTENT_TAG) || name.equals(BODY_END_TAG)) {
+          return true;
+        }
+      } else if (parent.equals(BODY_HEAD_TAG)) {
+        if (name.equals(ABSTRACT_TAG) || name.equals(HEDLINE_TAG)) {
+          return true;
+        } else if (name.equals(DATELINE_TAG)) {
+          ldcDocument.setDateline(readAllText(xml));
+          return false;
+        } else if (name.equals(BYLINE_TAG)) {
+          String classAttribute = getAttributeValue(xml, CLASS_ATTRIBUTE);
+          String text = readAllText(xml);
+          if (classAttribute != null) {
+            setByline(classAttribute, text, ldcDocument);
+          }
+          return false;
+        }
+      } else if (parent.equals(ABSTRACT_TAG)) {
+        if (name.equals(P_TAG)) {
+          ldcDocument.setArticleAbstract(readAllText(xml));
+          return false;
+        }
+      } else if (parent.equals(HEDLINE_TAG)) {
+        String classAttribute = getAttributeValue(xml, CLASS_ATTRIBUTE);
+        setHeadline(name, classAttribute, readAllText(xml), ldcDocument);
+        return false;
+      } else if (parent.equals(BODY_CONTENT_TAG)) {
+        if (name.equals(BLOCK_TAG)) {
+          String classAttribute = getAttributeValue(xml, CLASS_ATTRIBUTE);
+          if (isBlockClass(classAttribute)) {
+            setBlock(classAttribute, readBlock(xml), ldcDocument);
+            return false;
+          }
+        }
+      } else if (parent.equals(BODY_END_TAG)) {
+        if (name.equals(TAGLINE_TAG) && isAuthorInfo(getAttributeValue(xml, CLASS_ATTRIBUTE))) {
+          ldcDocument.setAuthorBiography(readAllText(xml));
+          return false;
+        }
+      }
+
+      skipElement(xml);
+      return false;
+    }
+
     private void handleNITFNode(Node node, RawDocument ldcDocument) {
       NodeList children = node.getChildNodes();
       for (int i = 0; i < children.getLength(); i++) {
@@ -1990,12 +2149,15 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
     private void handleBylineNode(Node node, RawDocument ldcDocument) {
       String classAttribute = getAttributeValue(node, CLASS_ATTRIBUTE);
       if (classAttribute != null) {
-        String text = getAllText(node).trim();
-        if (classAttribute.equals(NORMALIZED_BYLINE_ATTRIBUTE)) {
-          ldcDocument.setNormalizedByline(text);
-        } else if (classAttribute.equals(PRINT_BYLINE_ATTRIBUTE)) {
-          ldcDocument.setByline(text);
-        }
+        setByline(classAttribute, getAllText(node).trim(), ldcDocument);
+      }
+    }
+
+    private void setByline(String classAttribute, String text, RawDocument ldcDocument) {
+      if (classAttribute.equals(NORMALIZED_BYLINE_ATTRIBUTE)) {
+        ldcDocument.setNormalizedByline(text);
+      } else if (classAttribute.equals(PRINT_BYLINE_ATTRIBUTE)) {
+        ldcDocument.setByline(text);
       }
     }
 
@@ -2004,16 +2166,17 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
       for (int i = 0; i < children.getLength(); i++) {
         Node child = children.item(i);
         String name = child.getNodeName();
-        String text = getAllText(child).trim();
-        if (name.equals(HL1_TAG)) {
-          ldcDocument.setHeadline(text);
-        } else if (name.equals(HL2_TAG)) {
-          String classAttribute = getAttributeValue(child,
-              CLASS_ATTRIBUTE);
-          if (classAttribute != null
-              && classAttribute.equals(ONLINE_HEADLINE_ATTRIBUTE)) {
-            ldcDocument.setOnlineHeadline(text);
-          }
+        setHeadline(name, getAttributeValue(child, CLASS_ATTRIBUTE), getAllText(child).trim(), ldcDocument);
+      }
+    }
+
+    private void setHeadline(String name, String classAttribute, String text, RawDocument ldcDocument) {
+      if (name.equals(HL1_TAG)) {
+        ldcDocument.setHeadline(text);
+      } else if (name.equals(HL2_TAG)) {
+        if (classAttribute != null
+            && classAttribute.equals(ONLINE_HEADLINE_ATTRIBUTE)) {
+          ldcDocument.setOnlineHeadline(text);
         }
       }
     }
@@ -2031,16 +2194,26 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
 
     private void handleBlockNode(Node node, RawDocument ldcDocument) {
       String classAttribute = getAttributeValue(node, CLASS_ATTRIBUTE);
-      if (classAttribute != null) {
-        if (classAttribute.equals(ONLINE_LEAD_PARAGRAPH_ATTRIBUTE)) {
-          ldcDocument.setOnlineLeadParagraph(parseBlock(node));
-        } else if (classAttribute.equals(LEAD_PARAGRAPH_ATTRIBUTE)) {
-          ldcDocument.setLeadParagraph(parseBlock(node));
-        } else if (classAttribute.equals(FULL_TEXT_ATTRIBUTE)) {
-          ldcDocument.setBody(parseBlock(node));
-        } else if (classAttribute.equals(CORRECTION_TEXT)) {
-          ldcDocument.setCorrectionText(parseBlock(node));
-        }
+      if (isBlockClass(classAttribute)) {
+        setBlock(classAttribute, parseBlock(node), ldcDocument);
+      }
+    }
+
+    private boolean isBlockClass(String classAttribute) {
+      return classAttribute != null && (classAttribute.equals(ONLINE_LEAD_PARAGRAPH_ATTRIBUTE)
+          || classAttribute.equals(LEAD_PARAGRAPH_ATTRIBUTE) || classAttribute.equals(FULL_TEXT_ATTRIBUTE)
+          || classAttribute.equals(CORRECTION_TEXT));
+    }
+
+    private void setBlock(String classAttribute, String text, RawDocument ldcDocument) {
+      if (classAttribute.equals(ONLINE_LEAD_PARAGRAPH_ATTRIBUTE)) {
+        ldcDocument.setOnlineLeadParagraph(text);
+      } else if (classAttribute.equals(LEAD_PARAGRAPH_ATTRIBUTE)) {
+        ldcDocument.setLeadParagraph(text);
+      } else if (classAttribute.equals(FULL_TEXT_ATTRIBUTE)) {
+        ldcDocument.setBody(text);
+      } else if (classAttribute.equals(CORRECTION_TEXT)) {
+        ldcDocument.setCorrectionText(text);
       }
     }
 
@@ -2052,8 +2225,7 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
         if (name.equals(TAGLINE_TAG)) {
           String classAttribute = getAttributeValue(child,
               CLASS_ATTRIBUTE);
-          if (classAttribute != null
-              && classAttribute.equals(AUTHOR_INFO_ATTRIBUTE)) {
+          if (isAuthorInfo(classAttribute)) {
             String text = getAllText(child);
             ldcDocument.setAuthorBiography(text);
           }
@@ -2061,6 +2233,10 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
       }
     }
 
+    private boolean isAuthorInfo(String classAttribute) {
+      return classAttribute != null && classAttribute.equals(AUTHOR_INFO_ATTRIBUTE);
+    }
+
     private void handleHeadNode(Node node, RawDocument ldcDocument) {
       NodeList children = node.getChildNodes();
       for (int i = 0; i < children.getLength(); i++) {
@@ -2071,7 +2247,7 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
         } else if (name.equals(DOCDATA_TAG)) {
           handleDocdataNode(child, ldcDocument);
         } else if (name.equals(PUBDATA_TAG)) {
-          handlePubdata(child, ldcDocument);
+          handlePubdata(attribute -> getAttributeValue(child, attribute), ldcDocument);
         }
       }
     }
@@ -2082,7 +2258,7 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
         Node child = children.item(i);
         String name = child.getNodeName();
         if (name.equals(DOC_ID_TAG)) {
-          handleDocumentIdNode(ldcDocument, child);
+          handleDocumentId(ldcDocument, getAttributeValue(child, ID_STRING_ATTRIBUTE));
         } else if (name.equals(SERIES_TAG)) {
           ldcDocument
               .setKicker(getAttributeValue(child, SERIES_NAME_TAG));
@@ -2092,9 +2268,8 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
       }
     }
 
-    private void handlePubdata(Node node, RawDocument ldcDocument) {
-      String publicationDateString = getAttributeValue(node,
-          DATE_PUBLICATION_ATTRIBUTE);
+    private void handlePubdata(UnaryOperator<String> attributes, RawDocument ldcDocument) {
+      String publicationDateString = attributes.apply(DATE_PUBLICATION_ATTRIBUTE);
       if (publicationDateString != null) {
         try {
           Date date = format.parse(publicationDateString);
@@ -2108,7 +2283,7 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
 
       }
 
-      String urlString = getAttributeValue(node, EX_REF_ATTRIBUTE);
+      String urlString = attributes.apply(EX_REF_ATTRIBUTE);
       if (urlString != null) {
         try {
           URL url = new URL(urlString);
@@ -2120,7 +2295,7 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
         }
       }
 
-      String wordCountString = getAttributeValue(node, ITEM_LENGTH_ATTRIBUTE);
+      String wordCountString = attributes.apply(ITEM_LENGTH_ATTRIBUTE);
       if (wordCountString != null) {
         try {
           Integer wordCount = Integer.parseInt(wordCountString);
@@ -2133,7 +2308,7 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
         }
       }
 
-      String creatorString = getAttributeValue(node, NAME_ATTRIBUTE);
+      String creatorString = attributes.apply(NAME_ATTRIBUTE);
       if (creatorString != null) {
         ldcDocument.setCredit(creatorString);
       }
@@ -2146,62 +2321,64 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
         String name = child.getNodeName();
         String value = getAllText(child).trim();
         String classAttribute = getAttributeValue(child, CLASS_ATTRIBUTE);
+        addIdentifiedContent(name, classAttribute, getAttributeValue(child, TYPE_ATTRIBUTE), value, ldcDocument);
+      }
+    }
 
-        if (name.equals(CLASSIFIER_TAG)) {
-          String typeAttribute = getAttributeValue(child, TYPE_ATTRIBUTE);
-          if (classAttribute.equals(INDEXING_SERVICE_ATTRIBUTE)) {
-            if (typeAttribute.equals(DESCRIPTOR_ATTRIBUTE)) {
-              ldcDocument.getDescriptors().add(value);
-            } else if (typeAttribute
-                .equals(BIOGRAPHICAL_CATEGORIES_ATTRIBUTE)) {
-              ldcDocument.getBiographicalCategories().add(value);
-            } else if (typeAttribute.equals(NAMES_ATTRIBUTE)) {
-              ldcDocument.getNames().add(value);
-            }
-          } else if (classAttribute.equals(ONLINE_PRODUCER_ATTRIBUTE)) {
-            if (typeAttribute.equals(DESCRIPTOR_ATTRIBUTE)) {
-              ldcDocument.getOnlineDescriptors().add(value);
-            } else if (typeAttribute
-                .equals(GENERAL_DESCRIPTOR_ATTRIBUTE)) {
-              ldcDocument.getGeneralOnlineDescriptors().add(value);
-            } else if (typeAttribute
-                .equals(TAXONOMIC_CLASSIFIER_ATTRIBUTE)) {
-              ldcDocument.getTaxonomicClassifiers().add(value);
-            } else if (typeAttribute
-                .equals(TYPES_OF_MATERIAL_ATTRIBUTE)) {
-              ldcDocument.getTypesOfMaterial().add(value);
-            }
-          }
-        } else if (name.equals(LOCATION_TAG)) {
-          if (classAttribute.equals(INDEXING_SERVICE_ATTRIBUTE)) {
-            ldcDocument.getLocations().add(value);
-          } else if (classAttribute.equals(ONLINE_PRODUCER_ATTRIBUTE)) {
-            ldcDocument.getOnlineLocations().add(value);
+    private void addIdentifiedContent(String name, String classAttribute, String typeAttribute, String value,
+                                      RawDocument ldcDocument) {
+      if (name.equals(CLASSIFIER_TAG)) {
+        if (classAttribute.equals(INDEXING_SERVICE_ATTRIBUTE)) {
+          if (typeAttribute.equals(DESCRIPTOR_ATTRIBUTE)) {
+            ldcDocument.getDescriptors().add(value);
+          } else if (typeAttribute
+              .equals(BIOGRAPHICAL_CATEGORIES_ATTRIBUTE)) {
+            ldcDocument.getBiographicalCategories().add(value);
+          } else if (typeAttribute.equals(NAMES_ATTRIBUTE)) {
+            ldcDocument.getNames().add(value);
           }
-        } else if (name.equals(OBJECT_TITLE_TAG)) {
-          if (classAttribute.equals(INDEXING_SERVICE_ATTRIBUTE)) {
-            ldcDocument.getTitles().add(value);
-          } else if (classAttribute.equals(ONLINE_PRODUCER_ATTRIBUTE)) {
-            ldcDocument.getOnlineTitles().add(value);
-          }
-        } else if (name.equals(ORGANIZATION_TAG)) {
-          if (classAttribute.equals(INDEXING_SERVICE_ATTRIBUTE)) {
-            ldcDocument.getOrganizations().add(value);
-          } else if (classAttribute.equals(ONLINE_PRODUCER_ATTRIBUTE)) {
-            ldcDocument.getOnlineOrganizations().add(value);
-          }
-        } else if (name.equals(PERSON_TAG)) {
-          if (classAttribute.equals(INDEXING_SERVICE_ATTRIBUTE)) {
-            ldcDocument.getPeople().add(value);
-          } else if (classAttribute.equals(ONLINE_PRODUCER_ATTRIBUTE)) {
-            ldcDocument.getOnlinePeople().add(value);
+        } else if (classAttribute.equals(ONLINE_PRODUCER_ATTRIBUTE)) {
+          if (typeAttribute.equals(DESCRIPTOR_ATTRIBUTE)) {
+            ldcDocument.getOnlineDescriptors().add(value);
+          } else if (typeAttribute
+              .equals(GENERAL_DESCRIPTOR_ATTRIBUTE)) {
+            ldcDocument.getGeneralOnlineDescriptors().add(value);
+          } else if (typeAttribute
+              .equals(TAXONOMIC_CLASSIFIER_ATTRIBUTE)) {
+            ldcDocument.getTaxonomicClassifiers().add(value);
+          } else if (typeAttribute
+              .equals(TYPES_OF_MATERIAL_ATTRIBUTE)) {
+            ldcDocument.getTypesOfMaterial().add(value);
           }
         }
+      } else if (name.equals(LOCATION_TAG)) {
+        if (classAttribute.equals(INDEXING_SERVICE_ATTRIBUTE)) {
+          ldcDocument.getLocations().add(value);
+        } else if (classAttribute.equals(ONLINE_PRODUCER_ATTRIBUTE)) {
+          ldcDocument.getOnlineLocations().add(value);
+        }
+      } else if (name.equals(OBJECT_TITLE_TAG)) {
+        if (classAttribute.equals(INDEXING_SERVICE_ATTRIBUTE)) {
+          ldcDocument.getTitles().add(value);
+        } else if (classAttribute.equals(ONLINE_PRODUCER_ATTRIBUTE)) {
+          ldcDocument.getOnlineTitles().add(value);
+        }
+      } else if (name.equals(ORGANIZATION_TAG)) {
+        if (classAttribute.equals(INDEXING_SERVICE_ATTRIBUTE)) {
+          ldcDocument.getOrganizations().add(value);
+        } else if (classAttribute.equals(ONLINE_PRODUCER_ATTRIBUTE)) {
+          ldcDocument.getOnlineOrganizations().add(value);
+        }
+      } else if (name.equals(PERSON_TAG)) {
+        if (classAttribute.equals(INDEXING_SERVICE_ATTRIBUTE)) {
+          ldcDocument.getPeople().add(value);
+        } else if (classAttribute.equals(ONLINE_PRODUCER_ATTRIBUTE)) {
+          ldcDocument.getOnlinePeople().add(value);
+        }
       }
     }
 
-    private void handleDocumentIdNode(RawDocument ldcDocument, Node child) {
-      String docIdString = getAttributeValue(child, ID_STRING_ATTRIBUTE);
+    private void handleDocumentId(RawDocument ldcDocument, String docIdString) {
       if (docIdString != null) {
         try {
           ldcDocument.setGuid(Integer.parseInt(docIdString));
@@ -2225,6 +2402,10 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
       String name = attributes.getNamedItem(NAME_ATTRIBUTE).getNodeValue();
       String content = attributes.getNamedItem(CONTENT_ATTRIBUTE)
           .getNodeValue();
+      handleMeta(name, content, ldcDocument);
+    }
+
+    private void handleMeta(String name, String content, RawDocument ldcDocument) {
       try {
         if (name.equals(DSK_ATTRIBUTE)) {
           ldcDocument.setNewsDesk(content);
@@ -2441,6 +2622,61 @@ public class NewYorkTimesCollection extends DocumentCollection<NewYorkTimesColle
       return null;
     }
 
+    // Reads the paragraphs of the block the parser is at the start of, as parseBlock does, through its end tag.
+    private String readBlock(XMLStreamReader xml) throws XMLStreamException {
+      StringBuilder sb = new StringBuilder();
+      int event;
+      while ((event = xml.next()) != XMLStreamConstants.END_ELEMENT) {
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          if (xml.getLocalName().equals(P_TAG)) {
+            sb.append(readAllText(xml)).append('\n');
+          } else {
+            skipElement(xml);
+          }
+        }
+      }
+
+      if (sb.length() > 0) {
+        sb.setLength(sb.length() - 1);
+        return sb.length() > 0 ? sb.toString() : null;
+      }
+      return null;
+    }
+
+    // Reads the text of the element the parser is at the start of, as getAllText does, through its end tag.
+    private String readAllText(XMLStreamReader xml) throws XMLStreamException {
+      StringBuilder sb = new StringBuilder();
+      int depth = 1;
+      while (depth > 0) {
+        int event = xml.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.SPACE) {
+          sb.append(xml.getText().trim()).append(' ');
+        }
+      }
+      return sb.toString().trim();
+    }
+
+    // Skips the element the parser is at the start of, through its end tag.
+    private void skipElement(XMLStreamReader xml) throws XMLStreamException {
+      int depth = 1;
+      while (depth > 0) {
+        int event = xml.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        }
+      }
+    }
+
+    private String getAttributeValue(XMLStreamReader xml, String attributeName) {
+      return xml.getAttributeValue(null, attributeName);
+    }
+
     private String getAttributeValue(Node node, String attributeName) {
       NamedNodeMap attributes = node.getAttributes();
       if (attributes != null) {
@@ -0,0 +1,222 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import org.jsoup.parser.Parser;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * String transform that extracts plain text out of HTML documents in a single pass over the markup, without building
+ * a DOM. The output approximates what {@link JsoupStringTransform} produces: the text of the document, including its
+ * title, with the contents of <code>script</code> and <code>style</code> elements, comments, and other markup
+ * removed, entities decoded, whitespace collapsed, and a space between the text of block elements. Malformed markup is
+ * tolerated: a <code>&lt;</code> that doesn't start a tag is kept as text, and an unterminated tag, comment, or
+ * <code>script</code> element runs to the end of the document.
+ */
+public class StreamingHtmlStringTransform extends StringTransform {
+  // Singleton instance for convenience.
+  public final static StreamingHtmlStringTransform SINGLETON = new StreamingHtmlStringTransform();
+
+  // Elements whose contents aren't text.
+  private static final Set<String> SKIPPED = Set.of("script", "style");
+
+  // Elements whose contents are text that may contain a '<' that doesn't start a tag.
+  private static final Set<String> RAW_TEXT = Set.of("title", "textarea", "xmp", "iframe", "noembed", "noframes",
+      "plaintext");
+
+  // Elements that are separated from the text around them, as in Jsoup.
+  private static final Set<String> BLOCKS = Set.of("html", "head", "body", "frameset", "script", "noscript", "style",
+      "meta", "link", "title", "frame", "noframes", "section", "nav", "aside", "hgroup", "header", "footer", "p",
+      "h1", "h2", "h3", "h4", "h5", "h6", "ul", "ol", "pre", "div", "blockquote", "hr", "address", "figure",
+      "figcaption", "form", "fieldset", "ins", "del", "dl", "dt", "dd", "li", "table", "caption", "thead", "tfoot",
+      "tbody", "colgroup", "col", "tr", "th", "td", "video", "audio", "canvas", "details", "menu", "plaintext",
+      "template", "article", "main", "svg", "math", "center", "dir", "applet", "marquee", "listing", "br", "textarea",
+      "option", "optgroup", "select", "button", "legend", "summary", "search");
+
+  @Override
+  public String apply(String s) {
+    Text text = new Text(s.length());
+    int length = s.length();
+    int i = 0;
+    while (i < length) {
+      int lt = s.indexOf('<', i);
+      if (lt < 0) {
+        text.append(s, i, length);
+        break;
+      }
+      text.append(s, i, lt);
+
+      char next = lt + 1 < length ? s.charAt(lt + 1) : 0;
+      if (next == '!' && s.startsWith("--", lt + 2)) {
+        // Comment.
+        int end = s.indexOf("-->", lt + 4);
+        i = end < 0 ? length : end + 3;
+      } else if (next == '!' || next == '?') {
+        // Doctype, CDATA section, processing instruction, or other declaration.
+        int end = s.indexOf('>', lt + 2);
+        i = end < 0 ? length : end + 1;
+      } else if (next == '/' && lt + 2 < length && isLetter(s.charAt(lt + 2))) {
+        // End tag.
+        int nameEnd = nameEnd(s, lt + 2);
+        String name = s.substring(lt + 2, nameEnd).toLowerCase(Locale.ROOT);
+        i = tagEnd(s, nameEnd);
+        if (BLOCKS.contains(name)) {
+          text.space();
+        }
+      } else if (isLetter(next)) {
+        // Start tag.
+        int nameEnd = nameEnd(s, lt + 1);
+        String name = s.substring(lt + 1, nameEnd).toLowerCase(Locale.ROOT);
+        i = tagEnd(s, nameEnd);
+        if (i == length && s.charAt(length - 1) != '>') {
+          // A tag cut off by the end of the document.
+          break;
+        }
+        if (BLOCKS.contains(name)) {
+          text.space();
+        }
+
+        boolean selfClosing = s.charAt(i - 1) == '>' && s.charAt(i - 2) == '/';
+        if (!selfClosing && (SKIPPED.contains(name) || RAW_TEXT.contains(name))) {
+          int close = indexOfEndTag(s, name, i);
+          if (RAW_TEXT.contains(name)) {
+            text.append(s, i, close < 0 ? length : close);
+          }
+          if (close < 0) {
+            break;
+          }
+          i = tagEnd(s, close + 2 + name.length());
+          text.space();
+        }
+      } else {
+        // A '<' that doesn't start a tag.
+        text.append(s, lt, lt + 1);
+        i = lt + 1;
+      }
+    }
+    return text.toString();
+  }
+
+  private static boolean isLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static int nameEnd(String s, int from) {
+    int i = from;
+    while (i < s.length()) {
+      char c = s.charAt(i);
+      if (c == '>' || c == '/' || isWhitespace(c)) {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  // Returns the position right after the '>' that ends a tag, skipping over quoted attribute values.
+  private static int tagEnd(String s, int from) {
+    char quote = 0;
+    boolean afterEquals = false;
+    for (int i = from; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '>') {
+        return i + 1;
+      } else if (c == '=') {
+        afterEquals = true;
+      } else if (afterEquals && (c == '"' || c == '\'')) {
+        quote = c;
+        afterEquals = false;
+      } else if (!isWhitespace(c)) {
+        afterEquals = false;
+      }
+    }
+    return s.length();
+  }
+
+  // Returns the position of the end tag of an element, matching its name case-insensitively.
+  private static int indexOfEndTag(String s, String name, int from) {
+    int i = from;
+    while ((i = s.indexOf("</", i)) >= 0) {
+      int nameEnd = i + 2 + name.length();
+      if (s.regionMatches(true, i + 2, name, 0, name.length()) &&
+          (nameEnd == s.length() || s.charAt(nameEnd) == '>' || s.charAt(nameEnd) == '/' ||
+              isWhitespace(s.charAt(nameEnd)))) {
+        return i;
+      }
+      i += 2;
+    }
+    return -1;
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+  }
+
+  /**
+   * Accumulates text with whitespace collapsed as Jsoup does: runs of whitespace (including non-breaking spaces)
+   * become a single space, invisible characters are dropped, and leading and trailing whitespace is removed.
+   */
+  private static class Text {
+    private final StringBuilder builder;
+    private boolean pendingSpace = false;
+
+    Text(int capacity) {
+      builder = new StringBuilder(Math.min(capacity, 1 << 16));
+    }
+
+    void space() {
+      pendingSpace = true;
+    }
+
+    void append(String s, int from, int to) {
+      if (from >= to) {
+        return;
+      }
+      for (int i = from; i < to; i++) {
+        if (s.charAt(i) == '&') {
+          s = Parser.unescapeEntities(s.substring(from, to), false);
+          from = 0;
+          to = s.length();
+          break;
+        }
+      }
+      for (int i = from; i < to; i++) {
+        char c = s.charAt(i);
+        if (isWhitespace(c) || c == '\u00A0') {
+          pendingSpace = true;
+        } else if (c != '\u200B' && c != '\u00AD') {
+          if (pendingSpace && builder.length() > 0) {
+            builder.append(' ');
+          }
+          pendingSpace = false;
+          builder.append(c);
+        }
+      }
+    }
+
+    @Override
+    public String toString() {
+      return builder.toString();
+    }
+  }
+}
@@ -26,16 +26,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 /**
  * <p>A classic TREC <i>ad hoc</i> document collection.</p>
@@ -62,7 +59,8 @@ import java.util.zip.GZIPInputStream;
  *
  * <p>In both cases, compressed files are transparently handled.</p>
  *
- * <p>This collection calls the {@link JsoupStringTransform} to remove tags in the document content.</p>
+ * <p>This collection calls its HTML {@link StringTransform} (by default, {@link JsoupStringTransform}; see
+ * {@link DocumentCollection#setHtmlTransform(StringTransform)}) to remove tags in the document content.</p>
  */
 public class TrecCollection extends DocumentCollection<TrecCollection.Document> {
   public TrecCollection(Path path) {
@@ -104,9 +102,8 @@ public class TrecCollection extends DocumentCollection<TrecCollection.Document>
         BufferedInputStream in = new BufferedInputStream(fin);
         ZCompressorInputStream zIn = new ZCompressorInputStream(in);
         bufferedReader = new BufferedReader(new InputStreamReader(zIn, StandardCharsets.UTF_8));
-      } else if (fileName.endsWith(".gz")) { //.gz
-        InputStream stream = new GZIPInputStream(
-            Files.newInputStream(path, StandardOpenOption.READ), BUFFER_SIZE);
+      } else if (CompressedFiles.isCompressed(path)) { // .gz, .zst
+        InputStream stream = CompressedFiles.open(path, BUFFER_SIZE);
         bufferedReader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
       } else { // plain text file
         bufferedReader = new BufferedReader(new FileReader(fileName));
@@ -216,7 +213,7 @@ public class TrecCollection extends DocumentCollection<TrecCollection.Document>
   /**
    * A document in a classic TREC <i>ad hoc</i> document collection.
    */
-  public static class Document implements SourceDocument {
+  public static class Document implements HtmlDocument {
     protected static final String DOCNO = "<DOCNO>";
     protected static final String TERMINATING_DOCNO = "</DOCNO>";
 
@@ -232,6 +229,7 @@ public class TrecCollection extends DocumentCollection<TrecCollection.Document>
 
     protected String id;
     protected String raw;
+    private StringTransform htmlTransform = JsoupStringTransform.SINGLETON;
 
     @Override
     public String id() {
@@ -241,7 +239,7 @@ public class TrecCollection extends DocumentCollection<TrecCollection.Document>
     @Override
     public String contents() {
       try {
-        return JsoupStringTransform.SINGLETON.apply(raw).trim();
+        return htmlTransform.apply(raw).trim();
       } catch (Exception e) {
         // If there's an exception, just eat it and return empty contents.
         return "";
@@ -253,6 +251,11 @@ public class TrecCollection extends DocumentCollection<TrecCollection.Document>
       return raw;
     }
 
+    @Override
+    public void setHtmlTransform(StringTransform transform) {
+      htmlTransform = transform;
+    }
+
     @Override
     public boolean indexable() {
       return true;
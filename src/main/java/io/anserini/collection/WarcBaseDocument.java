@@ -56,14 +56,11 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.DataInput;
-import java.io.DataInputStream;
 import java.io.DataOutput;
-import java.io.EOFException;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -74,15 +71,9 @@ import java.util.Set;
  * {@link org.apache.lucene.document.Document}, which is the Lucene
  * representation that can be directly inserted into an index.
  */
-public abstract class WarcBaseDocument implements SourceDocument { 
-  private static final byte MASK_THREE_BYTE_CHAR = (byte) (0xE0);
-  private static final byte MASK_TWO_BYTE_CHAR = (byte) (0xC0);
-  private static final byte MASK_TOPMOST_BIT = (byte) (0x80);
-  private static final byte MASK_BOTTOM_SIX_BITS = (byte) (0x1F);
-  private static final byte MASK_BOTTOM_FIVE_BITS = (byte) (0x3F);
-  private static final byte MASK_BOTTOM_FOUR_BITS = (byte) (0x0F);
-  
+public abstract class WarcBaseDocument implements HtmlDocument {
   protected static final String NEWLINE = "\n";
+  private static final byte[] HTML_START = "\n<".getBytes(StandardCharsets.US_ASCII);
 
   public static String WARC_VERSION = "WARC/0.18";
   protected static Logger LOG = LogManager.getLogger(WarcBaseDocument.class);
@@ -90,6 +81,7 @@ public abstract class WarcBaseDocument implements SourceDocument {
   protected WarcBaseDocument.WarcHeader warcHeader = new WarcBaseDocument.WarcHeader();
   private byte[] warcContent = null;
   private String warcFilePath = "";
+  private StringTransform htmlTransform = JsoupStringTransform.SINGLETON;
 
   /**
    * Default Constructor.
@@ -106,6 +98,7 @@ public abstract class WarcBaseDocument implements SourceDocument {
     this.warcHeader = new WarcBaseDocument.WarcHeader(o.warcHeader);
     this.warcContent = o.warcContent;
     this.warcFilePath = o.getWarcFilePath();
+    this.htmlTransform = o.htmlTransform;
   }
 
   @Override
@@ -117,7 +110,7 @@ public abstract class WarcBaseDocument implements SourceDocument {
   @Override
   public String contents() {
     try {
-      return JsoupStringTransform.SINGLETON.apply(getContent());
+      return htmlTransform.apply(getContent());
     } catch (Exception e) {
       LOG.error("Error extracting contents from raw document: " + id());
       throw new InvalidContentsException();
@@ -130,182 +123,30 @@ public abstract class WarcBaseDocument implements SourceDocument {
   }
 
   @Override
-  public boolean indexable() {
-    return "response".equals(getHeaderRecordType());
+  public void setHtmlTransform(StringTransform transform) {
+    htmlTransform = transform;
   }
 
-  /**
-   * Our read line implementation. We cannot allow buffering here (for gzip
-   * streams) so, we need to use DataInputStream. Also, we need to account
-   * for Java's UTF8 implementation.
-   *
-   * @param in the input data stream
-   * @return the read line (or null if eof)
-   * @throws IOException if error encountered reading from stream
-   */
-  protected static String readLineFromInputStream(DataInputStream in) throws IOException {
-    StringBuilder retString = new StringBuilder();
-
-    boolean keepReading = true;
-    try {
-      do {
-        char thisChar = 0;
-        byte readByte = in.readByte();
-
-        // check to see if it's a multibyte character
-        if ((readByte & MASK_THREE_BYTE_CHAR) == MASK_THREE_BYTE_CHAR) {
-          // need to read the next 2 bytes
-          if (in.available() < 2) {
-            // treat these all as individual characters
-            retString.append((char) readByte);
-            int numAvailable = in.available();
-            for (int i = 0; i < numAvailable; i++) {
-              retString.append((char) (in.readByte()));
-            }
-            continue;
-          }
-          byte secondByte = in.readByte();
-          byte thirdByte = in.readByte();
-          // ensure the topmost bit is set
-          if (((secondByte & MASK_TOPMOST_BIT) != MASK_TOPMOST_BIT)
-              || ((thirdByte & MASK_TOPMOST_BIT) != MASK_TOPMOST_BIT)) {
-            // treat these as individual characters
-            retString.append((char) readByte);
-            retString.append((char) secondByte);
-            retString.append((char) thirdByte);
-            continue;
-          }
-          int finalVal = (thirdByte & MASK_BOTTOM_FIVE_BITS) + 64
-              * (secondByte & MASK_BOTTOM_FIVE_BITS) + 4096
-              * (readByte & MASK_BOTTOM_FOUR_BITS);
-          thisChar = (char) finalVal;
-        } else if ((readByte & MASK_TWO_BYTE_CHAR) == MASK_TWO_BYTE_CHAR) {
-          // need to read next byte
-          if (in.available() < 1) {
-            // treat this as individual characters
-            retString.append((char) readByte);
-            continue;
-          }
-          byte secondByte = in.readByte();
-          if ((secondByte & MASK_TOPMOST_BIT) != MASK_TOPMOST_BIT) {
-            retString.append((char) readByte);
-            retString.append((char) secondByte);
-            continue;
-          }
-          int finalVal = (secondByte & MASK_BOTTOM_FIVE_BITS) + 64
-              * (readByte & MASK_BOTTOM_SIX_BITS);
-          thisChar = (char) finalVal;
-        } else {
-          // interpret it as a single byte
-          thisChar = (char) readByte;
-        }
-
-        if (thisChar == '\n') {
-          keepReading = false;
-        } else {
-          retString.append(thisChar);
-        }
-      } while (keepReading);
-    } catch (EOFException eofEx) {
-      return null;
-    }
-
-    if (retString.length() == 0) {
-      return "";
-    }
-
-    return retString.toString();
+  @Override
+  public boolean indexable() {
+    return "response".equals(getHeaderRecordType());
   }
 
   /**
    * Performs the actual heavy lifting of reading in the next WARC record.
    *
-   * @param in the data input stream
+   * @param in the WARC reader
    * @param headerBuffer a blank string buffer to contain the WARC header
    * @param headerEndKey delimiter of the end of the header
    * @return the content bytes (with the headerBuffer populated)
    * @throws IOException if error encountered reading from stream
    */
-  protected static byte[] readNextRecord(DataInputStream in, StringBuilder headerBuffer, String headerEndKey) throws IOException {
+  protected static byte[] readNextRecord(WarcReader in, StringBuilder headerBuffer, String headerEndKey) throws IOException {
     if (in == null || headerBuffer == null) {
       throw new NoSuchElementException();
     }
 
-    String line = null;
-    boolean foundMark = false;
-    boolean inHeader = true;
-    byte[] retContent = null;
-
-    // cannot be using a buffered reader here!!!!
-    // just read the header
-    // first - find our WARC header
-    while ((!foundMark) && ((line = readLineFromInputStream(in)) != null)) {
-      if (line.startsWith(WARC_VERSION)) {
-        foundMark = true;
-      }
-    }
-
-    // no WARC mark?
-    if (!foundMark) {
-      throw new NoSuchElementException();
-    }
-
-    // then read to the first newline
-    // make sure we get the content length here
-    int contentLength = -1;
-    boolean reachHeaderEnd = false;
-    while (!reachHeaderEnd && inHeader && ((line = readLineFromInputStream(in)) != null)) {
-      if ((line.trim().length() == 0 && reachHeaderEnd)) {
-        inHeader = false;
-      } else {
-        headerBuffer.append(line);
-        headerBuffer.append(WarcBaseDocument.NEWLINE);
-        String[] thisHeaderPieceParts = line.split(":", 2);
-        if (thisHeaderPieceParts.length == 2) {
-          if (thisHeaderPieceParts[0].toLowerCase(Locale.US).startsWith(headerEndKey.toLowerCase(Locale.US))){
-            reachHeaderEnd = true;
-          }
-          if (thisHeaderPieceParts[0].toLowerCase(Locale.US).startsWith("content-length")) {
-            try {
-              contentLength = Integer.parseInt(thisHeaderPieceParts[1].trim());
-            } catch (NumberFormatException nfEx) {
-              contentLength = -1;
-            }
-          }
-        }
-      }
-    }
-
-    if (contentLength < 0) {
-      throw new NoSuchElementException();
-    }
-
-    // now read the bytes of the content
-    retContent = new byte[contentLength];
-    int totalWant = contentLength;
-    int totalRead = 0;
-    while (totalRead < contentLength) {
-      try {
-        int numRead = in.read(retContent, totalRead, totalWant);
-        if (numRead < 0) {
-          throw new NoSuchElementException();
-        } else {
-          totalRead += numRead;
-          totalWant = contentLength - totalRead;
-        } // end if (numRead < 0) / else
-      } catch (EOFException eofEx) {
-        // resize to what we have
-        if (totalRead > 0) {
-          byte[] newReturn = new byte[totalRead];
-          System.arraycopy(retContent, 0, newReturn, 0, totalRead);
-          return newReturn;
-        } else {
-          throw new NoSuchElementException();
-        }
-      } // end try/catch (EOFException)
-    } // end while (totalRead < contentLength)
-
-    return retContent;
+    return in.readRecord(WARC_VERSION, headerEndKey, headerBuffer, 0);
   }
 
   /**
@@ -558,10 +399,30 @@ public abstract class WarcBaseDocument implements SourceDocument {
   }
 
   public String getContent() {
-    String str = getContentUTF8().trim();
+    int from = 0;
+    int to = warcContent.length;
+    while (from < to && (warcContent[from] & 0xFF) <= ' ') {
+      from++;
+    }
+    while (to > from && (warcContent[to - 1] & 0xFF) <= ' ') {
+      to--;
+    }
     // Get rid of HTTP headers. Look for the first '<'.
-    int k = str.indexOf("\n<");
-    return k != -1 ? str.substring(k+1, str.length()) : str;
+    int k = WarcReader.indexOf(warcContent, HTML_START, from, to);
+    return getContentUTF8(k != -1 ? k + 1 : from, to);
+  }
+
+  /**
+   * Returns a range of the byte content as a UTF-8 string. Since the bytes of ASCII characters never occur within the
+   * encoding of other characters, positions of ASCII characters in the bytes can be used to take a range of the string
+   * without decoding all of it.
+   *
+   * @param from start of the range (inclusive)
+   * @param to end of the range (exclusive)
+   * @return range of the byte content as a UTF-8 string
+   */
+  protected String getContentUTF8(int from, int to) {
+    return new String(warcContent, from, to - from, StandardCharsets.UTF_8);
   }
 
   /**
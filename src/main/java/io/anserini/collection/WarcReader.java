@@ -0,0 +1,274 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+/**
+ * Reader of the records of a WARC file. The file is read in large chunks into a reusable buffer, in which header lines
+ * are delimited by scanning for newlines and parsed in place, so that only the header lines themselves are decoded
+ * into strings. The content of a record is copied straight from the buffer (and, past the end of the buffer, read
+ * straight from the stream) into an array of its exact length.
+ */
+public class WarcReader implements Closeable {
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final byte[] CONTENT_LENGTH = "content-length".getBytes(StandardCharsets.US_ASCII);
+
+  private final InputStream stream;
+  private byte[] buffer = new byte[BUFFER_SIZE];
+  private int position = 0;
+  private int limit = 0;
+  private boolean eof = false;
+
+  // Bounds of the last line read, excluding the newline.
+  private int lineStart;
+  private int lineEnd;
+
+  /**
+   * Creates a reader over a stream of (decompressed) WARC records.
+   *
+   * @param stream stream
+   */
+  public WarcReader(InputStream stream) {
+    this.stream = stream;
+  }
+
+  /**
+   * Opens a WARC file, decompressing it if it's compressed; see {@link CompressedFiles}.
+   *
+   * @param path path of the file
+   * @return reader
+   * @throws IOException if error encountered opening the file
+   */
+  public static WarcReader open(Path path) throws IOException {
+    return new WarcReader(CompressedFiles.open(path, BUFFER_SIZE));
+  }
+
+  /**
+   * Reads the next record. The record starts at the next line that starts with the version mark. Its header lines are
+   * read up to and including the first line whose name starts with the end key, and its content is the given number of
+   * bytes beyond the length in its <code>Content-Length</code> header, starting right after that line.
+   *
+   * @param version version mark that starts a record, e.g., <code>WARC/1.0</code>
+   * @param headerEndKey name (or prefix of the name) of the last header line to read, compared case-insensitively
+   * @param header buffer to append the header lines to, each followed by a newline
+   * @param extraContentBytes number of bytes to read beyond the content length
+   * @return content
+   * @throws IOException if error encountered reading from the stream
+   * @throws NoSuchElementException if there are no more records, or the record has no valid content length or is
+   *                                truncated
+   */
+  public byte[] readRecord(String version, String headerEndKey, StringBuilder header, int extraContentBytes)
+      throws IOException {
+    byte[] mark = version.getBytes(StandardCharsets.UTF_8);
+    byte[] endKey = headerEndKey.getBytes(StandardCharsets.UTF_8);
+
+    boolean foundMark = false;
+    while (!foundMark && nextLine()) {
+      foundMark = startsWith(lineStart, lineEnd, mark, false);
+    }
+    if (!foundMark) {
+      throw new NoSuchElementException();
+    }
+
+    int contentLength = -1;
+    boolean reachHeaderEnd = false;
+    while (!reachHeaderEnd && nextLine()) {
+      header.append(new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+      header.append(WarcBaseDocument.NEWLINE);
+
+      int colon = indexOf(buffer, (byte) ':', lineStart, lineEnd);
+      if (colon >= 0) {
+        if (startsWith(lineStart, colon, endKey, true)) {
+          reachHeaderEnd = true;
+        }
+        if (startsWith(lineStart, colon, CONTENT_LENGTH, true)) {
+          contentLength = parseInt(buffer, colon + 1, lineEnd);
+        }
+      }
+    }
+
+    if (contentLength < 0) {
+      throw new NoSuchElementException();
+    }
+    return readBytes(contentLength + extraContentBytes);
+  }
+
+  /**
+   * Returns the position of the first occurrence of a byte in a range of an array.
+   *
+   * @param bytes array
+   * @param b byte to look for
+   * @param from start of the range (inclusive)
+   * @param to end of the range (exclusive)
+   * @return position of the byte, or -1 if it doesn't occur in the range
+   */
+  static int indexOf(byte[] bytes, byte b, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (bytes[i] == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the position of the first occurrence of a sequence of bytes in a range of an array.
+   *
+   * @param bytes array
+   * @param target bytes to look for
+   * @param from start of the range (inclusive)
+   * @param to end of the range (exclusive)
+   * @return position of the sequence, or -1 if it doesn't occur in the range
+   */
+  static int indexOf(byte[] bytes, byte[] target, int from, int to) {
+    int last = to - target.length;
+    for (int i = Math.max(from, 0); i <= last; i++) {
+      i = indexOf(bytes, target[0], i, last + 1);
+      if (i < 0) {
+        return -1;
+      }
+      int j = 1;
+      while (j < target.length && bytes[i + j] == target[j]) {
+        j++;
+      }
+      if (j == target.length) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // Parses a decimal integer surrounded by whitespace, as Integer.parseInt(s.trim()) would, or returns -1.
+  private static int parseInt(byte[] bytes, int from, int to) {
+    while (from < to && (bytes[from] & 0xFF) <= ' ') {
+      from++;
+    }
+    while (to > from && (bytes[to - 1] & 0xFF) <= ' ') {
+      to--;
+    }
+    if (from < to && bytes[from] == '+') {
+      from++;
+    }
+    if (from == to) {
+      return -1;
+    }
+    long value = 0;
+    for (int i = from; i < to; i++) {
+      if (bytes[i] < '0' || bytes[i] > '9') {
+        return -1;
+      }
+      value = value * 10 + (bytes[i] - '0');
+      if (value > Integer.MAX_VALUE) {
+        return -1;
+      }
+    }
+    return (int) value;
+  }
+
+  private boolean startsWith(int from, int to, byte[] prefix, boolean ignoreCase) {
+    if (to - from < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      byte b = buffer[from + i];
+      if (ignoreCase && b >= 'A' && b <= 'Z') {
+        b += 'a' - 'A';
+      }
+      byte p = prefix[i];
+      if (ignoreCase && p >= 'A' && p <= 'Z') {
+        p += 'a' - 'A';
+      }
+      if (b != p) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Reads the next line into [lineStart, lineEnd). A last line that isn't terminated by a newline isn't returned.
+  private boolean nextLine() throws IOException {
+    int scanned = position;
+    while (true) {
+      int newline = indexOf(buffer, (byte) '\n', scanned, limit);
+      if (newline >= 0) {
+        lineStart = position;
+        lineEnd = newline;
+        position = newline + 1;
+        return true;
+      }
+      scanned = limit - position;
+      if (!fill()) {
+        position = limit;
+        return false;
+      }
+      scanned += position;
+    }
+  }
+
+  // Moves the unread bytes to the front of the buffer (growing it if it's full) and reads more bytes after them.
+  private boolean fill() throws IOException {
+    if (eof) {
+      return false;
+    }
+    int remaining = limit - position;
+    if (remaining == buffer.length) {
+      byte[] grown = new byte[buffer.length * 2];
+      System.arraycopy(buffer, position, grown, 0, remaining);
+      buffer = grown;
+    } else if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, remaining);
+    }
+    position = 0;
+    limit = remaining;
+
+    int n = stream.read(buffer, limit, buffer.length - limit);
+    if (n < 0) {
+      eof = true;
+      return false;
+    }
+    limit += n;
+    return true;
+  }
+
+  private byte[] readBytes(int length) throws IOException {
+    byte[] bytes = new byte[length];
+    int n = Math.min(length, limit - position);
+    System.arraycopy(buffer, position, bytes, 0, n);
+    position += n;
+
+    while (n < length) {
+      int read = eof ? -1 : stream.read(bytes, n, length - n);
+      if (read < 0) {
+        eof = true;
+        throw new NoSuchElementException();
+      }
+      n += read;
+    }
+    return bytes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    stream.close();
+  }
+}
@@ -24,6 +24,7 @@ import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import org.jsoup.Jsoup;
@@ -77,6 +78,13 @@ public class WashingtonPostCollection extends DocumentCollection<WashingtonPostC
    * The corpus is distributed as a single file.
    */
   public static class Segment extends FileSegment<Document> {
+    // Constructing a mapper is far more costly than parsing a record, and readers are thread-safe, so a single reader
+    // is shared by all segments.
+    private static final ObjectReader READER = new ObjectMapper()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES) // Ignore unrecognized properties
+        .registerModule(new Jdk8Module()) // Deserialize Java 8 Optional: http://www.baeldung.com/jackson-optional
+        .readerFor(Document.WashingtonPostObject.class);
+
     private String fileName;
 
     public Segment(Path path) throws IOException {
@@ -99,13 +107,9 @@ public class WashingtonPostCollection extends DocumentCollection<WashingtonPostC
     }
 
     private void parseRecord(String record) {
-      ObjectMapper mapper = new ObjectMapper();
       Document.WashingtonPostObject wapoObj = null;
       try {
-        wapoObj = mapper
-                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES) // Ignore unrecognized properties
-                .registerModule(new Jdk8Module()) // Deserialize Java 8 Optional: http://www.baeldung.com/jackson-optional
-                .readValue(record, Document.WashingtonPostObject.class);
+        wapoObj = READER.readValue(record);
       } catch (IOException e) {
         // For current dataset, we can make sure all record has unique id and
         // published date. So we just simply throw an RuntimeException
@@ -21,6 +21,10 @@ public final class Constants {
   // This is the name of the field in the Lucene document where the docid is stored.
   public static final String ID = "id";
 
+  // This is the name of the numeric doc values field holding the rank of the docid in sorted order, used to break
+  // score ties without comparing strings.
+  public static final String ID_RANK = "id_rank";
+
   // This is the name of the field in the Lucene document that should be searched by default.
   public static final String CONTENTS = "contents";
 
@@ -0,0 +1,491 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.index;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.IndexableFieldType;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Document store for the "raw" and "contents" fields, kept outside of Lucene stored fields. Stored fields are
+ * compressed in blocks of many documents, so fetching a single document decompresses its neighbours as well, and
+ * stored fields are copied by every merge. Instead, with <code>-docstore</code>, {@link IndexCollection} appends the
+ * text of each document to a file per field in the index directory, optionally deflate-compressed per document, and
+ * records the offset of the document in a numeric doc value, which merges carry along. Files are read through the
+ * {@link Directory} of the index, i.e., memory-mapped with the default {@link org.apache.lucene.store.FSDirectory}, so
+ * that a document is fetched with a single seek and, if compressed, inflated on its own.
+ */
+public final class DocStore implements Closeable {
+  /** Fields that can be kept in a docstore. */
+  public static final String[] FIELDS = new String[] {Constants.RAW, Constants.CONTENTS};
+
+  private static final String CODEC = "AnseriniDocStore";
+  private static final int VERSION = 0;
+
+  private static final Map<IndexReader.CacheKey, Map<String, Optional<DocStore>>> CACHE = new ConcurrentHashMap<>();
+
+  /** Compression of the documents in a docstore. */
+  public enum Compression {
+    NONE, DEFLATE
+  }
+
+  /**
+   * Returns the name of the docstore file of a field; the name doesn't start with an underscore, so that Lucene leaves
+   * the file alone.
+   *
+   * @param field field
+   * @return name of the file
+   */
+  public static String fileName(String field) {
+    return "docstore_" + field + ".dat";
+  }
+
+  /**
+   * Returns the name of the numeric doc values field holding the offsets of the documents in the docstore of a field.
+   *
+   * @param field field
+   * @return name of the doc values field
+   */
+  public static String offsetField(String field) {
+    return "docstore_" + field;
+  }
+
+  /**
+   * Appends documents to the docstores of a set of fields. Documents can be added concurrently by multiple threads:
+   * compression happens in the calling thread, and only the append itself is serialized. The fields that a document is
+   * given in place of its stored values are reused by the next document stored by the same thread, so each document
+   * must be added to the index before its thread stores the next one.
+   */
+  public static final class Writer implements Closeable {
+    private final String[] fields;
+    private final IndexOutput[] outputs;
+    private final Compression compression;
+
+    // Unstored copies of the types of the stored fields, shared by all threads.
+    private final Map<IndexableFieldType, FieldType> unstoredTypes = new ConcurrentHashMap<>();
+    private final ThreadLocal<Fields> reusedFields = ThreadLocal.withInitial(Fields::new);
+
+    /**
+     * Creates docstores for a set of fields, replacing existing ones.
+     *
+     * @param directory index directory
+     * @param fields fields
+     * @param compression compression of the documents
+     * @throws IOException if error encountered creating the files
+     */
+    public Writer(Directory directory, String[] fields, Compression compression) throws IOException {
+      this.fields = fields;
+      this.outputs = new IndexOutput[fields.length];
+      this.compression = compression;
+
+      deleteAll(directory);
+      try {
+        for (int i = 0; i < fields.length; i++) {
+          outputs[i] = directory.createOutput(fileName(fields[i]), IOContext.DEFAULT);
+          CodecUtil.writeHeader(outputs[i], CODEC, VERSION);
+        }
+      } catch (IOException e) {
+        close();
+        throw e;
+      }
+    }
+
+    /**
+     * Moves the stored values of the docstore fields of a document to the docstores: each value is appended to the
+     * docstore of its field, the offset is added to the document as a numeric doc value, and the field is no longer
+     * stored in the document (it is still indexed if it was).
+     *
+     * @param doc document
+     * @throws IOException if error encountered writing the docstore
+     */
+    public void store(Document doc) throws IOException {
+      Fields reused = reusedFields.get();
+      for (int i = 0; i < fields.length; i++) {
+        IndexableField[] values = doc.getFields(fields[i]);
+        String text = null;
+        for (IndexableField value : values) {
+          if (value.fieldType().stored() && value.stringValue() != null) {
+            text = value.stringValue();
+            break;
+          }
+        }
+        if (text == null) {
+          continue;
+        }
+
+        long offset = append(i, encode(text));
+        doc.removeFields(fields[i]);
+        for (int j = 0; j < values.length; j++) {
+          IndexableField unstored = unstored(reused, i, j, values[j]);
+          if (unstored != null) {
+            doc.add(unstored);
+          }
+        }
+        doc.add(reused.offset(i, offset));
+      }
+    }
+
+    private IndexableField unstored(Fields reused, int field, int position, IndexableField value) {
+      if (!value.fieldType().stored()) {
+        return value;
+      }
+      if (value.fieldType().indexOptions() == IndexOptions.NONE) {
+        // Purely stored, e.g., "raw".
+        return null;
+      }
+      FieldType type = unstoredTypes.computeIfAbsent(value.fieldType(), stored -> {
+        FieldType unstored = new FieldType(stored);
+        unstored.setStored(false);
+        unstored.freeze();
+        return unstored;
+      });
+      return reused.unstored(field, position, value.name(), value.stringValue(), type);
+    }
+
+    // Fields added to the documents stored by a thread, refilled for each document.
+    private final class Fields {
+      private final Field[][] unstored = new Field[fields.length][0];
+      private final NumericDocValuesField[] offsets = new NumericDocValuesField[fields.length];
+
+      private Field unstored(int field, int position, String name, String text, FieldType type) {
+        if (position >= unstored[field].length) {
+          unstored[field] = Arrays.copyOf(unstored[field], position + 1);
+        }
+        Field value = unstored[field][position];
+        if (value == null || value.fieldType() != type) {
+          value = new Field(name, text, type);
+          unstored[field][position] = value;
+        } else {
+          value.setStringValue(text);
+        }
+        return value;
+      }
+
+      private Field offset(int field, long offset) {
+        if (offsets[field] == null) {
+          offsets[field] = new NumericDocValuesField(offsetField(fields[field]), offset);
+        } else {
+          offsets[field].setLongValue(offset);
+        }
+        return offsets[field];
+      }
+    }
+
+    // Each record is the length of the text in bytes, the length of the record data shifted left by one with the low
+    // bit set if the data is compressed, and the data.
+    private byte[] encode(String text) {
+      byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+      byte[] data = bytes;
+      boolean compressed = false;
+      if (compression == Compression.DEFLATE && bytes.length > 0) {
+        byte[] deflated = deflate(bytes);
+        // Short documents may not compress.
+        if (deflated.length < bytes.length) {
+          data = deflated;
+          compressed = true;
+        }
+      }
+
+      ByteArrayOutputStream record = new ByteArrayOutputStream(data.length + 10);
+      writeVInt(record, bytes.length);
+      writeVInt(record, (data.length << 1) | (compressed ? 1 : 0));
+      record.write(data, 0, data.length);
+      return record.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+      Deflater deflater = new Deflater();
+      try {
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+          int n = deflater.deflate(buffer);
+          out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+      } finally {
+        deflater.end();
+      }
+    }
+
+    private static void writeVInt(ByteArrayOutputStream out, int i) {
+      while ((i & ~0x7F) != 0) {
+        out.write((i & 0x7F) | 0x80);
+        i >>>= 7;
+      }
+      out.write(i);
+    }
+
+    private long append(int field, byte[] record) throws IOException {
+      IndexOutput output = outputs[field];
+      synchronized (output) {
+        long offset = output.getFilePointer();
+        output.writeBytes(record, record.length);
+        return offset;
+      }
+    }
+
+    /**
+     * Writes the checksums of the docstores and closes them.
+     */
+    @Override
+    public void close() throws IOException {
+      IOException exception = null;
+      for (int i = 0; i < outputs.length; i++) {
+        if (outputs[i] == null) {
+          continue;
+        }
+        try {
+          synchronized (outputs[i]) {
+            CodecUtil.writeFooter(outputs[i]);
+            outputs[i].close();
+          }
+        } catch (IOException e) {
+          exception = exception == null ? e : exception;
+        }
+        outputs[i] = null;
+      }
+      if (exception != null) {
+        throw exception;
+      }
+    }
+  }
+
+  /**
+   * Deletes the docstore files in an index directory, if any.
+   *
+   * @param directory index directory
+   * @throws IOException if error encountered deleting the files
+   */
+  public static void deleteAll(Directory directory) throws IOException {
+    List<String> files = List.of(directory.listAll());
+    for (String field : FIELDS) {
+      if (files.contains(fileName(field))) {
+        directory.deleteFile(fileName(field));
+      }
+    }
+  }
+
+  private final String field;
+  private final IndexInput input;
+
+  private DocStore(String field, IndexInput input) {
+    this.field = field;
+    this.input = input;
+  }
+
+  /**
+   * Opens the docstore of a field of an index.
+   *
+   * @param directory index directory
+   * @param field field
+   * @return docstore, or null if the index has no docstore for the field
+   * @throws IOException if error encountered opening the docstore
+   */
+  public static DocStore open(Directory directory, String field) throws IOException {
+    IndexInput input;
+    try {
+      input = directory.openInput(fileName(field), IOContext.DEFAULT);
+    } catch (FileNotFoundException | NoSuchFileException e) {
+      return null;
+    }
+
+    try {
+      CodecUtil.checkHeader(input, CODEC, VERSION, VERSION);
+      // Only checks the structure of the footer; verifying the checksum would read the whole file.
+      CodecUtil.retrieveChecksum(input);
+    } catch (IOException e) {
+      input.close();
+      throw e;
+    }
+    return new DocStore(field, input);
+  }
+
+  /**
+   * Returns the docstore of a field of an index open for reading. Docstores are opened once per reader, and closed when
+   * the reader is closed.
+   *
+   * @param reader index reader
+   * @param field field
+   * @return docstore, or null if the index has no docstore for the field
+   * @throws IOException if error encountered opening the docstore
+   */
+  public static DocStore forReader(IndexReader reader, String field) throws IOException {
+    if (!(reader instanceof DirectoryReader) || reader.getReaderCacheHelper() == null) {
+      return null;
+    }
+
+    IndexReader.CacheHelper helper = reader.getReaderCacheHelper();
+    Map<String, Optional<DocStore>> stores = CACHE.computeIfAbsent(helper.getKey(), key -> {
+      helper.addClosedListener(DocStore::closeAll);
+      return new ConcurrentHashMap<>();
+    });
+    try {
+      return stores.computeIfAbsent(field, f -> {
+        try {
+          return Optional.ofNullable(open(((DirectoryReader) reader).directory(), f));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }).orElse(null);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static void closeAll(IndexReader.CacheKey key) throws IOException {
+    Map<String, Optional<DocStore>> stores = CACHE.remove(key);
+    if (stores == null) {
+      return;
+    }
+    for (Optional<DocStore> store : stores.values()) {
+      if (store.isPresent()) {
+        store.get().close();
+      }
+    }
+  }
+
+  /**
+   * Returns the value of a field of a document from the docstore of the index, if it has one.
+   *
+   * @param reader index reader
+   * @param field field
+   * @param luceneDocid internal Lucene docid
+   * @return value of the field, or null if the index has no docstore for the field or the document isn't in it
+   * @throws IOException if error encountered reading the docstore
+   */
+  public static String get(IndexReader reader, String field, int luceneDocid) throws IOException {
+    if (luceneDocid < 0 || luceneDocid >= reader.maxDoc()) {
+      return null;
+    }
+    DocStore store = forReader(reader, field);
+    return store == null ? null : store.get(reader, luceneDocid);
+  }
+
+  /**
+   * Adds the values of the docstore fields of a document back to the document as stored fields, so that code reading
+   * the document sees the same fields regardless of where they are kept.
+   *
+   * @param reader index reader
+   * @param luceneDocid internal Lucene docid
+   * @param doc document read from the stored fields
+   * @return the document
+   * @throws IOException if error encountered reading the docstore
+   */
+  public static Document restore(IndexReader reader, int luceneDocid, Document doc) throws IOException {
+    for (String field : FIELDS) {
+      if (doc.get(field) == null) {
+        String value = get(reader, field, luceneDocid);
+        if (value != null) {
+          doc.add(new StoredField(field, value));
+        }
+      }
+    }
+    return doc;
+  }
+
+  /**
+   * Returns the value of the field of a document.
+   *
+   * @param reader index reader the docstore belongs to
+   * @param luceneDocid internal Lucene docid
+   * @return value of the field, or null if the document isn't in the docstore
+   * @throws IOException if error encountered reading the docstore
+   */
+  public String get(IndexReader reader, int luceneDocid) throws IOException {
+    List<LeafReaderContext> leaves = reader.leaves();
+    LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(luceneDocid, leaves));
+    NumericDocValues offsets = leaf.reader().getNumericDocValues(offsetField(field));
+    if (offsets == null || !offsets.advanceExact(luceneDocid - leaf.docBase)) {
+      return null;
+    }
+
+    // Clones are cheap views of the same mapping, and allow concurrent reads.
+    IndexInput in = input.clone();
+    in.seek(offsets.longValue());
+    int length = in.readVInt();
+    int header = in.readVInt();
+    byte[] data = new byte[header >>> 1];
+    in.readBytes(data, 0, data.length);
+    if ((header & 1) == 0) {
+      return new String(data, StandardCharsets.UTF_8);
+    }
+
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data);
+      byte[] bytes = new byte[length];
+      int n = 0;
+      while (n < length) {
+        int inflated = inflater.inflate(bytes, n, length - n);
+        if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+          break;
+        }
+        n += inflated;
+      }
+      if (n != length) {
+        throw new IOException(String.format(Locale.ROOT, "Corrupt docstore record for field %s at offset %d",
+            field, offsets.longValue()));
+      }
+      return new String(bytes, StandardCharsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new IOException(String.format(Locale.ROOT, "Corrupt docstore record for field %s at offset %d",
+          field, offsets.longValue()), e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.index;
+
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FilterCodecReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SlowCodecReaderWrapper;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the rank of each docid, in the order of the docid terms, into the docid rank doc values
+ * (<code>-storeDocidRank</code>). Docids are only known in their entirety once all documents have been indexed, so the
+ * ranks are computed in a single pass over the sorted docid terms of a reader, and then written by adding the segments
+ * of the reader to an index writer, with their rank doc values (placeholders at indexing time) replaced by the computed
+ * ranks. This rewrites each segment once, rather than resolving a doc values update per docid. Terms are sorted by
+ * their UTF-8 bytes, which is the same order that sorting on the docid binary doc values gives.
+ */
+final class DocidRanks {
+  private DocidRanks() {}
+
+  /**
+   * Adds the segments of a reader to an index writer, with the docid ranks of their documents computed over all the
+   * docids of the reader. The segments must have docid rank doc values (e.g., placeholders).
+   *
+   * @param writer index writer
+   * @param reader reader over the documents to add
+   * @param merge whether to merge the segments into a single segment, rather than adding them one by one
+   * @return number of docids ranked
+   * @throws IOException if error encountered reading the segments or writing the index
+   */
+  static long addIndexes(IndexWriter writer, IndexReader reader, boolean merge) throws IOException {
+    List<LeafReaderContext> leaves = reader.leaves();
+    int[][] ranks = new int[leaves.size()][];
+    for (LeafReaderContext leaf : leaves) {
+      ranks[leaf.ord] = new int[leaf.reader().maxDoc()];
+    }
+    long count = rank(reader, ranks);
+
+    CodecReader[] ranked = new CodecReader[leaves.size()];
+    for (LeafReaderContext leaf : leaves) {
+      ranked[leaf.ord] = new RankedCodecReader(SlowCodecReaderWrapper.wrap(leaf.reader()), ranks[leaf.ord]);
+    }
+    if (merge) {
+      writer.addIndexes(ranked);
+    } else {
+      for (CodecReader segment : ranked) {
+        writer.addIndexes(segment);
+      }
+    }
+    return count;
+  }
+
+  // Fills in the rank of each document of each leaf, in one pass over the docid terms. Documents sharing a docid share
+  // its rank.
+  private static long rank(IndexReader reader, int[][] ranks) throws IOException {
+    Terms terms = MultiTerms.getTerms(reader, Constants.ID);
+    if (terms == null) {
+      return 0;
+    }
+
+    List<LeafReaderContext> leaves = reader.leaves();
+    TermsEnum termsEnum = terms.iterator();
+    PostingsEnum postings = null;
+    int rank = 0;
+    for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+      // Postings of the merged terms have docs of the top-level reader.
+      postings = termsEnum.postings(postings, PostingsEnum.NONE);
+      for (int doc = postings.nextDoc(); doc != PostingsEnum.NO_MORE_DOCS; doc = postings.nextDoc()) {
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+        ranks[leaf.ord][doc - leaf.docBase] = rank;
+      }
+      rank++;
+    }
+    return rank;
+  }
+
+  // Segment whose docid rank doc values are the given ranks, indexed by the docs of the segment.
+  private static final class RankedCodecReader extends FilterCodecReader {
+    private final int[] ranks;
+
+    RankedCodecReader(CodecReader in, int[] ranks) {
+      super(in);
+      this.ranks = ranks;
+    }
+
+    @Override
+    public DocValuesProducer getDocValuesReader() {
+      final DocValuesProducer producer = super.getDocValuesReader();
+      return new DocValuesProducer() {
+        @Override
+        public NumericDocValues getNumeric(FieldInfo field) throws IOException {
+          return Constants.ID_RANK.equals(field.name) ? new RankValues(ranks) : producer.getNumeric(field);
+        }
+
+        @Override
+        public BinaryDocValues getBinary(FieldInfo field) throws IOException {
+          return producer.getBinary(field);
+        }
+
+        @Override
+        public SortedDocValues getSorted(FieldInfo field) throws IOException {
+          return producer.getSorted(field);
+        }
+
+        @Override
+        public SortedNumericDocValues getSortedNumeric(FieldInfo field) throws IOException {
+          return producer.getSortedNumeric(field);
+        }
+
+        @Override
+        public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
+          return producer.getSortedSet(field);
+        }
+
+        @Override
+        public void checkIntegrity() throws IOException {
+          producer.checkIntegrity();
+        }
+
+        @Override
+        public void close() throws IOException {
+          producer.close();
+        }
+      };
+    }
+
+    @Override
+    public CacheHelper getCoreCacheHelper() {
+      return null;
+    }
+
+    @Override
+    public CacheHelper getReaderCacheHelper() {
+      return null;
+    }
+  }
+
+  // Dense doc values over the ranks of the docs of a segment.
+  private static final class RankValues extends NumericDocValues {
+    private final int[] ranks;
+    private int doc = -1;
+
+    RankValues(int[] ranks) {
+      this.ranks = ranks;
+    }
+
+    @Override
+    public long longValue() {
+      return ranks[doc];
+    }
+
+    @Override
+    public boolean advanceExact(int target) {
+      doc = target;
+      return true;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() {
+      return advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) {
+      doc = target < ranks.length ? target : NO_MORE_DOCS;
+      return doc;
+    }
+
+    @Override
+    public long cost() {
+      return ranks.length;
+    }
+  }
+}
@@ -22,15 +22,24 @@ import io.anserini.analysis.HuggingFaceTokenizerAnalyzer;
 import io.anserini.analysis.DefaultEnglishAnalyzer;
 import io.anserini.analysis.AutoCompositeAnalyzer;
 import io.anserini.analysis.TweetAnalyzer;
+import io.anserini.collection.ArchiveFiles;
 import io.anserini.collection.DocumentCollection;
 import io.anserini.collection.FileSegment;
+import io.anserini.collection.FileSplits;
+import io.anserini.collection.JsonCollection;
+import io.anserini.collection.JsoupStringTransform;
 import io.anserini.collection.SourceDocument;
+import io.anserini.collection.StreamingHtmlStringTransform;
+import io.anserini.collection.StringTransform;
+import io.anserini.index.generator.DefaultLuceneDocumentGenerator;
 import io.anserini.index.generator.EmptyDocumentException;
 import io.anserini.index.generator.InvalidDocumentException;
 import io.anserini.index.generator.LuceneDocumentGenerator;
 import io.anserini.index.generator.SkippedDocumentException;
 import io.anserini.search.similarity.AccurateBM25Similarity;
 import io.anserini.search.similarity.ImpactSimilarity;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.apache.logging.log4j.Level;
@@ -41,6 +50,8 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
@@ -54,23 +65,40 @@ import org.kohsuke.args4j.OptionHandlerFilter;
 import org.kohsuke.args4j.ParserProperties;
 import org.kohsuke.args4j.spi.StringArrayOptionHandler;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 public final class IndexCollection {
   private static final Logger LOG = LogManager.getLogger(IndexCollection.class);
 
+  // Bytes of the files of tar archives read into memory ahead of the indexing threads, counted in blocks.
+  private static final int READ_AHEAD_BLOCK_SIZE = 1 << 16;
+  private static final int READ_AHEAD_BLOCKS = (int) (4 * ArchiveFiles.MAX_IN_MEMORY_SIZE / READ_AHEAD_BLOCK_SIZE);
+
   // This is the default analyzer used, unless another stemming algorithm or language is specified.
   public static final Analyzer DEFAULT_ANALYZER = DefaultEnglishAnalyzer.newDefaultInstance();
 
@@ -109,6 +137,17 @@ public final class IndexCollection {
     @Option(name = "-append", usage = "Append documents.")
     public boolean append = false;
 
+    @Option(name = "-split.size", metaVar = "[mb]",
+        usage = "Split files larger than this size (in MB) into parts that are indexed in parallel, where the " +
+            "collection supports it, e.g., uncompressed .jsonl files; 0 to never split files.")
+    public int splitSize = 0;
+
+    @Option(name = "-discovery.streaming", forbids = {"-shard.manifest"},
+        usage = "Start indexing files as they're found, rather than once the whole collection has been walked; " +
+            "files are then indexed in the order in which they're found rather than largest first. " +
+            "Not available with -shard.manifest, which lists the files up front.")
+    public boolean discoveryStreaming = false;
+
     @Option(name = "-generator", metaVar = "[class]",
         usage = "Document generator class in package 'io.anserini.index.generator'.")
     public String generatorClass = "DefaultLuceneDocumentGenerator";
@@ -133,6 +172,27 @@ public final class IndexCollection {
         usage = "Boolean switch to store raw source documents.")
     public boolean storeRaw = false;
 
+    @Option(name = "-storeDocidRank",
+        usage = "Boolean switch to store the rank of each docid in sorted order as a numeric doc value, so that score " +
+            "ties can be broken by docid without string comparisons and without disabling dynamic pruning. The ranks " +
+            "are written by rewriting every segment once indexing is done: with -optimize, this is the final merge, " +
+            "but otherwise it roughly doubles the I/O of indexing.")
+    public boolean storeDocidRank = false;
+
+    @Option(name = "-docstore",
+        usage = "Boolean switch to keep the stored \"raw\" and \"contents\" fields (see -storeRaw and -storeContents) " +
+            "in a memory-mapped docstore alongside the index rather than in Lucene stored fields.")
+    public boolean docstore = false;
+
+    @Option(name = "-docstore.compression", metaVar = "[none|deflate]", depends = {"-docstore"},
+        usage = "Compression of the documents in the docstore, applied to each document separately.")
+    public String docstoreCompression = "deflate";
+
+    @Option(name = "-htmlTransform", metaVar = "[jsoup|streaming]",
+        usage = "Extractor of text from HTML documents: 'jsoup' parses each document into a DOM, 'streaming' makes a " +
+            "single pass over the markup.")
+    public String htmlTransform = "jsoup";
+
     @Option(name = "-optimize",
         usage = "Boolean switch to optimize index (i.e., force merge) into a single segment; costly for large collections.")
     public boolean optimize = false;
@@ -221,19 +281,38 @@ public final class IndexCollection {
     @Option(name = "-shard.current", metaVar = "[n]",
         usage = "The current shard number to generate (indexed from 0).")
     public int shardCurrent = -1;
+
+    @Option(name = "-shard.manifest", metaVar = "[file]", depends = {"-shard.current"}, forbids = {"-shard.count"},
+        usage = "Shard manifest written by ShardPlanner; the files of shard -shard.current in the manifest are indexed.")
+    public String shardManifest = null;
   }
 
   private final class LocalIndexerThread extends Thread {
-    final private Path inputFile;
+    final private String segmentName;
     final private IndexWriter writer;
-    final private DocumentCollection collection;
+    final private Callable<FileSegment> segmentOpener;
+    final private long size;
+    final private Runnable onCompletion;
     private FileSegment fileSegment;
 
-    private LocalIndexerThread(IndexWriter writer, DocumentCollection collection, Path inputFile) {
+    /**
+     * Creates a thread that indexes a file segment: a file, a part of a file that has been split, or a file in an
+     * archive.
+     *
+     * @param writer index writer
+     * @param segmentName name of the segment for logging
+     * @param segmentOpener opener of the segment
+     * @param size size of the segment in bytes, for tracking progress
+     * @param onCompletion action to run once the segment has been indexed, or null
+     */
+    private LocalIndexerThread(IndexWriter writer, String segmentName, Callable<FileSegment> segmentOpener, long size,
+                               Runnable onCompletion) {
       this.writer = writer;
-      this.collection = collection;
-      this.inputFile = inputFile;
-      setName(inputFile.getFileName().toString());
+      this.segmentName = segmentName;
+      this.segmentOpener = segmentOpener;
+      this.size = size;
+      this.onCompletion = onCompletion;
+      setName(segmentName);
     }
 
     @Override
@@ -242,6 +321,8 @@ public final class IndexCollection {
       try {
         LuceneDocumentGenerator generator = (LuceneDocumentGenerator)
             generatorClass.getDeclaredConstructor(Args.class).newInstance(args);
+        // Each document is added to the index before the next one is created.
+        generator.setReuseDocuments(true);
 
         // We keep track of two separate counts: the total count of documents in this file segment (cnt),
         // and the number of documents in this current "batch" (batch). We update the global counter every
@@ -250,9 +331,10 @@ public final class IndexCollection {
         int cnt = 0;
         int batch = 0;
 
-        FileSegment<SourceDocument> segment = collection.createFileSegment(inputFile);
+        FileSegment<SourceDocument> segment = segmentOpener.call();
         // in order to call close() and clean up resources in case of exception
         this.fileSegment = segment;
+        segment.setHtmlTransform(collection.getHtmlTransform());
 
         for (SourceDocument d : segment) {
           if (!d.indexable()) {
@@ -279,6 +361,10 @@ public final class IndexCollection {
             continue;
           }
 
+          if (docStore != null) {
+            docStore.store(doc);
+          }
+
           if (args.uniqueDocid) {
             writer.updateDocument(new Term("id", d.id()), doc);
           } else {
@@ -301,29 +387,39 @@ public final class IndexCollection {
         if (skipped > 0) {
           // When indexing tweets, this is normal, because there are delete messages that are skipped over.
           counters.skipped.addAndGet(skipped);
-          LOG.warn(inputFile.getParent().getFileName().toString() + File.separator +
-              inputFile.getFileName().toString() + ": " + skipped + " docs skipped.");
+          LOG.warn(segmentName + ": " + skipped + " docs skipped.");
         }
 
         if (segment.getErrorStatus()) {
           counters.errors.incrementAndGet();
-          LOG.error(inputFile.getParent().getFileName().toString() + File.separator +
-              inputFile.getFileName().toString() + ": error iterating through segment.");
+          LOG.error(segmentName + ": error iterating through segment.");
         }
 
         // Log at the debug level because this can be quite noisy if there are lots of file segments.
-        LOG.debug(inputFile.getParent().getFileName().toString() + File.separator +
-            inputFile.getFileName().toString() + ": " + cnt + " docs added.");
+        LOG.debug(segmentName + ": " + cnt + " docs added.");
       } catch (Exception e) {
         LOG.error(Thread.currentThread().getName() + ": Unexpected Exception:", e);
       } finally {
         if (fileSegment != null) {
             fileSegment.close();
         }
+        bytesCompleted.addAndGet(size);
+        if (onCompletion != null) {
+          onCompletion.run();
+        }
       }
     }
   }
 
+  // Names a file segment by its file and the directory it's in.
+  private static String segmentName(Path inputFile) {
+    Path parent = inputFile.getParent();
+    if (parent == null || parent.getFileName() == null) {
+      return inputFile.getFileName().toString();
+    }
+    return parent.getFileName().toString() + File.separator + inputFile.getFileName().toString();
+  }
+
   private final Args args;
   private final Path collectionPath;
   private final Set whitelistDocids;
@@ -331,7 +427,12 @@ public final class IndexCollection {
   private final Class generatorClass;
   private final DocumentCollection collection;
   private final Counters counters;
+  // Sizes of the file segments found and indexed so far, for tracking progress.
+  private final AtomicLong bytesTotal = new AtomicLong();
+  private final AtomicLong bytesCompleted = new AtomicLong();
+  private final AtomicInteger filesSplit = new AtomicInteger();
   private Path indexPath;
+  private DocStore.Writer docStore;
 
   @SuppressWarnings("unchecked")
   public IndexCollection(Args args) throws Exception {
@@ -364,6 +465,9 @@ public final class IndexCollection {
     LOG.info("Store docvectors? " + args.storeDocvectors);
     LOG.info("Store document \"contents\" field? " + args.storeContents);
     LOG.info("Store document \"raw\" field? " + args.storeRaw);
+    LOG.info("Store docid ranks? " + args.storeDocidRank);
+    LOG.info("Docstore? " + (args.docstore ? args.docstoreCompression : "false"));
+    LOG.info("HTML transform: " + args.htmlTransform);
     LOG.info("Additional fields to index: " + Arrays.toString(args.fields));
     LOG.info("Optimize (merge segments)? " + args.optimize);
     LOG.info("Whitelist: " + args.whitelist);
@@ -384,15 +488,44 @@ public final class IndexCollection {
       pathStr = pathStr.replace("/path/to", "collections");
     }
     collectionPath = Paths.get(pathStr);
-    if (!Files.exists(collectionPath) || !Files.isReadable(collectionPath) || !Files.isDirectory(collectionPath)) {
+    if (!Files.exists(collectionPath) || !Files.isReadable(collectionPath) ||
+        !(Files.isDirectory(collectionPath) || ArchiveFiles.isArchive(collectionPath))) {
       throw new RuntimeException("Document directory " + collectionPath.toString() + " does not exist or is not readable, please check the path");
     }
 
+    if (args.docstore) {
+      // Fail early on a bad value.
+      DocStore.Compression.valueOf(args.docstoreCompression.toUpperCase(Locale.ROOT));
+    }
+
+    if (args.discoveryStreaming && args.shardManifest != null) {
+      // Also checked by the option parser; this catches args set up programmatically.
+      throw new IllegalArgumentException("-discovery.streaming can't be combined with -shard.manifest");
+    }
+
+    final StringTransform htmlTransform;
+    if ("streaming".equals(args.htmlTransform)) {
+      htmlTransform = StreamingHtmlStringTransform.SINGLETON;
+    } else if ("jsoup".equals(args.htmlTransform)) {
+      htmlTransform = JsoupStringTransform.SINGLETON;
+    } else {
+      throw new IllegalArgumentException("Unknown HTML transform: " + args.htmlTransform);
+    }
+
     this.generatorClass = Class.forName("io.anserini.index.generator." + args.generatorClass);
     this.collectionClass = Class.forName("io.anserini.collection." + args.collectionClass);
 
     // Initialize the collection.
     collection = (DocumentCollection) this.collectionClass.getConstructor(Path.class).newInstance(collectionPath);
+    collection.setHtmlTransform(htmlTransform);
+
+    // The default generator only indexes the extra fields named by -fields (and the entity field), so JSON collections
+    // needn't extract the others.
+    if (collection instanceof JsonCollection && generatorClass == DefaultLuceneDocumentGenerator.class) {
+      Set<String> fields = new HashSet<>(Arrays.asList(args.fields));
+      fields.add(Constants.ENTITY);
+      ((JsonCollection) collection).setFields(fields);
+    }
 
     if (args.whitelist != null) {
       List<String> lines = FileUtils.readLines(new File(args.whitelist), "utf-8");
@@ -474,6 +607,21 @@ public final class IndexCollection {
       config.setMergeScheduler(new ConcurrentMergeScheduler());
 
       writer = new IndexWriter(dir, config);
+
+      if (args.docstore) {
+        List<String> fields = new ArrayList<>();
+        if (args.storeRaw) {
+          fields.add(Constants.RAW);
+        }
+        if (args.storeContents) {
+          fields.add(Constants.CONTENTS);
+        }
+        docStore = new DocStore.Writer(dir, fields.toArray(new String[0]),
+            DocStore.Compression.valueOf(args.docstoreCompression.toUpperCase(Locale.ROOT)));
+      } else {
+        // Don't leave the docstore of a previous index behind.
+        DocStore.deleteAll(dir);
+      }
     }
 
     final ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(numThreads);
@@ -481,41 +629,167 @@ public final class IndexCollection {
 
     LOG.info("Initializing collection in " + collectionPath.toString());
 
-    List<?> segmentPaths = collection.getSegmentPaths();
-    // when we want sharding to be done
-    if (args.shardCount > 1) {
-      segmentPaths = collection.getSegmentPaths(args.shardCount, args.shardCurrent);
-    }
-    final int segmentCnt = segmentPaths.size();
+    final IndexWriter taskWriter = writer;
+    final AtomicInteger segmentCnt = new AtomicInteger();
+    final List<ZipFile> zipFiles = Collections.synchronizedList(new ArrayList<>());
+    // Thread that keeps handing file segments over to the indexing threads after indexing has started, if any.
+    Thread feeder = null;
+
+    if (args.discoveryStreaming) {
+      // Files are handed over to the indexing threads as they're found, so that indexing starts right away rather than
+      // once the whole collection has been walked. The number of file segments waiting to be indexed is bounded, so
+      // that the walk doesn't run far ahead of indexing. Segments are indexed in the order in which they're found.
+      LOG.info("Starting to index as files are found...");
+      feeder = new Thread(() -> {
+        final Semaphore readAhead = new Semaphore(2 * args.threads);
+        final List<Path> archivePaths = new ArrayList<>();
+        final AtomicInteger fileCnt = new AtomicInteger();
+        try {
+          collection.walk(args.shardCount, args.shardCurrent, path -> {
+            fileCnt.incrementAndGet();
+            for (LocalIndexerThread task : newTasks(taskWriter, (Path) path, readAhead::release)) {
+              try {
+                readAhead.acquire();
+              } catch (InterruptedException e) {
+                // Stops the walk.
+                Thread.currentThread().interrupt();
+                return;
+              }
+              submit(executor, task, segmentCnt);
+            }
+          }, path -> archivePaths.add((Path) path));
+          if (Thread.currentThread().isInterrupted()) {
+            return;
+          }
+
+          LOG.info(String.format("%,d %s found", fileCnt.get(), (fileCnt.get() == 1 ? "file" : "files" )));
+          if (!archivePaths.isEmpty()) {
+            LOG.info(String.format("%,d %s found", archivePaths.size(), (archivePaths.size() == 1 ? "archive" : "archives")));
+          }
+          List<Path> tarPaths = new ArrayList<>();
+          for (LocalIndexerThread task : newArchiveTasks(taskWriter, archivePaths, zipFiles, tarPaths)) {
+            submit(executor, task, segmentCnt);
+          }
+          readTarArchives(taskWriter, tarPaths, executor, segmentCnt);
+        } catch (IOException e) {
+          LOG.error("Error reading archive", e);
+          counters.errors.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+          // Indexing has been cancelled.
+        } finally {
+          executor.shutdown();
+        }
+      }, "file-discovery");
+    } else {
+      List<?> segmentPaths;
+      List<Path> archivePaths;
+      // when we want sharding to be done
+      if (args.shardManifest != null) {
+        ShardManifest manifest = ShardManifest.read(Paths.get(args.shardManifest));
+        if (manifest.collectionClass != null && !manifest.collectionClass.equals(args.collectionClass)) {
+          LOG.warn(String.format("Shard manifest was planned for %s, not %s", manifest.collectionClass,
+              args.collectionClass));
+        }
+        ShardManifest.Shard shard = manifest.getShard(args.shardCurrent);
+        LOG.info(String.format("Shard %d of manifest %s: %,d bytes", args.shardCurrent, args.shardManifest, shard.bytes));
+        segmentPaths = shard.getSegmentPaths(collectionPath);
+        archivePaths = shard.getArchivePaths(collectionPath);
+      } else if (args.shardCount > 1) {
+        segmentPaths = collection.getSegmentPaths(args.shardCount, args.shardCurrent);
+        archivePaths = collection.getArchivePaths(args.shardCount, args.shardCurrent);
+      } else {
+        segmentPaths = collection.getSegmentPaths();
+        archivePaths = collection.getArchivePaths();
+      }
+      LOG.info(String.format("%,d %s found", segmentPaths.size(), (segmentPaths.size() == 1 ? "file" : "files" )));
+      if (!archivePaths.isEmpty()) {
+        LOG.info(String.format("%,d %s found", archivePaths.size(), (archivePaths.size() == 1 ? "archive" : "archives")));
+      }
 
-    LOG.info(String.format("%,d %s found", segmentCnt, (segmentCnt == 1 ? "file" : "files" )));
-    LOG.info("Starting to index...");
+      final List<LocalIndexerThread> tasks = new ArrayList<>();
+      for (Object segmentPath : segmentPaths) {
+        tasks.addAll(newTasks(writer, (Path) segmentPath, null));
+      }
+      final List<Path> tarPaths = new ArrayList<>();
+      try {
+        tasks.addAll(newArchiveTasks(writer, archivePaths, zipFiles, tarPaths));
+      } catch (IOException e) {
+        executor.shutdownNow();
+        closeAll(zipFiles);
+        throw e;
+      }
 
-    for (int i = 0; i < segmentCnt; i++) {
-      executor.execute(new LocalIndexerThread(writer, collection, (Path) segmentPaths.get(i)));
+      // With more than one thread, the largest segments are indexed first, so that a large segment doesn't keep one
+      // thread busy long after the others have run out of work. With a single thread, the order makes no difference to
+      // how long indexing takes, so segments are indexed in the order in which they were found.
+      if (numThreads > 1) {
+        tasks.sort(Comparator.comparingLong((LocalIndexerThread task) -> task.size).reversed());
+      }
+
+      LOG.info("Starting to index...");
+      for (LocalIndexerThread task : tasks) {
+        submit(executor, task, segmentCnt);
+      }
+
+      // The files in a tar archive can only be read in order, so a single thread reads them and hands them over to the
+      // indexing threads.
+      if (tarPaths.isEmpty()) {
+        executor.shutdown();
+      } else {
+        feeder = new Thread(() -> {
+          try {
+            readTarArchives(taskWriter, tarPaths, executor, segmentCnt);
+          } catch (RejectedExecutionException e) {
+            // Indexing has been cancelled.
+          } finally {
+            executor.shutdown();
+          }
+        }, "tar-reader");
+      }
     }
 
-    executor.shutdown();
+    if (feeder != null) {
+      feeder.setDaemon(true);
+      feeder.start();
+    }
 
     try {
       // Wait for existing tasks to terminate
       while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
-        if (segmentCnt == 1) {
+        if (feeder != null && feeder.isAlive()) {
+          // The total isn't known yet.
+          LOG.info(String.format("%,d of %,d file segments found so far completed, %,d documents indexed",
+              executor.getCompletedTaskCount(), segmentCnt.get(), counters.indexed.get()));
+        } else if (segmentCnt.get() == 1) {
           LOG.info(String.format("%,d documents indexed", counters.indexed.get()));
         } else {
-          LOG.info(String.format("%.2f%% of files completed, %,d documents indexed",
-              (double) executor.getCompletedTaskCount() / segmentCnt * 100.0d, counters.indexed.get()));
+          // Progress is measured in bytes, since segments can vary widely in size.
+          long total = bytesTotal.get();
+          double completed = total > 0 ? (double) bytesCompleted.get() / total :
+              (double) executor.getCompletedTaskCount() / segmentCnt.get();
+          LOG.info(String.format("%.2f%% of data completed (%,d of %,d file segments), %,d documents indexed",
+              completed * 100.0d, executor.getCompletedTaskCount(), segmentCnt.get(), counters.indexed.get()));
         }
       }
     } catch (InterruptedException ie) {
       // (Re-)Cancel if current thread also interrupted
       executor.shutdownNow();
+      if (feeder != null) {
+        feeder.interrupt();
+      }
       // Preserve interrupt status
       Thread.currentThread().interrupt();
+    } finally {
+      closeAll(zipFiles);
+    }
+
+    if (filesSplit.get() > 0) {
+      LOG.info(String.format("%,d %s split into parts of about %,d MB", filesSplit.get(),
+          (filesSplit.get() == 1 ? "file" : "files"), args.splitSize));
     }
 
-    if (segmentCnt != executor.getCompletedTaskCount()) {
-      throw new RuntimeException("totalFiles = " + segmentCnt +
+    if (segmentCnt.get() != executor.getCompletedTaskCount()) {
+      throw new RuntimeException("totalFiles = " + segmentCnt.get() +
           " is not equal to completedTaskCount =  " + executor.getCompletedTaskCount());
     }
 
@@ -523,14 +797,26 @@ public final class IndexCollection {
 
     // Do a final commit
     try {
+      // The docstore is complete before the index that refers to it is committed.
+      if (docStore != null) {
+        docStore.close();
+        docStore = null;
+      }
       if (writer != null) {
         writer.commit();
+        if (args.storeDocidRank) {
+          storeDocidRanks(writer);
+          writer.commit();
+        }
         if (args.optimize) {
           writer.forceMerge(1);
         }
       }
     } finally {
       try {
+        if (docStore != null) {
+          docStore.close();
+        }
         if (writer != null) {
           writer.close();
         }
@@ -560,6 +846,150 @@ public final class IndexCollection {
     return counters;
   }
 
+  // Reads the qualified files of tar archives in order, handing each one over to an indexing thread. Files up to
+  // ArchiveFiles.MAX_IN_MEMORY_SIZE are read into memory, so that the reader can move on while they're indexed; the
+  // bytes read ahead of the indexing threads are bounded, counted in blocks. Larger files are indexed straight from the
+  // archive, which the reader can only move on from once they're done.
+  @SuppressWarnings("rawtypes")
+  private void readTarArchives(IndexWriter writer, List<Path> tarPaths, ThreadPoolExecutor executor,
+                               AtomicInteger segmentCnt) {
+    final Semaphore readAhead = new Semaphore(READ_AHEAD_BLOCKS);
+    for (Path tarPath : tarPaths) {
+      try (ArchiveInputStream archive = ArchiveFiles.open(tarPath)) {
+        ArchiveEntry entry;
+        while ((entry = archive.getNextEntry()) != null) {
+          if (entry.isDirectory() || !collection.acceptsArchivedFile(entry.getName())) {
+            continue;
+          }
+          final String name = entry.getName();
+          final String segmentName = tarPath.getFileName() + File.separator + name;
+          if (ArchiveFiles.fitsInMemory(entry)) {
+            final int blocks = (int) Math.max(1, (entry.getSize() + READ_AHEAD_BLOCK_SIZE - 1) / READ_AHEAD_BLOCK_SIZE);
+            readAhead.acquire(blocks);
+            final byte[] bytes = archive.readAllBytes();
+            submit(executor, new LocalIndexerThread(writer, segmentName,
+                () -> collection.createFileSegment(name, new ByteArrayInputStream(bytes)), bytes.length,
+                () -> readAhead.release(blocks)), segmentCnt);
+          } else {
+            final CountDownLatch done = new CountDownLatch(1);
+            final InputStream stream = ArchiveFiles.currentFile(archive);
+            submit(executor, new LocalIndexerThread(writer, segmentName,
+                () -> collection.createFileSegment(name, stream), Math.max(entry.getSize(), 0), done::countDown),
+                segmentCnt);
+            done.await();
+          }
+        }
+      } catch (IOException e) {
+        LOG.error("Error reading archive " + tarPath, e);
+        counters.errors.incrementAndGet();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  // Creates the tasks that index a file, splitting the file into parts if it's larger than the split size and the
+  // collection supports it.
+  private List<LocalIndexerThread> newTasks(IndexWriter writer, Path path, Runnable onCompletion) {
+    final long size = sizeOf(path);
+    final long splitSize = (long) args.splitSize << 20;
+    if (splitSize > 0 && size > splitSize && collection.isSplittable(path)) {
+      try {
+        final long[] bounds = FileSplits.split(path, splitSize);
+        if (bounds.length > 2) {
+          filesSplit.incrementAndGet();
+        }
+        List<LocalIndexerThread> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+          final long start = bounds[i];
+          final long end = bounds[i + 1];
+          tasks.add(new LocalIndexerThread(writer, segmentName(path) + ":" + start + "-" + end,
+              () -> collection.createFileSegment(path, start, end), end - start, onCompletion));
+        }
+        return tasks;
+      } catch (IOException e) {
+        LOG.warn("Unable to split " + path + ", indexing it whole: " + e.getMessage());
+      }
+    }
+    return List.of(new LocalIndexerThread(writer, segmentName(path), () -> collection.createFileSegment(path), size,
+        onCompletion));
+  }
+
+  // Creates the tasks that index the qualified files of zip archives, opening each archive, and collects the other
+  // archives, which are tar archives that can only be read in order.
+  private List<LocalIndexerThread> newArchiveTasks(IndexWriter writer, List<Path> archivePaths, List<ZipFile> zipFiles,
+                                                   List<Path> tarPaths) throws IOException {
+    List<LocalIndexerThread> tasks = new ArrayList<>();
+    for (Path archivePath : archivePaths) {
+      if (ArchiveFiles.isZip(archivePath)) {
+        // The files in a zip archive can be read in any order through its central directory, so each one is indexed
+        // as a file of its own.
+        ZipFile zipFile = new ZipFile(archivePath.toFile());
+        zipFiles.add(zipFile);
+        for (ZipEntry entry : Collections.list(zipFile.entries())) {
+          if (!entry.isDirectory() && collection.acceptsArchivedFile(entry.getName())) {
+            tasks.add(new LocalIndexerThread(writer, archivePath.getFileName() + File.separator + entry.getName(),
+                () -> collection.createFileSegment(entry.getName(), zipFile.getInputStream(entry)),
+                Math.max(entry.getSize(), 0), null));
+          }
+        }
+      } else {
+        tarPaths.add(archivePath);
+      }
+    }
+    return tasks;
+  }
+
+  private void submit(ThreadPoolExecutor executor, LocalIndexerThread task, AtomicInteger segmentCnt) {
+    segmentCnt.incrementAndGet();
+    bytesTotal.addAndGet(task.size);
+    executor.execute(task);
+  }
+
+  private static long sizeOf(Path path) {
+    try {
+      return Files.size(path);
+    } catch (IOException e) {
+      // The error is reported when the file is indexed.
+      return 0;
+    }
+  }
+
+  private static void closeAll(List<ZipFile> zipFiles) {
+    for (ZipFile zipFile : zipFiles) {
+      try {
+        zipFile.close();
+      } catch (IOException e) {
+        LOG.error(e);
+      }
+    }
+  }
+
+  // Docids are only known in their entirety once all documents have been indexed, so the segments are written again
+  // with their ranks (see DocidRanks). The ranked segments are merged into one if the index is to be optimized.
+  private void storeDocidRanks(IndexWriter writer) throws IOException {
+    try (DirectoryReader reader = DirectoryReader.open(writer)) {
+      if (FieldInfos.getMergedFieldInfos(reader).fieldInfo(Constants.ID_RANK) == null) {
+        LOG.warn(String.format("Generator %s does not write \"%s\" placeholders; docid ranks not stored.",
+            args.generatorClass, Constants.ID_RANK));
+        return;
+      }
+
+      LOG.info("Storing docid ranks...");
+      // The reader holds on to the files of the segments while they're written again. If that fails, the writer goes
+      // back to the last commit, which has all the documents, just without their ranks.
+      try {
+        writer.deleteAll();
+        long count = DocidRanks.addIndexes(writer, reader, args.optimize);
+        LOG.info(String.format("%,d docid ranks stored.", count));
+      } catch (IOException | RuntimeException e) {
+        writer.rollback();
+        throw e;
+      }
+    }
+  }
+
   public static void main(String[] args) throws Exception {
     Args indexCollectionArgs = new Args();
     CmdLineParser parser = new CmdLineParser(indexCollectionArgs, ParserProperties.defaults().withUsageWidth(100));
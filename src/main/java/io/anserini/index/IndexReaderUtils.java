@@ -22,12 +22,16 @@ import io.anserini.search.query.BagOfWordsQueryGenerator;
 import io.anserini.search.query.PhraseQueryGenerator;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiTerms;
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.StoredFields;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
@@ -45,6 +49,7 @@ import org.apache.lucene.search.similarities.BM25Similarity;
 import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
@@ -59,6 +64,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Class containing a bunch of static helper methods for accessing a Lucene inverted index.
@@ -499,13 +505,178 @@ public class IndexReaderUtils {
    */
   public static Document document(IndexReader reader, String docid) {
     try {
-      return reader.storedFields().document(IndexReaderUtils.convertDocidToLuceneDocid(reader, docid));
+      int luceneDocid = IndexReaderUtils.convertDocidToLuceneDocid(reader, docid);
+      return DocStore.restore(reader, luceneDocid, reader.storedFields().document(luceneDocid));
     } catch (Exception e) {
       // Eat any exceptions and just return null.
       return null;
     }
   }
 
+  /**
+   * Converts collection docids to Lucene internal docids in bulk. Rather than running a query per docid, the docids
+   * are sorted and looked up in the term dictionary of the id field of each segment in order, so that consecutive
+   * lookups share most of the work of seeking.
+   *
+   * @param reader index reader
+   * @param docids collection docids
+   * @return corresponding Lucene internal docids, in the order of the collection docids, with -1 for docids not found
+   * @throws IOException if error encountered reading the index
+   */
+  public static int[] convertDocidsToLuceneDocids(IndexReader reader, List<String> docids) throws IOException {
+    int n = docids.size();
+    int[] luceneDocids = new int[n];
+    Arrays.fill(luceneDocids, -1);
+
+    BytesRef[] terms = new BytesRef[n];
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      terms[i] = new BytesRef(docids.get(i));
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> terms[a].compareTo(terms[b]));
+
+    int unresolved = n;
+    for (LeafReaderContext leaf : reader.leaves()) {
+      Terms ids = leaf.reader().terms(Constants.ID);
+      if (ids == null) {
+        continue;
+      }
+      TermsEnum termsEnum = ids.iterator();
+      Bits liveDocs = leaf.reader().getLiveDocs();
+      PostingsEnum postings = null;
+      for (int i : order) {
+        if (luceneDocids[i] != -1 || !termsEnum.seekExact(terms[i])) {
+          continue;
+        }
+        postings = termsEnum.postings(postings, PostingsEnum.NONE);
+        for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.nextDoc()) {
+          if (liveDocs == null || liveDocs.get(doc)) {
+            luceneDocids[i] = leaf.docBase + doc;
+            unresolved--;
+            break;
+          }
+        }
+      }
+      if (unresolved == 0) {
+        break;
+      }
+    }
+
+    return luceneDocids;
+  }
+
+  /**
+   * Returns the positions of the Lucene internal docids that exist (i.e., are not -1), ordered by increasing docid,
+   * i.e., by segment and then by docid within the segment, which is the order in which stored fields are best read.
+   *
+   * @param luceneDocids Lucene internal docids, with -1 for docids not found
+   * @return positions of the docids that exist, in increasing order of docid
+   */
+  public static int[] sortByLuceneDocid(int[] luceneDocids) {
+    long[] keys = new long[luceneDocids.length];
+    int found = 0;
+    for (int i = 0; i < luceneDocids.length; i++) {
+      if (luceneDocids[i] >= 0) {
+        keys[found++] = ((long) luceneDocids[i] << 32) | i;
+      }
+    }
+    Arrays.sort(keys, 0, found);
+
+    int[] order = new int[found];
+    for (int i = 0; i < found; i++) {
+      order[i] = (int) keys[i];
+    }
+    return order;
+  }
+
+  /**
+   * Fetches the Lucene {@link Document}s of a range of docids sorted by {@link #sortByLuceneDocid(int[])}. Documents
+   * are read in increasing docid order with a single {@link StoredFields} instance per segment, so that neighbouring
+   * documents in the same compressed block of stored fields are decompressed together. Different ranges can be
+   * fetched concurrently by different threads.
+   *
+   * @param reader index reader
+   * @param luceneDocids Lucene internal docids
+   * @param order positions of the docids, in increasing order of docid
+   * @param from start of the range in <code>order</code>, inclusive
+   * @param to end of the range in <code>order</code>, exclusive
+   * @param fields names of the stored fields to load, or null to load all stored fields
+   * @param documents the document of <code>luceneDocids[i]</code> is stored in <code>documents[i]</code>
+   * @throws IOException if error encountered reading the index
+   */
+  public static void documents(IndexReader reader, int[] luceneDocids, int[] order, int from, int to,
+                               Set<String> fields, Document[] documents) throws IOException {
+    List<LeafReaderContext> leaves = reader.leaves();
+    LeafReaderContext leaf = null;
+    StoredFields storedFields = null;
+    for (int i = from; i < to; i++) {
+      int docid = luceneDocids[order[i]];
+      if (leaf == null || docid >= leaf.docBase + leaf.reader().maxDoc()) {
+        leaf = leaves.get(ReaderUtil.subIndex(docid, leaves));
+        storedFields = leaf.reader().storedFields();
+      }
+
+      Document document;
+      if (fields == null) {
+        document = storedFields.document(docid - leaf.docBase);
+      } else {
+        DocumentStoredFieldVisitor visitor = new DocumentStoredFieldVisitor(fields);
+        storedFields.document(docid - leaf.docBase, visitor);
+        document = visitor.getDocument();
+      }
+      documents[order[i]] = fields == null || fields.contains(Constants.RAW) || fields.contains(Constants.CONTENTS) ?
+          DocStore.restore(reader, docid, document) : document;
+    }
+  }
+
+  /**
+   * Fetches the Lucene {@link Document}s of collection docids in bulk; see
+   * {@link #convertDocidsToLuceneDocids(IndexReader, List)} and
+   * {@link #documents(IndexReader, int[], int[], int, int, Set, Document[])}.
+   *
+   * @param reader index reader
+   * @param docids collection docids
+   * @param fields names of the stored fields to load, or null to load all stored fields
+   * @return corresponding Lucene {@link Document}s, in the order of the collection docids, with null for docids not
+   *     found
+   * @throws IOException if error encountered reading the index
+   */
+  public static Document[] documents(IndexReader reader, List<String> docids, Set<String> fields) throws IOException {
+    int[] luceneDocids = convertDocidsToLuceneDocids(reader, docids);
+    int[] order = sortByLuceneDocid(luceneDocids);
+    Document[] documents = new Document[docids.size()];
+    documents(reader, luceneDocids, order, 0, order.length, fields, documents);
+    return documents;
+  }
+
+  /**
+   * Returns a stored field of documents in bulk based on internal Lucene docids, reading the documents in docid order;
+   * see {@link #documents(IndexReader, int[], int[], int, int, Set, Document[])}.
+   *
+   * @param reader index reader
+   * @param luceneDocids internal Lucene docids
+   * @param field field
+   * @return the field of each document, with null for documents that don't exist or don't have the field
+   * @throws IOException if error encountered reading the index
+   */
+  public static String[] documentField(IndexReader reader, int[] luceneDocids, String field) throws IOException {
+    int[] existing = new int[luceneDocids.length];
+    for (int i = 0; i < luceneDocids.length; i++) {
+      existing[i] = luceneDocids[i] >= 0 && luceneDocids[i] < reader.maxDoc() ? luceneDocids[i] : -1;
+    }
+
+    int[] order = sortByLuceneDocid(existing);
+    Document[] documents = new Document[luceneDocids.length];
+    documents(reader, existing, order, 0, order.length, Set.of(field), documents);
+
+    String[] values = new String[luceneDocids.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = documents[i] == null ? null : documents[i].get(field);
+    }
+    return values;
+  }
+
   /**
    * Fetches the Lucene {@link Document} based on some field other than its unique collection docid. For example,
    * scientific articles might have DOIs. The method is named to be consistent with Lucene's
@@ -545,7 +716,9 @@ public class IndexReaderUtils {
    */
   public static String documentRaw(IndexReader reader, String docid) {
     try {
-      return reader.storedFields().document(convertDocidToLuceneDocid(reader, docid)).get(Constants.RAW);
+      int luceneDocid = convertDocidToLuceneDocid(reader, docid);
+      String value = DocStore.get(reader, Constants.RAW, luceneDocid);
+      return value != null ? value : reader.storedFields().document(luceneDocid).get(Constants.RAW);
     } catch (Exception e) {
       // Eat any exceptions and just return null.
       return null;
@@ -562,7 +735,9 @@ public class IndexReaderUtils {
    */
   public static String documentContents(IndexReader reader, String docid) {
     try {
-      return reader.storedFields().document(convertDocidToLuceneDocid(reader, docid)).get(Constants.CONTENTS);
+      int luceneDocid = convertDocidToLuceneDocid(reader, docid);
+      String value = DocStore.get(reader, Constants.CONTENTS, luceneDocid);
+      return value != null ? value : reader.storedFields().document(luceneDocid).get(Constants.CONTENTS);
     } catch (Exception e) {
       // Eat any exceptions and just return null.
       return null;
@@ -0,0 +1,179 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.index;
+
+import org.apache.commons.lang3.time.DurationFormatUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+import org.kohsuke.args4j.OptionHandlerFilter;
+import org.kohsuke.args4j.ParserProperties;
+import org.kohsuke.args4j.spi.StringArrayOptionHandler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combines the indexes of the shards of a collection, e.g., indexed on different machines with a {@link ShardManifest},
+ * into a single index. The segments of the shard indexes are copied into the new index as they are, and optionally
+ * merged into a single segment afterwards. The number of documents in the new index is checked against the number of
+ * documents in the shards. Docid ranks (<code>-storeDocidRank</code>) are only known once all the docids are in one
+ * index, so they're computed again, and the segments are written with them rather than copied. Shards with a docstore
+ * (<code>-docstore</code>) can't be merged, since the offsets of their documents are relative to the docstore files of
+ * each shard.
+ */
+public final class MergeShardIndexes {
+  private static final Logger LOG = LogManager.getLogger(MergeShardIndexes.class);
+
+  public static final class Args {
+    @Option(name = "-input", metaVar = "[paths]", handler = StringArrayOptionHandler.class, required = true,
+        usage = "Indexes of the shards to merge.")
+    public String[] input;
+
+    @Option(name = "-index", metaVar = "[path]", required = true,
+        usage = "Path of the merged index.")
+    public String index;
+
+    @Option(name = "-optimize",
+        usage = "Boolean switch to merge the merged index into a single segment (slow for large collections).")
+    public boolean optimize = false;
+  }
+
+  private final Args args;
+
+  public MergeShardIndexes(Args args) {
+    this.args = args;
+  }
+
+  /**
+   * Merges the indexes of the shards.
+   *
+   * @return number of documents in the merged index
+   * @throws IOException if error encountered reading the shard indexes or writing the merged index
+   */
+  public long run() throws IOException {
+    final long start = System.nanoTime();
+    final Path indexPath = Paths.get(args.index);
+
+    List<Directory> shards = new ArrayList<>();
+    try {
+      long expected = 0;
+      boolean hasDocidRanks = false;
+      for (String input : args.input) {
+        Path shardPath = Paths.get(input);
+        if (shardPath.toAbsolutePath().normalize().equals(indexPath.toAbsolutePath().normalize())) {
+          throw new IllegalArgumentException("Merged index can't be one of the shard indexes: " + input);
+        }
+
+        Directory shard = FSDirectory.open(shardPath);
+        shards.add(shard);
+        List<String> files = Arrays.asList(shard.listAll());
+        for (String field : DocStore.FIELDS) {
+          if (files.contains(DocStore.fileName(field))) {
+            throw new IllegalArgumentException("Shards with a docstore can't be merged: " + input);
+          }
+        }
+
+        try (DirectoryReader reader = DirectoryReader.open(shard)) {
+          LOG.info(String.format("%s: %,d documents", input, reader.numDocs()));
+          expected += reader.numDocs();
+          hasDocidRanks |= FieldInfos.getMergedFieldInfos(reader).fieldInfo(Constants.ID_RANK) != null;
+        }
+      }
+
+      LOG.info(String.format("Merging %,d shards into %s...", shards.size(), indexPath));
+      long numDocs;
+      try (Directory dir = FSDirectory.open(indexPath)) {
+        IndexWriterConfig config = new IndexWriterConfig();
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+        config.setUseCompoundFile(false);
+        try (IndexWriter writer = new IndexWriter(dir, config)) {
+          if (hasDocidRanks) {
+            // The segments are written again with docid ranks over all the shards, instead of being copied.
+            LOG.info("Storing docid ranks...");
+            List<DirectoryReader> readers = new ArrayList<>();
+            try {
+              for (Directory shard : shards) {
+                readers.add(DirectoryReader.open(shard));
+              }
+              long count = DocidRanks.addIndexes(writer,
+                  new MultiReader(readers.toArray(new DirectoryReader[0]), false), args.optimize);
+              LOG.info(String.format("%,d docid ranks stored.", count));
+            } finally {
+              IOUtils.close(readers);
+            }
+          } else {
+            writer.addIndexes(shards.toArray(new Directory[0]));
+          }
+          writer.commit();
+
+          if (args.optimize) {
+            writer.forceMerge(1);
+            writer.commit();
+          }
+        }
+
+        try (DirectoryReader reader = DirectoryReader.open(dir)) {
+          numDocs = reader.numDocs();
+        }
+      }
+      if (numDocs != expected) {
+        throw new IllegalStateException(String.format("Merged index has %,d documents, but the shards have %,d",
+            numDocs, expected));
+      }
+
+      final long durationMillis = TimeUnit.MILLISECONDS.convert(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      LOG.info(String.format("Total %,d documents merged in %s", numDocs,
+          DurationFormatUtils.formatDuration(durationMillis, "HH:mm:ss")));
+      return numDocs;
+    } finally {
+      IOUtils.close(shards);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Args mergeArgs = new Args();
+    CmdLineParser parser = new CmdLineParser(mergeArgs, ParserProperties.defaults().withUsageWidth(100));
+
+    try {
+      parser.parseArgument(args);
+    } catch (CmdLineException e) {
+      System.err.println(e.getMessage());
+      parser.printUsage(System.err);
+      System.err.println("Example: " + MergeShardIndexes.class.getSimpleName() +
+          parser.printExample(OptionHandlerFilter.REQUIRED));
+      return;
+    }
+
+    new MergeShardIndexes(mergeArgs).run();
+  }
+}
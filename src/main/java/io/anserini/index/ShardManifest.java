@@ -0,0 +1,102 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.index;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Assignment of the files of a collection to shards that are indexed separately, e.g., on different machines, as
+ * planned by {@link ShardPlanner}. The manifest is a JSON file. Paths are relative to the collection directory, so that
+ * the collection can be mounted at a different path on each machine. {@link IndexCollection} indexes the files of a
+ * shard with <code>-shard.manifest</code>, and {@link MergeShardIndexes} combines the indexes of the shards.
+ */
+public final class ShardManifest {
+  private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+  /** A shard: files and archives of the collection, along with their total size. */
+  public static final class Shard {
+    public int shard;
+    public long bytes;
+    public List<String> files = new ArrayList<>();
+    public List<String> archives = new ArrayList<>();
+
+    /**
+     * Returns the paths of the files of the shard.
+     *
+     * @param collectionPath path of the collection
+     * @return paths of the files
+     */
+    public List<Path> getSegmentPaths(Path collectionPath) {
+      return files.stream().map(collectionPath::resolve).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the paths of the archives of the shard.
+     *
+     * @param collectionPath path of the collection
+     * @return paths of the archives
+     */
+    public List<Path> getArchivePaths(Path collectionPath) {
+      return archives.stream().map(collectionPath::resolve).collect(Collectors.toList());
+    }
+  }
+
+  public String collectionClass;
+  public List<Shard> shards = new ArrayList<>();
+
+  /**
+   * Returns a shard.
+   *
+   * @param shard shard number, from 0
+   * @return the shard
+   * @throws IllegalArgumentException if the manifest doesn't have the shard
+   */
+  public Shard getShard(int shard) {
+    if (shard < 0 || shard >= shards.size()) {
+      throw new IllegalArgumentException(String.format("Shard %d not in manifest with %d shards", shard, shards.size()));
+    }
+    return shards.get(shard);
+  }
+
+  /**
+   * Reads a manifest.
+   *
+   * @param path path of the manifest
+   * @return manifest
+   * @throws IOException if error encountered reading the manifest
+   */
+  public static ShardManifest read(Path path) throws IOException {
+    return MAPPER.readValue(path.toFile(), ShardManifest.class);
+  }
+
+  /**
+   * Writes the manifest.
+   *
+   * @param path path of the manifest
+   * @throws IOException if error encountered writing the manifest
+   */
+  public void write(Path path) throws IOException {
+    MAPPER.writeValue(path.toFile(), this);
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.index;
+
+import io.anserini.collection.DocumentCollection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+import org.kohsuke.args4j.OptionHandlerFilter;
+import org.kohsuke.args4j.ParserProperties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Plans the sharding of a collection that is indexed on multiple machines: the files (and archives) of the collection
+ * are partitioned into shards of about the same total size, so that the shards take about the same time to index.
+ * Files are assigned largest first, each to the shard with the smallest total size so far. A file is never split
+ * across shards, so a file larger than the average size of a shard ends up in a shard of its own. The plan is written
+ * to a {@link ShardManifest}.
+ */
+public final class ShardPlanner {
+  private static final Logger LOG = LogManager.getLogger(ShardPlanner.class);
+
+  public static final class Args {
+    @Option(name = "-input", metaVar = "[path]", required = true,
+        usage = "Location of input collection.")
+    public String input;
+
+    @Option(name = "-collection", metaVar = "[class]", required = true,
+        usage = "Collection class in package 'io.anserini.collection'.")
+    public String collectionClass;
+
+    @Option(name = "-shard.count", metaVar = "[n]", required = true,
+        usage = "Number of shards to partition the document collection into.")
+    public int shardCount;
+
+    @Option(name = "-output", metaVar = "[file]", required = true,
+        usage = "File to write the shard manifest to.")
+    public String output;
+  }
+
+  private ShardPlanner() {}
+
+  /**
+   * Partitions files into shards of about the same total size.
+   *
+   * @param collectionPath path of the collection, to which the paths in the manifest are relative
+   * @param segmentPaths paths of the files of the collection
+   * @param archivePaths paths of the archives of the collection
+   * @param shardCount number of shards
+   * @return manifest
+   * @throws IOException if error encountered reading the size of a file
+   */
+  public static ShardManifest plan(Path collectionPath, List<Path> segmentPaths, List<Path> archivePaths,
+                                   int shardCount) throws IOException {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("Number of shards must be positive: " + shardCount);
+    }
+
+    List<Path> paths = new ArrayList<>(segmentPaths);
+    paths.addAll(archivePaths);
+    long[] sizes = new long[paths.size()];
+    Integer[] order = new Integer[paths.size()];
+    for (int i = 0; i < paths.size(); i++) {
+      sizes[i] = Files.size(paths.get(i));
+      order[i] = i;
+    }
+    // Largest first; files of the same size in the order in which they were found, so that the plan is deterministic.
+    Arrays.sort(order, Comparator.comparingLong((Integer i) -> sizes[i]).reversed());
+
+    ShardManifest manifest = new ShardManifest();
+    PriorityQueue<ShardManifest.Shard> smallest = new PriorityQueue<>(
+        Comparator.comparingLong((ShardManifest.Shard shard) -> shard.bytes).thenComparingInt(shard -> shard.shard));
+    for (int i = 0; i < shardCount; i++) {
+      ShardManifest.Shard shard = new ShardManifest.Shard();
+      shard.shard = i;
+      manifest.shards.add(shard);
+      smallest.add(shard);
+    }
+
+    for (int i : order) {
+      ShardManifest.Shard shard = smallest.poll();
+      String relativePath = collectionPath.relativize(paths.get(i)).toString();
+      if (i < segmentPaths.size()) {
+        shard.files.add(relativePath);
+      } else {
+        shard.archives.add(relativePath);
+      }
+      shard.bytes += sizes[i];
+      smallest.add(shard);
+    }
+    return manifest;
+  }
+
+  /**
+   * Partitions the files of a collection into shards of about the same total size.
+   *
+   * @param collection collection
+   * @param shardCount number of shards
+   * @return manifest
+   * @throws IOException if error encountered reading the size of a file
+   */
+  public static ShardManifest plan(DocumentCollection<?> collection, int shardCount) throws IOException {
+    ShardManifest manifest = plan(collection.getCollectionPath(), collection.getSegmentPaths(),
+        collection.getArchivePaths(), shardCount);
+    manifest.collectionClass = collection.getClass().getSimpleName();
+    return manifest;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Args plannerArgs = new Args();
+    CmdLineParser parser = new CmdLineParser(plannerArgs, ParserProperties.defaults().withUsageWidth(100));
+
+    try {
+      parser.parseArgument(args);
+    } catch (CmdLineException e) {
+      System.err.println(e.getMessage());
+      parser.printUsage(System.err);
+      System.err.println("Example: " + ShardPlanner.class.getSimpleName() +
+          parser.printExample(OptionHandlerFilter.REQUIRED));
+      return;
+    }
+
+    Path collectionPath = Paths.get(plannerArgs.input);
+    DocumentCollection<?> collection = (DocumentCollection<?>) Class.forName("io.anserini.collection." +
+        plannerArgs.collectionClass).getConstructor(Path.class).newInstance(collectionPath);
+
+    ShardManifest manifest = plan(collection, plannerArgs.shardCount);
+    manifest.write(Paths.get(plannerArgs.output));
+
+    for (ShardManifest.Shard shard : manifest.shards) {
+      LOG.info(String.format("Shard %d: %,d files, %,d archives, %,d bytes", shard.shard, shard.files.size(),
+          shard.archives.size(), shard.bytes));
+    }
+    LOG.info("Shard manifest written to " + plannerArgs.output);
+  }
+}
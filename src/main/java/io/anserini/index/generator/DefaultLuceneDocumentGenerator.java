@@ -26,12 +26,14 @@ import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexOptions;
-import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Converts a {@link SourceDocument} into a Lucene {@link Document}, ready to be indexed.
@@ -41,6 +43,12 @@ import java.util.Arrays;
 public class DefaultLuceneDocumentGenerator<T extends SourceDocument> implements LuceneDocumentGenerator<T> {
   protected IndexCollection.Args args;
 
+  // Field type of the contents field (and any other indexed fields), which only depends on the arguments.
+  private final FieldType contentsFieldType;
+
+  // Fields reused across documents, if reuse is enabled.
+  private Fields reusedFields = null;
+
   public DefaultLuceneDocumentGenerator() {
     this(new IndexCollection.Args());
   }
@@ -52,6 +60,30 @@ public class DefaultLuceneDocumentGenerator<T extends SourceDocument> implements
    */
   public DefaultLuceneDocumentGenerator(IndexCollection.Args args) {
     this.args = args;
+
+    FieldType fieldType = new FieldType();
+    fieldType.setStored(args.storeContents);
+
+    // Are we storing document vectors?
+    if (args.storeDocvectors) {
+      fieldType.setStoreTermVectors(true);
+      fieldType.setStoreTermVectorPositions(true);
+    }
+
+    // Are we building a "positional" or "count" index?
+    if (args.storePositions) {
+      fieldType.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS);
+    } else {
+      fieldType.setIndexOptions(IndexOptions.DOCS_AND_FREQS);
+    }
+
+    fieldType.freeze();
+    this.contentsFieldType = fieldType;
+  }
+
+  @Override
+  public void setReuseDocuments(boolean reuse) {
+    reusedFields = reuse ? new Fields() : null;
   }
 
   @Override
@@ -70,46 +102,36 @@ public class DefaultLuceneDocumentGenerator<T extends SourceDocument> implements
       throw new EmptyDocumentException();
     }
 
-    // Make a new, empty document.
-    final Document document = new Document();
+    // Make a new, empty document, or empty the reused one.
+    final Fields fields = reusedFields != null ? reusedFields : new Fields();
+    final Document document = fields.document;
+    document.clear();
 
     // Store the collection docid.
-    document.add(new StringField(Constants.ID, id, Field.Store.YES));
+    document.add(fields.id(id));
     // This is needed to break score ties by docid.
-    document.add(new BinaryDocValuesField(Constants.ID, new BytesRef(id)));
-
-    if (args.storeRaw) {
-      document.add(new StoredField(Constants.RAW, src.raw()));
-    }
-
-    FieldType fieldType = new FieldType();
-    fieldType.setStored(args.storeContents);
-
-    // Are we storing document vectors?
-    if (args.storeDocvectors) {
-      fieldType.setStoreTermVectors(true);
-      fieldType.setStoreTermVectorPositions(true);
+    document.add(fields.idDocValues(id));
+    if (args.storeDocidRank) {
+      // Placeholder; the actual ranks are filled in once all docids are known.
+      document.add(fields.idRank());
     }
 
-    // Are we building a "positional" or "count" index?
-    if (args.storePositions) {
-      fieldType.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS);
-    } else {
-      fieldType.setIndexOptions(IndexOptions.DOCS_AND_FREQS);
+    if (args.storeRaw) {
+      document.add(fields.raw(src.raw()));
     }
 
-    document.add(new Field(Constants.CONTENTS, contents, fieldType));
+    document.add(fields.contents(contents));
 
     // If this document has other fields, then we want to index it also.
     // Currently, we just use all the settings of the main "content" field.
     if (src instanceof MultifieldSourceDocument) {
       ((MultifieldSourceDocument) src).fields().forEach((k, v) -> {
         if (k == Constants.ENTITY) {
-          document.add(new StoredField(Constants.ENTITY, v));
+          document.add(fields.entity(v));
         } else {
           // Only index fields that have been explicitly referenced in -fields parameter of indexing program.
           if (ArrayUtils.contains(args.fields, k)) {
-            document.add(new Field(k, v, fieldType));
+            document.add(fields.field(k, v));
           }
         }
       });
@@ -117,4 +139,86 @@ public class DefaultLuceneDocumentGenerator<T extends SourceDocument> implements
 
     return document;
   }
+
+  /**
+   * The document and fields that a document is made of. Each field is created on first use and has its value swapped
+   * on later uses, so that when a single instance is reused across documents, creating a document allocates little
+   * beyond the values themselves.
+   */
+  private final class Fields {
+    private final Document document = new Document();
+    private final BytesRefBuilder idBytes = new BytesRefBuilder();
+    private final Map<String, Field> fields = new HashMap<>();
+    private StringField id;
+    private BinaryDocValuesField idDocValues;
+    private NumericDocValuesField idRank;
+    private StoredField raw;
+    private StoredField entity;
+    private Field contents;
+
+    private Field id(String value) {
+      if (id == null) {
+        id = new StringField(Constants.ID, value, Field.Store.YES);
+      } else {
+        id.setStringValue(value);
+      }
+      return id;
+    }
+
+    private Field idDocValues(String value) {
+      // The index writer copies the bytes when the document is added, so the same bytes can be refilled.
+      idBytes.copyChars(value);
+      if (idDocValues == null) {
+        idDocValues = new BinaryDocValuesField(Constants.ID, idBytes.get());
+      } else {
+        idDocValues.setBytesValue(idBytes.get());
+      }
+      return idDocValues;
+    }
+
+    private Field idRank() {
+      if (idRank == null) {
+        idRank = new NumericDocValuesField(Constants.ID_RANK, 0L);
+      }
+      return idRank;
+    }
+
+    private Field raw(String value) {
+      if (raw == null) {
+        raw = new StoredField(Constants.RAW, value);
+      } else {
+        raw.setStringValue(value);
+      }
+      return raw;
+    }
+
+    private Field entity(String value) {
+      if (entity == null) {
+        entity = new StoredField(Constants.ENTITY, value);
+      } else {
+        entity.setStringValue(value);
+      }
+      return entity;
+    }
+
+    private Field contents(String value) {
+      if (contents == null) {
+        contents = new Field(Constants.CONTENTS, value, contentsFieldType);
+      } else {
+        contents.setStringValue(value);
+      }
+      return contents;
+    }
+
+    private Field field(String name, String value) {
+      Field field = fields.get(name);
+      if (field == null) {
+        field = new Field(name, value, contentsFieldType);
+        fields.put(name, field);
+      } else {
+        field.setStringValue(value);
+      }
+      return field;
+    }
+  }
 }
@@ -26,4 +26,16 @@ import org.apache.lucene.document.Document;
  */
 public interface LuceneDocumentGenerator<T extends SourceDocument> {
   Document createDocument(T src) throws GeneratorException;
+
+  /**
+   * Allows the generator to reuse the document it returns, and the fields in it, across calls to
+   * {@link #createDocument}, so that each document returned is only valid until the next call. Callers that are done
+   * with each document before creating the next one, such as an indexing loop that adds it to the index right away, can
+   * enable reuse to cut allocation. A generator that reuses documents must not be shared across threads. Generators
+   * that don't support reuse ignore this.
+   *
+   * @param reuse whether documents may be reused
+   */
+  default void setReuseDocuments(boolean reuse) {
+  }
 }
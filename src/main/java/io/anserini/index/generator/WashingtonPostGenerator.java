@@ -45,7 +45,7 @@ public class WashingtonPostGenerator extends DefaultLuceneDocumentGenerator<Wash
   }
 
   public WashingtonPostGenerator(IndexCollection.Args args) {
-    super.args = args;
+    super(args);
   }
   
   @Override
@@ -60,6 +60,21 @@ public class FeatureExtractorCli {
   }
 
   public static void addFeature(FeatureExtractorUtils utils, String queryField, String docField) throws IOException {
+    for (FeatureExtractor extractor : defaultFeatures(queryField, docField)) {
+      utils.add(extractor);
+    }
+  }
+
+  /**
+   * Returns the default feature set over a query field and a document field, in the order used for training.
+   *
+   * @param queryField query field
+   * @param docField document field
+   * @return list of feature extractors
+   */
+  public static List<FeatureExtractor> defaultFeatures(String queryField, String docField) {
+    List<FeatureExtractor> extractors = new ArrayList<>();
+
     /**
      * utils.add(new BM25Stat(new SumPooler(), 2.0, 0.75, docField, queryField));
      * utils.add(new BM25Stat(new AvgPooler(), 2.0, 0.75, docField, queryField));
@@ -105,65 +120,66 @@ public class FeatureExtractorCli {
      * utils.add(new Proximity(docField, queryField)); utils.add(new
      * TPscore(docField, queryField));
      */
-    utils.add(new TpDist(docField, queryField));
+    extractors.add(new TpDist(docField, queryField));
 
-    utils.add(new DocSize(docField));
+    extractors.add(new DocSize(docField));
     if (queryField == "analyzed" && docField == "contents"){
-       utils.add(new QueryLength(queryField));
-       utils.add(new QueryCoverageRatio(docField, queryField));
-       utils.add(new UniqueTermCount(queryField)); }
+       extractors.add(new QueryLength(queryField));
+       extractors.add(new QueryCoverageRatio(docField, queryField));
+       extractors.add(new UniqueTermCount(queryField)); }
 
-    utils.add(new MatchingTermCount(docField, queryField));
-    utils.add(new SCS(docField, queryField));
+    extractors.add(new MatchingTermCount(docField, queryField));
+    extractors.add(new SCS(docField, queryField));
 
-    utils.add(new TfStat(new AvgPooler(), docField, queryField));
-    utils.add(new TfStat(new MedianPooler(), docField, queryField));
-    utils.add(new TfStat(new SumPooler(), docField, queryField));
-    utils.add(new TfStat(new MinPooler(), docField, queryField));
-    utils.add(new TfStat(new MaxPooler(), docField, queryField));
-    utils.add(new TfStat(new MaxMinRatioPooler(), docField, queryField));
+    extractors.add(new TfStat(new AvgPooler(), docField, queryField));
+    extractors.add(new TfStat(new MedianPooler(), docField, queryField));
+    extractors.add(new TfStat(new SumPooler(), docField, queryField));
+    extractors.add(new TfStat(new MinPooler(), docField, queryField));
+    extractors.add(new TfStat(new MaxPooler(), docField, queryField));
+    extractors.add(new TfStat(new MaxMinRatioPooler(), docField, queryField));
 
-    utils.add(new TfIdfStat(true, new AvgPooler(), docField, queryField));
-    utils.add(new TfIdfStat(true, new MedianPooler(), docField, queryField));
-    utils.add(new TfIdfStat(true, new SumPooler(), docField, queryField));
-    utils.add(new TfIdfStat(true, new MinPooler(), docField, queryField));
-    utils.add(new TfIdfStat(true, new MaxPooler(), docField, queryField));
-    utils.add(new TfIdfStat(true, new MaxMinRatioPooler(), docField, queryField));
+    extractors.add(new TfIdfStat(true, new AvgPooler(), docField, queryField));
+    extractors.add(new TfIdfStat(true, new MedianPooler(), docField, queryField));
+    extractors.add(new TfIdfStat(true, new SumPooler(), docField, queryField));
+    extractors.add(new TfIdfStat(true, new MinPooler(), docField, queryField));
+    extractors.add(new TfIdfStat(true, new MaxPooler(), docField, queryField));
+    extractors.add(new TfIdfStat(true, new MaxMinRatioPooler(), docField, queryField));
 
-    utils.add(new NormalizedTfStat(new AvgPooler(), docField, queryField));
-    utils.add(new NormalizedTfStat(new MedianPooler(), docField, queryField));
-    utils.add(new NormalizedTfStat(new SumPooler(), docField, queryField));
-    utils.add(new NormalizedTfStat(new MinPooler(), docField, queryField));
-    utils.add(new NormalizedTfStat(new MaxPooler(), docField, queryField));
-    utils.add(new NormalizedTfStat(new MaxMinRatioPooler(), docField, queryField));
+    extractors.add(new NormalizedTfStat(new AvgPooler(), docField, queryField));
+    extractors.add(new NormalizedTfStat(new MedianPooler(), docField, queryField));
+    extractors.add(new NormalizedTfStat(new SumPooler(), docField, queryField));
+    extractors.add(new NormalizedTfStat(new MinPooler(), docField, queryField));
+    extractors.add(new NormalizedTfStat(new MaxPooler(), docField, queryField));
+    extractors.add(new NormalizedTfStat(new MaxMinRatioPooler(), docField, queryField));
 
-    utils.add(new IdfStat(new AvgPooler(), docField, queryField));
-    utils.add(new IdfStat(new MedianPooler(), docField, queryField));
-    utils.add(new IdfStat(new SumPooler(), docField, queryField));
-    utils.add(new IdfStat(new MinPooler(), docField, queryField));
-    utils.add(new IdfStat(new MaxPooler(), docField, queryField));
-    utils.add(new IdfStat(new MaxMinRatioPooler(), docField, queryField));
+    extractors.add(new IdfStat(new AvgPooler(), docField, queryField));
+    extractors.add(new IdfStat(new MedianPooler(), docField, queryField));
+    extractors.add(new IdfStat(new SumPooler(), docField, queryField));
+    extractors.add(new IdfStat(new MinPooler(), docField, queryField));
+    extractors.add(new IdfStat(new MaxPooler(), docField, queryField));
+    extractors.add(new IdfStat(new MaxMinRatioPooler(), docField, queryField));
 
-    utils.add(new IcTfStat(new AvgPooler(), docField, queryField));
-    utils.add(new IcTfStat(new MedianPooler(), docField, queryField));
-    utils.add(new IcTfStat(new SumPooler(), docField, queryField));
-    utils.add(new IcTfStat(new MinPooler(), docField, queryField));
-    utils.add(new IcTfStat(new MaxPooler(), docField, queryField));
-    utils.add(new IcTfStat(new MaxMinRatioPooler(), docField, queryField));
+    extractors.add(new IcTfStat(new AvgPooler(), docField, queryField));
+    extractors.add(new IcTfStat(new MedianPooler(), docField, queryField));
+    extractors.add(new IcTfStat(new SumPooler(), docField, queryField));
+    extractors.add(new IcTfStat(new MinPooler(), docField, queryField));
+    extractors.add(new IcTfStat(new MaxPooler(), docField, queryField));
+    extractors.add(new IcTfStat(new MaxMinRatioPooler(), docField, queryField));
 
-    utils.add(new UnorderedSequentialPairs(3, docField, queryField));
-    utils.add(new UnorderedSequentialPairs(8, docField, queryField));
-    utils.add(new UnorderedSequentialPairs(15, docField, queryField));
-    utils.add(new OrderedSequentialPairs(3, docField, queryField));
-    utils.add(new OrderedSequentialPairs(8, docField, queryField));
-    utils.add(new OrderedSequentialPairs(15, docField, queryField));
-    utils.add(new UnorderedQueryPairs(3, docField, queryField));
-    utils.add(new UnorderedQueryPairs(8, docField, queryField));
-    utils.add(new UnorderedQueryPairs(15, docField, queryField));
-    utils.add(new OrderedQueryPairs(3, docField, queryField));
-    utils.add(new OrderedQueryPairs(8, docField, queryField));
-    utils.add(new OrderedQueryPairs(15, docField, queryField));
+    extractors.add(new UnorderedSequentialPairs(3, docField, queryField));
+    extractors.add(new UnorderedSequentialPairs(8, docField, queryField));
+    extractors.add(new UnorderedSequentialPairs(15, docField, queryField));
+    extractors.add(new OrderedSequentialPairs(3, docField, queryField));
+    extractors.add(new OrderedSequentialPairs(8, docField, queryField));
+    extractors.add(new OrderedSequentialPairs(15, docField, queryField));
+    extractors.add(new UnorderedQueryPairs(3, docField, queryField));
+    extractors.add(new UnorderedQueryPairs(8, docField, queryField));
+    extractors.add(new UnorderedQueryPairs(15, docField, queryField));
+    extractors.add(new OrderedQueryPairs(3, docField, queryField));
+    extractors.add(new OrderedQueryPairs(8, docField, queryField));
+    extractors.add(new OrderedQueryPairs(15, docField, queryField));
 
+    return extractors;
   }
 
   public static void main(String[] args) throws IOException, ExecutionException, InterruptedException {
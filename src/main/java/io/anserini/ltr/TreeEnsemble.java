@@ -0,0 +1,388 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.ltr;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An additive ensemble of regression trees (e.g., a LambdaMART model trained with LightGBM), evaluated with the
+ * QuickScorer algorithm of Lucchese et al. (SIGIR 2015).
+ *
+ * Instead of walking each tree from the root, QuickScorer keeps one bitvector per tree over its leaves (ordered left
+ * to right) and, for every feature, scans the split nodes of <i>all</i> trees that test this feature in ascending
+ * order of threshold. Each node whose test is false (i.e., the feature value is greater than the threshold) clears the
+ * bits of the leaves in its left subtree; the scan for a feature stops at the first node whose test is true. The exit
+ * leaf of each tree is then the leftmost bit still set. The access pattern is a handful of sequential scans over flat
+ * arrays, which is far friendlier to the cache and the branch predictor than pointer chasing.
+ *
+ * Missing values are routed as LightGBM routes them: a split whose {@code decision_type} treats zero (or NaN) as
+ * missing sends such values to its default child instead of comparing them with the threshold, and NaN is otherwise
+ * treated as zero. These values are rare enough that they're handled by testing every split on the feature, the
+ * QuickScorer scan being kept for all the others.
+ *
+ * Since leaves are tracked in a {@code long}, trees may have at most 64 leaves.
+ */
+public class TreeEnsemble {
+  public static final int MAX_LEAVES = 64;
+
+  // Bits of LightGBM's decision_type: categorical split, default child is the left one, and type of missing values.
+  private static final int CATEGORICAL_MASK = 1;
+  private static final int DEFAULT_LEFT_MASK = 2;
+  private static final int MISSING_ZERO = 1;
+  private static final int MISSING_NAN = 2;
+  // LightGBM's kZeroThreshold: values this close to zero are zero.
+  private static final double ZERO_THRESHOLD = 1e-35f;
+
+  private final List<String> featureNames;
+  private final int numTrees;
+
+  // Leaf values, flattened: leaf j of tree t is at leafValues[t * MAX_LEAVES + j], leaves ordered left to right.
+  private final double[] leafValues;
+
+  // Per-feature split nodes across all trees, sorted by threshold: the nodes for feature f are at offsets
+  // [featureOffsets[f], featureOffsets[f+1]).
+  private final int[] featureOffsets;
+  private final double[] thresholds;
+  private final int[] treeIds;
+  private final long[] masks;
+  private final byte[] decisionTypes;
+  // Whether any split on the feature treats zero or NaN as missing.
+  private final boolean[] hasMissing;
+
+  private TreeEnsemble(List<String> featureNames, List<Tree> trees) {
+    this.featureNames = Collections.unmodifiableList(featureNames);
+    this.numTrees = trees.size();
+    this.leafValues = new double[numTrees * MAX_LEAVES];
+
+    int numFeatures = featureNames.size();
+    List<List<Node>> nodesByFeature = new ArrayList<>(numFeatures);
+    for (int f = 0; f < numFeatures; f++) {
+      nodesByFeature.add(new ArrayList<>());
+    }
+
+    for (int t = 0; t < numTrees; t++) {
+      Tree tree = trees.get(t);
+      // Assign each leaf its left-to-right position, then compute the mask of each internal node.
+      int[] leafOrder = new int[tree.leafValue.length];
+      int[] position = new int[]{0};
+      if (tree.splitFeature.length == 0) {
+        leafOrder[0] = 0;
+      } else {
+        orderLeaves(tree, 0, leafOrder, position);
+      }
+      for (int leaf = 0; leaf < tree.leafValue.length; leaf++) {
+        leafValues[t * MAX_LEAVES + leafOrder[leaf]] = tree.leafValue[leaf];
+      }
+      for (int n = 0; n < tree.splitFeature.length; n++) {
+        long leftLeaves = leavesUnder(tree, tree.leftChild[n], leafOrder);
+        nodesByFeature.get(tree.splitFeature[n]).add(
+            new Node(tree.threshold[n], t, ~leftLeaves, (byte) tree.decisionType[n]));
+      }
+    }
+
+    int total = 0;
+    for (List<Node> nodes : nodesByFeature) {
+      total += nodes.size();
+    }
+    this.featureOffsets = new int[numFeatures + 1];
+    this.thresholds = new double[total];
+    this.treeIds = new int[total];
+    this.masks = new long[total];
+    this.decisionTypes = new byte[total];
+    this.hasMissing = new boolean[numFeatures];
+
+    int i = 0;
+    for (int f = 0; f < numFeatures; f++) {
+      featureOffsets[f] = i;
+      List<Node> nodes = nodesByFeature.get(f);
+      nodes.sort((a, b) -> Double.compare(a.threshold, b.threshold));
+      for (Node node : nodes) {
+        thresholds[i] = node.threshold;
+        treeIds[i] = node.tree;
+        masks[i] = node.mask;
+        decisionTypes[i] = node.decisionType;
+        hasMissing[f] |= missingType(node.decisionType) != 0;
+        i++;
+      }
+    }
+    featureOffsets[numFeatures] = i;
+  }
+
+  private static void orderLeaves(Tree tree, int child, int[] leafOrder, int[] position) {
+    if (child < 0) {
+      leafOrder[~child] = position[0]++;
+      return;
+    }
+    orderLeaves(tree, tree.leftChild[child], leafOrder, position);
+    orderLeaves(tree, tree.rightChild[child], leafOrder, position);
+  }
+
+  private static long leavesUnder(Tree tree, int child, int[] leafOrder) {
+    if (child < 0) {
+      return 1L << leafOrder[~child];
+    }
+    return leavesUnder(tree, tree.leftChild[child], leafOrder) | leavesUnder(tree, tree.rightChild[child], leafOrder);
+  }
+
+  /**
+   * Returns the names of the features, in the order expected by {@link #score(float[])}.
+   *
+   * @return feature names
+   */
+  public List<String> getFeatureNames() {
+    return featureNames;
+  }
+
+  public int getNumTrees() {
+    return numTrees;
+  }
+
+  /**
+   * Scores a single feature vector.
+   *
+   * @param features feature values, in the order given by {@link #getFeatureNames()}
+   * @return score
+   */
+  public float score(float[] features) {
+    long[] leaves = new long[numTrees];
+    return score(features, leaves);
+  }
+
+  /**
+   * Scores a batch of feature vectors, reusing the same scratch space across documents.
+   *
+   * @param features one feature vector per document
+   * @return one score per document
+   */
+  public float[] score(float[][] features) {
+    long[] leaves = new long[numTrees];
+    float[] scores = new float[features.length];
+    for (int i = 0; i < features.length; i++) {
+      scores[i] = score(features[i], leaves);
+    }
+    return scores;
+  }
+
+  private float score(float[] features, long[] leaves) {
+    Arrays.fill(leaves, -1L);
+
+    int numFeatures = Math.min(features.length, featureOffsets.length - 1);
+    for (int f = 0; f < numFeatures; f++) {
+      double value = features[f];
+      int end = featureOffsets[f + 1];
+      if (hasMissing[f] && (Double.isNaN(value) || isZero(value))) {
+        for (int i = featureOffsets[f]; i < end; i++) {
+          if (!goesLeft(i, value)) {
+            leaves[treeIds[i]] &= masks[i];
+          }
+        }
+      } else {
+        if (Double.isNaN(value)) {
+          value = 0.0;
+        }
+        for (int i = featureOffsets[f]; i < end && value > thresholds[i]; i++) {
+          leaves[treeIds[i]] &= masks[i];
+        }
+      }
+    }
+
+    double score = 0.0;
+    for (int t = 0; t < numTrees; t++) {
+      score += leafValues[t * MAX_LEAVES + Long.numberOfTrailingZeros(leaves[t])];
+    }
+    return (float) score;
+  }
+
+  // Follows LightGBM's Tree::NumericalDecision.
+  private boolean goesLeft(int node, double value) {
+    int missingType = missingType(decisionTypes[node]);
+    if (Double.isNaN(value) && missingType != MISSING_NAN) {
+      value = 0.0;
+    }
+    if ((missingType == MISSING_ZERO && isZero(value)) || (missingType == MISSING_NAN && Double.isNaN(value))) {
+      return (decisionTypes[node] & DEFAULT_LEFT_MASK) != 0;
+    }
+    return value <= thresholds[node];
+  }
+
+  private static int missingType(int decisionType) {
+    return (decisionType >> 2) & 3;
+  }
+
+  private static boolean isZero(double value) {
+    return value >= -ZERO_THRESHOLD && value <= ZERO_THRESHOLD;
+  }
+
+  /**
+   * Loads a model from a LightGBM text dump (i.e., the output of {@code Booster.save_model}).
+   *
+   * @param path path to the model file
+   * @return the model
+   * @throws IOException if the model cannot be read or uses unsupported features
+   */
+  public static TreeEnsemble fromLightGbm(Path path) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      return fromLightGbm(reader);
+    }
+  }
+
+  /**
+   * Loads a model from a LightGBM text dump held in a string.
+   *
+   * @param model model text
+   * @return the model
+   * @throws IOException if the model uses unsupported features
+   */
+  public static TreeEnsemble fromLightGbmString(String model) throws IOException {
+    return fromLightGbm(new StringReader(model));
+  }
+
+  private static TreeEnsemble fromLightGbm(Reader in) throws IOException {
+    BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+
+    List<String> featureNames = null;
+    List<Tree> trees = new ArrayList<>();
+    Map<String, String> block = null;
+
+    String line;
+    while ((line = reader.readLine()) != null) {
+      line = line.trim();
+      if (line.startsWith("Tree=")) {
+        if (block != null) {
+          trees.add(Tree.fromLightGbm(block));
+        }
+        block = new HashMap<>();
+      } else if (line.equals("end of trees")) {
+        break;
+      } else if (line.contains("=")) {
+        String key = line.substring(0, line.indexOf('='));
+        String value = line.substring(line.indexOf('=') + 1);
+        if (block != null) {
+          block.put(key, value);
+        } else if (key.equals("feature_names")) {
+          featureNames = new ArrayList<>(Arrays.asList(value.split(" ")));
+        } else if (key.equals("num_class") && !value.equals("1")) {
+          throw new IOException("Multiclass LightGBM models are not supported.");
+        }
+      }
+    }
+    if (block != null) {
+      trees.add(Tree.fromLightGbm(block));
+    }
+
+    if (featureNames == null) {
+      throw new IOException("Not a LightGBM model: missing feature_names.");
+    }
+    for (Tree tree : trees) {
+      for (int f : tree.splitFeature) {
+        if (f >= featureNames.size()) {
+          throw new IOException(String.format("Tree splits on feature %d but the model declares only %d features.",
+              f, featureNames.size()));
+        }
+      }
+    }
+
+    return new TreeEnsemble(featureNames, trees);
+  }
+
+  private static final class Node {
+    final double threshold;
+    final int tree;
+    final long mask;
+    final byte decisionType;
+
+    Node(double threshold, int tree, long mask, byte decisionType) {
+      this.threshold = threshold;
+      this.tree = tree;
+      this.mask = mask;
+      this.decisionType = decisionType;
+    }
+  }
+
+  // A single tree in LightGBM's representation: children are internal node indexes if non-negative, and ~leaf
+  // indexes if negative. A feature value goes to the left child if it is less than or equal to the threshold, unless
+  // the decision type of the node says it is missing.
+  private static final class Tree {
+    int[] splitFeature;
+    double[] threshold;
+    int[] decisionType;
+    int[] leftChild;
+    int[] rightChild;
+    double[] leafValue;
+
+    static Tree fromLightGbm(Map<String, String> block) throws IOException {
+      Tree tree = new Tree();
+      int numLeaves = Integer.parseInt(block.get("num_leaves"));
+      if (numLeaves > MAX_LEAVES) {
+        throw new IOException(String.format("Trees with more than %d leaves are not supported (found %d).",
+            MAX_LEAVES, numLeaves));
+      }
+      if (block.containsKey("num_cat") && !block.get("num_cat").equals("0")) {
+        throw new IOException("Categorical splits are not supported.");
+      }
+
+      tree.leafValue = parseDoubles(block.get("leaf_value"));
+      if (numLeaves == 1) {
+        tree.splitFeature = new int[0];
+        tree.threshold = new double[0];
+        tree.decisionType = new int[0];
+        tree.leftChild = new int[0];
+        tree.rightChild = new int[0];
+      } else {
+        tree.splitFeature = parseInts(block.get("split_feature"));
+        tree.threshold = parseDoubles(block.get("threshold"));
+        // Models written by old versions of LightGBM have no decision types: all splits are plain comparisons.
+        tree.decisionType = block.containsKey("decision_type") ?
+            parseInts(block.get("decision_type")) : new int[numLeaves - 1];
+        tree.leftChild = parseInts(block.get("left_child"));
+        tree.rightChild = parseInts(block.get("right_child"));
+      }
+
+      // Shrinkage is already folded into leaf values by LightGBM, so we don't apply it again.
+      if (tree.leafValue.length != numLeaves || tree.splitFeature.length != numLeaves - 1 ||
+          tree.decisionType.length != numLeaves - 1) {
+        throw new IOException("Malformed tree in LightGBM model.");
+      }
+      for (int decisionType : tree.decisionType) {
+        if ((decisionType & CATEGORICAL_MASK) != 0) {
+          throw new IOException("Categorical splits are not supported.");
+        }
+      }
+      return tree;
+    }
+
+    private static int[] parseInts(String s) {
+      return Arrays.stream(s.trim().split(" ")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static double[] parseDoubles(String s) {
+      return Arrays.stream(s.trim().split(" ")).mapToDouble(Double::parseDouble).toArray();
+    }
+  }
+}
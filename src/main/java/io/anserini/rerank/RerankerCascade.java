@@ -16,13 +16,18 @@
 
 package io.anserini.rerank;
 
+import io.anserini.search.QueryDeadline;
+import io.anserini.search.QueryTimings;
+
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Representation of a cascade of rerankers, applied in sequence.
  */
-public class RerankerCascade {
+public class RerankerCascade implements Closeable {
   final List<Reranker> rerankers = new ArrayList<>();
   private String tag;
 
@@ -56,14 +61,67 @@ public class RerankerCascade {
    * @param context reranker context
    * @return reranked results
    */
-  @SuppressWarnings("unchecked")
   public ScoredDocuments run(ScoredDocuments docs, RerankerContext context) {
+    return run(docs, context, QueryTimings.NONE);
+  }
+
+  /**
+   * Runs this cascade, timing each reranker as a separate stage. Once the deadline of the context (see
+   * {@link RerankerContext#getDeadline()}) has passed, the remaining rerankers are skipped and the query is flagged as
+   * partial, so that the results of the last reranker that completed are returned.
+   *
+   * @param docs input documents
+   * @param context reranker context
+   * @param timings timings of the current query
+   * @return reranked results
+   */
+  @SuppressWarnings("unchecked")
+  public ScoredDocuments run(ScoredDocuments docs, RerankerContext context, QueryTimings timings) {
     ScoredDocuments results = docs;
 
+    QueryDeadline deadline = context.getDeadline();
     for (Reranker reranker : rerankers) {
+      if (deadline.isExpired()) {
+        deadline.markPartial(stage(reranker));
+        break;
+      }
       results = reranker.rerank(results, context);
+      if (timings != QueryTimings.NONE) {
+        timings.lap(stage(reranker));
+      }
     }
 
     return results;
   }
+
+  /**
+   * Closes the rerankers of this cascade that hold resources (i.e., that are {@link Closeable}).
+   *
+   * @throws IOException if a reranker can't be closed
+   */
+  @Override
+  public void close() throws IOException {
+    IOException error = null;
+    for (Reranker reranker : rerankers) {
+      if (reranker instanceof Closeable) {
+        try {
+          ((Closeable) reranker).close();
+        } catch (IOException e) {
+          if (error == null) {
+            error = e;
+          } else {
+            error.addSuppressed(e);
+          }
+        }
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  private static String stage(Reranker reranker) {
+    String tag = reranker.tag();
+    return QueryTimings.RERANK_PREFIX + (tag.isEmpty() ? reranker.getClass().getSimpleName() : tag);
+  }
 }
@@ -16,6 +16,7 @@
 
 package io.anserini.rerank;
 
+import io.anserini.search.QueryDeadline;
 import io.anserini.search.SearchCollection;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -35,6 +36,7 @@ public class RerankerContext<K> {
   private final SearchCollection.Args searchArgs;
 
   public Map<String, Float> feedbackTerms;
+  private QueryDeadline deadline = QueryDeadline.NONE;
 
   public RerankerContext(IndexSearcher searcher, K queryId, Query query, String queryDocId, String queryText,
       List<String> queryTokens, Query filter, SearchCollection.Args searchArgs) throws IOException {
@@ -79,4 +81,12 @@ public class RerankerContext<K> {
   public SearchCollection.Args getSearchArgs() {
     return searchArgs;
   }
+
+  public QueryDeadline getDeadline() {
+    return deadline;
+  }
+
+  public void setDeadline(QueryDeadline deadline) {
+    this.deadline = deadline;
+  }
 }
@@ -17,6 +17,7 @@
 package io.anserini.rerank;
 
 import io.anserini.index.Constants;
+import io.anserini.index.DocStore;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -33,6 +34,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * ScoredDocuments object that converts TopDocs from the searcher into an Anserini format
@@ -47,14 +49,32 @@ public class ScoredDocuments {
   public float[] scores;
   
   public static ScoredDocuments fromTopDocs(TopDocs rs, IndexSearcher searcher) {
+    return fromTopDocs(rs, searcher, null);
+  }
+
+  /**
+   * Converts TopDocs, loading only some of the stored fields of the documents, e.g., only the docid when the text of
+   * the documents isn't needed. Fields kept in a {@link DocStore} are loaded from there.
+   *
+   * @param rs top docs
+   * @param searcher searcher that produced the top docs
+   * @param fields names of the stored fields to load, or null to load all stored fields
+   * @return scored documents
+   */
+  public static ScoredDocuments fromTopDocs(TopDocs rs, IndexSearcher searcher, Set<String> fields) {
     ScoredDocuments scoredDocs = new ScoredDocuments();
     scoredDocs.documents = new Document[rs.scoreDocs.length];
     scoredDocs.ids = new int[rs.scoreDocs.length];
     scoredDocs.scores = new float[rs.scoreDocs.length];
 
+    boolean docStore = fields == null || fields.contains(Constants.RAW) || fields.contains(Constants.CONTENTS);
     for (int i=0; i<rs.scoreDocs.length; i++) {
       try {
-        scoredDocs.documents[i] = searcher.storedFields().document(rs.scoreDocs[i].doc);
+        int docid = rs.scoreDocs[i].doc;
+        Document document = fields == null ? searcher.storedFields().document(docid) :
+            searcher.storedFields().document(docid, fields);
+        scoredDocs.documents[i] = docStore ?
+            DocStore.restore(searcher.getIndexReader(), docid, document) : document;
       } catch (IOException e) {
         e.printStackTrace();
         scoredDocs.documents[i] = null;
@@ -23,6 +23,7 @@ import io.anserini.rerank.Reranker;
 import io.anserini.rerank.RerankerContext;
 import io.anserini.rerank.ScoredDocuments;
 import io.anserini.search.SearchCollection;
+import io.anserini.search.TieBreakingTopDocsCollector;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.io.IOUtils;
@@ -70,7 +71,6 @@ import java.util.Random;
 import java.util.Set;
 import java.util.regex.Pattern;
 
-import static io.anserini.search.SearchCollection.BREAK_SCORE_TIES_BY_DOCID;
 import static io.anserini.search.SearchCollection.BREAK_SCORE_TIES_BY_TWEETID;
 
 /*
@@ -239,7 +239,7 @@ public class AxiomReranker<T> implements Reranker<T> {
     } else if (context.getSearchArgs().searchtweets) {
       rs = searcher.search(finalQuery, context.getSearchArgs().hits, BREAK_SCORE_TIES_BY_TWEETID, true);
     } else {
-      rs = searcher.search(finalQuery, context.getSearchArgs().hits, BREAK_SCORE_TIES_BY_DOCID, true);
+      rs = TieBreakingTopDocsCollector.search(searcher, finalQuery, context.getSearchArgs().hits);
     }
 
     return ScoredDocuments.fromTopDocs(rs, searcher);
@@ -286,8 +286,8 @@ public class AxiomReranker<T> implements Reranker<T> {
       return searcher.search(new FieldExistsQuery(TweetGenerator.TweetField.ID_LONG.name), reader.maxDoc(),
           BREAK_SCORE_TIES_BY_TWEETID).scoreDocs;
     }
-    return searcher.search(new FieldExistsQuery(Constants.ID), reader.maxDoc(),
-        BREAK_SCORE_TIES_BY_DOCID).scoreDocs;
+    // All documents score the same, so they come out in the order of their docids.
+    return TieBreakingTopDocsCollector.search(searcher, new FieldExistsQuery(Constants.ID), reader.maxDoc()).scoreDocs;
   }
 
   /**
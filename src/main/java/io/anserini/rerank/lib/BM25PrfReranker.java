@@ -21,6 +21,7 @@ import io.anserini.index.Constants;
 import io.anserini.rerank.Reranker;
 import io.anserini.rerank.RerankerContext;
 import io.anserini.rerank.ScoredDocuments;
+import io.anserini.search.TieBreakingTopDocsCollector;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.analysis.Analyzer;
@@ -48,7 +49,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import static io.anserini.search.SearchCollection.BREAK_SCORE_TIES_BY_DOCID;
 import static io.anserini.search.SearchCollection.BREAK_SCORE_TIES_BY_TWEETID;
 
 class BM25PrfSimilarity extends BM25Similarity {
@@ -121,7 +121,7 @@ public class BM25PrfReranker implements Reranker {
       } else if (context.getSearchArgs().searchtweets) {
         rs = searcher.search(newQuery, context.getSearchArgs().hits, BREAK_SCORE_TIES_BY_TWEETID, true);
       } else {
-        rs = searcher.search(newQuery, context.getSearchArgs().hits, BREAK_SCORE_TIES_BY_DOCID, true);
+        rs = TieBreakingTopDocsCollector.search(searcher, newQuery, context.getSearchArgs().hits);
       }
     } catch (IOException e) {
       e.printStackTrace();
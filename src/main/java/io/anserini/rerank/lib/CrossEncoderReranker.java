@@ -0,0 +1,308 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.rerank.lib;
+
+import ai.djl.modality.nlp.DefaultVocabulary;
+import ai.djl.modality.nlp.Vocabulary;
+import ai.djl.modality.nlp.bert.BertFullTokenizer;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import io.anserini.rerank.Reranker;
+import io.anserini.rerank.RerankerContext;
+import io.anserini.rerank.ScoredDocuments;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cross-encoder reranker (monoBERT, MiniLM, etc.) that scores (query, passage) pairs with an ONNX model on the CPU.
+ *
+ * Candidates are tokenized up front and sorted by length, so that each batch groups pairs of similar length and is
+ * padded only to its own longest pair rather than to the maximum sequence length.
+ */
+public class CrossEncoderReranker implements Reranker, Closeable {
+  private static final Logger LOG = LogManager.getLogger(CrossEncoderReranker.class);
+
+  private final OrtEnvironment environment;
+  private final OrtSession session;
+  private final Vocabulary vocab;
+  private final BertFullTokenizer tokenizer;
+  private final Set<String> inputNames;
+
+  private final String field;
+  private final int depth;
+  private final int batchSize;
+  private final int maxLength;
+
+  private final long sepId;
+  private final long padId;
+
+  /**
+   * Constructor.
+   *
+   * @param modelPath path to the ONNX model
+   * @param vocabPath path to the WordPiece vocabulary of the model
+   * @param lowercase whether the model is uncased, i.e., text is lowercased (and accents stripped) before tokenization
+   * @param field stored field holding the candidate text (e.g., "contents" or "raw")
+   * @param depth number of top candidates to rerank; only reranked candidates are returned
+   * @param batchSize number of pairs per inference call
+   * @param maxLength maximum sequence length, including special tokens; at least 3
+   * @param intraOpThreads number of threads ONNX Runtime uses within a single inference call; should be chosen so
+   *                       that intraOpThreads times the number of concurrent queries does not exceed the number of
+   *                       cores
+   * @throws IOException if the vocabulary cannot be read
+   * @throws OrtException if the model cannot be loaded
+   * @throws IllegalArgumentException if the maximum length can't fit the special tokens
+   */
+  public CrossEncoderReranker(Path modelPath, Path vocabPath, boolean lowercase, String field, int depth, int batchSize,
+                              int maxLength, int intraOpThreads) throws IOException, OrtException {
+    // [CLS] and two [SEP] tokens.
+    if (maxLength < 3) {
+      throw new IllegalArgumentException("maxLength must be at least 3 to fit the special tokens, but is " + maxLength);
+    }
+    this.field = field;
+    this.depth = depth;
+    this.batchSize = batchSize;
+    this.maxLength = maxLength;
+
+    this.vocab = loadVocabulary(vocabPath);
+    this.tokenizer = new BertFullTokenizer(vocab, lowercase);
+    this.sepId = vocab.getIndex("[SEP]");
+    this.padId = vocab.getIndex("[PAD]");
+
+    OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+    options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+    options.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.SEQUENTIAL);
+    options.setIntraOpNumThreads(intraOpThreads);
+    options.setInterOpNumThreads(1);
+
+    this.environment = OrtEnvironment.getEnvironment();
+    this.session = environment.createSession(modelPath.toString(), options);
+    this.inputNames = session.getInputNames();
+  }
+
+  static Vocabulary loadVocabulary(Path vocabPath) throws IOException {
+    return DefaultVocabulary.builder()
+        .addFromTextFile(vocabPath)
+        .optUnknownToken("[UNK]")
+        .build();
+  }
+
+  /**
+   * Encodes a (query, passage) pair as <code>[CLS] query [SEP] passage [SEP]</code>, truncating the passage first and
+   * then the query if needed.
+   */
+  static long[] encodePair(Vocabulary vocab, List<String> queryTokens, List<String> docTokens, int maxLength) {
+    int queryLength = Math.min(queryTokens.size(), maxLength - 3);
+    int docLength = Math.max(0, Math.min(docTokens.size(), maxLength - 3 - queryLength));
+
+    long sepId = vocab.getIndex("[SEP]");
+    long[] ids = new long[queryLength + docLength + 3];
+    int i = 0;
+    ids[i++] = vocab.getIndex("[CLS]");
+    for (int j = 0; j < queryLength; j++) {
+      ids[i++] = vocab.getIndex(queryTokens.get(j));
+    }
+    ids[i++] = sepId;
+    for (int j = 0; j < docLength; j++) {
+      ids[i++] = vocab.getIndex(docTokens.get(j));
+    }
+    ids[i] = sepId;
+
+    return ids;
+  }
+
+  /**
+   * Returns the indexes of the pairs in order of length, so that consecutive pairs make batches that need little
+   * padding.
+   */
+  static Integer[] byLength(long[][] pairs) {
+    Integer[] order = new Integer[pairs.length];
+    for (int i = 0; i < pairs.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingInt((Integer i) -> pairs[i].length));
+    return order;
+  }
+
+  /**
+   * Pads the pairs <code>order[from]</code> to <code>order[to - 1]</code> to the length of the longest of them.
+   *
+   * @return input ids, attention mask, and token type ids of the batch
+   */
+  static long[][][] batchInputs(long[][] pairs, Integer[] order, int from, int to, long padId, long sepId) {
+    int n = to - from;
+    int width = 0;
+    for (int i = from; i < to; i++) {
+      width = Math.max(width, pairs[order[i]].length);
+    }
+
+    long[][] inputIds = new long[n][width];
+    long[][] attentionMask = new long[n][width];
+    long[][] tokenTypeIds = new long[n][width];
+    for (int i = 0; i < n; i++) {
+      long[] ids = pairs[order[from + i]];
+      Arrays.fill(inputIds[i], padId);
+      System.arraycopy(ids, 0, inputIds[i], 0, ids.length);
+      Arrays.fill(attentionMask[i], 0, ids.length, 1L);
+
+      // Segment B starts right after the first [SEP].
+      int segment = 0;
+      for (int j = 0; j < ids.length; j++) {
+        tokenTypeIds[i][j] = segment;
+        if (ids[j] == sepId) {
+          segment = 1;
+        }
+      }
+    }
+    return new long[][][]{inputIds, attentionMask, tokenTypeIds};
+  }
+
+  /**
+   * Turns the output of the model into one score per pair. Single-logit heads may have a <code>[batch]</code> or a
+   * <code>[batch, 1]</code> output; for two-class (monoBERT-style) heads, the score is the log-probability of the
+   * relevant class.
+   */
+  static float[] scores(Object output, int n) throws OrtException {
+    if (output instanceof float[]) {
+      float[] logits = (float[]) output;
+      if (logits.length != n) {
+        throw new OrtException(String.format("Expected %d scores from the model, got %d.", n, logits.length));
+      }
+      return logits;
+    }
+    if (!(output instanceof float[][])) {
+      throw new OrtException("Unexpected output of the model: " + output.getClass().getSimpleName());
+    }
+
+    float[][] logits = (float[][]) output;
+    if (logits.length != n) {
+      throw new OrtException(String.format("Expected %d scores from the model, got %d.", n, logits.length));
+    }
+    float[] scores = new float[n];
+    for (int i = 0; i < n; i++) {
+      if (logits[i].length == 1) {
+        scores[i] = logits[i][0];
+      } else if (logits[i].length == 2) {
+        double max = Math.max(logits[i][0], logits[i][1]);
+        double logSumExp = max + Math.log(Math.exp(logits[i][0] - max) + Math.exp(logits[i][1] - max));
+        scores[i] = (float) (logits[i][1] - logSumExp);
+      } else {
+        throw new OrtException(String.format("Expected one or two logits per pair, got %d.", logits[i].length));
+      }
+    }
+    return scores;
+  }
+
+  private float[] scoreBatch(long[][] pairs, Integer[] order, int from, int to) throws OrtException {
+    long[][][] batch = batchInputs(pairs, order, from, to, padId, sepId);
+
+    Map<String, OnnxTensor> inputs = new HashMap<>();
+    try {
+      inputs.put("input_ids", OnnxTensor.createTensor(environment, batch[0]));
+      if (inputNames.contains("attention_mask")) {
+        inputs.put("attention_mask", OnnxTensor.createTensor(environment, batch[1]));
+      }
+      if (inputNames.contains("token_type_ids")) {
+        inputs.put("token_type_ids", OnnxTensor.createTensor(environment, batch[2]));
+      }
+
+      try (OrtSession.Result results = session.run(inputs)) {
+        return scores(results.get(0).getValue(), to - from);
+      }
+    } finally {
+      for (OnnxTensor tensor : inputs.values()) {
+        tensor.close();
+      }
+    }
+  }
+
+  @Override
+  public ScoredDocuments rerank(ScoredDocuments docs, RerankerContext context) {
+    int n = Math.min(depth, docs.documents.length);
+    List<String> queryTokens = tokenizer.tokenize(context.getQueryText());
+
+    long[][] pairs = new long[n][];
+    for (int i = 0; i < n; i++) {
+      String text = docs.documents[i].get(field);
+      pairs[i] = encodePair(vocab, queryTokens, tokenizer.tokenize(text == null ? "" : text), maxLength);
+    }
+
+    // Length bucketing: process pairs in order of length so that each batch needs little padding.
+    Integer[] byLength = byLength(pairs);
+
+    float[] scores = new float[n];
+    try {
+      for (int from = 0; from < n; from += batchSize) {
+        int to = Math.min(n, from + batchSize);
+        float[] batchScores = scoreBatch(pairs, byLength, from, to);
+        for (int i = from; i < to; i++) {
+          scores[byLength[i]] = batchScores[i - from];
+        }
+      }
+    } catch (OrtException e) {
+      LOG.error(String.format("Unable to score candidates for query %s, keeping original ranking.",
+          context.getQueryId()), e);
+      return docs;
+    }
+
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    // Stable sort, so that ties retain their first-stage order.
+    Arrays.sort(order, Comparator.comparingDouble((Integer i) -> scores[i]).reversed());
+
+    ScoredDocuments reranked = new ScoredDocuments();
+    reranked.documents = new Document[n];
+    reranked.ids = new int[n];
+    reranked.scores = new float[n];
+    for (int i = 0; i < n; i++) {
+      reranked.documents[i] = docs.documents[order[i]];
+      reranked.ids[i] = docs.ids[order[i]];
+      reranked.scores[i] = scores[order[i]];
+    }
+
+    return reranked;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      session.close();
+    } catch (OrtException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public String tag() {
+    return "CrossEncoder(depth=" + depth + ",batchSize=" + batchSize + ",maxLength=" + maxLength + ")";
+  }
+}
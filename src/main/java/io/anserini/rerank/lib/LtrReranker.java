@@ -0,0 +1,172 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.rerank.lib;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.anserini.index.Constants;
+import io.anserini.ltr.DocumentContext;
+import io.anserini.ltr.FeatureExtractor;
+import io.anserini.ltr.QueryContext;
+import io.anserini.ltr.TreeEnsemble;
+import io.anserini.rerank.Reranker;
+import io.anserini.rerank.RerankerContext;
+import io.anserini.rerank.ScoredDocuments;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.search.IndexSearcher;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Learning-to-rank reranker: extracts features for the top candidates of the first-stage ranking and scores them with
+ * a tree ensemble (e.g., LambdaMART trained with LightGBM), all in the same JVM.
+ */
+public class LtrReranker implements Reranker {
+  private static final Logger LOG = LogManager.getLogger(LtrReranker.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final TreeEnsemble model;
+  private final List<FeatureExtractor> extractors;
+  // Extractors carry per-document state, so each query thread works on its own copies.
+  private final ThreadLocal<List<FeatureExtractor>> localExtractors;
+  private final String queryField;
+  private final int depth;
+  // For each model feature, the index of the extractor that computes it.
+  private final int[] featureMapping;
+  private final Set<String> fieldsToLoad = new HashSet<>();
+  private final Set<String> qfieldsToLoad = new HashSet<>();
+
+  /**
+   * Constructor.
+   *
+   * @param model tree ensemble used for scoring
+   * @param extractors feature extractors; if the model names its features after the extractors, features are matched
+   *                   by name, otherwise they are matched by position
+   * @param queryField name of the query field the extractors read analyzed query tokens from (e.g., "analyzed")
+   * @param depth number of top candidates to rerank; only reranked candidates are returned
+   */
+  public LtrReranker(TreeEnsemble model, List<FeatureExtractor> extractors, String queryField, int depth) {
+    this.model = model;
+    this.extractors = extractors;
+    this.localExtractors = ThreadLocal.withInitial(() -> {
+      List<FeatureExtractor> copies = new ArrayList<>(extractors.size());
+      for (FeatureExtractor extractor : extractors) {
+        copies.add(extractor.clone());
+      }
+      return copies;
+    });
+    this.queryField = queryField;
+    this.depth = depth;
+
+    List<String> extractorNames = new ArrayList<>();
+    for (FeatureExtractor extractor : extractors) {
+      extractorNames.add(extractor.getName());
+      if (extractor.getField() != null) {
+        fieldsToLoad.add(extractor.getField());
+      }
+      if (extractor.getQField() != null) {
+        qfieldsToLoad.add(extractor.getQField());
+      }
+    }
+
+    List<String> featureNames = model.getFeatureNames();
+    this.featureMapping = new int[featureNames.size()];
+    if (extractorNames.containsAll(featureNames)) {
+      for (int i = 0; i < featureNames.size(); i++) {
+        featureMapping[i] = extractorNames.indexOf(featureNames.get(i));
+      }
+    } else if (featureNames.size() <= extractors.size()) {
+      LOG.warn("Model feature names do not match extractor names; matching features by position.");
+      for (int i = 0; i < featureNames.size(); i++) {
+        featureMapping[i] = i;
+      }
+    } else {
+      throw new IllegalArgumentException(String.format("Model expects %d features but only %d extractors are given.",
+          featureNames.size(), extractors.size()));
+    }
+  }
+
+  @Override
+  public ScoredDocuments rerank(ScoredDocuments docs, RerankerContext context) {
+    IndexSearcher searcher = context.getIndexSearcher();
+    int n = Math.min(depth, docs.documents.length);
+
+    List<FeatureExtractor> localExtractors = this.localExtractors.get();
+
+    float[][] features = new float[n][featureMapping.length];
+    try {
+      Map<String, Object> json = new HashMap<>();
+      json.put("qid", context.getQueryId().toString());
+      json.put(queryField, context.getQueryTokens());
+      JsonNode root = MAPPER.valueToTree(json);
+
+      QueryContext queryContext = new QueryContext(context.getQueryId().toString(), qfieldsToLoad, root);
+      DocumentContext documentContext = new DocumentContext(searcher.getIndexReader(), searcher, fieldsToLoad);
+
+      float[] values = new float[localExtractors.size()];
+      for (int i = 0; i < n; i++) {
+        documentContext.updateDoc(docs.documents[i].get(Constants.ID), docs.ids[i]);
+        for (int j = 0; j < localExtractors.size(); j++) {
+          values[j] = localExtractors.get(j).extract(documentContext, queryContext);
+        }
+        for (int f = 0; f < featureMapping.length; f++) {
+          features[i][f] = values[featureMapping[f]];
+        }
+      }
+    } catch (IOException e) {
+      LOG.error(String.format("Unable to extract features for query %s, keeping original ranking.",
+          context.getQueryId()), e);
+      return docs;
+    }
+
+    float[] scores = model.score(features);
+
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    // Stable sort, so that ties retain their first-stage order.
+    Arrays.sort(order, Comparator.comparingDouble((Integer i) -> scores[i]).reversed());
+
+    ScoredDocuments reranked = new ScoredDocuments();
+    reranked.documents = new Document[n];
+    reranked.ids = new int[n];
+    reranked.scores = new float[n];
+    for (int i = 0; i < n; i++) {
+      reranked.documents[i] = docs.documents[order[i]];
+      reranked.ids[i] = docs.ids[order[i]];
+      reranked.scores[i] = scores[order[i]];
+    }
+
+    return reranked;
+  }
+
+  @Override
+  public String tag() {
+    return String.format("Ltr(trees=%d,depth=%d)", model.getNumTrees(), depth);
+  }
+}
@@ -21,6 +21,8 @@ import io.anserini.index.Constants;
 import io.anserini.rerank.Reranker;
 import io.anserini.rerank.RerankerContext;
 import io.anserini.rerank.ScoredDocuments;
+import io.anserini.search.QueryDeadline;
+import io.anserini.search.QueryTimings;
 import io.anserini.util.FeatureVector;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -47,7 +49,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import static io.anserini.search.SearchCollection.BREAK_SCORE_TIES_BY_DOCID;
 import static io.anserini.search.SearchCollection.BREAK_SCORE_TIES_BY_TWEETID;
 
 public class Rm3Reranker implements Reranker {
@@ -89,6 +90,14 @@ public class Rm3Reranker implements Reranker {
 
     rm = FeatureVector.interpolate(qfv, rm, originalQueryWeight);
 
+    // If the time budget ran out while estimating the relevance model, the expanded query isn't run at all.
+    final String stage = QueryTimings.RERANK_PREFIX + tag();
+    final QueryDeadline deadline = context.getDeadline();
+    if (deadline.isExpired()) {
+      deadline.markPartial(stage);
+      return docs;
+    }
+
     BooleanQuery.Builder feedbackQueryBuilder = new BooleanQuery.Builder();
     Map<String, Float> feedbackTerms = new HashMap<>();
     Iterator<String> terms = rm.iterator();
@@ -122,13 +131,20 @@ public class Rm3Reranker implements Reranker {
         finalQuery = bqBuilder.build();
       }
 
+      final Query expandedQuery = finalQuery;
+      final int hits = context.getSearchArgs().hits;
       // Figure out how to break the scoring ties.
       if (context.getSearchArgs().arbitraryScoreTieBreak) {
-        rs = searcher.search(finalQuery, context.getSearchArgs().hits);
+        rs = deadline.search(stage, searcher, s -> s.search(expandedQuery, hits));
       } else if (context.getSearchArgs().searchtweets) {
-        rs = searcher.search(finalQuery, context.getSearchArgs().hits, BREAK_SCORE_TIES_BY_TWEETID, true);
+        rs = deadline.search(stage, searcher, s -> s.search(expandedQuery, hits, BREAK_SCORE_TIES_BY_TWEETID, true));
       } else {
-        rs = searcher.search(finalQuery, context.getSearchArgs().hits, BREAK_SCORE_TIES_BY_DOCID, true);
+        rs = deadline.search(stage, searcher, expandedQuery, hits);
+      }
+      // An expanded query cut short by the time budget would rank worse than the original query, so in that case the
+      // original ranking is kept. Earlier stages cut short don't make the expanded query any worse.
+      if (deadline.getPartialStages().contains(stage)) {
+        return docs;
       }
     } catch (IOException e) {
       e.printStackTrace();
@@ -21,6 +21,7 @@ import io.anserini.index.Constants;
 import io.anserini.rerank.Reranker;
 import io.anserini.rerank.RerankerContext;
 import io.anserini.rerank.ScoredDocuments;
+import io.anserini.search.TieBreakingTopDocsCollector;
 import io.anserini.util.FeatureVector;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -47,7 +48,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import static io.anserini.search.SearchCollection.BREAK_SCORE_TIES_BY_DOCID;
 
 public class RocchioReranker implements Reranker {
   private static final Logger LOG = LogManager.getLogger(RocchioReranker.class);
@@ -160,7 +160,7 @@ public class RocchioReranker implements Reranker {
       if (context.getSearchArgs().arbitraryScoreTieBreak) {
         results = searcher.search(finalQuery, context.getSearchArgs().hits);
       } else {
-        results = searcher.search(finalQuery, context.getSearchArgs().hits, BREAK_SCORE_TIES_BY_DOCID, true);
+        results = TieBreakingTopDocsCollector.search(searcher, finalQuery, context.getSearchArgs().hits);
       }
     } catch (IOException e) {
       e.printStackTrace();
@@ -0,0 +1,233 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Long-lived thread pool for the batch methods of the searchers (e.g., {@link SimpleSearcher#batch_search}), so that
+ * many small batches don't each pay for creating and tearing down a pool. The pool is created on first use, and grows
+ * to the largest number of threads any batch asks for; it is never replaced while batches may be running on it. Each
+ * batch runs at most as many tasks at once as the threads it asked for, and can be cancelled through a
+ * {@link Handle} without affecting the other batches.
+ */
+public class BatchExecutor implements Closeable {
+  /**
+   * Task applied to each input of a batch.
+   *
+   * @param <I> type of the inputs
+   * @param <O> type of the outputs
+   */
+  @FunctionalInterface
+  public interface Task<I, O> {
+    O apply(I input) throws Exception;
+  }
+
+  /**
+   * Handle to cancel a batch from another thread than the one waiting for it: create a handle, pass it to the batch,
+   * and cancel it while the batch runs. Cancelling drops the tasks of the batch that haven't started, and the caller
+   * waiting for the batch gets a {@link CancellationException}. Running tasks are left to complete rather than
+   * interrupted, since interrupting a thread blocked on a {@link java.nio.channels.FileChannel} closes the channel
+   * under the index reader. Once cancelled, a handle cancels any batch it is passed to.
+   */
+  public static final class Handle {
+    private final Set<Future<?>> batches = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled = false;
+
+    /**
+     * Cancels the batches running with this handle.
+     */
+    public void cancel() {
+      cancelled = true;
+      for (Future<?> batch : batches) {
+        batch.cancel(false);
+      }
+    }
+
+    /**
+     * Returns whether this handle has been cancelled.
+     *
+     * @return whether this handle has been cancelled
+     */
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    private void attach(Future<?> batch) {
+      batches.add(batch);
+      // Checked after adding, so that a concurrent cancel() either sees the batch or is seen here.
+      if (cancelled) {
+        batch.cancel(false);
+      }
+    }
+
+    private void detach(Future<?> batch) {
+      batches.remove(batch);
+    }
+  }
+
+  private final String name;
+  private ThreadPoolExecutor pool = null;
+
+  /**
+   * Creates an executor.
+   *
+   * @param name prefix of the names of the threads
+   */
+  public BatchExecutor(String name) {
+    this.name = name;
+  }
+
+  private synchronized ThreadPoolExecutor pool(int threads) {
+    if (pool == null) {
+      // Daemon threads, so that an executor that is never closed doesn't keep the JVM (e.g., under Pyserini) alive.
+      AtomicInteger count = new AtomicInteger();
+      pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+        Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    } else if (threads > pool.getMaximumPoolSize()) {
+      // The maximum goes first, since the core size can't exceed it.
+      pool.setMaximumPoolSize(threads);
+      pool.setCorePoolSize(threads);
+    }
+    return pool;
+  }
+
+  /**
+   * Applies a task to every input of a batch in parallel.
+   *
+   * @param inputs inputs
+   * @param threads number of threads
+   * @param task task to apply to each input
+   * @param newArray creates the array of outputs, e.g., <code>Result[]::new</code>
+   * @param <I> type of the inputs
+   * @param <O> type of the outputs
+   * @return outputs, in the order of the inputs
+   * @throws CancellationException if the calling thread is interrupted
+   * @throws CompletionException if a task fails, with the exception of the task as its cause
+   */
+  public <I, O> O[] map(List<I> inputs, int threads, Task<I, O> task, IntFunction<O[]> newArray) {
+    return map(inputs, threads, task, newArray, new Handle());
+  }
+
+  /**
+   * Applies a task to every input of a batch in parallel, with a handle to cancel the batch.
+   *
+   * @param inputs inputs
+   * @param threads number of threads
+   * @param task task to apply to each input
+   * @param newArray creates the array of outputs, e.g., <code>Result[]::new</code>
+   * @param handle handle to cancel the batch
+   * @param <I> type of the inputs
+   * @param <O> type of the outputs
+   * @return outputs, in the order of the inputs
+   * @throws CancellationException if the batch is cancelled, or the calling thread is interrupted
+   * @throws CompletionException if a task fails, with the exception of the task as its cause
+   */
+  public <I, O> O[] map(List<I> inputs, int threads, Task<I, O> task, IntFunction<O[]> newArray, Handle handle) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Number of threads must be > 0; got " + threads);
+    }
+
+    O[] outputs = newArray.apply(inputs.size());
+    if (inputs.isEmpty()) {
+      return outputs;
+    }
+
+    ThreadPoolExecutor pool = pool(threads);
+    CompletableFuture<O[]> result = new CompletableFuture<>();
+    Semaphore permits = new Semaphore(threads);
+    // However the batch ends, submission below must not stay blocked waiting for a permit.
+    result.whenComplete((r, e) -> permits.release(threads));
+    AtomicInteger remaining = new AtomicInteger(inputs.size());
+    handle.attach(result);
+    try {
+      for (int i = 0; i < inputs.size(); i++) {
+        permits.acquire();
+        if (result.isDone()) {
+          break;
+        }
+
+        final int index = i;
+        pool.execute(() -> {
+          try {
+            // Tasks of a batch that failed or was cancelled are dropped.
+            if (!result.isDone()) {
+              outputs[index] = task.apply(inputs.get(index));
+              // The last task to complete publishes the outputs written by all of them.
+              if (remaining.decrementAndGet() == 0) {
+                result.complete(outputs);
+              }
+            }
+          } catch (Throwable t) {
+            result.completeExceptionally(t);
+          } finally {
+            permits.release();
+          }
+        });
+      }
+      return result.get();
+    } catch (ExecutionException e) {
+      throw new CompletionException(e.getCause());
+    } catch (InterruptedException e) {
+      result.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting for batch");
+    } catch (RuntimeException e) {
+      // E.g., the pool was shut down under the batch.
+      result.cancel(false);
+      throw e;
+    } finally {
+      handle.detach(result);
+    }
+  }
+
+  /**
+   * Shuts down the pool, waiting for batches in flight to complete.
+   */
+  @Override
+  public synchronized void close() {
+    if (pool == null) {
+      return;
+    }
+
+    pool.shutdown();
+    try {
+      pool.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    pool = null;
+  }
+}
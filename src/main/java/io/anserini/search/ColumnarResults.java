@@ -0,0 +1,107 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import io.anserini.index.Constants;
+import io.anserini.rerank.ScoredDocuments;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Results of a batch of queries laid out as a handful of flat arrays rather than as an array of
+ * {@link SimpleSearcher.Result} objects per query, so that callers across a language bridge (e.g., Pyserini) can
+ * transfer a whole batch in a few calls instead of walking every field of every hit. The hits of query <i>q</i> are
+ * at positions <code>offsets[q]</code> (inclusive) to <code>offsets[q + 1]</code> (exclusive) of
+ * <code>lucene_docids</code> and <code>scores</code>. Collection docids are packed, UTF-8 encoded, into the single
+ * byte array <code>docids</code>, with the docid of hit <i>i</i> at positions <code>docid_offsets[i]</code> to
+ * <code>docid_offsets[i + 1]</code>. Document text isn't included; it can be fetched on demand by Lucene docid, e.g.,
+ * with {@link SimpleSearcher#doc_raw_array(int[])}.
+ */
+public class ColumnarResults {
+  /** Stored fields the hits need to have loaded. */
+  public static final Set<String> FIELDS = Set.of(Constants.ID);
+
+  public final int[] offsets;
+  public final int[] lucene_docids;
+  public final float[] scores;
+  public final byte[] docids;
+  public final int[] docid_offsets;
+
+  private ColumnarResults(int[] offsets, int[] luceneDocids, float[] scores, byte[] docids, int[] docidOffsets) {
+    this.offsets = offsets;
+    this.lucene_docids = luceneDocids;
+    this.scores = scores;
+    this.docids = docids;
+    this.docid_offsets = docidOffsets;
+  }
+
+  /**
+   * Lays out the results of a batch of queries.
+   *
+   * @param hits results of each query, with at least the {@link #FIELDS} of the documents loaded
+   * @return results
+   */
+  public static ColumnarResults of(ScoredDocuments[] hits) {
+    int[] offsets = new int[hits.length + 1];
+    for (int q = 0; q < hits.length; q++) {
+      offsets[q + 1] = offsets[q] + hits[q].ids.length;
+    }
+
+    int n = offsets[hits.length];
+    int[] luceneDocids = new int[n];
+    float[] scores = new float[n];
+    byte[][] ids = new byte[n][];
+    int[] docidOffsets = new int[n + 1];
+    for (int q = 0; q < hits.length; q++) {
+      System.arraycopy(hits[q].ids, 0, luceneDocids, offsets[q], hits[q].ids.length);
+      System.arraycopy(hits[q].scores, 0, scores, offsets[q], hits[q].scores.length);
+      for (int i = 0; i < hits[q].ids.length; i++) {
+        int hit = offsets[q] + i;
+        ids[hit] = hits[q].documents[i].get(Constants.ID).getBytes(StandardCharsets.UTF_8);
+        docidOffsets[hit + 1] = docidOffsets[hit] + ids[hit].length;
+      }
+    }
+
+    byte[] docids = new byte[docidOffsets[n]];
+    for (int i = 0; i < n; i++) {
+      System.arraycopy(ids[i], 0, docids, docidOffsets[i], ids[i].length);
+    }
+
+    return new ColumnarResults(offsets, luceneDocids, scores, docids, docidOffsets);
+  }
+
+  /**
+   * Returns the number of queries.
+   *
+   * @return number of queries
+   */
+  public int size() {
+    return offsets.length - 1;
+  }
+
+  /**
+   * Returns the collection docid of a hit.
+   *
+   * @param hit position of the hit in <code>lucene_docids</code>
+   * @return collection docid
+   */
+  public String docid(int hit) {
+    return new String(docids, docid_offsets[hit], docid_offsets[hit + 1] - docid_offsets[hit],
+        StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,510 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import io.anserini.index.Constants;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.Impact;
+import org.apache.lucene.index.Impacts;
+import org.apache.lucene.index.ImpactsEnum;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query processor specialized for learned sparse queries (SPLADE, uniCOIL, etc.) over quantized impact indexes, i.e.,
+ * indexes in which the term frequency <i>is</i> the impact and a document's score is the sum of the query weight times
+ * the impact over matching terms (see {@link io.anserini.search.similarity.ImpactSimilarity}).
+ *
+ * Such queries have dozens to hundreds of terms, which is where generic disjunction evaluation is weakest. This class
+ * supports two strategies:
+ *
+ * <ul>
+ *   <li><b>Exact</b>: document-at-a-time MaxScore (Turtle and Flood, 1995) with block-max upper bounds (Ding and Suel,
+ *   SIGIR 2011; Chakrabarti et al., WSDM 2011) computed from the per-block maximum impacts that Lucene stores in its
+ *   skip data. Results are identical to exhaustive evaluation, up to floating point summation order.</li>
+ *   <li><b>Budget</b>: approximate term-at-a-time evaluation that processes terms in decreasing order of their maximum
+ *   contribution and stops after a fixed number of postings, in the spirit of anytime score-at-a-time processing
+ *   (Lin and Trotman, ICTIR 2015).</li>
+ * </ul>
+ *
+ * Score ties are broken either by internal Lucene docid or by collection docid, as in
+ * {@link TieBreakingTopDocsCollector}. In the latter case, documents that tie with the current k-th hit are still
+ * competitive, so they are scored and compared on docid rather than pruned. Instances are thread safe.
+ */
+public class ImpactQueryProcessor {
+  // Number of documents (or postings, in budget mode) evaluated between two checks of the deadline, minus one.
+  private static final int CHECK_INTERVAL_MASK = 0x3FF;
+
+  private final IndexReader reader;
+  private final String field;
+  private final boolean useRank;
+
+  /**
+   * Creates a query processor over the {@link Constants#CONTENTS} field.
+   *
+   * @param reader index reader
+   */
+  public ImpactQueryProcessor(IndexReader reader) {
+    this(reader, Constants.CONTENTS);
+  }
+
+  /**
+   * Creates a query processor.
+   *
+   * @param reader index reader
+   * @param field impact field to search
+   */
+  public ImpactQueryProcessor(IndexReader reader, String field) {
+    this.reader = reader;
+    this.field = field;
+    this.useRank = TieBreakingTopDocsCollector.hasDocidRanks(reader);
+  }
+
+  /**
+   * Exact top-k retrieval with block-max MaxScore.
+   *
+   * @param weights map of query term to weight
+   * @param k number of hits
+   * @return top-k hits, sorted by decreasing score
+   * @throws IOException if error encountered during search
+   */
+  public TopDocs search(Map<String, ? extends Number> weights, int k) throws IOException {
+    return search(weights, k, 0, false);
+  }
+
+  /**
+   * Top-k retrieval.
+   *
+   * @param weights map of query term to weight
+   * @param k number of hits
+   * @param budget maximum number of postings to evaluate (approximate); zero or negative for exact retrieval
+   * @param breakTiesByDocid whether to break score ties by collection docid, as with
+   *                         {@link SearchCollection#BREAK_SCORE_TIES_BY_DOCID}, rather than by internal Lucene docid
+   * @return top-k hits, sorted by decreasing score
+   * @throws IOException if error encountered during search
+   */
+  public TopDocs search(Map<String, ? extends Number> weights, int k, long budget, boolean breakTiesByDocid)
+      throws IOException {
+    return search(weights, k, budget, breakTiesByDocid, QueryDeadline.NONE);
+  }
+
+  /**
+   * Top-k retrieval within a time budget. Once the deadline has passed, evaluation stops, the query is flagged as
+   * partial (with stage {@link QueryTimings#SEARCH}), and the best hits among the documents evaluated so far are
+   * returned.
+   *
+   * @param weights map of query term to weight
+   * @param k number of hits
+   * @param budget maximum number of postings to evaluate (approximate); zero or negative for exact retrieval
+   * @param breakTiesByDocid whether to break score ties by collection docid, as with
+   *                         {@link SearchCollection#BREAK_SCORE_TIES_BY_DOCID}, rather than by internal Lucene docid
+   * @param deadline deadline of the query
+   * @return top-k hits, sorted by decreasing score
+   * @throws IOException if error encountered during search
+   */
+  public TopDocs search(Map<String, ? extends Number> weights, int k, long budget, boolean breakTiesByDocid,
+                        QueryDeadline deadline) throws IOException {
+    TopHits top = new TopHits(k, breakTiesByDocid);
+    long maxDoc = Math.max(1, reader.maxDoc());
+    Accumulators accumulators = null;
+
+    for (LeafReaderContext leaf : reader.leaves()) {
+      if (deadline.isExpired()) {
+        deadline.markPartial(QueryTimings.SEARCH);
+        break;
+      }
+      TermCursor[] cursors = openCursors(leaf, weights);
+      if (cursors.length == 0) {
+        continue;
+      }
+      top.setLeaf(leaf);
+      boolean completed;
+      if (budget > 0) {
+        // Spread the budget across segments in proportion to their size.
+        long leafBudget = Math.max(1, budget * leaf.reader().maxDoc() / maxDoc);
+        if (accumulators == null) {
+          accumulators = new Accumulators((int) Math.min(Math.min(budget, reader.maxDoc()), 1 << 16));
+        }
+        completed = searchBudget(leaf, cursors, top, leafBudget, accumulators, deadline);
+      } else {
+        completed = searchMaxScore(leaf, cursors, top, deadline);
+      }
+      if (!completed) {
+        deadline.markPartial(QueryTimings.SEARCH);
+        break;
+      }
+    }
+
+    ScoreDoc[] hits = new ScoreDoc[top.queue.size()];
+    for (int i = hits.length - 1; i >= 0; i--) {
+      hits[i] = top.queue.pop();
+    }
+
+    return new TopDocs(new TotalHits(hits.length, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO), hits);
+  }
+
+  private TermCursor[] openCursors(LeafReaderContext leaf, Map<String, ? extends Number> weights) throws IOException {
+    Terms terms = leaf.reader().terms(field);
+    if (terms == null) {
+      return new TermCursor[0];
+    }
+
+    List<TermCursor> cursors = new ArrayList<>();
+    TermsEnum termsEnum = terms.iterator();
+    for (Map.Entry<String, ? extends Number> entry : weights.entrySet()) {
+      float weight = entry.getValue().floatValue();
+      if (weight <= 0 || !termsEnum.seekExact(new BytesRef(entry.getKey()))) {
+        continue;
+      }
+      // We use a separate enum to compute the upper bound, since shallow-advancing to the end of the postings would
+      // otherwise leave the skip data of the enum we iterate with positioned past the documents we need.
+      float maxScore = weight * maxFreq(termsEnum.impacts(PostingsEnum.FREQS));
+      cursors.add(new TermCursor(termsEnum.impacts(PostingsEnum.FREQS), weight, maxScore));
+    }
+    return cursors.toArray(new TermCursor[0]);
+  }
+
+  private static int maxFreq(ImpactsEnum postings) throws IOException {
+    int max = 0;
+    int upTo = -1;
+    while (upTo != DocIdSetIterator.NO_MORE_DOCS) {
+      postings.advanceShallow(upTo + 1);
+      Impacts impacts = postings.getImpacts();
+      int level = impacts.numLevels() - 1;
+      max = Math.max(max, maxFreq(impacts.getImpacts(level)));
+      upTo = impacts.getDocIdUpTo(level);
+    }
+    return max;
+  }
+
+  private static int maxFreq(List<Impact> impacts) {
+    // Impacts are sorted by increasing frequency.
+    return impacts.isEmpty() ? 0 : impacts.get(impacts.size() - 1).freq;
+  }
+
+  // Terms 0..(firstEssential-1) are non-essential: together they cannot lift a document into the top k, so a document
+  // only needs to be considered if it matches at least one essential term.
+  private static int firstEssential(double[] prefixMaxScore, TopHits top) {
+    int i = 0;
+    while (i < prefixMaxScore.length && !top.isCompetitive(prefixMaxScore[i])) {
+      i++;
+    }
+    return i;
+  }
+
+  // Returns false if the deadline passed before all the documents of the segment were evaluated.
+  private static boolean searchMaxScore(LeafReaderContext leaf, TermCursor[] cursors, TopHits top,
+                                        QueryDeadline deadline) throws IOException {
+    Bits liveDocs = leaf.reader().getLiveDocs();
+    int n = cursors.length;
+
+    Arrays.sort(cursors, Comparator.comparingDouble(c -> c.maxScore));
+    double[] prefixMaxScore = new double[n];
+    double sum = 0.0;
+    for (int i = 0; i < n; i++) {
+      sum += cursors[i].maxScore;
+      prefixMaxScore[i] = sum;
+      cursors[i].postings.nextDoc();
+    }
+
+    float threshold = top.threshold();
+    int firstEssential = firstEssential(prefixMaxScore, top);
+    int evaluated = 0;
+
+    while (firstEssential < n) {
+      if ((++evaluated & CHECK_INTERVAL_MASK) == 0 && deadline.isExpired()) {
+        return false;
+      }
+
+      int doc = DocIdSetIterator.NO_MORE_DOCS;
+      for (int i = firstEssential; i < n; i++) {
+        doc = Math.min(doc, cursors[i].postings.docID());
+      }
+      if (doc == DocIdSetIterator.NO_MORE_DOCS) {
+        break;
+      }
+
+      double score = 0.0;
+      for (int i = firstEssential; i < n; i++) {
+        if (cursors[i].postings.docID() == doc) {
+          score += cursors[i].score();
+          cursors[i].postings.nextDoc();
+        }
+      }
+
+      boolean competitive = true;
+      if (firstEssential > 0 && top.isFull()) {
+        // Block-max check: bound the non-essential terms by the maximum impact of the blocks containing this document,
+        // which is usually much tighter than their global maximum.
+        double bound = score;
+        for (int i = firstEssential - 1; i >= 0; i--) {
+          if (cursors[i].postings.docID() <= doc) {
+            bound += cursors[i].blockMaxScore(doc);
+          }
+        }
+        competitive = top.isCompetitive(bound);
+      }
+
+      if (competitive) {
+        for (int i = firstEssential - 1; i >= 0; i--) {
+          if (!top.isCompetitive(score + prefixMaxScore[i])) {
+            competitive = false;
+            break;
+          }
+          TermCursor cursor = cursors[i];
+          if (cursor.postings.docID() < doc) {
+            cursor.postings.advance(doc);
+          }
+          if (cursor.postings.docID() == doc) {
+            score += cursor.score();
+          }
+        }
+      }
+
+      if (competitive && (liveDocs == null || liveDocs.get(doc)) && top.insert(doc, (float) score) &&
+          top.threshold() != threshold) {
+        threshold = top.threshold();
+        firstEssential = firstEssential(prefixMaxScore, top);
+      }
+    }
+    return true;
+  }
+
+  // Returns false if the deadline passed before the budget of the segment was spent.
+  private static boolean searchBudget(LeafReaderContext leaf, TermCursor[] cursors, TopHits top, long budget,
+                                      Accumulators accumulators, QueryDeadline deadline) throws IOException {
+    Bits liveDocs = leaf.reader().getLiveDocs();
+    accumulators.clear();
+
+    // Terms that can contribute the most go first, so that the budget is spent where it matters.
+    Arrays.sort(cursors, Comparator.comparingDouble((TermCursor c) -> c.maxScore).reversed());
+    boolean completed = true;
+    long processed = 0;
+    for (TermCursor cursor : cursors) {
+      for (int doc = cursor.postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS && processed < budget;
+           doc = cursor.postings.nextDoc()) {
+        accumulators.add(doc, cursor.score());
+        if ((++processed & CHECK_INTERVAL_MASK) == 0 && deadline.isExpired()) {
+          completed = false;
+          break;
+        }
+      }
+      if (!completed || processed >= budget) {
+        break;
+      }
+    }
+
+    // Documents in increasing order, since doc values used to break ties can only move forward.
+    long[] entries = accumulators.sortedEntries();
+    for (long entry : entries) {
+      int doc = (int) (entry >>> 32);
+      float score = Float.intBitsToFloat((int) entry);
+      if (liveDocs == null || liveDocs.get(doc)) {
+        top.insert(doc, score);
+      }
+    }
+    return completed;
+  }
+
+  // Top-k hits. With ties broken by collection docid, a document that ties with the k-th hit may still make it into
+  // the top k, so bounds are compared inclusively; otherwise, documents are evaluated in increasing order of Lucene
+  // docid, so a tie with the k-th hit always loses.
+  private final class TopHits {
+    final TieBreakingTopDocsCollector.HitQueue queue;
+    private final int k;
+    private final boolean breakTiesByDocid;
+
+    private int docBase;
+    private NumericDocValues ranks;
+    private BinaryDocValues ids;
+
+    TopHits(int k, boolean breakTiesByDocid) {
+      this.queue = new TieBreakingTopDocsCollector.HitQueue(k);
+      this.k = k;
+      this.breakTiesByDocid = breakTiesByDocid;
+    }
+
+    void setLeaf(LeafReaderContext leaf) throws IOException {
+      docBase = leaf.docBase;
+      if (breakTiesByDocid) {
+        ranks = useRank ? leaf.reader().getNumericDocValues(Constants.ID_RANK) : null;
+        ids = useRank ? null : leaf.reader().getBinaryDocValues(Constants.ID);
+      }
+    }
+
+    boolean isFull() {
+      return queue.size() == k;
+    }
+
+    float threshold() {
+      return isFull() ? queue.top().score : Float.NEGATIVE_INFINITY;
+    }
+
+    // Whether a document with a score of at most the given bound may make it into the top k. The bound is rounded to
+    // a float first, as scores are, so that a document whose score rounds up to the k-th score isn't pruned.
+    boolean isCompetitive(double bound) {
+      if (!isFull()) {
+        return true;
+      }
+      float threshold = queue.top().score;
+      return breakTiesByDocid ? (float) bound >= threshold : (float) bound > threshold;
+    }
+
+    // Adds a document of the current segment, returning whether it made it into the top k.
+    boolean insert(int doc, float score) throws IOException {
+      if (!isCompetitive(score)) {
+        return false;
+      }
+      TieBreakingTopDocsCollector.Hit hit = breakTiesByDocid ?
+          TieBreakingTopDocsCollector.newHit(docBase, doc, score, useRank, ranks, ids) :
+          new TieBreakingTopDocsCollector.Hit(docBase + doc, score);
+      if (isFull() && !TieBreakingTopDocsCollector.HitQueue.ranksBelow(queue.top(), hit)) {
+        return false;
+      }
+      queue.insertWithOverflow(hit);
+      return true;
+    }
+  }
+
+  // Score accumulators of the documents of a segment, in an open-addressing hash table. The table grows with the
+  // number of documents actually scored, which the budget bounds, rather than being sized by the number of documents
+  // in the segment, and is reused across segments.
+  private static final class Accumulators {
+    // Document plus one, so that zero marks an empty slot.
+    private int[] docs;
+    private float[] scores;
+    private int size = 0;
+
+    Accumulators(int expected) {
+      int capacity = 16;
+      while (capacity < 2L * expected && capacity < (1 << 30)) {
+        capacity <<= 1;
+      }
+      docs = new int[capacity];
+      scores = new float[capacity];
+    }
+
+    void add(int doc, float score) {
+      int mask = docs.length - 1;
+      int slot = slot(doc, mask);
+      while (docs[slot] != 0 && docs[slot] != doc + 1) {
+        slot = (slot + 1) & mask;
+      }
+      if (docs[slot] == 0) {
+        docs[slot] = doc + 1;
+        if (++size > docs.length / 2) {
+          grow();
+          add(doc, score);
+          return;
+        }
+      }
+      scores[slot] += score;
+    }
+
+    private static int slot(int doc, int mask) {
+      int h = doc * 0x9E3779B9;
+      return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void grow() {
+      int[] oldDocs = docs;
+      float[] oldScores = scores;
+      docs = new int[oldDocs.length * 2];
+      scores = new float[oldDocs.length * 2];
+      int mask = docs.length - 1;
+      for (int i = 0; i < oldDocs.length; i++) {
+        if (oldDocs[i] != 0) {
+          int slot = slot(oldDocs[i] - 1, mask);
+          while (docs[slot] != 0) {
+            slot = (slot + 1) & mask;
+          }
+          docs[slot] = oldDocs[i];
+          scores[slot] = oldScores[i];
+        }
+      }
+    }
+
+    // Documents and their scores, packed as (doc << 32 | score bits), in increasing order of document.
+    long[] sortedEntries() {
+      long[] entries = new long[size];
+      int n = 0;
+      for (int i = 0; i < docs.length; i++) {
+        if (docs[i] != 0) {
+          entries[n++] = ((long) (docs[i] - 1) << 32) | (Float.floatToRawIntBits(scores[i]) & 0xFFFFFFFFL);
+        }
+      }
+      Arrays.sort(entries);
+      return entries;
+    }
+
+    void clear() {
+      if (size > 0) {
+        Arrays.fill(docs, 0);
+        Arrays.fill(scores, 0.0f);
+        size = 0;
+      }
+    }
+  }
+
+  private static final class TermCursor {
+    final ImpactsEnum postings;
+    final float weight;
+    final float maxScore;
+
+    private int blockUpTo = -1;
+    private float blockMaxScore;
+
+    TermCursor(ImpactsEnum postings, float weight, float maxScore) {
+      this.postings = postings;
+      this.weight = weight;
+      this.maxScore = maxScore;
+    }
+
+    float score() throws IOException {
+      return weight * postings.freq();
+    }
+
+    // Upper bound on the score of this term for any document in the block containing target, which must not be
+    // before the current position of the postings.
+    float blockMaxScore(int target) throws IOException {
+      if (target > blockUpTo) {
+        postings.advanceShallow(target);
+        Impacts impacts = postings.getImpacts();
+        blockUpTo = impacts.getDocIdUpTo(0);
+        blockMaxScore = weight * maxFreq(impacts.getImpacts(0));
+      }
+      return blockMaxScore;
+    }
+  }
+}
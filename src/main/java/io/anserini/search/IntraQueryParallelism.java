@@ -0,0 +1,127 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.similarities.Similarity;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor and slice policy for searching the segments of an index in parallel within a single query. Segments are
+ * grouped into slices of at most <code>maxDocsPerSlice</code> documents and <code>maxSegmentsPerSlice</code> segments
+ * (segments larger than <code>maxDocsPerSlice</code> get a slice of their own); each slice is searched by a separate
+ * thread and the per-slice top-k are merged. This lowers the latency of single queries on indexes with many segments,
+ * e.g., indexes built without <code>-optimize</code>, at the cost of more total work per query, so it is meant for
+ * interactive use rather than for batches of queries that already run in parallel.
+ */
+public class IntraQueryParallelism implements Closeable {
+  /** Lucene's default maximum number of documents per slice. */
+  public static final int DEFAULT_MAX_DOCS_PER_SLICE = 250_000;
+  /** Lucene's default maximum number of segments per slice. */
+  public static final int DEFAULT_MAX_SEGMENTS_PER_SLICE = 5;
+
+  private final int threads;
+  private final int maxDocsPerSlice;
+  private final int maxSegmentsPerSlice;
+  private final ExecutorService executor;
+
+  /**
+   * Creates an executor with Lucene's default slice policy.
+   *
+   * @param threads number of threads searching slices
+   */
+  public IntraQueryParallelism(int threads) {
+    this(threads, DEFAULT_MAX_DOCS_PER_SLICE, DEFAULT_MAX_SEGMENTS_PER_SLICE);
+  }
+
+  /**
+   * Creates an executor.
+   *
+   * @param threads number of threads searching slices
+   * @param maxDocsPerSlice maximum number of documents per slice
+   * @param maxSegmentsPerSlice maximum number of segments per slice
+   */
+  public IntraQueryParallelism(int threads, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+    if (threads <= 0 || maxDocsPerSlice <= 0 || maxSegmentsPerSlice <= 0) {
+      throw new IllegalArgumentException(String.format(
+          "threads, maxDocsPerSlice, and maxSegmentsPerSlice must be > 0; got %d, %d, %d",
+          threads, maxDocsPerSlice, maxSegmentsPerSlice));
+    }
+    this.threads = threads;
+    this.maxDocsPerSlice = maxDocsPerSlice;
+    this.maxSegmentsPerSlice = maxSegmentsPerSlice;
+
+    // Daemon threads, so that an executor that is never closed doesn't keep the JVM (e.g., under Pyserini) alive.
+    AtomicInteger count = new AtomicInteger();
+    ThreadFactory threadFactory = r -> {
+      Thread thread = new Thread(r, "anserini-slice-search-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Creates a searcher that searches slices of segments in parallel.
+   *
+   * @param reader index reader
+   * @param similarity similarity to score with
+   * @return searcher
+   */
+  public IndexSearcher newSearcher(IndexReader reader, Similarity similarity) {
+    // The slice policy is captured from locals rather than read from fields of the subclass, since IndexSearcher may
+    // compute its slices from within its constructor.
+    final int maxDocs = maxDocsPerSlice;
+    final int maxSegments = maxSegmentsPerSlice;
+    IndexSearcher searcher = new IndexSearcher(reader, executor) {
+      @Override
+      protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return slices(leaves, maxDocs, maxSegments);
+      }
+    };
+    searcher.setSimilarity(similarity);
+    return searcher;
+  }
+
+  /**
+   * Shuts down the executor, waiting for searches in flight to complete; searchers created by
+   * {@link #newSearcher(IndexReader, Similarity)} can no longer be used.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+    try {
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates per-query {@link QueryTimings} into a {@link LatencyHistogram} per stage, plus one for the total time per
+ * query, and counts the queries whose results are partial because they ran out of time (see {@link QueryDeadline}).
+ * Thread-safe, so that all query threads of a run can record into the same instance.
+ */
+public class LatencyStats {
+  private final Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+  private final AtomicLong partial = new AtomicLong();
+
+  private synchronized LatencyHistogram histogram(String stage) {
+    return histograms.computeIfAbsent(stage, k -> new LatencyHistogram());
+  }
+
+  /**
+   * Records the timings of a query.
+   *
+   * @param timings timings of the query
+   */
+  public void record(QueryTimings timings) {
+    record(timings, false);
+  }
+
+  /**
+   * Records the timings of a query.
+   *
+   * @param timings timings of the query
+   * @param partial whether the results of the query are partial
+   */
+  public void record(QueryTimings timings, boolean partial) {
+    if (partial) {
+      this.partial.incrementAndGet();
+    }
+    for (Map.Entry<String, Long> entry : timings.getStages().entrySet()) {
+      histogram(entry.getKey()).record(entry.getValue());
+    }
+    histogram(QueryTimings.TOTAL).record(timings.elapsed());
+  }
+
+  /**
+   * Returns the histograms, in the order stages were first recorded.
+   *
+   * @return map from stage name to histogram of times in nanoseconds
+   */
+  public synchronized Map<String, LatencyHistogram> getHistograms() {
+    return new LinkedHashMap<>(histograms);
+  }
+
+  /**
+   * Returns the number of queries whose results are partial.
+   *
+   * @return number of queries whose results are partial
+   */
+  public long getPartialCount() {
+    return partial.get();
+  }
+
+  /**
+   * Returns the statistics of each stage (count, mean, p50, p90, p99, and max, in milliseconds) and the number of
+   * queries with partial results as JSON.
+   *
+   * @return statistics as JSON
+   */
+  public String toJson() {
+    Map<String, Object> stages = new LinkedHashMap<>();
+    for (Map.Entry<String, LatencyHistogram> entry : getHistograms().entrySet()) {
+      LatencyHistogram h = entry.getValue();
+      Map<String, Object> stats = new LinkedHashMap<>();
+      stats.put("count", h.getCount());
+      stats.put("mean_ms", h.getMean() / 1e6);
+      stats.put("p50_ms", h.getValueAtPercentile(50) / 1e6);
+      stats.put("p90_ms", h.getValueAtPercentile(90) / 1e6);
+      stats.put("p99_ms", h.getValueAtPercentile(99) / 1e6);
+      stats.put("max_ms", h.getMax() / 1e6);
+      stages.put(entry.getKey(), stats);
+    }
+
+    Map<String, Object> json = new LinkedHashMap<>();
+    json.put("stages", stages);
+    json.put("partial_queries", getPartialCount());
+    try {
+      return new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(json);
+    } catch (JsonProcessingException e) {
+      // Only maps, strings, and numbers are serialized, so this cannot happen.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Writes the statistics as JSON.
+   *
+   * @param path output file
+   * @throws IOException if the file cannot be written
+   */
+  public void writeJson(Path path) throws IOException {
+    Files.writeString(path, toJson(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns a one-line summary of the statistics, suitable for logging.
+   *
+   * @return summary
+   */
+  public String summary() {
+    List<String> parts = new ArrayList<>();
+    for (Map.Entry<String, LatencyHistogram> entry : getHistograms().entrySet()) {
+      LatencyHistogram h = entry.getValue();
+      parts.add(String.format(Locale.US, "%s p50=%.2fms p99=%.2fms", entry.getKey(),
+          h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(99) / 1e6));
+    }
+    if (getPartialCount() > 0) {
+      parts.add("partial=" + getPartialCount());
+    }
+    return String.join(", ", parts);
+  }
+}
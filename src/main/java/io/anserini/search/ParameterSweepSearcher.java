@@ -0,0 +1,206 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.CollectionStatistics;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.TermStatistics;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.similarities.Similarity;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a bag-of-words query under several similarities (e.g., a grid of BM25 k1 and b values) with a single
+ * traversal of the postings. Each matching document is scored exhaustively under every similarity and collected into
+ * a separate top-k per similarity, with score ties broken by docid as in {@link TieBreakingTopDocsCollector}.
+ *
+ * Scores come from the similarities' own {@link Similarity.SimScorer}s, exactly as with a {@link IndexSearcher} using
+ * each similarity in turn; only the order in which term contributions are summed may differ.
+ */
+public class ParameterSweepSearcher {
+  private final IndexSearcher searcher;
+  private final String field;
+  private final List<Similarity> similarities;
+
+  /**
+   * Constructor.
+   *
+   * @param reader index reader
+   * @param field field to search
+   * @param similarities similarities to score with
+   */
+  public ParameterSweepSearcher(IndexReader reader, String field, List<Similarity> similarities) {
+    this.searcher = new IndexSearcher(reader);
+    this.field = field;
+    this.similarities = similarities;
+  }
+
+  /**
+   * Searches with all similarities.
+   *
+   * @param weights map of query term to weight (i.e., boost), e.g., analyzed query token counts
+   * @param k number of hits per similarity
+   * @return top k hits for each similarity, in the order of the similarities
+   * @throws IOException if error encountered during search
+   */
+  public TopDocs[] search(Map<String, ? extends Number> weights, int k) throws IOException {
+    int n = similarities.size();
+    IndexReader reader = searcher.getIndexReader();
+    CollectionStatistics collectionStats = searcher.collectionStatistics(field);
+
+    // One scorer per (term, similarity), created once per query as IndexSearcher would.
+    List<BytesRef> terms = new ArrayList<>();
+    List<Similarity.SimScorer[]> termScorers = new ArrayList<>();
+    if (collectionStats != null) {
+      for (Map.Entry<String, ? extends Number> entry : weights.entrySet()) {
+        Term term = new Term(field, entry.getKey());
+        int docFreq = reader.docFreq(term);
+        if (docFreq == 0) {
+          continue;
+        }
+        TermStatistics termStats = searcher.termStatistics(term, docFreq, reader.totalTermFreq(term));
+        Similarity.SimScorer[] scorers = new Similarity.SimScorer[n];
+        for (int c = 0; c < n; c++) {
+          scorers[c] = similarities.get(c).scorer(entry.getValue().floatValue(), collectionStats, termStats);
+        }
+        terms.add(term.bytes());
+        termScorers.add(scorers);
+      }
+    }
+
+    TieBreakingTopDocsCollector.Manager manager = new TieBreakingTopDocsCollector.Manager(reader, k);
+    TieBreakingTopDocsCollector[] collectors = new TieBreakingTopDocsCollector[n];
+    for (int c = 0; c < n; c++) {
+      collectors[c] = manager.newCollector();
+    }
+
+    if (!terms.isEmpty()) {
+      for (LeafReaderContext leaf : reader.leaves()) {
+        searchLeaf(leaf, terms, termScorers, collectors);
+      }
+    }
+
+    TopDocs[] results = new TopDocs[n];
+    for (int c = 0; c < n; c++) {
+      results[c] = collectors[c].topDocs();
+    }
+    return results;
+  }
+
+  private void searchLeaf(LeafReaderContext leaf, List<BytesRef> terms, List<Similarity.SimScorer[]> termScorers,
+                          TieBreakingTopDocsCollector[] collectors) throws IOException {
+    Terms fieldTerms = leaf.reader().terms(field);
+    if (fieldTerms == null) {
+      return;
+    }
+
+    List<PostingsEnum> postings = new ArrayList<>();
+    List<Similarity.SimScorer[]> scorers = new ArrayList<>();
+    TermsEnum termsEnum = fieldTerms.iterator();
+    for (int t = 0; t < terms.size(); t++) {
+      if (termsEnum.seekExact(terms.get(t))) {
+        PostingsEnum p = termsEnum.postings(null, PostingsEnum.FREQS);
+        p.nextDoc();
+        postings.add(p);
+        scorers.add(termScorers.get(t));
+      }
+    }
+    if (postings.isEmpty()) {
+      return;
+    }
+
+    int n = collectors.length;
+    SweepScorable[] scorables = new SweepScorable[n];
+    LeafCollector[] leafCollectors = new LeafCollector[n];
+    for (int c = 0; c < n; c++) {
+      scorables[c] = new SweepScorable();
+      leafCollectors[c] = collectors[c].getLeafCollector(leaf);
+      leafCollectors[c].setScorer(scorables[c]);
+    }
+
+    NumericDocValues norms = leaf.reader().getNormValues(field);
+    Bits liveDocs = leaf.reader().getLiveDocs();
+    double[] scores = new double[n];
+
+    while (true) {
+      int doc = DocIdSetIterator.NO_MORE_DOCS;
+      for (PostingsEnum p : postings) {
+        doc = Math.min(doc, p.docID());
+      }
+      if (doc == DocIdSetIterator.NO_MORE_DOCS) {
+        break;
+      }
+
+      // The norm is read once per document and shared by all similarities, as is the postings traversal.
+      long norm = norms == null ? 1L : (norms.advanceExact(doc) ? norms.longValue() : 0L);
+      Arrays.fill(scores, 0.0);
+      for (int t = 0; t < postings.size(); t++) {
+        PostingsEnum p = postings.get(t);
+        if (p.docID() == doc) {
+          float freq = p.freq();
+          Similarity.SimScorer[] s = scorers.get(t);
+          for (int c = 0; c < n; c++) {
+            scores[c] += s[c].score(freq, norm);
+          }
+          p.nextDoc();
+        }
+      }
+
+      if (liveDocs != null && !liveDocs.get(doc)) {
+        continue;
+      }
+      for (int c = 0; c < n; c++) {
+        scorables[c].doc = doc;
+        scorables[c].score = (float) scores[c];
+        leafCollectors[c].collect(doc);
+      }
+    }
+  }
+
+  // Hands the precomputed score of the current document to a collector.
+  private static final class SweepScorable extends Scorable {
+    int doc = -1;
+    float score;
+
+    @Override
+    public float score() {
+      return score;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+  }
+}
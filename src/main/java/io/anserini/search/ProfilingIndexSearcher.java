@@ -0,0 +1,296 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Matches;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.search.similarities.Similarity;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * {@link IndexSearcher} that profiles every query it runs. Each query, and each clause whose weight is created through
+ * {@link #createWeight(Query, ScoreMode, float)} (e.g., the clauses of a {@link org.apache.lucene.search.BooleanQuery}),
+ * gets a {@link QueryProfile} recording where the time goes. Queries run by rerankers through the searcher, such as the
+ * expanded query of RM3, are profiled as well, each as a separate root.
+ *
+ * Profiling wraps every scorer and times every call to it, so queries run noticeably slower than with a plain
+ * {@link IndexSearcher}, and the query cache is disabled so that cached clauses don't hide their cost. Searchers are
+ * cheap to create and are not thread-safe: use one per query.
+ */
+public class ProfilingIndexSearcher extends IndexSearcher {
+  private final List<QueryProfile> profiles = new ArrayList<>();
+  private final Deque<QueryProfile> stack = new ArrayDeque<>();
+
+  /**
+   * Creates a searcher.
+   *
+   * @param reader index reader
+   * @param similarity similarity to score with
+   */
+  public ProfilingIndexSearcher(IndexReader reader, Similarity similarity) {
+    super(reader);
+    setSimilarity(similarity);
+    setQueryCache(null);
+  }
+
+  /**
+   * Returns the profiles of the queries run so far, in the order they were run.
+   *
+   * @return profiles of the queries run so far
+   */
+  public List<QueryProfile> getProfiles() {
+    return Collections.unmodifiableList(profiles);
+  }
+
+  @Override
+  public Weight createWeight(Query query, ScoreMode scoreMode, float boost) throws IOException {
+    QueryProfile profile = new QueryProfile(query);
+    if (stack.isEmpty()) {
+      profiles.add(profile);
+    } else {
+      stack.peek().addChild(profile);
+    }
+
+    stack.push(profile);
+    long start = System.nanoTime();
+    Weight weight;
+    try {
+      weight = super.createWeight(query, scoreMode, boost);
+    } finally {
+      profile.createWeightNanos += System.nanoTime() - start;
+      stack.pop();
+    }
+    return new ProfileWeight(query, weight, profile);
+  }
+
+  // Bulk scorers aren't delegated, so that the default bulk scorer iterates through the profiled scorer.
+  private static final class ProfileWeight extends Weight {
+    private final Weight in;
+    private final QueryProfile profile;
+
+    private ProfileWeight(Query query, Weight in, QueryProfile profile) {
+      super(query);
+      this.in = in;
+      this.profile = profile;
+    }
+
+    @Override
+    public Scorer scorer(LeafReaderContext context) throws IOException {
+      ScorerSupplier supplier = scorerSupplier(context);
+      return supplier == null ? null : supplier.get(Long.MAX_VALUE);
+    }
+
+    @Override
+    public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+      final QueryProfile.Segment segment = profile.segment(context.ord);
+      long start = System.nanoTime();
+      final ScorerSupplier supplier;
+      try {
+        supplier = in.scorerSupplier(context);
+      } finally {
+        segment.buildScorerNanos += System.nanoTime() - start;
+      }
+      if (supplier == null) {
+        return null;
+      }
+
+      return new ScorerSupplier() {
+        @Override
+        public Scorer get(long leadCost) throws IOException {
+          long start = System.nanoTime();
+          Scorer scorer;
+          try {
+            scorer = supplier.get(leadCost);
+          } finally {
+            segment.buildScorerNanos += System.nanoTime() - start;
+          }
+          return new ProfileScorer(ProfileWeight.this, scorer, segment);
+        }
+
+        @Override
+        public long cost() {
+          return supplier.cost();
+        }
+      };
+    }
+
+    @Override
+    public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+      return in.explain(context, doc);
+    }
+
+    @Override
+    public Matches matches(LeafReaderContext context, int doc) throws IOException {
+      return in.matches(context, doc);
+    }
+
+    @Override
+    public int count(LeafReaderContext context) throws IOException {
+      return in.count(context);
+    }
+
+    @Override
+    public boolean isCacheable(LeafReaderContext context) {
+      return false;
+    }
+  }
+
+  private static final class ProfileScorer extends Scorer {
+    private final Scorer in;
+    private final QueryProfile.Segment segment;
+
+    private ProfileScorer(Weight weight, Scorer in, QueryProfile.Segment segment) {
+      super(weight);
+      this.in = in;
+      this.segment = segment;
+      segment.cost += in.iterator().cost();
+    }
+
+    @Override
+    public int docID() {
+      return in.docID();
+    }
+
+    @Override
+    public float score() throws IOException {
+      long start = System.nanoTime();
+      try {
+        return in.score();
+      } finally {
+        segment.scoreNanos += System.nanoTime() - start;
+        segment.scoreCount++;
+      }
+    }
+
+    @Override
+    public float smoothingScore(int docId) throws IOException {
+      return in.smoothingScore(docId);
+    }
+
+    @Override
+    public float getMaxScore(int upTo) throws IOException {
+      return in.getMaxScore(upTo);
+    }
+
+    @Override
+    public int advanceShallow(int target) throws IOException {
+      return in.advanceShallow(target);
+    }
+
+    @Override
+    public void setMinCompetitiveScore(float minScore) throws IOException {
+      in.setMinCompetitiveScore(minScore);
+    }
+
+    @Override
+    public Collection<ChildScorable> getChildren() throws IOException {
+      return in.getChildren();
+    }
+
+    @Override
+    public DocIdSetIterator iterator() {
+      return new ProfileIterator(in.iterator(), segment);
+    }
+
+    @Override
+    public TwoPhaseIterator twoPhaseIterator() {
+      final TwoPhaseIterator twoPhase = in.twoPhaseIterator();
+      if (twoPhase == null) {
+        return null;
+      }
+
+      return new TwoPhaseIterator(new ProfileIterator(twoPhase.approximation(), segment)) {
+        @Override
+        public boolean matches() throws IOException {
+          long start = System.nanoTime();
+          try {
+            return twoPhase.matches();
+          } finally {
+            segment.matchNanos += System.nanoTime() - start;
+            segment.matchCount++;
+          }
+        }
+
+        @Override
+        public float matchCost() {
+          return twoPhase.matchCost();
+        }
+      };
+    }
+  }
+
+  private static final class ProfileIterator extends DocIdSetIterator {
+    private final DocIdSetIterator in;
+    private final QueryProfile.Segment segment;
+
+    private ProfileIterator(DocIdSetIterator in, QueryProfile.Segment segment) {
+      this.in = in;
+      this.segment = segment;
+    }
+
+    @Override
+    public int docID() {
+      return in.docID();
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      long start = System.nanoTime();
+      int doc = in.nextDoc();
+      segment.nextDocNanos += System.nanoTime() - start;
+      segment.nextDocCount++;
+      if (doc != NO_MORE_DOCS) {
+        segment.visited++;
+      }
+      return doc;
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      long start = System.nanoTime();
+      int doc = in.advance(target);
+      segment.advanceNanos += System.nanoTime() - start;
+      segment.advanceCount++;
+      if (doc != NO_MORE_DOCS) {
+        segment.visited++;
+      }
+      return doc;
+    }
+
+    @Override
+    public long cost() {
+      return in.cost();
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.QueryTimeout;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TopDocs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Time budget of a single query. Searches through {@link #search(String, IndexSearcher, Search)} run with the deadline
+ * as the {@link IndexSearcher#setTimeout(QueryTimeout) timeout} of the searcher, so scoring stops once the budget is
+ * exhausted, leaving the collectors with the best hits found so far, and the {@link io.anserini.rerank.RerankerCascade}
+ * skips the remaining rerankers. Either way, the query is flagged as partial, along with the stages that were cut short.
+ */
+public class QueryDeadline implements QueryTimeout {
+  /** Deadline that never expires, for queries without a time budget. */
+  public static final QueryDeadline NONE = new QueryDeadline(Long.MAX_VALUE);
+
+  /**
+   * A search run against a searcher, e.g., <code>s -&gt; s.search(query, k)</code>.
+   *
+   * @param <T> type of the result
+   */
+  @FunctionalInterface
+  public interface Search<T> {
+    T search(IndexSearcher searcher) throws IOException;
+  }
+
+  private final long deadline;
+  private final List<String> partialStages = new ArrayList<>();
+  private volatile boolean partial = false;
+
+  private QueryDeadline(long deadline) {
+    this.deadline = deadline;
+  }
+
+  /**
+   * Creates a deadline that expires after the given budget, starting now.
+   *
+   * @param budgetMillis time budget in milliseconds; if not positive, the deadline never expires
+   * @return deadline
+   */
+  public static QueryDeadline afterMillis(long budgetMillis) {
+    return budgetMillis <= 0 ? NONE : new QueryDeadline(System.nanoTime() + budgetMillis * 1_000_000L);
+  }
+
+  /**
+   * Checks whether the time budget is exhausted.
+   *
+   * @return whether the time budget is exhausted
+   */
+  public boolean isExpired() {
+    return this != NONE && System.nanoTime() - deadline > 0;
+  }
+
+  @Override
+  public boolean shouldExit() {
+    return isExpired();
+  }
+
+  /**
+   * Flags the query as partial because the given stage was cut short.
+   *
+   * @param stage stage that was cut short
+   */
+  public synchronized void markPartial(String stage) {
+    if (!partialStages.contains(stage)) {
+      partialStages.add(stage);
+    }
+    partial = true;
+  }
+
+  /**
+   * Returns whether any stage of the query was cut short.
+   *
+   * @return whether the results of the query are partial
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+
+  /**
+   * Returns the stages that were cut short, in order.
+   *
+   * @return stages that were cut short
+   */
+  public synchronized List<String> getPartialStages() {
+    return new ArrayList<>(partialStages);
+  }
+
+  /**
+   * Runs a search that stops once the time budget is exhausted. If the searcher {@link IndexSearcher#timedOut() timed
+   * out}, the query is flagged as partial and the result holds the best hits among the documents scored so far.
+   *
+   * @param stage name of the stage, e.g., {@link QueryTimings#SEARCH}
+   * @param searcher searcher
+   * @param search search to run against the searcher
+   * @param <T> type of the result
+   * @return result of the search
+   * @throws IOException if error encountered during search
+   */
+  public <T> T search(String stage, IndexSearcher searcher, Search<T> search) throws IOException {
+    if (this == NONE) {
+      return search.search(searcher);
+    }
+
+    IndexSearcher timed = timedSearcher(searcher);
+    T result = search.search(timed);
+    if (timed.timedOut()) {
+      markPartial(stage);
+    }
+    return result;
+  }
+
+  /**
+   * Searches with a collector manager, stopping once the time budget is exhausted.
+   *
+   * @param stage name of the stage, e.g., {@link QueryTimings#SEARCH}
+   * @param searcher searcher
+   * @param query query
+   * @param manager collector manager
+   * @param <C> type of the collectors
+   * @param <T> type of the result
+   * @return result of the collector manager
+   * @throws IOException if error encountered during search
+   */
+  public <C extends Collector, T> T search(String stage, IndexSearcher searcher, Query query,
+                                           CollectorManager<C, T> manager) throws IOException {
+    return search(stage, searcher, s -> s.search(query, manager));
+  }
+
+  /**
+   * Searches for the top k hits with score ties broken by collection docid, as in
+   * {@link TieBreakingTopDocsCollector#search(IndexSearcher, Query, int)}, stopping once the time budget is exhausted.
+   *
+   * @param stage name of the stage, e.g., {@link QueryTimings#SEARCH}
+   * @param searcher searcher
+   * @param query query
+   * @param k number of hits
+   * @return top k hits among the documents scored
+   * @throws IOException if error encountered during search
+   */
+  public TopDocs search(String stage, IndexSearcher searcher, Query query, int k) throws IOException {
+    return search(stage, searcher, query, new TieBreakingTopDocsCollector.Manager(searcher.getIndexReader(), k));
+  }
+
+  // The timeout, and whether it was hit, are state of the searcher, and searchers are shared by concurrent queries, so
+  // each timed search gets a searcher of its own, set up like the given one. Profiling searchers are already per query,
+  // and are used as they are so that the search is profiled.
+  private IndexSearcher timedSearcher(IndexSearcher searcher) {
+    IndexSearcher timed;
+    if (searcher instanceof ProfilingIndexSearcher) {
+      timed = searcher;
+    } else {
+      // The slices of the given searcher are kept as they are, so that a custom slice policy (e.g., that of
+      // IntraQueryParallelism) carries over and the slices aren't recomputed for every query. They're captured from a
+      // local, since IndexSearcher may compute its slices from within its constructor.
+      final IndexSearcher.LeafSlice[] slices = searcher.getExecutor() == null ? null : searcher.getSlices();
+      timed = new IndexSearcher(searcher.getIndexReader(), searcher.getExecutor()) {
+        @Override
+        protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+          return slices;
+        }
+      };
+      timed.setSimilarity(searcher.getSimilarity());
+      timed.setQueryCache(searcher.getQueryCache());
+      timed.setQueryCachingPolicy(searcher.getQueryCachingPolicy());
+    }
+    timed.setTimeout(this);
+    return timed;
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import org.apache.lucene.search.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Profile of one node of a query tree (e.g., a clause of a {@link org.apache.lucene.search.BooleanQuery}), as recorded
+ * by {@link ProfilingIndexSearcher}: the time to create its weight, and, for each segment, the time to build its
+ * scorer, the number and time of <code>nextDoc</code>, <code>advance</code>, and <code>score</code> calls, and how many
+ * documents it visited and scored. Times of a node include the times of its clauses.
+ */
+public class QueryProfile {
+  /**
+   * Statistics of a node on a single segment.
+   */
+  public static class Segment {
+    long buildScorerNanos;
+    long nextDocCount;
+    long nextDocNanos;
+    long advanceCount;
+    long advanceNanos;
+    long matchCount;
+    long matchNanos;
+    long scoreCount;
+    long scoreNanos;
+    long visited;
+    long cost;
+
+    void add(Segment other) {
+      buildScorerNanos += other.buildScorerNanos;
+      nextDocCount += other.nextDocCount;
+      nextDocNanos += other.nextDocNanos;
+      advanceCount += other.advanceCount;
+      advanceNanos += other.advanceNanos;
+      matchCount += other.matchCount;
+      matchNanos += other.matchNanos;
+      scoreCount += other.scoreCount;
+      scoreNanos += other.scoreNanos;
+      visited += other.visited;
+      cost += other.cost;
+    }
+
+    /**
+     * Returns the time spent in this node on the segment, i.e., building its scorer and iterating and scoring.
+     *
+     * @return time in nanoseconds
+     */
+    public long getNanos() {
+      return buildScorerNanos + nextDocNanos + advanceNanos + matchNanos + scoreNanos;
+    }
+
+    /**
+     * Returns the number of documents scored.
+     *
+     * @return number of documents scored
+     */
+    public long getScored() {
+      return scoreCount;
+    }
+
+    /**
+     * Returns the (estimated) number of documents skipped, i.e., the cost of the iterator (e.g., the document
+     * frequency of a term) minus the number of documents actually visited.
+     *
+     * @return number of documents skipped
+     */
+    public long getSkipped() {
+      return Math.max(0, cost - visited);
+    }
+
+    Map<String, Object> toMap() {
+      Map<String, Object> map = new LinkedHashMap<>();
+      map.put("time_ms", getNanos() / 1e6);
+      map.put("build_scorer_ms", buildScorerNanos / 1e6);
+      map.put("next_doc_count", nextDocCount);
+      map.put("next_doc_ms", nextDocNanos / 1e6);
+      map.put("advance_count", advanceCount);
+      map.put("advance_ms", advanceNanos / 1e6);
+      map.put("match_count", matchCount);
+      map.put("match_ms", matchNanos / 1e6);
+      map.put("score_count", scoreCount);
+      map.put("score_ms", scoreNanos / 1e6);
+      map.put("docs_visited", visited);
+      map.put("docs_scored", getScored());
+      map.put("docs_skipped", getSkipped());
+      return map;
+    }
+  }
+
+  private final String type;
+  private final String description;
+  private final List<QueryProfile> children = new ArrayList<>();
+  // Keyed by segment ordinal, so that segments are reported in index order.
+  private final Map<Integer, Segment> segments = new TreeMap<>();
+  long createWeightNanos;
+
+  QueryProfile(Query query) {
+    this.type = query.getClass().getSimpleName();
+    this.description = query.toString();
+  }
+
+  void addChild(QueryProfile child) {
+    children.add(child);
+  }
+
+  Segment segment(int ord) {
+    return segments.computeIfAbsent(ord, k -> new Segment());
+  }
+
+  /**
+   * Returns the class name of the query.
+   *
+   * @return class name of the query
+   */
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * Returns the query, as a string.
+   *
+   * @return the query, as a string
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Returns the profiles of the clauses of the query.
+   *
+   * @return profiles of the clauses
+   */
+  public List<QueryProfile> getChildren() {
+    return Collections.unmodifiableList(children);
+  }
+
+  /**
+   * Returns the time spent creating the weight of the query.
+   *
+   * @return time in nanoseconds
+   */
+  public long getCreateWeightNanos() {
+    return createWeightNanos;
+  }
+
+  /**
+   * Returns the statistics per segment.
+   *
+   * @return map from segment ordinal to statistics
+   */
+  public Map<Integer, Segment> getSegments() {
+    return Collections.unmodifiableMap(segments);
+  }
+
+  /**
+   * Returns the statistics summed over all segments.
+   *
+   * @return statistics over all segments
+   */
+  public Segment getTotal() {
+    Segment total = new Segment();
+    for (Segment segment : segments.values()) {
+      total.add(segment);
+    }
+    return total;
+  }
+
+  /**
+   * Returns the total time spent in the query, i.e., creating its weight and building, iterating, and scoring its
+   * scorers on all segments.
+   *
+   * @return time in nanoseconds
+   */
+  public long getNanos() {
+    return createWeightNanos + getTotal().getNanos();
+  }
+
+  /**
+   * Returns the profile as nested maps, suitable for serialization to JSON.
+   *
+   * @return the profile as nested maps
+   */
+  public Map<String, Object> toMap() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("type", type);
+    map.put("query", description);
+    map.put("create_weight_ms", createWeightNanos / 1e6);
+    map.putAll(getTotal().toMap());
+    map.put("time_ms", getNanos() / 1e6);
+
+    List<Map<String, Object>> segmentMaps = new ArrayList<>();
+    for (Map.Entry<Integer, Segment> entry : segments.entrySet()) {
+      Map<String, Object> segmentMap = new LinkedHashMap<>();
+      segmentMap.put("segment", entry.getKey());
+      segmentMap.putAll(entry.getValue().toMap());
+      segmentMaps.add(segmentMap);
+    }
+    map.put("segments", segmentMaps);
+
+    List<Map<String, Object>> childMaps = new ArrayList<>();
+    for (QueryProfile child : children) {
+      childMaps.add(child.toMap());
+    }
+    map.put("children", childMaps);
+    return map;
+  }
+}
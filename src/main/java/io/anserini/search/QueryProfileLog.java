@@ -0,0 +1,153 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the {@link QueryProfile}s of the slowest queries of a run. Thread-safe, so that all query threads of a run can
+ * record into the same instance.
+ */
+public class QueryProfileLog {
+  /**
+   * Profiles of a single query.
+   */
+  public static class Entry {
+    private final String id;
+    private final String query;
+    private final long nanos;
+    private final List<QueryProfile> profiles;
+
+    private Entry(String id, String query, long nanos, List<QueryProfile> profiles) {
+      this.id = id;
+      this.query = query;
+      this.nanos = nanos;
+      this.profiles = profiles;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public String getQuery() {
+      return query;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    public List<QueryProfile> getProfiles() {
+      return profiles;
+    }
+  }
+
+  private final int slowest;
+  // Min-heap on time, so that the fastest of the kept queries is evicted first.
+  private final PriorityQueue<Entry> entries = new PriorityQueue<>(Comparator.comparingLong(Entry::getNanos));
+
+  /**
+   * Creates a log.
+   *
+   * @param slowest number of queries to keep
+   */
+  public QueryProfileLog(int slowest) {
+    if (slowest <= 0) {
+      throw new IllegalArgumentException("Number of queries to keep must be > 0; got " + slowest);
+    }
+    this.slowest = slowest;
+  }
+
+  /**
+   * Records the profiles of a query, which are kept if the query is among the slowest so far.
+   *
+   * @param id query id
+   * @param query query string
+   * @param nanos total time of the query, in nanoseconds
+   * @param profiles profiles of the Lucene queries run for the query, e.g., by {@link ProfilingIndexSearcher}
+   */
+  public synchronized void record(String id, String query, long nanos, List<QueryProfile> profiles) {
+    if (entries.size() == slowest) {
+      if (entries.peek().getNanos() >= nanos) {
+        return;
+      }
+      entries.poll();
+    }
+    entries.add(new Entry(id, query, nanos, new ArrayList<>(profiles)));
+  }
+
+  /**
+   * Returns the profiles of the slowest queries, slowest first.
+   *
+   * @return profiles of the slowest queries
+   */
+  public synchronized List<Entry> getSlowest() {
+    List<Entry> slowest = new ArrayList<>(entries);
+    slowest.sort(Comparator.comparingLong(Entry::getNanos).reversed());
+    return slowest;
+  }
+
+  /**
+   * Returns the profiles of the slowest queries, slowest first, as JSON.
+   *
+   * @return profiles as JSON
+   */
+  public String toJson() {
+    List<Map<String, Object>> queries = new ArrayList<>();
+    for (Entry entry : getSlowest()) {
+      Map<String, Object> map = new LinkedHashMap<>();
+      map.put("id", entry.getId());
+      map.put("query", entry.getQuery());
+      map.put("time_ms", entry.getNanos() / 1e6);
+      List<Map<String, Object>> profiles = new ArrayList<>();
+      for (QueryProfile profile : entry.getProfiles()) {
+        profiles.add(profile.toMap());
+      }
+      map.put("profiles", profiles);
+      queries.add(map);
+    }
+
+    try {
+      return new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(Map.of("queries", queries));
+    } catch (JsonProcessingException e) {
+      // Only maps, lists, strings, and numbers are serialized, so this cannot happen.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Writes the profiles of the slowest queries as JSON.
+   *
+   * @param path output file
+   * @throws IOException if the file cannot be written
+   */
+  public void writeJson(Path path) throws IOException {
+    Files.writeString(path, toJson(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stopwatch for the stages of a single query (encoding, query construction, first-stage search, reranking, etc.).
+ * Each call to {@link #lap(String)} attributes the time elapsed since the previous lap to the given stage. Instances
+ * are meant to be used by one thread at a time.
+ */
+public class QueryTimings {
+  /** Timings that record nothing, for callers that don't collect statistics. */
+  public static final QueryTimings NONE = new QueryTimings() {
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public void lap(String stage) {
+    }
+  };
+
+  public static final String ENCODE = "encode";
+  public static final String QUERY = "query";
+  public static final String SEARCH = "search";
+  public static final String MATERIALIZE = "materialize";
+  public static final String RERANK_PREFIX = "rerank:";
+  public static final String FORMAT = "format";
+  public static final String TOTAL = "total";
+
+  private final Map<String, Long> stages = new LinkedHashMap<>();
+  private long start = System.nanoTime();
+  private long mark = start;
+
+  /**
+   * Restarts the stopwatch and clears recorded stages.
+   */
+  public void reset() {
+    stages.clear();
+    start = System.nanoTime();
+    mark = start;
+  }
+
+  /**
+   * Attributes the time since the previous lap (or reset) to a stage.
+   *
+   * @param stage stage name
+   */
+  public void lap(String stage) {
+    long now = System.nanoTime();
+    stages.merge(stage, now - mark, Long::sum);
+    mark = now;
+  }
+
+  /**
+   * Returns the time since the last reset.
+   *
+   * @return elapsed time in nanoseconds
+   */
+  public long elapsed() {
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Returns the recorded stages, in the order they were first recorded.
+   *
+   * @return map from stage name to time in nanoseconds
+   */
+  public Map<String, Long> getStages() {
+    return Collections.unmodifiableMap(stages);
+  }
+}
@@ -16,6 +16,7 @@
 
 package io.anserini.search;
 
+import ai.onnxruntime.OrtException;
 import io.anserini.analysis.AnalyzerMap;
 import io.anserini.analysis.AnalyzerUtils;
 import io.anserini.analysis.AutoCompositeAnalyzer;
@@ -27,15 +28,20 @@ import io.anserini.encoder.sparse.SparseEncoder;
 import io.anserini.index.Constants;
 import io.anserini.index.generator.TweetGenerator;
 import io.anserini.index.generator.WashingtonPostGenerator;
+import io.anserini.ltr.FeatureExtractorCli;
+import io.anserini.ltr.TreeEnsemble;
 import io.anserini.rerank.RerankerCascade;
 import io.anserini.rerank.RerankerContext;
 import io.anserini.rerank.ScoredDocuments;
 import io.anserini.rerank.lib.AxiomReranker;
 import io.anserini.rerank.lib.BM25PrfReranker;
+import io.anserini.rerank.lib.CrossEncoderReranker;
+import io.anserini.rerank.lib.LtrReranker;
 import io.anserini.rerank.lib.NewsBackgroundLinkingReranker;
 import io.anserini.rerank.lib.Rm3Reranker;
 import io.anserini.rerank.lib.RocchioReranker;
 import io.anserini.rerank.lib.ScoreTiesAdjusterReranker;
+import io.anserini.search.query.BagOfWordsQueryGenerator;
 import io.anserini.search.query.QueryGenerator;
 import io.anserini.search.query.SdmQueryGenerator;
 import io.anserini.search.similarity.AccurateBM25Similarity;
@@ -76,6 +82,7 @@ import org.apache.lucene.search.similarities.DistributionSPL;
 import org.apache.lucene.search.similarities.IBSimilarity;
 import org.apache.lucene.search.similarities.LMDirichletSimilarity;
 import org.apache.lucene.search.similarities.LMJelinekMercerSimilarity;
+import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.search.similarities.LambdaDF;
 import org.apache.lucene.search.similarities.NormalizationH2;
 import org.apache.lucene.store.FSDirectory;
@@ -166,6 +173,33 @@ public final class SearchCollection implements Closeable {
     @Option(name = "-parallelism", metaVar = "[int]", usage = "Number of threads to use for each individual parameter configuration.")
     public int parallelism = 8;
 
+    @Option(name = "-timings",
+        usage = "Record per-query stage latencies (encoding, query construction, first-stage search, " +
+            "materialization, each reranker, output formatting) and write p50/p90/p99/max per stage to " +
+            "<output>.timings.json; for single-pass sweeps (-bm25.sweep), to <output>_sweep_<reranker>.timings.json, " +
+            "since the stages are shared by all parameter settings.")
+    public boolean timings = false;
+
+    @Option(name = "-profile",
+        usage = "Profile each query (time spent creating weights and building, iterating, and scoring the scorers of " +
+            "every clause, nextDoc/advance counts, documents scored and skipped, per segment) and write the profiles " +
+            "of the slowest queries to <output>.profile.json. Queries run much slower while profiled.")
+    public boolean profile = false;
+
+    @Option(name = "-profile.slowest", metaVar = "[int]", depends = {"-profile"},
+        usage = "Number of slowest queries whose profiles are written.")
+    public int profile_slowest = 10;
+
+    @Option(name = "-query.budget", metaVar = "[ms]",
+        usage = "Per-query time budget in milliseconds. First-stage collection and the reranker cascade stop once the " +
+            "budget is exhausted, returning the best results found so far and counting the query as partial.")
+    public long query_budget = 0;
+
+    @Option(name = "-query.slowlog", metaVar = "[ms]",
+        usage = "Log queries taking at least this many milliseconds, as well as queries with partial results, to the " +
+            "io.anserini.search.SlowQueryLog logger.")
+    public long query_slowlog = 0;
+
     @Option(name = "-language", usage = "Analyzer Language")
     public String language = "en";
 
@@ -288,6 +322,16 @@ public final class SearchCollection implements Closeable {
         usage = "ranking model: BM25")
     public boolean impact = false;
 
+    @Option(name = "-impact.pruning", depends = {"-impact"},
+        usage = "Evaluate queries with block-max MaxScore dynamic pruning instead of Lucene's generic disjunction; " +
+            "results are unchanged.")
+    public boolean impact_pruning = false;
+
+    @Option(name = "-impact.budget", metaVar = "[int]", depends = {"-impact.pruning"},
+        usage = "Maximum number of postings to evaluate per query with '-impact.pruning'; results become approximate. " +
+            "Zero means no budget.")
+    public long impact_budget = 0;
+
     // -------------------
     // ranking model: bm25
     // -------------------
@@ -313,6 +357,11 @@ public final class SearchCollection implements Closeable {
     @Option(name = "-bm25.b", handler = StringArrayOptionHandler.class, usage = "BM25: b parameter")
     public String[] bm25_b = new String[]{"0.4"};
 
+    @Option(name = "-bm25.sweep",
+        usage = "BM25: when several k1 and b values are given, score all combinations in a single pass over each " +
+            "query's postings instead of searching once per combination; one run is written per combination.")
+    public boolean bm25_sweep = false;
+
     // --------------------------------------------------------
     // ranking model: query likelihood with Dirichlet smoothing
     // --------------------------------------------------------
@@ -545,6 +594,50 @@ public final class SearchCollection implements Closeable {
     @Option(name = "-axiom.index", usage = "path to the external index for generating the reranking doucments pool")
     public String axiom_index = null;
 
+    // ---------------------------------------------
+    // reranking model: learning to rank (LambdaMART)
+    // ---------------------------------------------
+
+    @Option(name = "-ltr.model", metaVar = "[file]",
+        usage = "LTR: rerank with a tree ensemble (e.g., LambdaMART) stored as a LightGBM text model")
+    public String ltr_model = null;
+
+    @Option(name = "-ltr.depth", metaVar = "[int]",
+        usage = "LTR: number of top candidates to rerank; only reranked candidates are returned")
+    public int ltr_depth = 100;
+
+    // ----------------------------------------------
+    // reranking model: cross-encoder (ONNX, on CPU)
+    // ----------------------------------------------
+
+    @Option(name = "-crossEncoder.model", metaVar = "[file]", depends = {"-crossEncoder.vocab"},
+        usage = "Cross-encoder: rerank with a (query, passage) cross-encoder stored as an ONNX model")
+    public String crossEncoder_model = null;
+
+    @Option(name = "-crossEncoder.vocab", metaVar = "[file]", usage = "Cross-encoder: WordPiece vocabulary of the model")
+    public String crossEncoder_vocab = null;
+
+    @Option(name = "-crossEncoder.cased",
+        usage = "Cross-encoder: the model is cased, so text isn't lowercased before tokenization")
+    public boolean crossEncoder_cased = false;
+
+    @Option(name = "-crossEncoder.field", metaVar = "[field]", usage = "Cross-encoder: stored field with the passage text")
+    public String crossEncoder_field = Constants.CONTENTS;
+
+    @Option(name = "-crossEncoder.depth", metaVar = "[int]",
+        usage = "Cross-encoder: number of top candidates to rerank; only reranked candidates are returned")
+    public int crossEncoder_depth = 100;
+
+    @Option(name = "-crossEncoder.batchSize", metaVar = "[int]", usage = "Cross-encoder: pairs per inference batch")
+    public int crossEncoder_batchSize = 32;
+
+    @Option(name = "-crossEncoder.maxLength", metaVar = "[int]", usage = "Cross-encoder: maximum sequence length")
+    public int crossEncoder_maxLength = 512;
+
+    @Option(name = "-crossEncoder.threads", metaVar = "[int]",
+        usage = "Cross-encoder: ONNX Runtime threads per query; by default, cores divided by -parallelism")
+    public int crossEncoder_threads = 0;
+
     @Option(name = "-qid_queries", metaVar = "[file]", usage = "query id - query mapping file")
     public String qid_queries = "";
 
@@ -706,6 +799,8 @@ public final class SearchCollection implements Closeable {
   private final Args args;
   private final IndexReader reader;
   private final Analyzer analyzer;
+  // Query processor for -impact.pruning, shared by all queries.
+  private final ImpactQueryProcessor impactQueryProcessor;
   private final Class collectionClass;
   private List<TaggedSimilarity> similarities;
   private List<RerankerCascade> cascades;
@@ -777,31 +872,55 @@ public final class SearchCollection implements Closeable {
 
   private final class SearcherThread<K> extends Thread {
     final private IndexReader reader;
-    final private IndexSearcher searcher;
     final private SortedMap<K, Map<String, String>> topics;
-    final private TaggedSimilarity taggedSimilarity;
+    final private List<TaggedSimilarity> taggedSimilarities;
+    final private List<IndexSearcher> searchers = new ArrayList<>();
     final private RerankerCascade cascade;
-    final private String outputPath;
+    final private List<String> outputPaths;
     final private String runTag;
+    // Non-null when several similarities are evaluated together in a single pass (-bm25.sweep).
+    final private ParameterSweepSearcher sweepSearcher;
 
     private SearcherThread(IndexReader reader, SortedMap<K, Map<String, String>> topics, TaggedSimilarity taggedSimilarity,
                            RerankerCascade cascade, Map<String, ScoredDocuments> qrels, String outputPath, String runTag) {
+      this(reader, topics, List.of(taggedSimilarity), cascade, qrels, List.of(outputPath), runTag);
+    }
+
+    private SearcherThread(IndexReader reader, SortedMap<K, Map<String, String>> topics,
+                           List<TaggedSimilarity> taggedSimilarities, RerankerCascade cascade,
+                           Map<String, ScoredDocuments> qrels, List<String> outputPaths, String runTag) {
       this.reader = reader;
       this.topics = topics;
-      this.taggedSimilarity = taggedSimilarity;
+      this.taggedSimilarities = taggedSimilarities;
       this.cascade = cascade;
       this.runTag = runTag;
-      this.outputPath = outputPath;
-      this.searcher = new IndexSearcher(this.reader);
-      this.searcher.setSimilarity(this.taggedSimilarity.getSimilarity());
-      setName(outputPath);
+      this.outputPaths = outputPaths;
+      for (TaggedSimilarity taggedSimilarity : taggedSimilarities) {
+        IndexSearcher searcher = new IndexSearcher(this.reader);
+        searcher.setSimilarity(taggedSimilarity.getSimilarity());
+        this.searchers.add(searcher);
+      }
+      if (taggedSimilarities.size() > 1) {
+        List<Similarity> sims = new ArrayList<>();
+        for (TaggedSimilarity taggedSimilarity : taggedSimilarities) {
+          sims.add(taggedSimilarity.getSimilarity());
+        }
+        this.sweepSearcher = new ParameterSweepSearcher(this.reader, Constants.CONTENTS, sims);
+      } else {
+        this.sweepSearcher = null;
+      }
+      setName(outputPaths.get(0));
     }
 
     @Override
     public void run() {
       try {
         // A short descriptor of the ranking setup.
-        final String desc = String.format("ranker: %s, reranker: %s", taggedSimilarity.getTag(), cascade.getTag());
+        List<String> tags = new ArrayList<>();
+        for (TaggedSimilarity taggedSimilarity : taggedSimilarities) {
+          tags.add(taggedSimilarity.getTag());
+        }
+        final String desc = String.format("ranker: %s, reranker: %s", String.join(",", tags), cascade.getTag());
 
         // This is the number of threads that we're going to devote to running the queries in parallel.
         int parallelism = args.parallelism;
@@ -809,8 +928,11 @@ public final class SearchCollection implements Closeable {
         // ThreadPool for parallelizing the execution of individual queries:
         ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(parallelism);
         // Data structure for holding the per-query results, with the qid as the key and the results (the lines that
-        // will go into the final run file) as the value.
-        ConcurrentSkipListMap<K, String> results = new ConcurrentSkipListMap<>();
+        // will go into the final run file) as the value; one per similarity.
+        List<ConcurrentSkipListMap<K, String>> results = new ArrayList<>();
+        for (int i = 0; i < taggedSimilarities.size(); i++) {
+          results.add(new ConcurrentSkipListMap<>());
+        }
         AtomicInteger cnt = new AtomicInteger();
 
         // Initialize query encoder if specified
@@ -823,12 +945,22 @@ public final class SearchCollection implements Closeable {
           queryEncoder = null;
         }
 
+        // Per-stage latencies across all queries, if requested.
+        final LatencyStats latencyStats = args.timings ? new LatencyStats() : null;
+        // Profiles of the slowest queries, if requested.
+        final QueryProfileLog profileLog = args.profile ? new QueryProfileLog(args.profile_slowest) : null;
+        final SlowQueryLog slowQueryLog = args.query_slowlog > 0 || args.query_budget > 0 ?
+            new SlowQueryLog(args.query_slowlog) : null;
+
         final long start = System.nanoTime();
         for (Map.Entry<K, Map<String, String>> entry : topics.entrySet()) {
           K qid = entry.getKey();
 
           // This is the per-query execution, in parallel.
           executor.execute(() -> {
+            QueryTimings timings = latencyStats != null || slowQueryLog != null ? new QueryTimings() : QueryTimings.NONE;
+            QueryDeadline deadline = QueryDeadline.afterMillis(args.query_budget);
+            long queryStart = System.nanoTime();
             String queryString = "";
             if (args.topicField.contains("+")) {
               for (String field : args.topicField.split("\\+")) {
@@ -846,6 +978,7 @@ public final class SearchCollection implements Closeable {
                 throw new CompletionException(e);
               }
             }
+            timings.lap(QueryTimings.ENCODE);
 
             ScoredDocuments queryQrels = null;
             boolean hasRelDocs = false;
@@ -856,24 +989,45 @@ public final class SearchCollection implements Closeable {
                 hasRelDocs = true;
               }
             }
-            ScoredDocuments docs;
+            // Profiled queries run on a fresh searcher, which records the profiles of all queries run through it,
+            // including those of rerankers such as RM3.
+            ProfilingIndexSearcher profilingSearcher = profileLog == null ? null :
+                new ProfilingIndexSearcher(reader, taggedSimilarities.get(0).getSimilarity());
+            IndexSearcher searcher = profilingSearcher != null ? profilingSearcher : searchers.get(0);
+            List<ScoredDocuments> docs;
             try {
-              if (args.searchtweets) {
-                docs = searchTweets(this.searcher, qid, queryString,
-                    Long.parseLong(entry.getValue().get("time")), cascade, queryQrels, hasRelDocs);
+              if (sweepSearcher != null) {
+                docs = searchSweep(sweepSearcher, searchers, qid, queryString, cascade, timings);
+              } else if (args.searchtweets) {
+                docs = List.of(searchTweets(searcher, qid, queryString,
+                    Long.parseLong(entry.getValue().get("time")), cascade, queryQrels, hasRelDocs, deadline));
+                timings.lap(QueryTimings.SEARCH);
               } else if (args.backgroundlinking) {
-                docs = searchBackgroundLinking(this.searcher, qid, queryString, cascade);
+                docs = List.of(searchBackgroundLinking(searcher, qid, queryString, cascade, deadline));
+                timings.lap(QueryTimings.SEARCH);
               } else {
-                docs = search(this.searcher, qid, queryString, cascade, queryQrels, hasRelDocs);
+                docs = List.of(search(searcher, qid, queryString, cascade, queryQrels, hasRelDocs, timings, deadline));
               }
             } catch (IOException e) {
               throw new CompletionException(e);
             }
+            if (profilingSearcher != null) {
+              profileLog.record(qidString, queryString, System.nanoTime() - queryStart, profilingSearcher.getProfiles());
+            }
 
-            String runOutput = generateRunOutput(docs, qid, args.format, runTag, args.removedups, args.removeQuery,
-                args.selectMaxPassage, args.selectMaxPassage_delimiter, args.selectMaxPassage_hits);
+            for (int i = 0; i < docs.size(); i++) {
+              String runOutput = generateRunOutput(docs.get(i), qid, args.format, runTag, args.removedups,
+                  args.removeQuery, args.selectMaxPassage, args.selectMaxPassage_delimiter, args.selectMaxPassage_hits);
+              results.get(i).put(qid, runOutput);
+            }
+            timings.lap(QueryTimings.FORMAT);
+            if (latencyStats != null) {
+              latencyStats.record(timings, deadline.isPartial());
+            }
+            if (slowQueryLog != null) {
+              slowQueryLog.record(qidString, queryString, System.nanoTime() - queryStart, timings, deadline);
+            }
 
-            results.put(qid, runOutput);
             int n = cnt.incrementAndGet();
             if (n % 100 == 0) {
               LOG.info(String.format("%s: %d queries processed", desc, n));
@@ -898,59 +1052,77 @@ public final class SearchCollection implements Closeable {
             DurationFormatUtils.formatDuration(durationMillis, "HH:mm:ss") +
             String.format(" = ~%.2f q/s", topics.size() / (durationMillis / 1000.0)));
 
-        // Now we write the results to a run file.
-        PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8));
-
-        // Here's a really screwy corner case that we have to manually hack around: for MS MARCO V1, the query file is not
-        // sorted by qid, but the topic representation internally is (i.e., K is a comparable). The original query runner
-        // SearchMsmarco retained the order of the queries; however, this class does not. Thus, the run files list the
-        // results in different orders. Due to the way that the MS MARCO V1 eval scripts are written (they report MRR to
-        // an excessive number of significant digits), different orders yield slightly different metric values (due to
-        // floating point precision issues). Just to retain exactly the same output as SearchMsmarco (which was used to,
-        // for example, generate Anserini leaderboard runs), we add an ugly hack here to dump the results in the order
-        // of the qids in the query files.
-        boolean isMSMARCOv1_passage = topics.firstKey().equals(2) &&
-            topics.get(2).get("title").equals("Androgen receptor define") &&
-            topics.keySet().size() == 6980;
-        boolean isMAMARCOv1_doc = topics.firstKey().equals(2) &&
-            topics.get(2).get("title").equals("androgen receptor define") &&
-            topics.keySet().size() == 5193;
-
-        if (isMSMARCOv1_passage || isMAMARCOv1_doc) {
-          String raw = "";
-          try {
-            InputStream inputStream = null;
-            if (isMSMARCOv1_passage) {
-              inputStream = Files.newInputStream(TopicReader.getTopicPath(Path.of(Topics.MSMARCO_PASSAGE_DEV_SUBSET.path)), StandardOpenOption.READ);
-            } else {
-              inputStream = Files.newInputStream(TopicReader.getTopicPath(Path.of(Topics.MSMARCO_DOC_DEV.path)), StandardOpenOption.READ);
-            }
-
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            String line;
-            while ((line = reader.readLine()) != null) {
-              line = line.trim();
-              String[] arr = line.split("\\t");
-              out.print(results.get(Integer.parseInt(arr[0])));
-            }
+        // Now we write the results to run files, one per similarity.
+        for (int i = 0; i < outputPaths.size(); i++) {
+          writeRun(outputPaths.get(i), results.get(i));
+        }
 
-            inputStream.close();
-          } catch (IOException e) {
-            e.printStackTrace();
-          }
-        } else {
-          // This is the default case: just dump out the qids by their natural order.
-          for (K qid : results.keySet()) {
-            out.print(results.get(qid));
+        if (latencyStats != null) {
+          LOG.info(desc + ": " + latencyStats.summary());
+          // A sweep searches once for all its runs, so its latencies aren't those of any one run.
+          String timingsPath = sweepSearcher != null ?
+              String.format("%s_sweep_%s", args.output, cascade.getTag()) : outputPaths.get(0);
+          latencyStats.writeJson(Paths.get(timingsPath + ".timings.json"));
+        }
+        if (profileLog != null) {
+          for (String outputPath : outputPaths) {
+            profileLog.writeJson(Paths.get(outputPath + ".profile.json"));
           }
         }
-        out.flush();
-        out.close();
-
       } catch (Exception e) {
         LOG.error(Thread.currentThread().getName() + ": Unexpected Exception: ", e);
       }
     }
+
+    private void writeRun(String outputPath, ConcurrentSkipListMap<K, String> results) throws IOException {
+      PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8));
+
+      // Here's a really screwy corner case that we have to manually hack around: for MS MARCO V1, the query file is not
+      // sorted by qid, but the topic representation internally is (i.e., K is a comparable). The original query runner
+      // SearchMsmarco retained the order of the queries; however, this class does not. Thus, the run files list the
+      // results in different orders. Due to the way that the MS MARCO V1 eval scripts are written (they report MRR to
+      // an excessive number of significant digits), different orders yield slightly different metric values (due to
+      // floating point precision issues). Just to retain exactly the same output as SearchMsmarco (which was used to,
+      // for example, generate Anserini leaderboard runs), we add an ugly hack here to dump the results in the order
+      // of the qids in the query files.
+      boolean isMSMARCOv1_passage = topics.firstKey().equals(2) &&
+          topics.get(2).get("title").equals("Androgen receptor define") &&
+          topics.keySet().size() == 6980;
+      boolean isMAMARCOv1_doc = topics.firstKey().equals(2) &&
+          topics.get(2).get("title").equals("androgen receptor define") &&
+          topics.keySet().size() == 5193;
+
+      if (isMSMARCOv1_passage || isMAMARCOv1_doc) {
+        String raw = "";
+        try {
+          InputStream inputStream = null;
+          if (isMSMARCOv1_passage) {
+            inputStream = Files.newInputStream(TopicReader.getTopicPath(Path.of(Topics.MSMARCO_PASSAGE_DEV_SUBSET.path)), StandardOpenOption.READ);
+          } else {
+            inputStream = Files.newInputStream(TopicReader.getTopicPath(Path.of(Topics.MSMARCO_DOC_DEV.path)), StandardOpenOption.READ);
+          }
+
+          BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+          String line;
+          while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            String[] arr = line.split("\\t");
+            out.print(results.get(Integer.parseInt(arr[0])));
+          }
+
+          inputStream.close();
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      } else {
+        // This is the default case: just dump out the qids by their natural order.
+        for (K qid : results.keySet()) {
+          out.print(results.get(qid));
+        }
+      }
+      out.flush();
+      out.close();
+    }
   }
 
   public SearchCollection(Args args) throws IOException {
@@ -965,6 +1137,7 @@ public final class SearchCollection implements Closeable {
     LOG.info("Index: " + indexPath);
     this.reader = args.inmem ? DirectoryReader.open(MMapDirectory.open(indexPath)) :
         DirectoryReader.open(FSDirectory.open(indexPath));
+    this.impactQueryProcessor = args.impact_pruning ? new ImpactQueryProcessor(reader, Constants.CONTENTS) : null;
 
     LOG.info("Fields: " + Arrays.toString(args.fields));
     if (args.fields.length != 0) {
@@ -1013,7 +1186,16 @@ public final class SearchCollection implements Closeable {
 
   @Override
   public void close() throws IOException {
-    reader.close();
+    try {
+      // Rerankers may hold native resources, e.g., the ONNX session of the cross-encoder.
+      if (cascades != null) {
+        for (RerankerCascade cascade : cascades) {
+          cascade.close();
+        }
+      }
+    } finally {
+      reader.close();
+    }
   }
 
   private List<TaggedSimilarity> constructSimilarities() {
@@ -1175,6 +1357,33 @@ public final class SearchCollection implements Closeable {
           }
         }
       }
+    } else if (args.ltr_model != null) {
+      TreeEnsemble model = TreeEnsemble.fromLightGbm(Paths.get(args.ltr_model));
+      String tag = String.format("ltr(model=%s,depth=%d)", Paths.get(args.ltr_model).getFileName(), args.ltr_depth);
+
+      RerankerCascade cascade = new RerankerCascade(tag);
+      cascade.add(new LtrReranker(model, FeatureExtractorCli.defaultFeatures("analyzed", Constants.CONTENTS),
+          "analyzed", args.ltr_depth));
+      cascade.add(new ScoreTiesAdjusterReranker());
+      cascades.add(cascade);
+    } else if (args.crossEncoder_model != null) {
+      // Queries already run -parallelism at a time, so by default we split the cores among them rather than letting
+      // each inference call grab all of them.
+      int threads = args.crossEncoder_threads > 0 ? args.crossEncoder_threads :
+          Math.max(1, Runtime.getRuntime().availableProcessors() / args.parallelism);
+      String tag = String.format("crossEncoder(model=%s,depth=%d)",
+          Paths.get(args.crossEncoder_model).getFileName(), args.crossEncoder_depth);
+
+      RerankerCascade cascade = new RerankerCascade(tag);
+      try {
+        cascade.add(new CrossEncoderReranker(Paths.get(args.crossEncoder_model), Paths.get(args.crossEncoder_vocab),
+            !args.crossEncoder_cased, args.crossEncoder_field, args.crossEncoder_depth, args.crossEncoder_batchSize,
+            args.crossEncoder_maxLength, threads));
+      } catch (OrtException e) {
+        throw new IOException("Unable to load cross-encoder model: " + args.crossEncoder_model, e);
+      }
+      cascade.add(new ScoreTiesAdjusterReranker());
+      cascades.add(cascade);
     } else {
       RerankerCascade cascade = new RerankerCascade();
       cascade.add(new ScoreTiesAdjusterReranker());
@@ -1246,21 +1455,42 @@ public final class SearchCollection implements Closeable {
 
     LOG.info("============ Launching Search Threads ============");
 
-    for (TaggedSimilarity taggedSimilarity : similarities) {
+    if (canSweep()) {
+      LOG.info(String.format("Sweeping %d parameter settings in a single pass", similarities.size()));
       for (RerankerCascade cascade : cascades) {
-        final String outputPath;
-
-        if (similarities.size() == 1 && cascades.size() == 1) {
-          outputPath = args.output;
-        } else {
-          outputPath = String.format("%s_%s_%s", args.output, taggedSimilarity.getTag(), cascade.getTag());
+        List<TaggedSimilarity> sweepSimilarities = new ArrayList<>();
+        List<String> outputPaths = new ArrayList<>();
+        for (TaggedSimilarity taggedSimilarity : similarities) {
+          String outputPath = String.format("%s_%s_%s", args.output, taggedSimilarity.getTag(), cascade.getTag());
+          if (args.skipexists && new File(outputPath).exists()) {
+            LOG.info("Run already exists, skipping: " + outputPath);
+            continue;
+          }
+          sweepSimilarities.add(taggedSimilarity);
+          outputPaths.add(outputPath);
+        }
+        if (!sweepSimilarities.isEmpty()) {
+          executor.execute(new SearcherThread<>(reader, topics, sweepSimilarities, cascade, this.qrels, outputPaths,
+              runTag));
         }
+      }
+    } else {
+      for (TaggedSimilarity taggedSimilarity : similarities) {
+        for (RerankerCascade cascade : cascades) {
+          final String outputPath;
+
+          if (similarities.size() == 1 && cascades.size() == 1) {
+            outputPath = args.output;
+          } else {
+            outputPath = String.format("%s_%s_%s", args.output, taggedSimilarity.getTag(), cascade.getTag());
+          }
 
-        if (args.skipexists && new File(outputPath).exists()) {
-          LOG.info("Run already exists, skipping: " + outputPath);
-          continue;
+          if (args.skipexists && new File(outputPath).exists()) {
+            LOG.info("Run already exists, skipping: " + outputPath);
+            continue;
+          }
+          executor.execute(new SearcherThread<>(reader, topics, taggedSimilarity, cascade, this.qrels, outputPath, runTag));
         }
-        executor.execute(new SearcherThread<>(reader, topics, taggedSimilarity, cascade, this.qrels, outputPath, runTag));
       }
     }
     executor.shutdown();
@@ -1277,8 +1507,61 @@ public final class SearchCollection implements Closeable {
     }
   }
 
+  // Single-pass sweeps only cover plain bag-of-words queries against the contents field, with exhaustive first-stage
+  // results (no query budget or impact pruning) that don't depend on relevance judgments; everything else falls back
+  // to searching once per similarity.
+  private boolean canSweep() {
+    if (!args.bm25_sweep || similarities.size() < 2) {
+      return false;
+    }
+    if (args.sdm || args.fields.length != 0 || !"BagOfWordsQueryGenerator".equals(args.queryGenerator) ||
+        args.searchtweets || args.backgroundlinking || args.rf_qrels != null || args.arbitraryScoreTieBreak ||
+        args.profile || args.query_budget > 0 || args.impact_pruning || (isRerank && args.rerankcutoff <= 0)) {
+      LOG.warn("-bm25.sweep is not supported with these options; searching once per parameter setting.");
+      return false;
+    }
+    return true;
+  }
+
+  // Searches with all similarities in a single pass, and then applies the reranker cascade to each ranking with the
+  // searcher of the corresponding similarity.
+  private <K> List<ScoredDocuments> searchSweep(ParameterSweepSearcher sweepSearcher, List<IndexSearcher> searchers,
+                                                K qid, String queryString, RerankerCascade cascade,
+                                                QueryTimings timings) throws IOException {
+    List<String> queryTokens = AnalyzerUtils.analyze(analyzer, queryString);
+    Map<String, Integer> weights = new HashMap<>();
+    for (String token : queryTokens) {
+      weights.merge(token, 1, Integer::sum);
+    }
+    Query query = new BagOfWordsQueryGenerator().buildQuery(Constants.CONTENTS, analyzer, queryString);
+    timings.lap(QueryTimings.QUERY);
+
+    TopDocs[] rs = sweepSearcher.search(weights, isRerank ? args.rerankcutoff : args.hits);
+    timings.lap(QueryTimings.SEARCH);
+
+    List<ScoredDocuments> results = new ArrayList<>();
+    for (int i = 0; i < rs.length; i++) {
+      IndexSearcher searcher = searchers.get(i);
+      RerankerContext context = new RerankerContext<>(searcher, qid, query, null, queryString, queryTokens, null, args);
+      ScoredDocuments docs = ScoredDocuments.fromTopDocs(rs[i], searcher);
+      timings.lap(QueryTimings.MATERIALIZE);
+      results.add(cascade.run(docs, context, timings));
+    }
+    return results;
+  }
+
   public <K> ScoredDocuments search(IndexSearcher searcher, K qid, String queryString, RerankerCascade cascade, ScoredDocuments queryQrels,
                                     boolean hasRelDocs) throws IOException {
+    return search(searcher, qid, queryString, cascade, queryQrels, hasRelDocs, QueryTimings.NONE);
+  }
+
+  public <K> ScoredDocuments search(IndexSearcher searcher, K qid, String queryString, RerankerCascade cascade, ScoredDocuments queryQrels,
+                                    boolean hasRelDocs, QueryTimings timings) throws IOException {
+    return search(searcher, qid, queryString, cascade, queryQrels, hasRelDocs, timings, QueryDeadline.NONE);
+  }
+
+  public <K> ScoredDocuments search(IndexSearcher searcher, K qid, String queryString, RerankerCascade cascade, ScoredDocuments queryQrels,
+                                    boolean hasRelDocs, QueryTimings timings, QueryDeadline deadline) throws IOException {
     Query query;
 
     if (args.sdm) {
@@ -1299,17 +1582,29 @@ public final class SearchCollection implements Closeable {
           generator.buildQuery(args.fieldsMap, analyzer, queryString);
     }
 
+    List<String> queryTokens = AnalyzerUtils.analyze(analyzer, queryString);
+    timings.lap(QueryTimings.QUERY);
+
     TopDocs rs = new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[]{});
     if (!isRerank || (args.rerankcutoff > 0 && args.rf_qrels == null) || (args.rf_qrels != null && !hasRelDocs)) {
-      if (args.arbitraryScoreTieBreak) {// Figure out how to break the scoring ties.
-        rs = searcher.search(query, (isRerank && args.rf_qrels == null) ? args.rerankcutoff : args.hits);
+      int k = (isRerank && args.rf_qrels == null) ? args.rerankcutoff : args.hits;
+      if (args.impact_pruning && !args.sdm && args.fields.length == 0) {
+        // Impact queries are bags of (repeated) terms, so the query processor works from the analyzed token counts.
+        Map<String, Integer> weights = new HashMap<>();
+        for (String token : queryTokens) {
+          weights.merge(token, 1, Integer::sum);
+        }
+        rs = impactQueryProcessor.search(weights, k, args.impact_budget, !args.arbitraryScoreTieBreak, deadline);
+      } else if (args.arbitraryScoreTieBreak) {// Figure out how to break the scoring ties.
+        rs = deadline.search(QueryTimings.SEARCH, searcher, s -> s.search(query, k));
       } else {
-        rs = searcher.search(query, (isRerank && args.rf_qrels == null) ? args.rerankcutoff : args.hits, BREAK_SCORE_TIES_BY_DOCID, true);
+        rs = deadline.search(QueryTimings.SEARCH, searcher, query, k);
       }
     }
+    timings.lap(QueryTimings.SEARCH);
 
-    List<String> queryTokens = AnalyzerUtils.analyze(analyzer, queryString);
     RerankerContext context = new RerankerContext<>(searcher, qid, query, null, queryString, queryTokens, null, args);
+    context.setDeadline(deadline);
     ScoredDocuments scoredFbDocs;
     if (isRerank && args.rf_qrels != null) {
       if (hasRelDocs) {
@@ -1323,12 +1618,19 @@ public final class SearchCollection implements Closeable {
     } else {
       scoredFbDocs = ScoredDocuments.fromTopDocs(rs, searcher);
     }
+    timings.lap(QueryTimings.MATERIALIZE);
 
-    return cascade.run(scoredFbDocs, context);
+    return cascade.run(scoredFbDocs, context, timings);
   }
 
   public <K> ScoredDocuments searchBackgroundLinking(IndexSearcher searcher, K qid, String docid,
                                                      RerankerCascade cascade) throws IOException {
+    return searchBackgroundLinking(searcher, qid, docid, cascade, QueryDeadline.NONE);
+  }
+
+  public <K> ScoredDocuments searchBackgroundLinking(IndexSearcher searcher, K qid, String docid,
+                                                     RerankerCascade cascade, QueryDeadline deadline)
+      throws IOException {
     // Extract a list of analyzed terms from the document to compose a query.
     List<String> terms = BackgroundLinkingTopicReader.extractTerms(reader, docid, args.backgroundlinking_k, analyzer);
     // Since the terms are already analyzed, we just join them together and use the StandardQueryParser.
@@ -1351,15 +1653,16 @@ public final class SearchCollection implements Closeable {
 
     // Search using constructed query.
     TopDocs rs;
+    int k = (isRerank && args.rf_qrels == null) ? args.rerankcutoff : args.hits;
     if (args.arbitraryScoreTieBreak) {
-      rs = searcher.search(query, (isRerank && args.rf_qrels == null) ? args.rerankcutoff : args.hits);
+      rs = deadline.search(QueryTimings.SEARCH, searcher, s -> s.search(query, k));
     } else {
-      rs = searcher.search(query, (isRerank && args.rf_qrels == null) ? args.rerankcutoff :
-          args.hits, BREAK_SCORE_TIES_BY_DOCID, true);
+      rs = deadline.search(QueryTimings.SEARCH, searcher, query, k);
     }
 
     RerankerContext context = new RerankerContext<>(searcher, qid, query, docid,
         StringUtils.join(", ", terms), terms, null, args);
+    context.setDeadline(deadline);
 
     // Run the existing cascade.
     ScoredDocuments docs = cascade.run(ScoredDocuments.fromTopDocs(rs, searcher), context);
@@ -1370,6 +1673,12 @@ public final class SearchCollection implements Closeable {
 
   public <K> ScoredDocuments searchTweets(IndexSearcher searcher, K qid, String queryString, long t, RerankerCascade cascade,
                                           ScoredDocuments queryQrels, boolean hasRelDocs) throws IOException {
+    return searchTweets(searcher, qid, queryString, t, cascade, queryQrels, hasRelDocs, QueryDeadline.NONE);
+  }
+
+  public <K> ScoredDocuments searchTweets(IndexSearcher searcher, K qid, String queryString, long t, RerankerCascade cascade,
+                                          ScoredDocuments queryQrels, boolean hasRelDocs, QueryDeadline deadline)
+      throws IOException {
     Query keywordQuery;
     if (args.sdm) {
       keywordQuery = new SdmQueryGenerator(args.sdm_tw, args.sdm_ow, args.sdm_uw).buildQuery(Constants.CONTENTS, analyzer, queryString);
@@ -1397,15 +1706,17 @@ public final class SearchCollection implements Closeable {
 
     TopDocs rs = new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[]{});
     if (!isRerank || (args.rerankcutoff > 0 && args.rf_qrels == null) || (args.rf_qrels != null && !hasRelDocs)) {
+      int k = (isRerank && args.rf_qrels == null) ? args.rerankcutoff : args.hits;
       if (args.arbitraryScoreTieBreak) {// Figure out how to break the scoring ties.
-        rs = searcher.search(compositeQuery, (isRerank && args.rf_qrels == null) ? args.rerankcutoff : args.hits);
+        rs = deadline.search(QueryTimings.SEARCH, searcher, s -> s.search(compositeQuery, k));
       } else {
-        rs = searcher.search(compositeQuery, (isRerank && args.rf_qrels == null) ? args.rerankcutoff : args.hits,
-            BREAK_SCORE_TIES_BY_TWEETID, true);
+        rs = deadline.search(QueryTimings.SEARCH, searcher,
+            s -> s.search(compositeQuery, k, BREAK_SCORE_TIES_BY_TWEETID, true));
       }
     }
 
     RerankerContext context = new RerankerContext<>(searcher, qid, keywordQuery, null, queryString, queryTokens, filter, args);
+    context.setDeadline(deadline);
     ScoredDocuments scoredFbDocs;
     if (isRerank && args.rf_qrels != null) {
       if (hasRelDocs) {
@@ -305,14 +305,14 @@ public final class SearchHnswDenseVectors<K> implements Runnable, Closeable {
 
   private ScoredDocuments search(IndexSearcher searcher, float[] queryFloat) throws IOException {
     KnnFloatVectorQuery query = new KnnFloatVectorQuery(Constants.VECTOR, queryFloat, args.efSearch);
-    TopDocs rs = searcher.search(query, args.hits, BREAK_SCORE_TIES_BY_DOCID, true);
+    TopDocs rs = TieBreakingTopDocsCollector.search(searcher, query, args.hits);
 
     return ScoredDocuments.fromTopDocs(rs, searcher);
   }
 
   private ScoredDocuments search(IndexSearcher searcher, String queryString) throws IOException {
     KnnFloatVectorQuery query = generator.buildQuery(Constants.VECTOR, queryString, args.efSearch);
-    TopDocs rs = searcher.search(query, args.hits, BREAK_SCORE_TIES_BY_DOCID, true);
+    TopDocs rs = TieBreakingTopDocsCollector.search(searcher, query, args.hits);
 
     return ScoredDocuments.fromTopDocs(rs, searcher);
   }
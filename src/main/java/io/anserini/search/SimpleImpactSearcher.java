@@ -20,6 +20,7 @@ import ai.onnxruntime.OrtException;
 import io.anserini.analysis.AnalyzerUtils;
 import io.anserini.encoder.sparse.SparseEncoder;
 import io.anserini.index.Constants;
+import io.anserini.index.DocStore;
 import io.anserini.index.IndexReaderUtils;
 import io.anserini.rerank.RerankerCascade;
 import io.anserini.rerank.RerankerContext;
@@ -28,6 +29,7 @@ import io.anserini.rerank.lib.Rm3Reranker;
 import io.anserini.rerank.lib.RocchioReranker;
 import io.anserini.rerank.lib.ScoreTiesAdjusterReranker;
 import io.anserini.search.query.BagOfWordsQueryGenerator;
+import io.anserini.search.query.WeightedTermQueryGenerator;
 import io.anserini.search.similarity.ImpactSimilarity;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -39,8 +41,6 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.Sort;
-import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.store.FSDirectory;
@@ -54,11 +54,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletionException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 
@@ -67,16 +63,23 @@ import java.util.stream.Collectors;
  * via pyjnius. Note that methods are named according to Python conventions (e.g., snake case instead of camel case).
  */
 public class SimpleImpactSearcher implements Closeable {
-  private static final Sort BREAK_SCORE_TIES_BY_DOCID =
-      new Sort(SortField.FIELD_SCORE, new SortField(Constants.ID, SortField.Type.STRING_VAL));
   private static final Logger LOG = LogManager.getLogger(SimpleImpactSearcher.class);
 
   protected IndexReader reader;
   protected Similarity similarity;
   protected BagOfWordsQueryGenerator generator;
+  protected WeightedTermQueryGenerator weightedGenerator;
+  protected ImpactQueryProcessor queryProcessor = null;
+  protected long pruningBudget = 0;
   protected Analyzer analyzer;
   protected RerankerCascade cascade;
   protected IndexSearcher searcher = null;
+  protected IntraQueryParallelism intraQueryParallelism = null;
+  protected IndexSearcher parallelSearcher = null;
+  protected final BatchExecutor batchExecutor = new BatchExecutor("anserini-batch");
+
+  // Set on the threads of batch_search, whose queries already run in parallel with each other.
+  private static final ThreadLocal<Boolean> IN_BATCH = ThreadLocal.withInitial(() -> false);
   protected boolean backwardsCompatibilityLucene8;
   private SparseEncoder queryEncoder = null;
   protected boolean useRM3;
@@ -167,6 +170,7 @@ public class SimpleImpactSearcher implements Closeable {
     this.similarity = new ImpactSimilarity();
     this.analyzer = analyzer;
     this.generator = new BagOfWordsQueryGenerator();
+    this.weightedGenerator = new WeightedTermQueryGenerator();
     this.useRM3 = false;
     this.useRocchio = false;
     cascade = new RerankerCascade();
@@ -212,6 +216,50 @@ public class SimpleImpactSearcher implements Closeable {
     return this.analyzer;
   }
 
+  /**
+   * Enables query-side pruning: only the highest-weighted terms of each encoded query are searched.
+   *
+   * @param maxTerms number of highest-weighted terms to keep; zero or negative to keep all
+   * @param minWeight terms with weight less than or equal to this value are dropped
+   */
+  public void set_query_pruning(int maxTerms, float minWeight) {
+    this.weightedGenerator = new WeightedTermQueryGenerator(maxTerms, minWeight);
+  }
+
+  /**
+   * Disables query-side pruning.
+   */
+  public void unset_query_pruning() {
+    this.weightedGenerator = new WeightedTermQueryGenerator();
+  }
+
+  /**
+   * Enables exact dynamic pruning: encoded queries are evaluated with block-max MaxScore by
+   * {@link ImpactQueryProcessor} rather than by Lucene's generic disjunction.
+   */
+  public void set_dynamic_pruning() {
+    set_dynamic_pruning(0);
+  }
+
+  /**
+   * Enables dynamic pruning with {@link ImpactQueryProcessor}.
+   *
+   * @param budget maximum number of postings to evaluate per query, trading effectiveness for bounded latency; zero
+   *               or negative for exact retrieval
+   */
+  public void set_dynamic_pruning(long budget) {
+    this.queryProcessor = new ImpactQueryProcessor(reader, Constants.CONTENTS);
+    this.pruningBudget = budget;
+  }
+
+  /**
+   * Disables dynamic pruning.
+   */
+  public void unset_dynamic_pruning() {
+    this.queryProcessor = null;
+    this.pruningBudget = 0;
+  }
+
   /**
    * Determines if RM3 query expansion is enabled.
    *
@@ -398,17 +446,41 @@ public class SimpleImpactSearcher implements Closeable {
   }
 
   /**
-   * helper function to change Map<String, Int> to Map<String, Float>
+   * Searches the segments of the index in parallel within each query, using Lucene's default slice policy. Only
+   * single queries are parallelized: batch queries are not, so as not to oversubscribe the cores.
    *
-   * @param input map to be transformed
-   * @return transformed map
+   * @param threads number of threads searching slices of segments
    */
-  private Map<String, Float> intToFloat(Map<String,Integer> input) {
-    Map<String, Float> transformed = new HashMap<>();
-    for (Map.Entry<String, Integer> entry : input.entrySet()) {
-      transformed.put(entry.getKey(), entry.getValue().floatValue()); 
+  public void set_intra_query_parallelism(int threads) {
+    set_intra_query_parallelism(threads, IntraQueryParallelism.DEFAULT_MAX_DOCS_PER_SLICE,
+        IntraQueryParallelism.DEFAULT_MAX_SEGMENTS_PER_SLICE);
+  }
+
+  /**
+   * Searches the segments of the index in parallel within each query (see {@link IntraQueryParallelism}). Only
+   * single queries are parallelized: batch queries are not, so as not to oversubscribe the cores. Queries run with
+   * dynamic pruning (see {@link #set_dynamic_pruning()}) are not parallelized either.
+   *
+   * @param threads number of threads searching slices of segments
+   * @param maxDocsPerSlice maximum number of documents per slice
+   * @param maxSegmentsPerSlice maximum number of segments per slice
+   */
+  public void set_intra_query_parallelism(int threads, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+    unset_intra_query_parallelism();
+    intraQueryParallelism = new IntraQueryParallelism(threads, maxDocsPerSlice, maxSegmentsPerSlice);
+    parallelSearcher = intraQueryParallelism.newSearcher(reader, similarity);
+  }
+
+  /**
+   * Stops searching segments in parallel within each query.
+   */
+  public void unset_intra_query_parallelism() {
+    IntraQueryParallelism parallelism = intraQueryParallelism;
+    intraQueryParallelism = null;
+    parallelSearcher = null;
+    if (parallelism != null) {
+      parallelism.close();
     }
-    return transformed;
   }
 
   /**
@@ -416,6 +488,8 @@ public class SimpleImpactSearcher implements Closeable {
    */
   @Override
   public void close() throws IOException {
+    unset_intra_query_parallelism();
+    batchExecutor.close();
     try {
       reader.close();
     } catch (Exception e) {
@@ -436,6 +510,39 @@ public class SimpleImpactSearcher implements Closeable {
                                             List<String> qids,
                                             int k,
                                             int threads) {
+    Result[][] hits = batch_search_array(encoded_queries, k, threads);
+
+    Map<String, Result[]> results = new HashMap<>();
+    for (int q = 0; q < hits.length; q++) {
+      results.put(qids.get(q), hits[q]);
+    }
+    return results;
+  }
+
+  /**
+   * Searches in batch using multiple threads.
+   *
+   * @param encoded_queries list of queries
+   * @param k       number of hits
+   * @param threads number of threads
+   * @return search results, in the order of the queries
+   */
+  public Result[][] batch_search_array(List<Map<String, Integer>> encoded_queries, int k, int threads) {
+    return batch_search_array(encoded_queries, k, threads, new BatchExecutor.Handle());
+  }
+
+  /**
+   * Searches in batch using multiple threads. Queries run on a thread pool owned by this searcher, which is kept
+   * across batches; the batch can be cancelled from another thread through its handle.
+   *
+   * @param encoded_queries list of queries
+   * @param k       number of hits
+   * @param threads number of threads
+   * @param handle  handle to cancel the batch
+   * @return search results, in the order of the queries
+   */
+  public Result[][] batch_search_array(List<Map<String, Integer>> encoded_queries, int k, int threads,
+                                       BatchExecutor.Handle handle) {
     // Create the IndexSearcher here, if needed. We do it here because if we leave the creation to the search
     // method, we might end up with a race condition as multiple threads try to concurrently create the IndexSearcher.
     if (searcher == null) {
@@ -443,44 +550,10 @@ public class SimpleImpactSearcher implements Closeable {
       searcher.setSimilarity(similarity);
     }
 
-    ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(threads);
-    ConcurrentHashMap<String, Result[]> results = new ConcurrentHashMap<>();
-
-    int queryCnt = encoded_queries.size();
-    for (int q = 0; q < queryCnt; ++q) {
-      Map<String, Integer> query = encoded_queries.get(q);
-      String qid = qids.get(q);
-      executor.execute(() -> {
-        try {
-          results.put(qid, search(query, k));
-        } catch (IOException e) {
-          throw new CompletionException(e);
-        } catch (OrtException e) {
-          throw new CompletionException(e);
-        }
-      });
-    }
-
-    executor.shutdown();
-
-    try {
-      // Wait for existing tasks to terminate
-      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
-        // Opportunity to perform status logging, but no-op here because logging interferes with Python tqdm
-      }
-    } catch (InterruptedException ie) {
-      // (Re-)Cancel if current thread also interrupted
-      executor.shutdownNow();
-      // Preserve interrupt status
-      Thread.currentThread().interrupt();
-    }
-
-    if (queryCnt != executor.getCompletedTaskCount()) {
-      throw new RuntimeException("queryCount = " + queryCnt +
-          " is not equal to completedTaskCount =  " + executor.getCompletedTaskCount());
-    }
-
-    return results;
+    return batchExecutor.map(encoded_queries, threads, query -> {
+      IN_BATCH.set(true);
+      return search(query, k);
+    }, Result[][]::new, handle);
   }
 
   /**
@@ -496,6 +569,38 @@ public class SimpleImpactSearcher implements Closeable {
                                             List<String> qids,
                                             int k,
                                             int threads) {
+    Result[][] hits = batch_search_queries_array(queries, k, threads);
+
+    Map<String, Result[]> results = new HashMap<>();
+    for (int q = 0; q < hits.length; q++) {
+      results.put(qids.get(q), hits[q]);
+    }
+    return results;
+  }
+
+  /**
+   * Searches in batch using multiple threads.
+   *
+   * @param queries list of String queries
+   * @param k       number of hits
+   * @param threads number of threads
+   * @return search results, in the order of the queries
+   */
+  public Result[][] batch_search_queries_array(List<String> queries, int k, int threads) {
+    return batch_search_queries_array(queries, k, threads, new BatchExecutor.Handle());
+  }
+
+  /**
+   * Searches in batch using multiple threads. Queries run on a thread pool owned by this searcher, which is kept
+   * across batches; the batch can be cancelled from another thread through its handle.
+   *
+   * @param queries list of String queries
+   * @param k       number of hits
+   * @param threads number of threads
+   * @param handle  handle to cancel the batch
+   * @return search results, in the order of the queries
+   */
+  public Result[][] batch_search_queries_array(List<String> queries, int k, int threads, BatchExecutor.Handle handle) {
     // Create the IndexSearcher here, if needed. We do it here because if we leave the creation to the search
     // method, we might end up with a race condition as multiple threads try to concurrently create the IndexSearcher.
     if (searcher == null) {
@@ -503,44 +608,81 @@ public class SimpleImpactSearcher implements Closeable {
       searcher.setSimilarity(similarity);
     }
 
-    ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(threads);
-    ConcurrentHashMap<String, Result[]> results = new ConcurrentHashMap<>();
-
-    int queryCnt = queries.size();
-    for (int q = 0; q < queryCnt; ++q) {
-      String query = queries.get(q);
-      String qid = qids.get(q);
-      executor.execute(() -> {
-        try {
-          results.put(qid, search(query, k));
-        } catch (IOException e) {
-          throw new CompletionException(e);
-        } catch (OrtException e) {
-          throw new CompletionException(e);
-        }
-      });
-    }
+    return batchExecutor.map(queries, threads, query -> {
+      IN_BATCH.set(true);
+      return search(query, k);
+    }, Result[][]::new, handle);
+  }
 
-    executor.shutdown();
+  /**
+   * Searches in batch using multiple threads, returning the results as flat arrays; see {@link ColumnarResults}. Only
+   * the docids of the hits are read from the index; the text of the hits can be fetched afterwards with
+   * {@link #doc_raw_array(int[])} or {@link #doc_contents_array(int[])}.
+   *
+   * @param encoded_queries list of queries
+   * @param k       number of hits
+   * @param threads number of threads
+   * @return search results
+   */
+  public ColumnarResults batch_search_columnar(List<Map<String, Integer>> encoded_queries, int k, int threads) {
+    return batch_search_columnar(encoded_queries, k, threads, new BatchExecutor.Handle());
+  }
 
-    try {
-      // Wait for existing tasks to terminate
-      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
-        // Opportunity to perform status logging, but no-op here because logging interferes with Python tqdm
-      }
-    } catch (InterruptedException ie) {
-      // (Re-)Cancel if current thread also interrupted
-      executor.shutdownNow();
-      // Preserve interrupt status
-      Thread.currentThread().interrupt();
+  /**
+   * Searches in batch using multiple threads, returning the results as flat arrays, with a handle to cancel the batch.
+   *
+   * @param encoded_queries list of queries
+   * @param k       number of hits
+   * @param threads number of threads
+   * @param handle  handle to cancel the batch
+   * @return search results
+   */
+  public ColumnarResults batch_search_columnar(List<Map<String, Integer>> encoded_queries, int k, int threads,
+                                               BatchExecutor.Handle handle) {
+    if (searcher == null) {
+      searcher = new IndexSearcher(reader);
+      searcher.setSimilarity(similarity);
     }
 
-    if (queryCnt != executor.getCompletedTaskCount()) {
-      throw new RuntimeException("queryCount = " + queryCnt +
-          " is not equal to completedTaskCount =  " + executor.getCompletedTaskCount());
+    return ColumnarResults.of(batchExecutor.map(encoded_queries, threads, query -> {
+      IN_BATCH.set(true);
+      return _search_hits(query, k, ColumnarResults.FIELDS);
+    }, ScoredDocuments[]::new, handle));
+  }
+
+  /**
+   * Searches in batch using multiple threads, returning the results as flat arrays; see {@link ColumnarResults} and
+   * {@link #batch_search_columnar(List, int, int)}.
+   *
+   * @param queries list of String queries
+   * @param k       number of hits
+   * @param threads number of threads
+   * @return search results
+   */
+  public ColumnarResults batch_search_queries_columnar(List<String> queries, int k, int threads) {
+    return batch_search_queries_columnar(queries, k, threads, new BatchExecutor.Handle());
+  }
+
+  /**
+   * Searches in batch using multiple threads, returning the results as flat arrays, with a handle to cancel the batch.
+   *
+   * @param queries list of String queries
+   * @param k       number of hits
+   * @param threads number of threads
+   * @param handle  handle to cancel the batch
+   * @return search results
+   */
+  public ColumnarResults batch_search_queries_columnar(List<String> queries, int k, int threads,
+                                                       BatchExecutor.Handle handle) {
+    if (searcher == null) {
+      searcher = new IndexSearcher(reader);
+      searcher.setSimilarity(similarity);
     }
 
-    return results;
+    return ColumnarResults.of(batchExecutor.map(queries, threads, query -> {
+      IN_BATCH.set(true);
+      return _search_hits(encode_with_onnx(query), k, ColumnarResults.FIELDS);
+    }, ScoredDocuments[]::new, handle));
   }
 
   /**
@@ -620,10 +762,20 @@ public class SimpleImpactSearcher implements Closeable {
    * @throws OrtException if error encountered during search
    */
   public Result[] search(Map<String, Integer> encoded_q, int k) throws IOException, OrtException {
-    Map<String, Float> float_encoded_q = intToFloat(encoded_q);
-    Query query = generator.buildQuery(Constants.CONTENTS, float_encoded_q);
-    String encodedQuery = encode_with_onnx(encoded_q);
-    return _search(query, encodedQuery, k);
+    return _search(encoded_q, k);
+  }
+
+  /**
+   * Searches the collection with real-valued term weights.
+   *
+   * @param weights map of term to weight
+   * @param k number of hits
+   * @return array of search results
+   * @throws IOException if error encountered during search
+   * @throws OrtException if error encountered during search
+   */
+  public Result[] search_weighted(Map<String, Float> weights, int k) throws IOException, OrtException {
+    return _search(weights, k);
   }
 
   /**
@@ -638,38 +790,80 @@ public class SimpleImpactSearcher implements Closeable {
   public Result[] search(String q, int k) throws IOException, OrtException {
     // make encoded query from raw query
     Map<String, Integer> encoded_q = encode_with_onnx(q);
-    String encodedQuery = encode_with_onnx(encoded_q);
-    Query query = generator.buildQuery(Constants.CONTENTS, analyzer, encodedQuery);
-    return _search(query, encodedQuery, k);
+    return _search(encoded_q, k);
+  }
+
+  // Builds the query straight from the term weights, rather than expanding them into a string that repeats each term
+  // by its weight and analyzing that string again.
+  protected Result[] _search(Map<String, ? extends Number> weights, int k) throws IOException, OrtException {
+    return toResults(_search_hits(weights, k, null));
+  }
+
+  // As above, loading the given stored fields of the hits (all of them if null).
+  protected ScoredDocuments _search_hits(Map<String, ? extends Number> weights, int k, Set<String> fields)
+      throws IOException, OrtException {
+    Map<String, Float> pruned = weightedGenerator.prune(weights);
+    Query query = weightedGenerator.buildQuery(Constants.CONTENTS, pruned);
+
+    // Only query expansion needs the query as a bag of tokens, so we skip building it otherwise.
+    List<String> queryTokens = new ArrayList<>();
+    if (useRM3 || useRocchio) {
+      for (Map.Entry<String, Float> entry : pruned.entrySet()) {
+        for (int i = 0; i < Math.round(entry.getValue()); i++) {
+          queryTokens.add(entry.getKey());
+        }
+      }
+    }
+
+    String queryText = String.join(" ", pruned.keySet());
+    if (queryProcessor != null) {
+      TopDocs rs = queryProcessor.search(pruned, k, pruningBudget, !this.backwardsCompatibilityLucene8);
+      return _search_hits(query, rs, queryText, queryTokens, k, fields);
+    }
+
+    return _search_hits(query, queryText, queryTokens, k, fields);
   }
 
-  // internal implementation
-  protected Result[] _search(Query query, String encodedQuery, int k) throws IOException, OrtException {
+  protected ScoredDocuments _search_hits(Query query, String queryText, List<String> queryTokens, int k,
+                                         Set<String> fields) throws IOException {
     // Create an IndexSearch only once. Note that the object is thread safe.
     if (searcher == null) {
       searcher = new IndexSearcher(reader);
       searcher.setSimilarity(similarity);
     }
 
-    SearchCollection.Args searchArgs = new SearchCollection.Args();
-    searchArgs.arbitraryScoreTieBreak = this.backwardsCompatibilityLucene8;
-    searchArgs.hits = k;
-
-    // encoded query can be tokenized using whitespace analyzer
-    List<String> queryTokens = AnalyzerUtils.analyze(analyzer, encodedQuery);
+    IndexSearcher parallel = parallelSearcher;
+    IndexSearcher firstStageSearcher = parallel != null && !IN_BATCH.get() ? parallel : searcher;
 
     TopDocs rs;
-    RerankerContext context;
     if (this.backwardsCompatibilityLucene8) {
-      rs = searcher.search(query, k);
+      rs = firstStageSearcher.search(query, k);
     } else {
-      rs = searcher.search(query, k, BREAK_SCORE_TIES_BY_DOCID, true);
+      rs = TieBreakingTopDocsCollector.search(firstStageSearcher, query, k);
     }
-    context = new RerankerContext<>(searcher, null, query, null,
-        encodedQuery, queryTokens, null, searchArgs);
 
-    ScoredDocuments hits = cascade.run(ScoredDocuments.fromTopDocs(rs, searcher), context);
+    return _search_hits(query, rs, queryText, queryTokens, k, fields);
+  }
+
+  // Reranks and materializes first-stage results.
+  protected ScoredDocuments _search_hits(Query query, TopDocs rs, String queryText, List<String> queryTokens, int k,
+                                         Set<String> fields) throws IOException {
+    if (searcher == null) {
+      searcher = new IndexSearcher(reader);
+      searcher.setSimilarity(similarity);
+    }
+
+    SearchCollection.Args searchArgs = new SearchCollection.Args();
+    searchArgs.arbitraryScoreTieBreak = this.backwardsCompatibilityLucene8;
+    searchArgs.hits = k;
+
+    RerankerContext context = new RerankerContext<>(searcher, null, query, null,
+        queryText, queryTokens, null, searchArgs);
 
+    return cascade.run(ScoredDocuments.fromTopDocs(rs, searcher, fields), context);
+  }
+
+  private static Result[] toResults(ScoredDocuments hits) {
     Result[] results = new Result[hits.ids.length];
     for (int i = 0; i < hits.ids.length; i++) {
       Document doc = hits.documents[i];
@@ -696,7 +890,7 @@ public class SimpleImpactSearcher implements Closeable {
    */
   public Document doc(int lucene_docid) {
     try {
-      return reader.storedFields().document(lucene_docid);
+      return DocStore.restore(reader, lucene_docid, reader.storedFields().document(lucene_docid));
     } catch (Exception e) {
       // Eat any exceptions and just return null.
       return null;
@@ -733,7 +927,8 @@ public class SimpleImpactSearcher implements Closeable {
    */
   public String doc_contents(int lucene_docid) {
     try {
-      return reader.storedFields().document(lucene_docid).get(Constants.CONTENTS);
+      String value = DocStore.get(reader, Constants.CONTENTS, lucene_docid);
+      return value != null ? value : reader.storedFields().document(lucene_docid).get(Constants.CONTENTS);
     } catch (Exception e) {
       // Eat any exceptions and just return null.
       return null;
@@ -758,7 +953,40 @@ public class SimpleImpactSearcher implements Closeable {
    */
   public String doc_raw(int lucene_docid) {
     try {
-      return reader.storedFields().document(lucene_docid).get(Constants.RAW);
+      String value = DocStore.get(reader, Constants.RAW, lucene_docid);
+      return value != null ? value : reader.storedFields().document(lucene_docid).get(Constants.RAW);
+    } catch (Exception e) {
+      // Eat any exceptions and just return null.
+      return null;
+    }
+  }
+
+  /**
+   * Returns the "raw" field of documents based on internal Lucene docids, e.g., the hits of
+   * {@link #batch_search_columnar(List, int, int)}.
+   *
+   * @param lucene_docids internal Lucene docids
+   * @return the "raw" field of each document, with null for documents that don't exist
+   */
+  public String[] doc_raw_array(int[] lucene_docids) {
+    try {
+      return IndexReaderUtils.documentField(reader, lucene_docids, Constants.RAW);
+    } catch (Exception e) {
+      // Eat any exceptions and just return null.
+      return null;
+    }
+  }
+
+  /**
+   * Returns the "contents" field of documents based on internal Lucene docids, e.g., the hits of
+   * {@link #batch_search_columnar(List, int, int)}.
+   *
+   * @param lucene_docids internal Lucene docids
+   * @return the "contents" field of each document, with null for documents that don't exist
+   */
+  public String[] doc_contents_array(int[] lucene_docids) {
+    try {
+      return IndexReaderUtils.documentField(reader, lucene_docids, Constants.CONTENTS);
     } catch (Exception e) {
       // Eat any exceptions and just return null.
       return null;
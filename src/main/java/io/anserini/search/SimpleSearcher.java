@@ -18,6 +18,7 @@ package io.anserini.search;
 
 import io.anserini.analysis.AnalyzerUtils;
 import io.anserini.index.Constants;
+import io.anserini.index.DocStore;
 import io.anserini.index.IndexCollection;
 import io.anserini.index.IndexReaderUtils;
 import io.anserini.rerank.RerankerCascade;
@@ -62,8 +63,6 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.Sort;
-import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.similarities.BM25Similarity;
 import org.apache.lucene.search.similarities.LMDirichletSimilarity;
@@ -75,22 +74,20 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Class that exposes basic search functionality, designed specifically to provide the bridge between Java and Python
  * via pyjnius.  Note that methods are named according to Python conventions (e.g., snake case instead of camel case).
  */
 public class SimpleSearcher implements Closeable {
-  private static final Sort BREAK_SCORE_TIES_BY_DOCID =
-      new Sort(SortField.FIELD_SCORE, new SortField(Constants.ID, SortField.Type.STRING_VAL));
   private static final Logger LOG = LogManager.getLogger(SimpleSearcher.class);
 
   protected IndexReader reader;
@@ -103,6 +100,16 @@ public class SimpleSearcher implements Closeable {
   protected boolean backwardsCompatibilityLucene8;
 
   protected IndexSearcher searcher = null;
+  protected LatencyStats latencyStats = null;
+  protected QueryProfileLog profileLog = null;
+  protected long queryBudget = 0;
+  protected SlowQueryLog slowQueryLog = null;
+  protected IntraQueryParallelism intraQueryParallelism = null;
+  protected IndexSearcher parallelSearcher = null;
+  protected final BatchExecutor batchExecutor = new BatchExecutor("anserini-batch");
+
+  // Set on the threads of batch_search, whose queries already run in parallel with each other.
+  private static final ThreadLocal<Boolean> IN_BATCH = ThreadLocal.withInitial(() -> false);
 
   /**
    * This class is meant to serve as the bridge between Anserini and Pyserini.
@@ -420,6 +427,9 @@ public class SimpleSearcher implements Closeable {
     // We need to re-initialize the searcher
     searcher = new IndexSearcher(reader);
     searcher.setSimilarity(similarity);
+    if (intraQueryParallelism != null) {
+      parallelSearcher = intraQueryParallelism.newSearcher(reader, similarity);
+    }
   }
 
   /**
@@ -434,6 +444,9 @@ public class SimpleSearcher implements Closeable {
     // We need to re-initialize the searcher
     searcher = new IndexSearcher(reader);
     searcher.setSimilarity(similarity);
+    if (intraQueryParallelism != null) {
+      parallelSearcher = intraQueryParallelism.newSearcher(reader, similarity);
+    }
   }
 
   /**
@@ -445,6 +458,131 @@ public class SimpleSearcher implements Closeable {
     return similarity;
   }
 
+  /**
+   * Starts recording per-query stage latencies (query construction, search, materialization, reranking, and
+   * conversion of hits into results), discarding any previously recorded latencies.
+   */
+  public void set_latency_stats() {
+    this.latencyStats = new LatencyStats();
+  }
+
+  /**
+   * Stops recording per-query stage latencies.
+   */
+  public void unset_latency_stats() {
+    this.latencyStats = null;
+  }
+
+  /**
+   * Returns the latency statistics (count, mean, p50, p90, p99, and max, in milliseconds) of each stage as JSON.
+   *
+   * @return latency statistics as JSON, or null if latencies are not being recorded
+   */
+  public String get_latency_stats() {
+    return latencyStats == null ? null : latencyStats.toJson();
+  }
+
+  /**
+   * Starts profiling queries (see {@link ProfilingIndexSearcher}), keeping the profiles of the slowest queries and
+   * discarding any previously kept profiles. Queries run much slower while profiled.
+   *
+   * @param slowest number of slowest queries whose profiles are kept
+   */
+  public void set_profile(int slowest) {
+    this.profileLog = new QueryProfileLog(slowest);
+  }
+
+  /**
+   * Stops profiling queries.
+   */
+  public void unset_profile() {
+    this.profileLog = null;
+  }
+
+  /**
+   * Returns the profiles of the slowest queries, slowest first, as JSON.
+   *
+   * @return profiles as JSON, or null if queries are not being profiled
+   */
+  public String get_profile() {
+    return profileLog == null ? null : profileLog.toJson();
+  }
+
+  /**
+   * Sets a per-query time budget. First-stage collection and the reranker cascade stop once the budget is exhausted,
+   * returning the best results found so far; such queries are counted as partial in the latency statistics.
+   *
+   * @param millis time budget in milliseconds
+   */
+  public void set_query_budget(long millis) {
+    this.queryBudget = millis;
+  }
+
+  /**
+   * Removes the per-query time budget.
+   */
+  public void unset_query_budget() {
+    this.queryBudget = 0;
+  }
+
+  /**
+   * Starts logging slow queries, as well as queries with partial results, to the slow-query log (see
+   * {@link SlowQueryLog}).
+   *
+   * @param thresholdMillis queries taking at least this long, in milliseconds, are logged
+   */
+  public void set_slow_query_log(long thresholdMillis) {
+    this.slowQueryLog = new SlowQueryLog(thresholdMillis);
+  }
+
+  /**
+   * Stops logging slow queries.
+   */
+  public void unset_slow_query_log() {
+    this.slowQueryLog = null;
+  }
+
+  /**
+   * Searches the segments of the index in parallel within each query, using Lucene's default slice policy. Only
+   * single queries are parallelized: queries of {@link #batch_search} are not, so as not to oversubscribe the cores.
+   *
+   * @param threads number of threads searching slices of segments
+   */
+  public void set_intra_query_parallelism(int threads) {
+    set_intra_query_parallelism(threads, IntraQueryParallelism.DEFAULT_MAX_DOCS_PER_SLICE,
+        IntraQueryParallelism.DEFAULT_MAX_SEGMENTS_PER_SLICE);
+  }
+
+  /**
+   * Searches the segments of the index in parallel within each query (see {@link IntraQueryParallelism}). Only
+   * single queries are parallelized: queries of {@link #batch_search} are not, so as not to oversubscribe the cores.
+   *
+   * @param threads number of threads searching slices of segments
+   * @param maxDocsPerSlice maximum number of documents per slice
+   * @param maxSegmentsPerSlice maximum number of segments per slice
+   */
+  public void set_intra_query_parallelism(int threads, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+    unset_intra_query_parallelism();
+    intraQueryParallelism = new IntraQueryParallelism(threads, maxDocsPerSlice, maxSegmentsPerSlice);
+    parallelSearcher = intraQueryParallelism.newSearcher(reader, similarity);
+  }
+
+  /**
+   * Stops searching segments in parallel within each query.
+   */
+  public void unset_intra_query_parallelism() {
+    IntraQueryParallelism parallelism = intraQueryParallelism;
+    intraQueryParallelism = null;
+    parallelSearcher = null;
+    if (parallelism != null) {
+      parallelism.close();
+    }
+  }
+
+  private QueryTimings newTimings() {
+    return latencyStats == null && slowQueryLog == null ? QueryTimings.NONE : new QueryTimings();
+  }
+
   /**
    * Returns the number of documents in the index.
    *
@@ -465,6 +603,8 @@ public class SimpleSearcher implements Closeable {
    */
   @Override
   public void close() throws IOException {
+    unset_intra_query_parallelism();
+    batchExecutor.close();
     try {
       reader.close();
     } catch (Exception e) {
@@ -541,6 +681,77 @@ public class SimpleSearcher implements Closeable {
                                                    int k,
                                                    int threads,
                                                    Map<String, Float> fields) {
+    Result[][] hits = batch_search_fields_array(generator, queries, k, threads, fields);
+
+    Map<String, Result[]> results = new HashMap<>();
+    for (int q = 0; q < hits.length; q++) {
+      results.put(qids.get(q), hits[q]);
+    }
+    return results;
+  }
+
+  /**
+   * Searches the collection in batch using multiple threads.
+   *
+   * @param queries list of queries
+   * @param k number of hits
+   * @param threads number of threads
+   * @return search results, in the order of the queries
+   */
+  public Result[][] batch_search_array(List<String> queries, int k, int threads) {
+    return batch_search_array(queries, k, threads, new BatchExecutor.Handle());
+  }
+
+  /**
+   * Searches the collection in batch using multiple threads, with a handle to cancel the batch.
+   *
+   * @param queries list of queries
+   * @param k number of hits
+   * @param threads number of threads
+   * @param handle handle to cancel the batch
+   * @return search results, in the order of the queries
+   */
+  public Result[][] batch_search_array(List<String> queries, int k, int threads, BatchExecutor.Handle handle) {
+    return batch_search_fields_array(this.generator, queries, k, threads, new HashMap<>(), handle);
+  }
+
+  /**
+   * Searches the provided fields weighted by their boosts, in batch using multiple threads.
+   *
+   * @param generator the method for generating queries
+   * @param queries list of queries
+   * @param k number of hits
+   * @param threads number of threads
+   * @param fields map of fields to search with weights
+   * @return search results, in the order of the queries
+   */
+  public Result[][] batch_search_fields_array(QueryGenerator generator,
+                                              List<String> queries,
+                                              int k,
+                                              int threads,
+                                              Map<String, Float> fields) {
+    return batch_search_fields_array(generator, queries, k, threads, fields, new BatchExecutor.Handle());
+  }
+
+  /**
+   * Searches the provided fields weighted by their boosts, in batch using multiple threads. Queries run on a thread
+   * pool owned by this searcher, which is kept across batches; the batch can be cancelled from another thread through
+   * its handle.
+   *
+   * @param generator the method for generating queries
+   * @param queries list of queries
+   * @param k number of hits
+   * @param threads number of threads
+   * @param fields map of fields to search with weights
+   * @param handle handle to cancel the batch
+   * @return search results, in the order of the queries
+   */
+  public Result[][] batch_search_fields_array(QueryGenerator generator,
+                                              List<String> queries,
+                                              int k,
+                                              int threads,
+                                              Map<String, Float> fields,
+                                              BatchExecutor.Handle handle) {
     // Create the IndexSearcher here, if needed. We do it here because if we leave the creation to the search
     // method, we might end up with a race condition as multiple threads try to concurrently create the IndexSearcher.
     if (searcher == null) {
@@ -548,46 +759,96 @@ public class SimpleSearcher implements Closeable {
       searcher.setSimilarity(similarity);
     }
 
-    ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(threads);
-    ConcurrentHashMap<String, Result[]> results = new ConcurrentHashMap<>();
-
-    int queryCnt = queries.size();
-    for (int q = 0; q < queryCnt; ++q) {
-      String query = queries.get(q);
-      String qid = qids.get(q);
-      executor.execute(() -> {
-        try {
-          if (fields.size() > 0) {
-            results.put(qid, search_fields(generator, query, fields, k));
-          } else {
-            results.put(qid, search(generator, query, k));
-          }
-        } catch (IOException e) {
-          throw new CompletionException(e);
-        }
-      });
-    }
+    return batchExecutor.map(queries, threads, query -> {
+      IN_BATCH.set(true);
+      if (fields.size() > 0) {
+        return search_fields(generator, query, fields, k);
+      } else {
+        return search(generator, query, k);
+      }
+    }, Result[][]::new, handle);
+  }
 
-    executor.shutdown();
+  /**
+   * Searches the collection in batch using multiple threads, returning the results as flat arrays; see
+   * {@link ColumnarResults}.
+   *
+   * @param queries list of queries
+   * @param k number of hits
+   * @param threads number of threads
+   * @return search results
+   */
+  public ColumnarResults batch_search_columnar(List<String> queries, int k, int threads) {
+    return batch_search_columnar(queries, k, threads, new BatchExecutor.Handle());
+  }
 
-    try {
-      // Wait for existing tasks to terminate
-      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
-        // Opportunity to perform status logging, but no-op here because logging interferes with Python tqdm
-      }
-    } catch (InterruptedException ie) {
-      // (Re-)Cancel if current thread also interrupted
-      executor.shutdownNow();
-      // Preserve interrupt status
-      Thread.currentThread().interrupt();
-    }
+  /**
+   * Searches the collection in batch using multiple threads, returning the results as flat arrays, with a handle to
+   * cancel the batch.
+   *
+   * @param queries list of queries
+   * @param k number of hits
+   * @param threads number of threads
+   * @param handle handle to cancel the batch
+   * @return search results
+   */
+  public ColumnarResults batch_search_columnar(List<String> queries, int k, int threads, BatchExecutor.Handle handle) {
+    return batch_search_fields_columnar(this.generator, queries, k, threads, new HashMap<>(), handle);
+  }
 
-    if (queryCnt != executor.getCompletedTaskCount()) {
-      throw new RuntimeException("queryCount = " + queryCnt +
-              " is not equal to completedTaskCount =  " + executor.getCompletedTaskCount());
+  /**
+   * Searches the provided fields weighted by their boosts, in batch using multiple threads, returning the results as
+   * flat arrays; see {@link ColumnarResults}. Only the docids of the hits are read from the index; the text of the
+   * hits can be fetched afterwards with {@link #doc_raw_array(int[])} or {@link #doc_contents_array(int[])}.
+   *
+   * @param generator the method for generating queries
+   * @param queries list of queries
+   * @param k number of hits
+   * @param threads number of threads
+   * @param fields map of fields to search with weights
+   * @return search results
+   */
+  public ColumnarResults batch_search_fields_columnar(QueryGenerator generator,
+                                                     List<String> queries,
+                                                     int k,
+                                                     int threads,
+                                                     Map<String, Float> fields) {
+    return batch_search_fields_columnar(generator, queries, k, threads, fields, new BatchExecutor.Handle());
+  }
+
+  /**
+   * Searches the provided fields weighted by their boosts, in batch using multiple threads, returning the results as
+   * flat arrays, with a handle to cancel the batch.
+   *
+   * @param generator the method for generating queries
+   * @param queries list of queries
+   * @param k number of hits
+   * @param threads number of threads
+   * @param fields map of fields to search with weights
+   * @param handle handle to cancel the batch
+   * @return search results
+   */
+  public ColumnarResults batch_search_fields_columnar(QueryGenerator generator,
+                                                     List<String> queries,
+                                                     int k,
+                                                     int threads,
+                                                     Map<String, Float> fields,
+                                                     BatchExecutor.Handle handle) {
+    if (searcher == null) {
+      searcher = new IndexSearcher(reader);
+      searcher.setSimilarity(similarity);
     }
 
-    return results;
+    return ColumnarResults.of(batchExecutor.map(queries, threads, q -> {
+      IN_BATCH.set(true);
+      QueryTimings timings = newTimings();
+      Query query = fields.size() > 0 ? generator.buildQuery(fields, analyzer, q) :
+          generator.buildQuery(Constants.CONTENTS, analyzer, q);
+      List<String> queryTokens = AnalyzerUtils.analyze(analyzer, q);
+      timings.lap(QueryTimings.QUERY);
+
+      return _search(query, queryTokens, q, k, timings, ColumnarResults.FIELDS, hits -> hits);
+    }, ScoredDocuments[]::new, handle));
   }
 
   /**
@@ -610,10 +871,12 @@ public class SimpleSearcher implements Closeable {
    * @throws IOException if error encountered during search
    */
   public Result[] search(String q, int k) throws IOException {
+    QueryTimings timings = newTimings();
     Query query = new BagOfWordsQueryGenerator().buildQuery(Constants.CONTENTS, analyzer, q);
     List<String> queryTokens = AnalyzerUtils.analyze(analyzer, q);
+    timings.lap(QueryTimings.QUERY);
 
-    return _search(query, queryTokens, q, k);
+    return _search(query, queryTokens, q, k, timings);
   }
 
   /**
@@ -638,49 +901,95 @@ public class SimpleSearcher implements Closeable {
    * @throws IOException if error encountered during search
    */
   public Result[] search(QueryGenerator generator, String q, int k) throws IOException {
+    QueryTimings timings = newTimings();
     Query query = generator.buildQuery(Constants.CONTENTS, analyzer, q);
     List<String> queryTokens = AnalyzerUtils.analyze(analyzer, q);
+    timings.lap(QueryTimings.QUERY);
 
-    return _search(query, queryTokens, q, k);
+    return _search(query, queryTokens, q, k, timings);
   }
 
   // internal implementation
   protected Result[] _search(Query query, List<String> queryTokens, String queryString, int k) throws IOException {
+    return _search(query, queryTokens, queryString, k, newTimings());
+  }
+
+  protected Result[] _search(Query query, List<String> queryTokens, String queryString, int k, QueryTimings timings)
+      throws IOException {
+    return _search(query, queryTokens, queryString, k, timings, null, SimpleSearcher::toResults);
+  }
+
+  private static Result[] toResults(ScoredDocuments hits) {
+    Result[] results = new Result[hits.ids.length];
+    for (int i = 0; i < hits.ids.length; i++) {
+      Document doc = hits.documents[i];
+      String docid = doc.getField(Constants.ID).stringValue();
+
+      IndexableField field;
+      field = doc.getField(Constants.CONTENTS);
+      String contents = field == null ? null : field.stringValue();
+
+      field = doc.getField(Constants.RAW);
+      String raw = field == null ? null : field.stringValue();
+
+      results[i] = new Result(docid, hits.ids[i], hits.scores[i], contents, raw, doc);
+    }
+    return results;
+  }
+
+  // Searches and reranks, loading the given stored fields of the hits (all of them if null), and formats the hits.
+  protected <T> T _search(Query query, List<String> queryTokens, String queryString, int k, QueryTimings timings,
+                          Set<String> fields, Function<ScoredDocuments, T> format) throws IOException {
     // Create an IndexSearch only once. Note that the object is thread safe.
     if (searcher == null) {
       searcher = new IndexSearcher(reader);
       searcher.setSimilarity(similarity);
     }
 
+    // Profiled queries run on a fresh searcher, which also profiles the queries run by rerankers such as RM3.
+    long start = System.nanoTime();
+    QueryDeadline deadline = QueryDeadline.afterMillis(queryBudget);
+    QueryProfileLog profiles = profileLog;
+    ProfilingIndexSearcher profilingSearcher = profiles == null ? null : new ProfilingIndexSearcher(reader, similarity);
+    IndexSearcher parallel = parallelSearcher;
+    IndexSearcher searcher = profilingSearcher != null ? profilingSearcher :
+        (parallel != null && !IN_BATCH.get() ? parallel : this.searcher);
+
     SearchCollection.Args searchArgs = new SearchCollection.Args();
     searchArgs.arbitraryScoreTieBreak = this.backwardsCompatibilityLucene8;
     searchArgs.hits = k;
 
     TopDocs rs;
     RerankerContext context;
+    int hits = useRM3 ? searchArgs.rerankcutoff : k;
     if (this.backwardsCompatibilityLucene8) {
-      rs = searcher.search(query, useRM3 ? searchArgs.rerankcutoff : k);
+      rs = deadline.search(QueryTimings.SEARCH, searcher, s -> s.search(query, hits));
     } else {
-      rs = searcher.search(query, useRM3 ? searchArgs.rerankcutoff : k, BREAK_SCORE_TIES_BY_DOCID, true);
+      rs = deadline.search(QueryTimings.SEARCH, searcher, query, hits);
     }
+    timings.lap(QueryTimings.SEARCH);
     context = new RerankerContext<>(searcher, null, query, null,
           queryString, queryTokens, null, searchArgs);
+    context.setDeadline(deadline);
 
-    ScoredDocuments hits = cascade.run(ScoredDocuments.fromTopDocs(rs, searcher), context);
-
-    Result[] results = new Result[hits.ids.length];
-    for (int i = 0; i < hits.ids.length; i++) {
-      Document doc = hits.documents[i];
-      String docid = doc.getField(Constants.ID).stringValue();
+    ScoredDocuments docs = ScoredDocuments.fromTopDocs(rs, searcher, fields);
+    timings.lap(QueryTimings.MATERIALIZE);
+    ScoredDocuments hits = cascade.run(docs, context, timings);
 
-      IndexableField field;
-      field = doc.getField(Constants.CONTENTS);
-      String contents = field == null ? null : field.stringValue();
-
-      field = doc.getField(Constants.RAW);
-      String raw = field == null ? null : field.stringValue();
-
-      results[i] = new Result(docid, hits.ids[i], hits.scores[i], contents, raw, doc);
+    T results = format.apply(hits);
+    timings.lap(QueryTimings.FORMAT);
+    LatencyStats stats = latencyStats;
+    if (stats != null && timings != QueryTimings.NONE) {
+      stats.record(timings, deadline.isPartial());
+    }
+    SlowQueryLog slowLog = slowQueryLog;
+    if (slowLog != null) {
+      slowLog.record(null, queryString != null ? queryString : query.toString(), System.nanoTime() - start, timings,
+          deadline);
+    }
+    if (profilingSearcher != null) {
+      profiles.record(null, queryString != null ? queryString : query.toString(), System.nanoTime() - start,
+          profilingSearcher.getProfiles());
     }
 
     return results;
@@ -719,7 +1028,7 @@ public class SimpleSearcher implements Closeable {
     if (this.backwardsCompatibilityLucene8) {
       rs = searcher.search(query, useRM3 ? searchArgs.rerankcutoff : k);
     } else {
-      rs = searcher.search(query, useRM3 ? searchArgs.rerankcutoff : k, BREAK_SCORE_TIES_BY_DOCID, true);
+      rs = TieBreakingTopDocsCollector.search(searcher, query, useRM3 ? searchArgs.rerankcutoff : k);
     }
     context = new RerankerContext<>(searcher, null, query, null,
         queryString, queryTokens, null, searchArgs);
@@ -777,7 +1086,7 @@ public class SimpleSearcher implements Closeable {
    */
   public Document doc(int lucene_docid) {
     try {
-      return reader.storedFields().document(lucene_docid);
+      return DocStore.restore(reader, lucene_docid, reader.storedFields().document(lucene_docid));
     } catch (Exception e) {
       // Eat any exceptions and just return null.
       return null;
@@ -803,34 +1112,63 @@ public class SimpleSearcher implements Closeable {
    * @return a map of docid to corresponding Lucene {@link Document}
    */
   public Map<String, Document> batch_get_docs(List<String> docids, int threads) {
-    ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(threads);
-    ConcurrentHashMap<String, Document> results = new ConcurrentHashMap<>();
-
-    for (String docid: docids) {
-      executor.execute(() -> {
-        try {
-          results.put(docid, IndexReaderUtils.document(reader, docid));
-        } catch (Exception e) {
-          // Do nothing, just eat the exception.
-        }
-      });
+    Document[] docs = batch_get_docs_array(docids, threads);
+
+    Map<String, Document> results = new HashMap<>();
+    for (int i = 0; i < docs.length; i++) {
+      if (docs[i] != null) {
+        results.put(docids.get(i), docs[i]);
+      }
     }
+    return results;
+  }
 
-    executor.shutdown();
+  /**
+   * Returns the Lucene {@link Document}s of the given collection docids.
+   * Batch version of {@link #doc(String)}.
+   *
+   * @param docids list of docids
+   * @param threads number of threads to use
+   * @return corresponding Lucene {@link Document}s, in the order of the docids, with null for docids not found
+   */
+  public Document[] batch_get_docs_array(List<String> docids, int threads) {
+    return batch_get_docs_array(docids, null, threads);
+  }
 
+  /**
+   * Returns the Lucene {@link Document}s of the given collection docids, optionally with only some of their stored
+   * fields. All docids are resolved first; the documents are then read in (segment, docid) order, split into one
+   * contiguous range per thread, so that each thread reads sequentially through the stored fields of each segment
+   * instead of decompressing the same blocks again for neighbouring documents.
+   *
+   * @param docids list of docids
+   * @param fields names of the stored fields to load, or null to load all stored fields
+   * @param threads number of threads to use
+   * @return corresponding Lucene {@link Document}s, in the order of the docids, with null for docids not found
+   */
+  public Document[] batch_get_docs_array(List<String> docids, List<String> fields, int threads) {
+    Set<String> fieldSet = fields == null ? null : new HashSet<>(fields);
+    Document[] documents = new Document[docids.size()];
     try {
-      // Wait for existing tasks to terminate
-      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
-        // Opportunity to perform status logging, but no-op here
+      int[] luceneDocids = IndexReaderUtils.convertDocidsToLuceneDocids(reader, docids);
+      int[] order = IndexReaderUtils.sortByLuceneDocid(luceneDocids);
+      if (order.length == 0) {
+        return documents;
       }
-    } catch (InterruptedException ie) {
-      // (Re-)Cancel if current thread also interrupted
-      executor.shutdownNow();
-      // Preserve interrupt status
-      Thread.currentThread().interrupt();
-    }
 
-    return results;
+      int chunks = Math.max(1, Math.min(threads, order.length));
+      List<int[]> ranges = new ArrayList<>(chunks);
+      for (int c = 0; c < chunks; c++) {
+        ranges.add(new int[] {(int) ((long) order.length * c / chunks), (int) ((long) order.length * (c + 1) / chunks)});
+      }
+      batchExecutor.map(ranges, threads, range -> {
+        IndexReaderUtils.documents(reader, luceneDocids, order, range[0], range[1], fieldSet, documents);
+        return range;
+      }, int[][]::new);
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    }
+    return documents;
   }
 
   /**
@@ -853,7 +1191,8 @@ public class SimpleSearcher implements Closeable {
    */
   public String doc_contents(int lucene_docid) {
     try {
-      return reader.storedFields().document(lucene_docid).get(Constants.CONTENTS);
+      String value = DocStore.get(reader, Constants.CONTENTS, lucene_docid);
+      return value != null ? value : reader.storedFields().document(lucene_docid).get(Constants.CONTENTS);
     } catch (Exception e) {
       // Eat any exceptions and just return null.
       return null;
@@ -878,7 +1217,40 @@ public class SimpleSearcher implements Closeable {
    */
   public String doc_raw(int lucene_docid) {
     try {
-      return reader.storedFields().document(lucene_docid).get(Constants.RAW);
+      String value = DocStore.get(reader, Constants.RAW, lucene_docid);
+      return value != null ? value : reader.storedFields().document(lucene_docid).get(Constants.RAW);
+    } catch (Exception e) {
+      // Eat any exceptions and just return null.
+      return null;
+    }
+  }
+
+  /**
+   * Returns the "raw" field of documents based on internal Lucene docids, e.g., the hits of
+   * {@link #batch_search_columnar(List, int, int)}.
+   *
+   * @param lucene_docids internal Lucene docids
+   * @return the "raw" field of each document, with null for documents that don't exist
+   */
+  public String[] doc_raw_array(int[] lucene_docids) {
+    try {
+      return IndexReaderUtils.documentField(reader, lucene_docids, Constants.RAW);
+    } catch (Exception e) {
+      // Eat any exceptions and just return null.
+      return null;
+    }
+  }
+
+  /**
+   * Returns the "contents" field of documents based on internal Lucene docids, e.g., the hits of
+   * {@link #batch_search_columnar(List, int, int)}.
+   *
+   * @param lucene_docids internal Lucene docids
+   * @return the "contents" field of each document, with null for documents that don't exist
+   */
+  public String[] doc_contents_array(int[] lucene_docids) {
+    try {
+      return IndexReaderUtils.documentField(reader, lucene_docids, Constants.CONTENTS);
     } catch (Exception e) {
       // Eat any exceptions and just return null.
       return null;
@@ -0,0 +1,69 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Logs queries that are slower than a threshold, or whose results are partial because they ran out of time, to a
+ * dedicated logger (<code>io.anserini.search.SlowQueryLog</code>), so that all searchers of a process share a single
+ * slow-query log that can be routed to its own appender.
+ */
+public class SlowQueryLog {
+  private static final Logger LOG = LogManager.getLogger(SlowQueryLog.class);
+
+  private final long thresholdNanos;
+
+  /**
+   * Creates a log.
+   *
+   * @param thresholdMillis queries taking at least this long, in milliseconds, are logged; if not positive, only
+   *                        queries with partial results are logged
+   */
+  public SlowQueryLog(long thresholdMillis) {
+    this.thresholdNanos = thresholdMillis * 1_000_000L;
+  }
+
+  /**
+   * Logs a query if it is slow or its results are partial.
+   *
+   * @param id query id, may be null
+   * @param query query string
+   * @param nanos total time of the query, in nanoseconds
+   * @param timings timings of the stages of the query
+   * @param deadline time budget of the query
+   */
+  public void record(String id, String query, long nanos, QueryTimings timings, QueryDeadline deadline) {
+    if ((thresholdNanos <= 0 || nanos < thresholdNanos) && !deadline.isPartial()) {
+      return;
+    }
+
+    List<String> stages = new ArrayList<>();
+    for (Map.Entry<String, Long> entry : timings.getStages().entrySet()) {
+      stages.add(String.format(Locale.US, "%s=%.2fms", entry.getKey(), entry.getValue() / 1e6));
+    }
+    LOG.warn(String.format(Locale.US, "Slow query%s: %.2fms%s%s: %s", id == null ? "" : " " + id, nanos / 1e6,
+        stages.isEmpty() ? "" : " [" + String.join(", ", stages) + "]",
+        deadline.isPartial() ? " partial " + deadline.getPartialStages() : "", query));
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import io.anserini.index.Constants;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.PriorityQueue;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Top-k collector that orders hits by decreasing score and breaks score ties by collection docid, i.e., the same
+ * ordering as {@link SearchCollection#BREAK_SCORE_TIES_BY_DOCID}, but without giving up dynamic pruning.
+ *
+ * Sorting by a field forces Lucene to score every matching document. Here, hits are compared on score first, and the
+ * collection docid is only consulted for documents that tie with the current k-th hit, so the collector can tell the
+ * scorer that documents scoring strictly below the k-th score are not competitive and block-max WAND/MaxScore can skip
+ * them. Ties are broken by the {@link Constants#ID_RANK} doc values if the index has them (see the
+ * <code>-storeDocidRank</code> option of {@link io.anserini.index.IndexCollection}), which avoids string comparisons,
+ * and otherwise by the {@link Constants#ID} binary doc values.
+ */
+public class TieBreakingTopDocsCollector implements Collector {
+  private final int k;
+  private final boolean useRank;
+  private final HitQueue queue;
+  private int totalHits = 0;
+  private boolean skipping = false;
+
+  /**
+   * Creates a collector.
+   *
+   * @param k number of hits
+   * @param useRank whether to break ties by {@link Constants#ID_RANK} rather than by {@link Constants#ID}
+   */
+  public TieBreakingTopDocsCollector(int k, boolean useRank) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be > 0; got " + k);
+    }
+    this.k = k;
+    this.useRank = useRank;
+    this.queue = new HitQueue(k);
+  }
+
+  /**
+   * Searches for the top k hits, with score ties broken by collection docid.
+   *
+   * @param searcher searcher
+   * @param query query
+   * @param k number of hits
+   * @return top k hits
+   * @throws IOException if error encountered during search
+   */
+  public static TopDocs search(IndexSearcher searcher, Query query, int k) throws IOException {
+    return searcher.search(query, new Manager(searcher.getIndexReader(), k));
+  }
+
+  /**
+   * Determines whether every segment of the index has docid ranks.
+   *
+   * @param reader index reader
+   * @return whether ties can be broken by {@link Constants#ID_RANK}
+   */
+  public static boolean hasDocidRanks(IndexReader reader) {
+    for (LeafReaderContext leaf : reader.leaves()) {
+      if (leaf.reader().getFieldInfos().fieldInfo(Constants.ID_RANK) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public ScoreMode scoreMode() {
+    return ScoreMode.TOP_SCORES;
+  }
+
+  @Override
+  public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+    final int docBase = context.docBase;
+    final NumericDocValues ranks = useRank ? context.reader().getNumericDocValues(Constants.ID_RANK) : null;
+    final BinaryDocValues ids = useRank ? null : context.reader().getBinaryDocValues(Constants.ID);
+
+    return new LeafCollector() {
+      private Scorable scorer;
+
+      @Override
+      public void setScorer(Scorable scorer) throws IOException {
+        this.scorer = scorer;
+        if (queue.size() == k) {
+          setMinCompetitiveScore();
+        }
+      }
+
+      @Override
+      public void collect(int doc) throws IOException {
+        float score = scorer.score();
+        totalHits++;
+
+        Hit top = queue.size() == k ? queue.top() : null;
+        if (top != null && score < top.score) {
+          return;
+        }
+
+        Hit hit = newHit(docBase, doc, score, useRank, ranks, ids);
+        if (top != null && !HitQueue.ranksBelow(top, hit)) {
+          return;
+        }
+        queue.insertWithOverflow(hit);
+        if (queue.size() == k) {
+          setMinCompetitiveScore();
+        }
+      }
+
+      // Documents that tie with the k-th hit may still win on docid, so the threshold is inclusive.
+      private void setMinCompetitiveScore() throws IOException {
+        scorer.setMinCompetitiveScore(queue.top().score);
+        skipping = true;
+      }
+    };
+  }
+
+  /**
+   * Returns the collected hits.
+   *
+   * @return top hits, in rank order
+   */
+  public TopDocs topDocs() {
+    ScoreDoc[] hits = new ScoreDoc[queue.size()];
+    for (int i = hits.length - 1; i >= 0; i--) {
+      hits[i] = queue.pop();
+    }
+    return new TopDocs(new TotalHits(totalHits,
+        skipping ? TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO : TotalHits.Relation.EQUAL_TO), hits);
+  }
+
+  // Creates a hit for a document of a segment, along with its collection docid (or docid rank) to break ties with.
+  static Hit newHit(int docBase, int doc, float score, boolean useRank, NumericDocValues ranks, BinaryDocValues ids)
+      throws IOException {
+    Hit hit = new Hit(docBase + doc, score);
+    if (useRank) {
+      hit.rank = ranks != null && ranks.advanceExact(doc) ? ranks.longValue() : Long.MAX_VALUE;
+    } else {
+      hit.id = ids != null && ids.advanceExact(doc) ? BytesRef.deepCopyOf(ids.binaryValue()) : new BytesRef();
+    }
+    return hit;
+  }
+
+  // A hit without an id compares on rank, so hits that all have the same rank are ordered by Lucene docid.
+  static final class Hit extends ScoreDoc {
+    long rank;
+    BytesRef id;
+
+    Hit(int doc, float score) {
+      super(doc, score);
+    }
+  }
+
+  static final class HitQueue extends PriorityQueue<Hit> {
+    HitQueue(int k) {
+      super(k);
+    }
+
+    // Whether a ranks below b.
+    static boolean ranksBelow(Hit a, Hit b) {
+      if (a.score != b.score) {
+        return a.score < b.score;
+      }
+      int cmp = a.id == null ? Long.compare(a.rank, b.rank) : a.id.compareTo(b.id);
+      if (cmp != 0) {
+        return cmp > 0;
+      }
+      return a.doc > b.doc;
+    }
+
+    @Override
+    protected boolean lessThan(Hit a, Hit b) {
+      return ranksBelow(a, b);
+    }
+  }
+
+  /**
+   * Collector manager for {@link TieBreakingTopDocsCollector}, so that searches can run over segment slices in
+   * parallel.
+   */
+  public static class Manager implements CollectorManager<TieBreakingTopDocsCollector, TopDocs> {
+    private final int k;
+    private final boolean useRank;
+
+    /**
+     * Creates a collector manager.
+     *
+     * @param reader index reader, used to check for docid ranks
+     * @param k number of hits
+     */
+    public Manager(IndexReader reader, int k) {
+      this.k = k;
+      this.useRank = hasDocidRanks(reader);
+    }
+
+    @Override
+    public TieBreakingTopDocsCollector newCollector() {
+      return new TieBreakingTopDocsCollector(k, useRank);
+    }
+
+    @Override
+    public TopDocs reduce(Collection<TieBreakingTopDocsCollector> collectors) {
+      if (collectors.size() == 1) {
+        return collectors.iterator().next().topDocs();
+      }
+
+      TieBreakingTopDocsCollector merged = new TieBreakingTopDocsCollector(k, useRank);
+      for (TieBreakingTopDocsCollector collector : collectors) {
+        merged.totalHits += collector.totalHits;
+        merged.skipping |= collector.skipping;
+        for (Hit hit : collector.queue) {
+          merged.queue.insertWithOverflow(hit);
+        }
+      }
+      return merged.topDocs();
+    }
+  }
+}
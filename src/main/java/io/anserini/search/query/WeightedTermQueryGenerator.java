@@ -0,0 +1,117 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search.query;
+
+import io.anserini.analysis.AnalyzerUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds queries directly from term weights, e.g., the output of a learned sparse query encoder such as SPLADE or
+ * uniCOIL, without going through a string representation that repeats each term by its weight. Optionally prunes the
+ * query to its highest-weighted terms: callers that build queries from term weights prune them first with
+ * {@link #prune(Map)}, which lets them use the pruned terms for other purposes as well.
+ */
+public class WeightedTermQueryGenerator extends QueryGenerator {
+  private final int maxTerms;
+  private final float minWeight;
+
+  /**
+   * Creates a generator that keeps all terms with a positive weight.
+   */
+  public WeightedTermQueryGenerator() {
+    this(0, 0.0f);
+  }
+
+  /**
+   * Creates a generator that prunes query terms.
+   *
+   * @param maxTerms number of highest-weighted terms to keep; zero or negative to keep all
+   * @param minWeight terms with weight less than or equal to this value are dropped
+   */
+  public WeightedTermQueryGenerator(int maxTerms, float minWeight) {
+    this.maxTerms = maxTerms;
+    this.minWeight = minWeight;
+  }
+
+  /**
+   * Analyzes the query text and weights each term by its frequency, as in {@link BagOfWordsQueryGenerator}, and then
+   * applies pruning.
+   */
+  @Override
+  public Query buildQuery(String field, Analyzer analyzer, String queryText) {
+    Map<String, Integer> counts = new HashMap<>();
+    for (String token : AnalyzerUtils.analyze(analyzer, queryText)) {
+      counts.merge(token, 1, Integer::sum);
+    }
+    return buildQuery(field, prune(counts));
+  }
+
+  /**
+   * Builds a disjunction over the terms of the query, with each term boosted by its weight. The weights are used as
+   * they are, i.e., without pruning.
+   *
+   * @param field field to search
+   * @param weights map of term to weight
+   * @return query
+   */
+  public Query buildQuery(String field, Map<String, ? extends Number> weights) {
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    for (Map.Entry<String, ? extends Number> entry : weights.entrySet()) {
+      builder.add(new BoostQuery(new TermQuery(new Term(field, entry.getKey())), entry.getValue().floatValue()),
+          BooleanClause.Occur.SHOULD);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Applies pruning to the term weights.
+   *
+   * @param weights map of term to weight
+   * @return the retained terms with their weights, in decreasing order of weight
+   */
+  public Map<String, Float> prune(Map<String, ? extends Number> weights) {
+    List<Map.Entry<String, Float>> entries = new ArrayList<>(weights.size());
+    for (Map.Entry<String, ? extends Number> entry : weights.entrySet()) {
+      float weight = entry.getValue().floatValue();
+      if (weight > minWeight) {
+        entries.add(Map.entry(entry.getKey(), weight));
+      }
+    }
+    // Break ties by term so that the pruned query doesn't depend on the iteration order of the input map.
+    entries.sort((a, b) -> a.getValue().equals(b.getValue()) ?
+        a.getKey().compareTo(b.getKey()) : Float.compare(b.getValue(), a.getValue()));
+
+    int n = maxTerms > 0 ? Math.min(maxTerms, entries.size()) : entries.size();
+    Map<String, Float> pruned = new LinkedHashMap<>();
+    for (int i = 0; i < n; i++) {
+      pruned.put(entries.get(i).getKey(), entries.get(i).getValue());
+    }
+    return pruned;
+  }
+}
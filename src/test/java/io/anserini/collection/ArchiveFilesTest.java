@@ -0,0 +1,237 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import io.anserini.index.IndexCollection;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ArchiveFilesTest extends LuceneTestCase {
+  private static byte[] jsonl(String... ids) {
+    StringBuilder builder = new StringBuilder();
+    for (String id : ids) {
+      builder.append("{\"id\": \"").append(id).append("\", \"contents\": \"text of ").append(id).append("\"}\n");
+    }
+    return builder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  private static void addTarEntry(TarArchiveOutputStream out, String name, byte[] bytes) throws IOException {
+    TarArchiveEntry entry = new TarArchiveEntry(name);
+    entry.setSize(bytes.length);
+    out.putArchiveEntry(entry);
+    out.write(bytes);
+    out.closeArchiveEntry();
+  }
+
+  private static List<String> ids(DocumentCollection<JsonCollection.Document> collection) {
+    List<String> ids = new ArrayList<>();
+    for (FileSegment<JsonCollection.Document> segment : collection) {
+      for (JsonCollection.Document doc : segment) {
+        ids.add(doc.id());
+      }
+      segment.close();
+    }
+    Collections.sort(ids);
+    return ids;
+  }
+
+  @Test
+  public void testArchives() throws Exception {
+    Path dir = createTempDir();
+    Files.write(dir.resolve("plain.jsonl"), jsonl("a1", "a2"));
+    try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+        new GZIPOutputStream(Files.newOutputStream(dir.resolve("bundle.tar.gz"))))) {
+      addTarEntry(out, "docs/b.jsonl", jsonl("b1"));
+      addTarEntry(out, "docs/c.jsonl.gz", gzip(jsonl("c1", "c2")));
+      // Not a file of the collection.
+      addTarEntry(out, "docs/README.md", "# readme".getBytes(StandardCharsets.UTF_8));
+    }
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(dir.resolve("bundle.zip")))) {
+      out.putNextEntry(new ZipEntry("docs/"));
+      out.closeEntry();
+      out.putNextEntry(new ZipEntry("docs/d.jsonl"));
+      out.write(jsonl("d1"));
+      out.closeEntry();
+    }
+
+    JsonCollection collection = new JsonCollection(dir);
+    // The tar.gz archive isn't taken for a gzipped file of the collection.
+    assertEquals(List.of(dir.resolve("plain.jsonl")), collection.getSegmentPaths());
+    List<Path> archives = new ArrayList<>(collection.getArchivePaths());
+    Collections.sort(archives);
+    assertEquals(List.of(dir.resolve("bundle.tar.gz"), dir.resolve("bundle.zip")), archives);
+    assertEquals(List.of("a1", "a2", "b1", "c1", "c2", "d1"), ids(collection));
+
+    // An archive can be the collection itself.
+    JsonCollection zipCollection = new JsonCollection(dir.resolve("bundle.zip"));
+    assertTrue(zipCollection.getSegmentPaths().isEmpty());
+    assertEquals(List.of("d1"), ids(zipCollection));
+  }
+
+  // Files in archives are parsed by the streaming segment, so the raw documents are the original text of the objects.
+  @Test
+  public void testArchivedRaw() throws Exception {
+    Path dir = createTempDir();
+    try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+        new GZIPOutputStream(Files.newOutputStream(dir.resolve("bundle.tar.gz"))))) {
+      addTarEntry(out, "docs/b.jsonl", jsonl("b1"));
+      addTarEntry(out, "docs/c.jsonl.gz", gzip(jsonl("c1")));
+    }
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(dir.resolve("bundle.zip")))) {
+      out.putNextEntry(new ZipEntry("docs/d.jsonl"));
+      out.write(jsonl("d1"));
+      out.closeEntry();
+    }
+
+    List<String> raws = new ArrayList<>();
+    for (FileSegment<JsonCollection.Document> segment : new JsonCollection(dir)) {
+      assertTrue(segment instanceof JsonCollection.StreamingSegment);
+      for (JsonCollection.Document doc : segment) {
+        assertEquals("text of " + doc.id(), doc.contents());
+        raws.add(doc.raw());
+      }
+      segment.close();
+    }
+    Collections.sort(raws);
+    assertEquals(List.of(
+        "{\"id\": \"b1\", \"contents\": \"text of b1\"}",
+        "{\"id\": \"c1\", \"contents\": \"text of c1\"}",
+        "{\"id\": \"d1\", \"contents\": \"text of d1\"}"), raws);
+  }
+
+  // HtmlCollection reads gzipped tar archives itself, so they aren't taken apart; other archives are.
+  @Test
+  public void testHtmlCollection() throws Exception {
+    Path dir = createTempDir();
+    try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+        new GZIPOutputStream(Files.newOutputStream(dir.resolve("pages.tgz"))))) {
+      addTarEntry(out, "pages/p1.html", "<html><body>first page</body></html>".getBytes(StandardCharsets.UTF_8));
+      addTarEntry(out, "pages/p2.html", "<html><body>second page</body></html>".getBytes(StandardCharsets.UTF_8));
+    }
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(dir.resolve("more.zip")))) {
+      out.putNextEntry(new ZipEntry("pages/p3.html"));
+      out.write("<html><body>third page</body></html>".getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+
+    HtmlCollection collection = new HtmlCollection(dir);
+    assertEquals(List.of(dir.resolve("pages.tgz")), collection.getSegmentPaths());
+    assertEquals(List.of(dir.resolve("more.zip")), collection.getArchivePaths());
+
+    Map<String, String> contents = new HashMap<>();
+    for (FileSegment<HtmlCollection.Document> segment : collection) {
+      for (HtmlCollection.Document doc : segment) {
+        contents.put(doc.id(), doc.contents());
+      }
+      assertFalse(segment.getErrorStatus());
+      segment.close();
+    }
+    assertEquals(Map.of("p1", "first page", "p2", "second page", "p3", "third page"), contents);
+
+    Path index = createTempDir();
+    IndexCollection.Args args = new IndexCollection.Args();
+    args.input = dir.toString();
+    args.index = index.toString();
+    args.collectionClass = "HtmlCollection";
+    args.threads = 2;
+    args.quiet = true;
+    new IndexCollection(args).run();
+    try (Directory directory = FSDirectory.open(index);
+         DirectoryReader reader = DirectoryReader.open(directory)) {
+      assertEquals(3, reader.numDocs());
+    }
+  }
+
+  // Files too large to be read into memory are read straight from the archive, which stays open for the next file.
+  @Test
+  @SuppressWarnings("rawtypes")
+  public void testLargeFiles() throws Exception {
+    TarArchiveEntry large = new TarArchiveEntry("large.jsonl");
+    large.setSize(ArchiveFiles.MAX_IN_MEMORY_SIZE + 1);
+    assertFalse(ArchiveFiles.fitsInMemory(large));
+    assertFalse(ArchiveFiles.fitsInMemory(new ZipArchiveEntry("unknown.jsonl")));
+    TarArchiveEntry small = new TarArchiveEntry("small.jsonl");
+    small.setSize(ArchiveFiles.MAX_IN_MEMORY_SIZE);
+    assertTrue(ArchiveFiles.fitsInMemory(small));
+
+    Path tar = createTempDir().resolve("bundle.tar");
+    try (TarArchiveOutputStream out = new TarArchiveOutputStream(Files.newOutputStream(tar))) {
+      addTarEntry(out, "a.jsonl", jsonl("a1"));
+      addTarEntry(out, "b.jsonl", jsonl("b1"));
+    }
+    JsonCollection collection = new JsonCollection(tar);
+    List<String> ids = new ArrayList<>();
+    try (ArchiveInputStream archive = ArchiveFiles.open(tar)) {
+      while (archive.getNextEntry() != null) {
+        try (FileSegment<JsonCollection.Document> segment =
+                 collection.createFileSegment("file.jsonl", ArchiveFiles.currentFile(archive))) {
+          for (JsonCollection.Document doc : segment) {
+            ids.add(doc.id());
+          }
+        }
+      }
+    }
+    assertEquals(List.of("a1", "b1"), ids);
+  }
+
+  @Test
+  public void testAcceptedFiles() {
+    JsonCollection collection = new JsonCollection(Paths.get("unused"));
+    assertTrue(collection.acceptsArchivedFile("docs/file.jsonl"));
+    assertTrue(collection.acceptsArchivedFile("file.jsonl.gz"));
+    assertFalse(collection.acceptsArchivedFile("docs/file.txt"));
+
+    assertEquals(".tar.gz", ArchiveFiles.getArchiveSuffix(Paths.get("corpus.tar.gz")));
+    assertEquals(".tgz", ArchiveFiles.getArchiveSuffix(Paths.get("corpus.tgz")));
+    assertTrue(ArchiveFiles.isZip(Paths.get("corpus.zip")));
+    assertFalse(ArchiveFiles.isArchive(Paths.get("corpus.jsonl.gz")));
+
+    // A collection may accept an archive suffix as a file of its own.
+    NewYorkTimesCollection nyt = new NewYorkTimesCollection(Paths.get("src/test/resources/sample_docs/nyt/collection1"));
+    assertTrue(nyt.getArchivePaths().isEmpty());
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import com.github.luben.zstd.Zstd;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class BlockCompressedInputStreamTest extends LuceneTestCase {
+  private static final int BLOCK_SIZE = 1000;
+
+  private static byte[] data() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      builder.append("{\"id\": \"doc").append(i).append("\", \"contents\": \"résumé ").append(i).append("\"}\n");
+    }
+    return builder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void writeBgzfBlock(OutputStream out, byte[] data, int off, int len) throws IOException {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(data, off, len);
+    deflater.finish();
+    byte[] compressed = new byte[len + 1024];
+    int compressedLength = deflater.deflate(compressed);
+    deflater.end();
+
+    CRC32 crc = new CRC32();
+    crc.update(data, off, len);
+
+    ByteBuffer block = ByteBuffer.allocate(18 + compressedLength + 8).order(ByteOrder.LITTLE_ENDIAN);
+    block.put(new byte[] {0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF});
+    block.putShort((short) 6).put((byte) 'B').put((byte) 'C').putShort((short) 2);
+    block.putShort((short) (block.capacity() - 1));
+    block.put(compressed, 0, compressedLength);
+    block.putInt((int) crc.getValue()).putInt(len);
+    out.write(block.array());
+  }
+
+  private static byte[] readAll(InputStream stream) throws IOException {
+    try (stream) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      // Odd buffer size, so that reads straddle blocks.
+      byte[] buffer = new byte[777];
+      int n;
+      while ((n = stream.read(buffer)) >= 0) {
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    }
+  }
+
+  @Test
+  public void testBgzf() throws Exception {
+    byte[] data = data();
+    Path path = createTempDir().resolve("segment.jsonl.gz");
+    try (OutputStream out = Files.newOutputStream(path)) {
+      for (int off = 0; off < data.length; off += BLOCK_SIZE) {
+        writeBgzfBlock(out, data, off, Math.min(BLOCK_SIZE, data.length - off));
+      }
+      // End-of-file marker.
+      writeBgzfBlock(out, data, 0, 0);
+    }
+
+    assertTrue(BlockCompressedInputStream.isBgzf(path));
+    try (InputStream stream = CompressedFiles.open(path, 4096)) {
+      assertTrue(stream instanceof BlockCompressedInputStream);
+    }
+    assertArrayEquals(data, readAll(CompressedFiles.open(path, 4096)));
+
+    // A BGZF file is also a valid multi-member gzip file.
+    assertArrayEquals(data, readAll(new GZIPInputStream(Files.newInputStream(path))));
+  }
+
+  @Test
+  public void testCorruptBgzf() throws Exception {
+    byte[] data = data();
+    Path path = createTempDir().resolve("segment.jsonl.gz");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writeBgzfBlock(out, data, 0, BLOCK_SIZE);
+    byte[] bytes = out.toByteArray();
+    // Flips a bit of the CRC.
+    bytes[bytes.length - 8] ^= 1;
+    Files.write(path, bytes);
+
+    expectThrows(IOException.class, () -> readAll(CompressedFiles.open(path, 4096)));
+  }
+
+  @Test
+  public void testGzip() throws Exception {
+    byte[] data = data();
+    Path path = createTempDir().resolve("segment.jsonl.gz");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path))) {
+      out.write(data);
+    }
+
+    assertFalse(BlockCompressedInputStream.isBgzf(path));
+    assertArrayEquals(data, readAll(CompressedFiles.open(path, 4096)));
+  }
+
+  @Test
+  public void testSeekableZstd() throws Exception {
+    byte[] data = data();
+    Path path = createTempDir().resolve("segment.jsonl.zst");
+
+    ByteArrayOutputStream frames = new ByteArrayOutputStream();
+    ByteBuffer table = ByteBuffer.allocate(((data.length + BLOCK_SIZE - 1) / BLOCK_SIZE) * 8)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    for (int off = 0; off < data.length; off += BLOCK_SIZE) {
+      byte[] frame = Zstd.compress(Arrays.copyOfRange(data, off, Math.min(off + BLOCK_SIZE, data.length)));
+      frames.write(frame);
+      table.putInt(frame.length).putInt(Math.min(BLOCK_SIZE, data.length - off));
+    }
+    int count = table.capacity() / 8;
+    ByteBuffer seekTable = ByteBuffer.allocate(8 + table.capacity() + 9).order(ByteOrder.LITTLE_ENDIAN);
+    seekTable.putInt(0x184D2A5E).putInt(table.capacity() + 9).put(table.array());
+    seekTable.putInt(count).put((byte) 0).putInt(0x8F92EAB1);
+    frames.write(seekTable.array());
+    Files.write(path, frames.toByteArray());
+
+    assertTrue(BlockCompressedInputStream.isSeekableZstd(path));
+    assertArrayEquals(data, readAll(CompressedFiles.open(path, 4096)));
+
+    // Ordinary zstd.
+    Path plain = createTempDir().resolve("segment.jsonl.zst");
+    Files.write(plain, Zstd.compress(data));
+    assertFalse(BlockCompressedInputStream.isSeekableZstd(plain));
+    assertArrayEquals(data, readAll(CompressedFiles.open(plain, 4096)));
+  }
+
+  @Test
+  public void testUncompressed() throws Exception {
+    byte[] data = data();
+    Path path = createTempDir().resolve("segment.jsonl");
+    Files.write(path, data);
+
+    assertFalse(CompressedFiles.isCompressed(path));
+    assertArrayEquals(data, readAll(CompressedFiles.open(path, 4096)));
+  }
+}
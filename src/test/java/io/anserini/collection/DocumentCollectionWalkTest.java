@@ -0,0 +1,81 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class DocumentCollectionWalkTest extends LuceneTestCase {
+  private static Path collection() throws Exception {
+    Path dir = createTempDir();
+    for (int i = 0; i < 20; i++) {
+      Path subdir = Files.createDirectories(dir.resolve("part" + (i % 3)));
+      Files.writeString(subdir.resolve("file" + i + ".jsonl"), "{\"id\": \"doc" + i + "\", \"contents\": \"text\"}\n");
+    }
+    Files.writeString(dir.resolve("README.md"), "# readme");
+    Files.write(dir.resolve("bundle.zip"), new byte[0]);
+    return dir;
+  }
+
+  @Test
+  public void testWalk() throws Exception {
+    JsonCollection collection = new JsonCollection(collection());
+
+    List<Path> segments = new ArrayList<>();
+    List<Path> archives = new ArrayList<>();
+    collection.walk(-1, -1, segments::add, archives::add);
+    assertEquals(collection.getSegmentPaths(), segments);
+    assertEquals(collection.getArchivePaths(), archives);
+    assertEquals(20, segments.size());
+    assertEquals(1, archives.size());
+
+    // Each file is in exactly one shard.
+    Set<Path> sharded = new HashSet<>();
+    for (int shard = 0; shard < 3; shard++) {
+      List<Path> shardSegments = new ArrayList<>();
+      collection.walk(3, shard, shardSegments::add, path -> {});
+      assertEquals(collection.getSegmentPaths(3, shard), shardSegments);
+      sharded.addAll(shardSegments);
+    }
+    assertEquals(new HashSet<>(segments), sharded);
+  }
+
+  @Test
+  public void testInterrupt() throws Exception {
+    JsonCollection collection = new JsonCollection(collection());
+
+    List<Path> segments = new ArrayList<>();
+    try {
+      collection.walk(-1, -1, path -> {
+        segments.add(path);
+        if (segments.size() == 5) {
+          Thread.currentThread().interrupt();
+        }
+      }, path -> {});
+    } finally {
+      assertTrue(Thread.interrupted());
+    }
+    assertEquals(5, segments.size());
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FileSplitsTest extends LuceneTestCase {
+  @Test
+  public void testSplit() throws Exception {
+    Path dir = createTempDir();
+    Path path = dir.resolve("docs.jsonl");
+    List<String> expected = new ArrayList<>();
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      expected.add("doc" + i);
+      builder.append("{\"id\": \"doc").append(i).append("\", \"contents\": \"").append("résumé ".repeat(i % 50))
+          .append("\"}\n");
+    }
+    byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+    Files.write(path, bytes);
+
+    JsonCollection collection = new JsonCollection(dir);
+    assertTrue(collection.isSplittable(path));
+    assertFalse(collection.isSplittable(dir.resolve("docs.jsonl.gz")));
+    assertFalse(collection.isSplittable(dir.resolve("docs.json")));
+    assertFalse(new TrecCollection(dir).isSplittable(dir.resolve("docs.txt")));
+
+    long[] bounds = FileSplits.split(path, 4096);
+    assertTrue(bounds.length > 10);
+    assertEquals(0, bounds[0]);
+    assertEquals(bytes.length, bounds[bounds.length - 1]);
+    for (int i = 1; i < bounds.length - 1; i++) {
+      assertTrue(bounds[i] > bounds[i - 1]);
+      assertEquals('\n', bytes[(int) bounds[i] - 1]);
+    }
+
+    // The parts have the documents of the file, each exactly once.
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i + 1 < bounds.length; i++) {
+      try (FileSegment<JsonCollection.Document> segment = collection.createFileSegment(path, bounds[i], bounds[i + 1])) {
+        for (JsonCollection.Document doc : segment) {
+          ids.add(doc.id());
+        }
+        assertFalse(segment.getErrorStatus());
+      }
+    }
+    assertEquals(expected, ids);
+  }
+
+  @Test
+  public void testLongLines() throws Exception {
+    Path path = createTempDir().resolve("docs.jsonl");
+    String line = "{\"id\": \"doc\", \"contents\": \"" + "x".repeat(10000) + "\"}\n";
+    Files.write(path, (line + line + line).getBytes(StandardCharsets.UTF_8));
+
+    // A line longer than the split size is a part of its own.
+    long size = Files.size(path);
+    assertArrayEquals(new long[] {0, size / 3, 2 * size / 3, size}, FileSplits.split(path, 100));
+    // A file no larger than the split size isn't split.
+    assertArrayEquals(new long[] {0, size}, FileSplits.split(path, size));
+    // Nor is a file without a newline past the split size.
+    Path last = createTempDir().resolve("docs.jsonl");
+    Files.write(last, line.trim().getBytes(StandardCharsets.UTF_8));
+    assertArrayEquals(new long[] {0, Files.size(last)}, FileSplits.split(last, 100));
+  }
+
+  // A collection that can't split files only takes the range covering the whole file.
+  @Test
+  public void testUnsplittable() throws Exception {
+    Path path = Paths.get("src/test/resources/sample_docs/trec/collection1/segment1.txt");
+    TrecCollection collection = new TrecCollection(path.getParent());
+    assertFalse(collection.isSplittable(path));
+
+    List<String> ids = new ArrayList<>();
+    try (FileSegment<TrecCollection.Document> segment = collection.createFileSegment(path, 0, Files.size(path))) {
+      for (TrecCollection.Document doc : segment) {
+        ids.add(doc.id());
+      }
+    }
+    assertEquals(List.of("AP-0001", "doc2"), ids);
+
+    expectThrows(IllegalArgumentException.class, () -> collection.createFileSegment(path, 0, 10));
+  }
+}
@@ -48,14 +48,14 @@ public class JsonCollectionDocumentArrayCompressedTest extends JsonCollectionTes
     expected.put("doc1", Map.of("id", "doc1",
             "content", "this is the contents 1.",
             "raw", "{\n" +
-                    "  \"id\" : \"doc1\",\n" +
-                    "  \"contents\" : \"this is the contents 1.\"\n" +
-                    "}"));
+                    "    \"id\": \"doc1\",\n" +
+                    "    \"contents\": \"this is the contents 1.\"\n" +
+                    "  }"));
     expected.put("doc2", Map.of("id", "doc2",
             "content", "this is the contents 2.",
             "raw", "{\n" +
-                    "  \"id\" : \"doc2\",\n" +
-                    "  \"contents\" : \"this is the contents 2.\"\n" +
-                    "}"));
+                    "    \"id\": \"doc2\",\n" +
+                    "    \"contents\": \"this is the contents 2.\"\n" +
+                    "  }"));
   }
 }
@@ -0,0 +1,64 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class JsonCollectionStreamingTest extends LuceneTestCase {
+  @Test
+  public void testStreaming() throws Exception {
+    Path path = createTempDir().resolve("segment.jsonl");
+    Files.write(path, List.of(
+        "{\"id\": \"doc1\", \"contents\": \"braces { and \\\"quotes\\\" } in text\", \"title\": \"t1\", \"x\": {\"y\": [1]}}",
+        "{\"id\": \"doc2\", \"contents\": \"résumé\", \"title\": \"t2\"} {\"id\": 3, \"contents\": \"same line\"}",
+        "{\"id\": \"broken\", \"contents\": }",
+        "{\"id\": \"doc4\", \"contents\": \"last\"}"), StandardCharsets.UTF_8);
+
+    JsonCollection collection = new JsonCollection(path.getParent());
+    collection.setFields(Set.of("title"));
+
+    List<JsonCollection.Document> docs = new ArrayList<>();
+    try (FileSegment<JsonCollection.Document> segment = collection.createFileSegment(path)) {
+      segment.iterator().forEachRemaining(docs::add);
+      assertEquals(1, segment.getSkippedCount());
+      assertFalse(segment.getErrorStatus());
+    }
+
+    assertEquals(4, docs.size());
+    assertEquals("doc1", docs.get(0).id());
+    assertEquals("braces { and \"quotes\" } in text", docs.get(0).contents());
+    assertEquals("t1", docs.get(0).fields().get("title"));
+    // Fields that aren't asked for aren't extracted.
+    assertFalse(docs.get(0).fields().containsKey("x"));
+    // The raw document is the original text of the object.
+    assertEquals("{\"id\": \"doc1\", \"contents\": \"braces { and \\\"quotes\\\" } in text\", \"title\": \"t1\", " +
+        "\"x\": {\"y\": [1]}}", docs.get(0).raw());
+
+    assertEquals("résumé", docs.get(1).contents());
+    assertEquals("3", docs.get(2).id());
+    assertEquals("{\"id\": 3, \"contents\": \"same line\"}", docs.get(2).raw());
+    assertEquals("doc4", docs.get(3).id());
+  }
+}
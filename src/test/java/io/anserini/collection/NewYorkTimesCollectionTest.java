@@ -17,7 +17,11 @@
 package io.anserini.collection;
 
 import org.junit.Before;
+import org.junit.Test;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
@@ -59,4 +63,23 @@ public class NewYorkTimesCollectionTest extends DocumentCollectionTest<NewYorkTi
     assertEquals(expected.get("abstract"), nyt.getRawDocument().getArticleAbstract());
     assertEquals(expected.get("body"), nyt.getRawDocument().getBody());
   }
+
+  @Test
+  public void testStreamingParserSameAsDom() throws Exception {
+    Path segment = Paths.get("src/test/resources/sample_docs/nyt/collection1/segment1.xml");
+    File file = segment.toFile();
+    NewYorkTimesCollection.Parser parser = new NewYorkTimesCollection.Parser();
+
+    NewYorkTimesCollection.RawDocument dom;
+    try (BufferedReader reader = Files.newBufferedReader(segment)) {
+      dom = parser.parseNYTCorpusDocumentFromBufferedReader(reader, file);
+    }
+    NewYorkTimesCollection.RawDocument stax;
+    try (BufferedReader reader = Files.newBufferedReader(segment)) {
+      stax = parser.parseNYTCorpusDocumentFromReader(reader, file);
+    }
+
+    assertEquals(12345678, stax.getGuid());
+    assertEquals(dom.toString(), stax.toString());
+  }
 }
@@ -0,0 +1,99 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class StreamingHtmlStringTransformTest extends LuceneTestCase {
+  private static final StreamingHtmlStringTransform TRANSFORM = StreamingHtmlStringTransform.SINGLETON;
+
+  @Test
+  public void testSameAsJsoup() {
+    String[] pages = new String[] {
+        "<!DOCTYPE html><html><head><title>The  Title</title><script>var x = '<p>no</p>';</script>" +
+            "<style>p { color: red; }</style></head><body><p>Hello <b>wor</b>ld</p><p>Second &amp; para</p>" +
+            "<!-- comment <p>hidden</p> --><div>a<br>b</div><p><a href=\"x>y\" title='q'>link</a></p></body></html>",
+        "<html><body><h1>Heading</h1><ul><li>one</li><li>two</li></ul><table><tr><td>1</td><td>2</td></tr></table>" +
+            "</body></html>",
+        "plain text with &lt;entities&gt; &eacute; &#233; &#xE9;",
+        "<p>caf&eacute;&nbsp;&nbsp;au   lait</p>\n\n<p>\tnext</p>",
+    };
+    for (String page : pages) {
+      assertEquals(JsoupStringTransform.SINGLETON.apply(page), TRANSFORM.apply(page));
+    }
+  }
+
+  @Test
+  public void testMalformed() {
+    assertEquals("The Title Hello world Second & para a b link",
+        TRANSFORM.apply("<html><head><title>The  Title</title><script>var x = '<p>no</p>';</script></head>" +
+            "<body><p>Hello <b>wor</b>ld</p><p>Second &amp; para</p><!-- comment --><div>a<br>b</div>" +
+            "<a href=\"x>y\">link</a></body></html>"));
+    // A '<' that doesn't start a tag is text.
+    assertEquals("1 < 2", TRANSFORM.apply("1 < 2"));
+    // An unterminated tag, comment, or script runs to the end.
+    assertEquals("text with", TRANSFORM.apply("text with <unclosed"));
+    assertEquals("text", TRANSFORM.apply("text<!-- unclosed <p>comment"));
+    assertEquals("text", TRANSFORM.apply("text<script>never closed"));
+    // End tags match case-insensitively.
+    assertEquals("after", TRANSFORM.apply("<SCRIPT type=x>alert(1)</script >after"));
+    // Markup in raw text elements is text.
+    assertEquals("a <b> c d", TRANSFORM.apply("<textarea>a <b> c</textarea>d"));
+    assertEquals("", TRANSFORM.apply(""));
+  }
+
+  // Each collection hands its transform to its documents, without affecting other collections.
+  @Test
+  public void testCollectionTransform() throws Exception {
+    StringTransform marker = new StringTransform() {
+      @Override
+      public String apply(String s) {
+        return "transformed";
+      }
+    };
+    Path path = Paths.get("src/test/resources/sample_docs/trec/collection1");
+
+    TrecCollection collection = new TrecCollection(path);
+    collection.setHtmlTransform(marker);
+    TrecCollection other = new TrecCollection(path);
+    int count = 0;
+    for (FileSegment<TrecCollection.Document> segment : collection) {
+      for (TrecCollection.Document doc : segment) {
+        assertEquals("transformed", doc.contents());
+        count++;
+      }
+    }
+    assertEquals(2, count);
+    for (FileSegment<TrecCollection.Document> segment : other) {
+      for (TrecCollection.Document doc : segment) {
+        assertEquals(JsoupStringTransform.SINGLETON.apply(doc.raw()).trim(), doc.contents());
+      }
+    }
+
+    // Segments created directly get the transform set on them.
+    try (FileSegment<TrecCollection.Document> segment = collection.createFileSegment(path.resolve("segment1.txt"))) {
+      segment.setHtmlTransform(collection.getHtmlTransform());
+      for (TrecCollection.Document doc : segment) {
+        assertEquals("transformed", doc.contents());
+      }
+    }
+  }
+}
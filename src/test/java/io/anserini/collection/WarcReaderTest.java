@@ -0,0 +1,78 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.collection;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+public class WarcReaderTest extends LuceneTestCase {
+  private static String record(String id, String content) {
+    return "WARC/1.0\r\n" +
+        "WARC-Type: response\r\n" +
+        "WARC-TREC-ID: " + id + "\r\n" +
+        "Content-Length: " + content.getBytes(StandardCharsets.UTF_8).length + "\r\n" +
+        "\r\n" +
+        content + "\r\n\r\n";
+  }
+
+  @Test
+  public void testRecords() throws Exception {
+    // Longer than the buffer, so that content is read past it.
+    String longContent = "<html>" + "résumé ".repeat(300000) + "</html>";
+    String warc = "junk before the first record\n" + record("doc1", "<html>first</html>") + record("doc2", longContent) +
+        "WARC/1.0\r\nContent-Length: 100\r\n\r\ntruncated";
+
+    try (WarcReader reader = new WarcReader(new ByteArrayInputStream(warc.getBytes(StandardCharsets.UTF_8)))) {
+      StringBuilder header = new StringBuilder();
+      byte[] content = reader.readRecord("WARC/1.0", "Content-Length", header, 0);
+      assertEquals("WARC-Type: response\r\nWARC-TREC-ID: doc1\r\nContent-Length: 18\r\n", header.toString());
+      // The content starts right after the last header line read.
+      assertEquals("\r\n<html>first</htm", new String(content, StandardCharsets.UTF_8));
+
+      header = new StringBuilder();
+      content = reader.readRecord("WARC/1.0", "content-length", header, 2);
+      assertTrue(header.toString().contains("WARC-TREC-ID: doc2\r\n"));
+      assertEquals("\r\n" + longContent, new String(content, StandardCharsets.UTF_8));
+
+      expectThrows(NoSuchElementException.class, () -> reader.readRecord("WARC/1.0", "Content-Length",
+          new StringBuilder(), 0));
+    }
+  }
+
+  @Test
+  public void testNoContentLength() throws Exception {
+    String warc = "WARC/1.0\nWARC-Type: response\nContent-Length: abc\n\n";
+    try (WarcReader reader = new WarcReader(new ByteArrayInputStream(warc.getBytes(StandardCharsets.UTF_8)))) {
+      expectThrows(NoSuchElementException.class, () -> reader.readRecord("WARC/1.0", "Content-Length",
+          new StringBuilder(), 0));
+    }
+  }
+
+  @Test
+  public void testIndexOf() {
+    byte[] bytes = "ab\n<cd\n<".getBytes(StandardCharsets.US_ASCII);
+    byte[] target = "\n<".getBytes(StandardCharsets.US_ASCII);
+    assertEquals(2, WarcReader.indexOf(bytes, target, 0, bytes.length));
+    assertEquals(6, WarcReader.indexOf(bytes, target, 3, bytes.length));
+    assertEquals(-1, WarcReader.indexOf(bytes, target, 3, bytes.length - 1));
+    assertEquals(-1, WarcReader.indexOf(bytes, (byte) 'z', 0, bytes.length));
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.index;
+
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+public class DocStoreTest extends LuceneTestCase {
+  private static String raw(int i) {
+    return "{\"id\": \"doc" + i + "\", \"contents\": \"" + contents(i) + "\"}";
+  }
+
+  private static String contents(int i) {
+    // Long enough to compress, with a non-ASCII character to check the encoding.
+    return "résumé number " + i + " " + "repeated text ".repeat(i * 10);
+  }
+
+  private void testRoundTrip(DocStore.Compression compression) throws Exception {
+    try (Directory dir = new ByteBuffersDirectory()) {
+      try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(new EnglishAnalyzer()));
+           DocStore.Writer docStore = new DocStore.Writer(dir, DocStore.FIELDS, compression)) {
+        for (int i = 0; i < 10; i++) {
+          Document doc = new Document();
+          doc.add(new StringField(Constants.ID, "doc" + i, Field.Store.YES));
+          doc.add(new StoredField(Constants.RAW, raw(i)));
+          doc.add(new TextField(Constants.CONTENTS, contents(i), Field.Store.YES));
+          docStore.store(doc);
+          writer.addDocument(doc);
+          if (i % 3 == 0) {
+            writer.commit();
+          }
+        }
+        docStore.close();
+        // Offsets are carried along by merges.
+        writer.forceMerge(1);
+      }
+
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        for (int i = 0; i < 10; i++) {
+          int luceneDocid = IndexReaderUtils.convertDocidToLuceneDocid(reader, "doc" + i);
+
+          // The text is no longer in the stored fields...
+          Document stored = reader.storedFields().document(luceneDocid);
+          assertNull(stored.get(Constants.RAW));
+          assertNull(stored.get(Constants.CONTENTS));
+
+          // ... but in the docstore.
+          assertEquals(raw(i), DocStore.get(reader, Constants.RAW, luceneDocid));
+          assertEquals(contents(i), DocStore.get(reader, Constants.CONTENTS, luceneDocid));
+          assertEquals(raw(i), IndexReaderUtils.documentRaw(reader, "doc" + i));
+          assertEquals(contents(i), IndexReaderUtils.documentContents(reader, "doc" + i));
+          assertEquals(raw(i), IndexReaderUtils.document(reader, "doc" + i).get(Constants.RAW));
+        }
+
+        // The contents are still indexed.
+        assertEquals(10, new IndexSearcher(reader).count(new TermQuery(new Term(Constants.CONTENTS, "number"))));
+      }
+    }
+  }
+
+  @Test
+  public void testUncompressed() throws Exception {
+    testRoundTrip(DocStore.Compression.NONE);
+  }
+
+  @Test
+  public void testDeflate() throws Exception {
+    testRoundTrip(DocStore.Compression.DEFLATE);
+  }
+
+  // A thread reuses the fields it adds in place of the stored values across documents.
+  @Test
+  public void testReuse() throws Exception {
+    try (Directory dir = new ByteBuffersDirectory();
+         DocStore.Writer docStore = new DocStore.Writer(dir, DocStore.FIELDS, DocStore.Compression.NONE)) {
+      IndexableField[] first = null;
+      for (int i = 0; i < 2; i++) {
+        Document doc = new Document();
+        doc.add(new StoredField(Constants.RAW, raw(i)));
+        doc.add(new TextField(Constants.CONTENTS, contents(i), Field.Store.YES));
+        docStore.store(doc);
+
+        assertNull(doc.get(Constants.RAW));
+        IndexableField contents = doc.getField(Constants.CONTENTS);
+        assertFalse(contents.fieldType().stored());
+        assertEquals(contents(i), contents.stringValue());
+        IndexableField[] added = {contents, doc.getField(DocStore.offsetField(Constants.CONTENTS))};
+        if (first != null) {
+          assertSame(first[0], added[0]);
+          assertSame(first[1], added[1]);
+        }
+        first = added;
+      }
+    }
+  }
+
+  @Test
+  public void testNoDocStore() throws Exception {
+    try (Directory dir = new ByteBuffersDirectory()) {
+      try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(new EnglishAnalyzer()))) {
+        Document doc = new Document();
+        doc.add(new StringField(Constants.ID, "doc0", Field.Store.YES));
+        doc.add(new StoredField(Constants.RAW, raw(0)));
+        writer.addDocument(doc);
+      }
+
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        assertNull(DocStore.forReader(reader, Constants.RAW));
+        assertNull(DocStore.get(reader, Constants.RAW, 0));
+        // Falls back to the stored fields.
+        assertEquals(raw(0), IndexReaderUtils.documentRaw(reader, "doc0"));
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.index;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DocidRanksTest extends LuceneTestCase {
+  // Docids in no particular order, including some whose UTF-16 and UTF-8 orders differ.
+  private static final String[] IDS = {"doc7", "doc10", "x\uFFFD", "doc2", "x\uD83D\uDE00", "doc0", "doc9", "doc1"};
+
+  private static Path collection() throws Exception {
+    Path input = createTempDir();
+    for (int file = 0; file < 3; file++) {
+      StringBuilder json = new StringBuilder("[");
+      for (int i = file; i < IDS.length; i += 3) {
+        if (json.length() > 1) {
+          json.append(",");
+        }
+        json.append(String.format("{\"id\": \"%s\", \"contents\": \"contents of %s\"}", IDS[i], IDS[i]));
+      }
+      json.append("]");
+      Files.write(input.resolve("segment" + file + ".json"), json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    return input;
+  }
+
+  private static void index(Path input, Path index, boolean optimize) throws Exception {
+    IndexCollection.Args args = new IndexCollection.Args();
+    args.input = input.toString();
+    args.index = index.toString();
+    args.collectionClass = "JsonCollection";
+    args.threads = 2;
+    args.storeDocidRank = true;
+    args.optimize = optimize;
+    args.quiet = true;
+    new IndexCollection(args).run();
+  }
+
+  private static void checkRanks(Path index, boolean optimize) throws Exception {
+    List<String> sorted = new ArrayList<>(List.of(IDS));
+    sorted.sort(Comparator.comparing(BytesRef::new));
+    Map<String, Long> expected = new HashMap<>();
+    for (int i = 0; i < sorted.size(); i++) {
+      expected.put(sorted.get(i), (long) i);
+    }
+
+    try (Directory dir = FSDirectory.open(index);
+         DirectoryReader reader = DirectoryReader.open(dir)) {
+      assertEquals(IDS.length, reader.numDocs());
+      if (optimize) {
+        assertEquals(1, reader.leaves().size());
+      }
+
+      Map<String, Long> ranks = new HashMap<>();
+      for (LeafReaderContext context : reader.leaves()) {
+        LeafReader leaf = context.reader();
+        NumericDocValues values = leaf.getNumericDocValues(Constants.ID_RANK);
+        for (int i = 0; i < leaf.maxDoc(); i++) {
+          assertTrue(values.advanceExact(i));
+          ranks.put(leaf.storedFields().document(i).get(Constants.ID), values.longValue());
+        }
+      }
+      assertEquals(expected, ranks);
+    }
+  }
+
+  @Test
+  public void testIndexCollection() throws Exception {
+    Path input = collection();
+
+    Path index = createTempDir();
+    index(input, index, false);
+    checkRanks(index, false);
+  }
+
+  @Test
+  public void testIndexCollectionOptimized() throws Exception {
+    Path input = collection();
+
+    Path index = createTempDir();
+    index(input, index, true);
+    checkRanks(index, true);
+  }
+}
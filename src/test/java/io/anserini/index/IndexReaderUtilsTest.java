@@ -47,6 +47,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 public class IndexReaderUtilsTest extends IndexerTestBase {
 
@@ -519,6 +520,32 @@ public class IndexReaderUtilsTest extends IndexerTestBase {
     assertEquals(2, IndexReaderUtils.convertDocidToLuceneDocid(reader, "doc3"));
     assertEquals(-1, IndexReaderUtils.convertDocidToLuceneDocid(reader, "doc42"));
 
+    assertArrayEquals(new int[] {2, -1, 0, 1, 2},
+        IndexReaderUtils.convertDocidsToLuceneDocids(reader, List.of("doc3", "doc42", "doc1", "doc2", "doc3")));
+
+    reader.close();
+    dir.close();
+  }
+
+  @Test
+  public void testBulkDocuments() throws Exception {
+    Directory dir = FSDirectory.open(tempDir1);
+    IndexReader reader = DirectoryReader.open(dir);
+
+    assertArrayEquals(new int[] {3, 0, 2}, IndexReaderUtils.sortByLuceneDocid(new int[] {1, -1, 2, 0}));
+
+    Document[] docs = IndexReaderUtils.documents(reader, List.of("doc3", "doc42", "doc1"), null);
+    assertEquals(3, docs.length);
+    assertEquals("doc3", docs[0].get(Constants.ID));
+    assertEquals("here is a test", docs[0].get(Constants.CONTENTS));
+    assertNull(docs[1]);
+    assertEquals("doc1", docs[2].get(Constants.ID));
+
+    // Only the requested fields are loaded.
+    docs = IndexReaderUtils.documents(reader, List.of("doc2"), Set.of(Constants.ID));
+    assertEquals("doc2", docs[0].get(Constants.ID));
+    assertNull(docs[0].get(Constants.CONTENTS));
+
     reader.close();
     dir.close();
   }
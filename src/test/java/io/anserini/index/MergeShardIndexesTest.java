@@ -0,0 +1,137 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.index;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MergeShardIndexesTest extends LuceneTestCase {
+  private static void buildShard(Path path, String... ids) throws Exception {
+    try (Directory dir = FSDirectory.open(path);
+         IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+      for (String id : ids) {
+        Document doc = new Document();
+        doc.add(new StringField(Constants.ID, id, Field.Store.YES));
+        doc.add(new BinaryDocValuesField(Constants.ID, new BytesRef(id)));
+        doc.add(new NumericDocValuesField(Constants.ID_RANK, 0L));
+        doc.add(new TextField(Constants.CONTENTS, "text of " + id, Field.Store.NO));
+        writer.addDocument(doc);
+      }
+      writer.commit();
+    }
+  }
+
+  private static MergeShardIndexes.Args args(Path index, boolean optimize, Path... shards) {
+    MergeShardIndexes.Args args = new MergeShardIndexes.Args();
+    args.input = new String[shards.length];
+    for (int i = 0; i < shards.length; i++) {
+      args.input[i] = shards[i].toString();
+    }
+    args.index = index.toString();
+    args.optimize = optimize;
+    return args;
+  }
+
+  @Test
+  public void testMerge() throws Exception {
+    Path shard0 = createTempDir();
+    Path shard1 = createTempDir();
+    buildShard(shard0, "doc3", "doc1");
+    buildShard(shard1, "doc2", "doc4", "doc0");
+
+    Path index = createTempDir();
+    assertEquals(5, new MergeShardIndexes(args(index, true, shard0, shard1)).run());
+
+    try (Directory dir = FSDirectory.open(index);
+         DirectoryReader reader = DirectoryReader.open(dir)) {
+      assertEquals(5, reader.numDocs());
+      assertEquals(1, reader.leaves().size());
+
+      // Docid ranks are computed over the docids of all the shards.
+      LeafReader leaf = reader.leaves().get(0).reader();
+      NumericDocValues ranks = leaf.getNumericDocValues(Constants.ID_RANK);
+      Map<String, Long> rankOf = new HashMap<>();
+      for (int i = 0; i < leaf.maxDoc(); i++) {
+        assertTrue(ranks.advanceExact(i));
+        rankOf.put(leaf.storedFields().document(i).get(Constants.ID), ranks.longValue());
+      }
+      assertEquals(Map.of("doc0", 0L, "doc1", 1L, "doc2", 2L, "doc3", 3L, "doc4", 4L), rankOf);
+    }
+  }
+
+  @Test
+  public void testMergeSegments() throws Exception {
+    Path shard0 = createTempDir();
+    Path shard1 = createTempDir();
+    buildShard(shard0, "doc3", "doc1");
+    buildShard(shard1, "doc2", "doc4", "doc0");
+
+    Path index = createTempDir();
+    assertEquals(5, new MergeShardIndexes(args(index, false, shard0, shard1)).run());
+
+    try (Directory dir = FSDirectory.open(index);
+         DirectoryReader reader = DirectoryReader.open(dir)) {
+      // One segment per shard segment, each with ranks over all the shards.
+      assertEquals(2, reader.leaves().size());
+      Map<String, Long> rankOf = new HashMap<>();
+      for (LeafReaderContext context : reader.leaves()) {
+        LeafReader leaf = context.reader();
+        NumericDocValues ranks = leaf.getNumericDocValues(Constants.ID_RANK);
+        for (int i = 0; i < leaf.maxDoc(); i++) {
+          assertTrue(ranks.advanceExact(i));
+          rankOf.put(leaf.storedFields().document(i).get(Constants.ID), ranks.longValue());
+        }
+      }
+      assertEquals(Map.of("doc0", 0L, "doc1", 1L, "doc2", 2L, "doc3", 3L, "doc4", 4L), rankOf);
+    }
+  }
+
+  @Test
+  public void testInvalidShards() throws Exception {
+    Path shard0 = createTempDir();
+    Path shard1 = createTempDir();
+    buildShard(shard0, "doc0");
+    buildShard(shard1, "doc1");
+
+    expectThrows(IllegalArgumentException.class,
+        () -> new MergeShardIndexes(args(shard1, false, shard0, shard1)).run());
+
+    Files.write(shard1.resolve(DocStore.fileName(Constants.RAW)), new byte[0]);
+    expectThrows(IllegalArgumentException.class,
+        () -> new MergeShardIndexes(args(createTempDir(), false, shard0, shard1)).run());
+  }
+}
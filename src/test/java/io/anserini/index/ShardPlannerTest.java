@@ -0,0 +1,96 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.index;
+
+import io.anserini.collection.JsonCollection;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ShardPlannerTest extends LuceneTestCase {
+  @Test
+  public void testPlan() throws Exception {
+    Path dir = createTempDir();
+    int[] sizes = new int[] {100, 90, 50, 40, 30, 20, 10, 5, 5};
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < sizes.length; i++) {
+      Path subdir = Files.createDirectories(dir.resolve("part" + (i % 2)));
+      Files.write(subdir.resolve("file" + i + ".jsonl"), new byte[sizes[i]]);
+      expected.add("part" + (i % 2) + "/file" + i + ".jsonl");
+    }
+    Files.write(dir.resolve("bundle.zip"), new byte[60]);
+
+    ShardManifest manifest = ShardPlanner.plan(new JsonCollection(dir), 3);
+    assertEquals("JsonCollection", manifest.collectionClass);
+    assertEquals(3, manifest.shards.size());
+
+    // Each file is in exactly one shard, and the shards are balanced: 410 bytes in all.
+    List<String> files = new ArrayList<>();
+    List<String> archives = new ArrayList<>();
+    long min = Long.MAX_VALUE;
+    long max = 0;
+    for (int i = 0; i < manifest.shards.size(); i++) {
+      ShardManifest.Shard shard = manifest.getShard(i);
+      assertEquals(i, shard.shard);
+      files.addAll(shard.files);
+      archives.addAll(shard.archives);
+      min = Math.min(min, shard.bytes);
+      max = Math.max(max, shard.bytes);
+    }
+    Collections.sort(expected);
+    Collections.sort(files);
+    assertEquals(expected, files);
+    assertEquals(List.of("bundle.zip"), archives);
+    assertEquals(140, max);
+    assertEquals(135, min);
+
+    // The largest files go to different shards.
+    assertEquals("part0/file0.jsonl", manifest.getShard(0).files.get(0));
+    assertEquals("part1/file1.jsonl", manifest.getShard(1).files.get(0));
+    assertEquals(List.of("bundle.zip"), manifest.getShard(2).archives);
+
+    expectThrows(IllegalArgumentException.class, () -> manifest.getShard(3));
+    expectThrows(IllegalArgumentException.class, () -> ShardPlanner.plan(new JsonCollection(dir), 0));
+  }
+
+  @Test
+  public void testManifest() throws Exception {
+    Path dir = createTempDir();
+    Files.write(dir.resolve("a.jsonl"), new byte[20]);
+    Files.write(dir.resolve("b.jsonl"), new byte[10]);
+    ShardManifest manifest = ShardPlanner.plan(new JsonCollection(dir), 2);
+
+    Path path = createTempDir().resolve("manifest.json");
+    manifest.write(path);
+    ShardManifest read = ShardManifest.read(path);
+    assertEquals("JsonCollection", read.collectionClass);
+    assertEquals(2, read.shards.size());
+    assertEquals(List.of("a.jsonl"), read.getShard(0).files);
+    assertEquals(20, read.getShard(0).bytes);
+    assertEquals(List.of("b.jsonl"), read.getShard(1).files);
+
+    // Paths are relative to the collection, wherever it is.
+    Path elsewhere = createTempDir();
+    assertEquals(List.of(elsewhere.resolve("b.jsonl")), read.getShard(1).getSegmentPaths(elsewhere));
+    assertTrue(read.getShard(1).getArchivePaths(elsewhere).isEmpty());
+  }
+}
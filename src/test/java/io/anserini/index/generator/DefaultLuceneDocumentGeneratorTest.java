@@ -0,0 +1,88 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.index.generator;
+
+import io.anserini.collection.JsonCollection;
+import io.anserini.index.Constants;
+import io.anserini.index.IndexCollection;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DefaultLuceneDocumentGeneratorTest {
+  private static IndexCollection.Args args() {
+    IndexCollection.Args args = new IndexCollection.Args();
+    args.storeRaw = true;
+    args.storePositions = true;
+    args.fields = new String[] {"title"};
+    return args;
+  }
+
+  private static void checkDocument(Document doc, String id, String contents, String title) {
+    assertEquals(id, doc.get(Constants.ID));
+    assertEquals(new BytesRef(id), doc.getBinaryValue(Constants.ID));
+    assertEquals(contents, doc.get(Constants.CONTENTS));
+    assertEquals(title, doc.get("title"));
+    assertTrue(doc.getField(Constants.RAW).stringValue().contains(contents));
+    assertEquals(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS,
+        doc.getField(Constants.CONTENTS).fieldType().indexOptions());
+  }
+
+  @Test
+  public void testDocuments() throws Exception {
+    DefaultLuceneDocumentGenerator<JsonCollection.Document> generator = new DefaultLuceneDocumentGenerator<>(args());
+
+    Document doc1 = generator.createDocument(JsonCollection.Document.fromString(
+        "{\"id\": \"doc1\", \"contents\": \"first document\", \"title\": \"First\"}"));
+    Document doc2 = generator.createDocument(JsonCollection.Document.fromString(
+        "{\"id\": \"doc2\", \"contents\": \"second\"}"));
+
+    // Without reuse, each document is independent.
+    assertNotSame(doc1, doc2);
+    checkDocument(doc1, "doc1", "first document", "First");
+    checkDocument(doc2, "doc2", "second", null);
+  }
+
+  @Test
+  public void testReusedDocuments() throws Exception {
+    DefaultLuceneDocumentGenerator<JsonCollection.Document> generator = new DefaultLuceneDocumentGenerator<>(args());
+    generator.setReuseDocuments(true);
+
+    Document doc1 = generator.createDocument(JsonCollection.Document.fromString(
+        "{\"id\": \"a-much-longer-docid\", \"contents\": \"first document\", \"title\": \"First\"}"));
+    checkDocument(doc1, "a-much-longer-docid", "first document", "First");
+
+    Document doc2 = generator.createDocument(JsonCollection.Document.fromString(
+        "{\"id\": \"doc2\", \"contents\": \"second\"}"));
+    assertSame(doc1, doc2);
+    // No fields are left over from the previous document.
+    checkDocument(doc2, "doc2", "second", null);
+    assertEquals(1, doc2.getFields(Constants.CONTENTS).length);
+
+    Document doc3 = generator.createDocument(JsonCollection.Document.fromString(
+        "{\"id\": \"doc3\", \"contents\": \"third\", \"title\": \"Third\"}"));
+    checkDocument(doc3, "doc3", "third", "Third");
+    assertNull(doc3.get("unknown"));
+  }
+}
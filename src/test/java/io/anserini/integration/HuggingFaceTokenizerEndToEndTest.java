@@ -47,15 +47,15 @@ public class HuggingFaceTokenizerEndToEndTest extends EndToEndTest {
     referenceDocs.put("7187163", Map.of(
         "contents", "Racial scandals aren't always bad for business. Just ask Paula Deen's brother.",
         "raw","{\n" +
-            "  \"id\" : \"7187163\",\n" +
-            "  \"contents\" : \"Racial scandals aren't always bad for business. Just ask Paula Deen's brother.\"\n" +
-            "}"));
+            "    \"id\": \"7187163\",\n" +
+            "    \"contents\": \"Racial scandals aren't always bad for business. Just ask Paula Deen's brother.\"\n" +
+            "  }"));
     referenceDocs.put("7546327", Map.of(
         "contents", "What happened to Paula Deen's first husband? kgb answers Arts & Entertainment",
         "raw","{\n" +
-            "  \"id\" : \"7546327\",\n" +
-            "  \"contents\" : \"What happened to Paula Deen's first husband? kgb answers Arts & Entertainment\"\n" +
-            "}"
+            "    \"id\": \"7546327\",\n" +
+            "    \"contents\": \"What happened to Paula Deen's first husband? kgb answers Arts & Entertainment\"\n" +
+            "  }"
     ));
 
     fieldNormStatusTotalFields = 1;
@@ -45,15 +45,15 @@ public class JsonEndToEndPretokenizedTest extends EndToEndTest {
     referenceDocs.put("2000000", Map.of(
       "contents", "this was ##a simple pretokenized test",
       "raw","{\n" +
-      "  \"id\" : \"2000000\",\n" +
-      "  \"contents\" : \"this was ##a simple pretokenized test\"\n" +
-      "}"));
+      "    \"id\": \"2000000\",\n" +
+      "    \"contents\": \"this was ##a simple pretokenized test\"\n" +
+      "  }"));
     referenceDocs.put("2000001", Map.of(
       "contents", "some time extra ##vert ##ing and some time intro ##vert ##ing",
       "raw","{\n" +
-      "  \"id\" : \"2000001\",\n" +
-      "  \"contents\" : \"some time extra ##vert ##ing and some time intro ##vert ##ing\"\n" +
-      "}"
+      "    \"id\": \"2000001\",\n" +
+      "    \"contents\": \"some time extra ##vert ##ing and some time intro ##vert ##ing\"\n" +
+      "  }"
     ));
     referenceDocTokens.put("2000000", Map.of(
       "contents", List.of("this", "was", "##a", "simple", "pretokenized", "test")));
@@ -0,0 +1,170 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.ltr;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class TreeEnsembleTest extends LuceneTestCase {
+  // Three trees over two features. The third tree has its leaves numbered out of left-to-right order, which is what
+  // LightGBM typically produces.
+  private static final String MODEL = String.join("\n",
+      "tree",
+      "version=v3",
+      "num_class=1",
+      "num_tree_per_iteration=1",
+      "label_index=0",
+      "max_feature_idx=1",
+      "objective=lambdarank",
+      "feature_names=f0 f1",
+      "",
+      "Tree=0",
+      "num_leaves=3",
+      "num_cat=0",
+      "split_feature=0 1",
+      "threshold=0.5 2.0",
+      "left_child=-1 -2",
+      "right_child=1 -3",
+      "leaf_value=1.0 2.0 3.0",
+      "shrinkage=1",
+      "",
+      "Tree=1",
+      "num_leaves=2",
+      "num_cat=0",
+      "split_feature=1",
+      "threshold=1.0",
+      "left_child=-1",
+      "right_child=-2",
+      "leaf_value=-0.5 0.5",
+      "shrinkage=0.1",
+      "",
+      "Tree=2",
+      "num_leaves=3",
+      "num_cat=0",
+      "split_feature=0 0",
+      "threshold=1.5 0.2",
+      "left_child=1 -3",
+      "right_child=-1 -2",
+      "leaf_value=10 30 20",
+      "shrinkage=0.1",
+      "",
+      "end of trees",
+      "",
+      "feature_importances:");
+
+  // Splits that treat NaN (decision_type=8: default right) and zero (decision_type=6: default left) as missing, and a
+  // split with the default left bit but no missing type (decision_type=2), which is a plain comparison.
+  private static final String MISSING_MODEL = String.join("\n",
+      "tree",
+      "version=v3",
+      "num_class=1",
+      "num_tree_per_iteration=1",
+      "label_index=0",
+      "max_feature_idx=1",
+      "objective=lambdarank",
+      "feature_names=f0 f1",
+      "",
+      "Tree=0",
+      "num_leaves=2",
+      "num_cat=0",
+      "split_feature=0",
+      "threshold=0.5",
+      "decision_type=8",
+      "left_child=-1",
+      "right_child=-2",
+      "leaf_value=1 2",
+      "shrinkage=1",
+      "",
+      "Tree=1",
+      "num_leaves=2",
+      "num_cat=0",
+      "split_feature=1",
+      "threshold=-1.0",
+      "decision_type=6",
+      "left_child=-1",
+      "right_child=-2",
+      "leaf_value=10 20",
+      "shrinkage=0.1",
+      "",
+      "Tree=2",
+      "num_leaves=2",
+      "num_cat=0",
+      "split_feature=1",
+      "threshold=0.5",
+      "decision_type=2",
+      "left_child=-1",
+      "right_child=-2",
+      "leaf_value=100 200",
+      "shrinkage=0.1",
+      "",
+      "end of trees");
+
+  @Test
+  public void testParse() throws IOException {
+    TreeEnsemble model = TreeEnsemble.fromLightGbmString(MODEL);
+    assertEquals(3, model.getNumTrees());
+    assertEquals(Arrays.asList("f0", "f1"), model.getFeatureNames());
+  }
+
+  @Test
+  public void testScore() throws IOException {
+    TreeEnsemble model = TreeEnsemble.fromLightGbmString(MODEL);
+
+    assertEquals(20.5f, model.score(new float[]{0.0f, 0.0f}), 1e-6f);
+    assertEquals(33.5f, model.score(new float[]{1.0f, 3.0f}), 1e-6f);
+    assertEquals(12.5f, model.score(new float[]{2.0f, 1.5f}), 1e-6f);
+    // Values equal to the threshold go left.
+    assertEquals(30.5f, model.score(new float[]{0.5f, 1.0f}), 1e-6f);
+  }
+
+  @Test
+  public void testBatchScore() throws IOException {
+    TreeEnsemble model = TreeEnsemble.fromLightGbmString(MODEL);
+
+    float[] scores = model.score(new float[][]{{0.0f, 0.0f}, {1.0f, 3.0f}, {2.0f, 1.5f}, {0.5f, 1.0f}});
+    assertArrayEquals(new float[]{20.5f, 33.5f, 12.5f, 30.5f}, scores, 1e-6f);
+  }
+
+  @Test
+  public void testMissingValues() throws IOException {
+    TreeEnsemble model = TreeEnsemble.fromLightGbmString(MISSING_MODEL);
+
+    // Zero is missing for the split on f1 at -1.0, so it takes the default (left) child.
+    assertEquals(111f, model.score(new float[]{0.0f, 0.0f}), 1e-6f);
+    // NaN is missing for the split on f0, so it takes the default (right) child.
+    assertEquals(222f, model.score(new float[]{Float.NaN, 2.0f}), 1e-6f);
+    // NaN is zero for splits where NaN isn't missing: missing for the split at -1.0, and left at 0.5.
+    assertEquals(112f, model.score(new float[]{1.0f, Float.NaN}), 1e-6f);
+    // Other values are compared with the threshold.
+    assertEquals(221f, model.score(new float[]{0.2f, 0.7f}), 1e-6f);
+    assertArrayEquals(new float[]{111f, 222f, 112f, 221f}, model.score(
+        new float[][]{{0.0f, 0.0f}, {Float.NaN, 2.0f}, {1.0f, Float.NaN}, {0.2f, 0.7f}}), 1e-6f);
+  }
+
+  @Test(expected = IOException.class)
+  public void testCategoricalSplitsRejected() throws IOException {
+    TreeEnsemble.fromLightGbmString(MODEL.replaceFirst("num_cat=0", "num_cat=1"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testCategoricalDecisionTypeRejected() throws IOException {
+    TreeEnsemble.fromLightGbmString(MISSING_MODEL.replaceFirst("decision_type=8", "decision_type=9"));
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.rerank.lib;
+
+import ai.djl.modality.nlp.Vocabulary;
+import ai.djl.modality.nlp.bert.BertFullTokenizer;
+import ai.onnxruntime.OrtException;
+import io.anserini.rerank.Reranker;
+import io.anserini.rerank.RerankerCascade;
+import io.anserini.rerank.RerankerContext;
+import io.anserini.rerank.ScoredDocuments;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CrossEncoderRerankerTest extends LuceneTestCase {
+  private Vocabulary vocabulary() throws Exception {
+    Path path = createTempDir().resolve("vocab.txt");
+    Files.write(path, List.of("[PAD]", "[UNK]", "[CLS]", "[SEP]", "the", "quick", "fox", "##es", "Apple", "apple"));
+    return CrossEncoderReranker.loadVocabulary(path);
+  }
+
+  @Test
+  public void testTokenize() throws Exception {
+    Vocabulary vocab = vocabulary();
+
+    assertEquals(List.of("apple", "fox", "##es"), new BertFullTokenizer(vocab, true).tokenize("Apple foxes"));
+    assertEquals(List.of("Apple", "fox", "##es"), new BertFullTokenizer(vocab, false).tokenize("Apple foxes"));
+  }
+
+  @Test
+  public void testEncodePair() throws Exception {
+    Vocabulary vocab = vocabulary();
+
+    assertArrayEquals(new long[]{2, 4, 3, 5, 6, 7, 3},
+        CrossEncoderReranker.encodePair(vocab, List.of("the"), List.of("quick", "fox", "##es"), 512));
+    // The passage is truncated to fit the maximum length.
+    assertArrayEquals(new long[]{2, 4, 3, 5, 6, 3},
+        CrossEncoderReranker.encodePair(vocab, List.of("the"), List.of("quick", "fox", "##es"), 6));
+    // Unknown tokens map to [UNK].
+    assertArrayEquals(new long[]{2, 1, 3, 3},
+        CrossEncoderReranker.encodePair(vocab, List.of("dog"), List.of(), 512));
+  }
+
+  @Test
+  public void testMaxLength() {
+    // Rejected before the model or the vocabulary is read.
+    Path missing = createTempDir().resolve("missing");
+    expectThrows(IllegalArgumentException.class,
+        () -> new CrossEncoderReranker(missing, missing, true, "contents", 100, 8, 2, 1));
+  }
+
+  @Test
+  public void testBatchInputs() {
+    long[][] pairs = new long[][]{{2, 4, 3, 5, 3}, {2, 4, 3, 3}, {2, 4, 3, 5, 6, 7, 3}};
+    Integer[] order = CrossEncoderReranker.byLength(pairs);
+    assertArrayEquals(new Integer[]{1, 0, 2}, order);
+
+    // The first batch is padded to its own longest pair, not to the longest pair overall.
+    long[][][] batch = CrossEncoderReranker.batchInputs(pairs, order, 0, 2, 0, 3);
+    assertArrayEquals(new long[][]{{2, 4, 3, 3, 0}, {2, 4, 3, 5, 3}}, batch[0]);
+    assertArrayEquals(new long[][]{{1, 1, 1, 1, 0}, {1, 1, 1, 1, 1}}, batch[1]);
+    assertArrayEquals(new long[][]{{0, 0, 0, 1, 0}, {0, 0, 0, 1, 1}}, batch[2]);
+
+    batch = CrossEncoderReranker.batchInputs(pairs, order, 2, 3, 0, 3);
+    assertArrayEquals(new long[][]{{2, 4, 3, 5, 6, 7, 3}}, batch[0]);
+  }
+
+  @Test
+  public void testScores() throws Exception {
+    // Single-logit heads, with [batch] and [batch, 1] outputs.
+    assertArrayEquals(new float[]{0.5f, -1.0f},
+        CrossEncoderReranker.scores(new float[]{0.5f, -1.0f}, 2), 1e-6f);
+    assertArrayEquals(new float[]{0.5f, -1.0f},
+        CrossEncoderReranker.scores(new float[][]{{0.5f}, {-1.0f}}, 2), 1e-6f);
+    // Two-class heads: log-probability of the relevant class.
+    assertArrayEquals(new float[]{(float) Math.log(0.5), (float) -Math.log1p(Math.exp(-2.0))},
+        CrossEncoderReranker.scores(new float[][]{{0.0f, 0.0f}, {-1.0f, 1.0f}}, 2), 1e-6f);
+
+    expectThrows(OrtException.class, () -> CrossEncoderReranker.scores(new float[]{0.5f}, 2));
+    expectThrows(OrtException.class, () -> CrossEncoderReranker.scores(new float[][]{{0.0f, 0.0f, 0.0f}}, 1));
+    expectThrows(OrtException.class, () -> CrossEncoderReranker.scores(new long[]{1}, 1));
+  }
+
+  private static class ClosingReranker implements Reranker<String>, Closeable {
+    private final AtomicInteger closed;
+
+    ClosingReranker(AtomicInteger closed) {
+      this.closed = closed;
+    }
+
+    @Override
+    public ScoredDocuments rerank(ScoredDocuments docs, RerankerContext<String> context) {
+      return docs;
+    }
+
+    @Override
+    public String tag() {
+      return "";
+    }
+
+    @Override
+    public void close() {
+      closed.incrementAndGet();
+    }
+  }
+
+  @Test
+  public void testCascadeClose() throws Exception {
+    AtomicInteger closed = new AtomicInteger();
+    RerankerCascade cascade = new RerankerCascade();
+    cascade.add(new ClosingReranker(closed));
+    cascade.add(new ScoreTiesAdjusterReranker());
+    cascade.add(new ClosingReranker(closed));
+
+    cascade.close();
+    assertEquals(2, closed.get());
+  }
+}
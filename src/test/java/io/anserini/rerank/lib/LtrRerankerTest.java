@@ -0,0 +1,95 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.rerank.lib;
+
+import io.anserini.index.Constants;
+import io.anserini.index.IndexerTestBase;
+import io.anserini.ltr.TreeEnsemble;
+import io.anserini.ltr.feature.DocSize;
+import io.anserini.rerank.RerankerContext;
+import io.anserini.rerank.ScoredDocuments;
+import io.anserini.search.SearchCollection;
+import io.anserini.search.query.BagOfWordsQueryGenerator;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.Test;
+
+import java.util.List;
+
+public class LtrRerankerTest extends IndexerTestBase {
+  // Prefers short documents: doc1 has 8 terms, doc2 has 2.
+  private static final String MODEL = String.join("\n",
+      "tree",
+      "version=v3",
+      "num_class=1",
+      "feature_names=contents_DocSize",
+      "",
+      "Tree=0",
+      "num_leaves=2",
+      "num_cat=0",
+      "split_feature=0",
+      "threshold=5",
+      "decision_type=2",
+      "left_child=-1",
+      "right_child=-2",
+      "leaf_value=1 -1",
+      "shrinkage=1",
+      "",
+      "end of trees");
+
+  @Test
+  public void testRerank() throws Exception {
+    Query query = new BagOfWordsQueryGenerator().buildQuery(Constants.CONTENTS, new EnglishAnalyzer(), "text");
+    try (IndexReader reader = DirectoryReader.open(FSDirectory.open(tempDir1))) {
+      IndexSearcher searcher = new IndexSearcher(reader);
+      ScoredDocuments docs = ScoredDocuments.fromTopDocs(searcher.search(query, 10), searcher);
+      assertEquals(2, docs.documents.length);
+
+      RerankerContext<String> context = new RerankerContext<>(searcher, "q1", query, null, "text",
+          List.of("text"), null, new SearchCollection.Args());
+      LtrReranker reranker = new LtrReranker(TreeEnsemble.fromLightGbmString(MODEL), List.of(new DocSize()),
+          "analyzed", 10);
+
+      // The same extractors are reused for every query on this thread.
+      for (int i = 0; i < 2; i++) {
+        ScoredDocuments reranked = reranker.rerank(docs, context);
+        assertEquals(2, reranked.documents.length);
+        assertEquals("doc2", reranked.documents[0].get(Constants.ID));
+        assertEquals(1.0f, reranked.scores[0], 1e-6f);
+        assertEquals("doc1", reranked.documents[1].get(Constants.ID));
+        assertEquals(-1.0f, reranked.scores[1], 1e-6f);
+      }
+
+      // Only the top candidates are reranked and returned.
+      reranker = new LtrReranker(TreeEnsemble.fromLightGbmString(MODEL), List.of(new DocSize()), "analyzed", 1);
+      ScoredDocuments reranked = reranker.rerank(docs, context);
+      assertEquals(1, reranked.documents.length);
+      assertEquals(docs.ids[0], reranked.ids[0]);
+    }
+  }
+
+  @Test
+  public void testTooFewExtractors() throws Exception {
+    TreeEnsemble model = TreeEnsemble.fromLightGbmString(MODEL.replace("feature_names=contents_DocSize",
+        "feature_names=f0 f1"));
+    expectThrows(IllegalArgumentException.class, () -> new LtrReranker(model, List.of(new DocSize()), "analyzed", 10));
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BatchExecutorTest extends LuceneTestCase {
+  private static List<Integer> inputs(int n) {
+    List<Integer> inputs = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      inputs.add(i);
+    }
+    return inputs;
+  }
+
+  @Test
+  public void testMap() {
+    try (BatchExecutor executor = new BatchExecutor("test")) {
+      Integer[] outputs = executor.map(inputs(1000), 4, i -> 2 * i, Integer[]::new);
+      for (int i = 0; i < outputs.length; i++) {
+        assertEquals(2 * i, (int) outputs[i]);
+      }
+      assertEquals(0, executor.map(inputs(0), 4, i -> i, Integer[]::new).length);
+
+      CompletionException e = expectThrows(CompletionException.class, () -> executor.map(inputs(100), 3, i -> {
+        if (i == 50) {
+          throw new IllegalStateException("fail");
+        }
+        return i;
+      }, Integer[]::new));
+      assertEquals("fail", e.getCause().getMessage());
+    }
+  }
+
+  // A batch never runs more tasks at once than the threads it asked for, even once the pool has grown larger.
+  @Test
+  public void testThreadsPerBatch() {
+    try (BatchExecutor executor = new BatchExecutor("test")) {
+      executor.map(inputs(10), 8, i -> i, Integer[]::new);
+
+      AtomicInteger running = new AtomicInteger();
+      AtomicInteger maxRunning = new AtomicInteger();
+      executor.map(inputs(50), 2, i -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(1);
+        running.decrementAndGet();
+        return i;
+      }, Integer[]::new);
+      assertTrue(maxRunning.get() <= 2);
+    }
+  }
+
+  // Cancelling a batch through its handle leaves other batches on the same executor alone.
+  @Test
+  public void testCancel() throws Exception {
+    try (BatchExecutor executor = new BatchExecutor("test")) {
+      BatchExecutor.Handle handle = new BatchExecutor.Handle();
+      CountDownLatch started = new CountDownLatch(1);
+      AtomicReference<Throwable> cancelled = new AtomicReference<>();
+      Thread slow = new Thread(() -> {
+        try {
+          executor.map(inputs(1000), 2, i -> {
+            started.countDown();
+            Thread.sleep(5);
+            return i;
+          }, Integer[]::new, handle);
+        } catch (Throwable t) {
+          cancelled.set(t);
+        }
+      });
+      slow.start();
+      started.await();
+
+      handle.cancel();
+      assertEquals(100, executor.map(inputs(100), 2, i -> i, Integer[]::new).length);
+      slow.join();
+      assertTrue(cancelled.get() instanceof CancellationException);
+
+      // A cancelled handle cancels any batch it is passed to.
+      expectThrows(CancellationException.class, () -> executor.map(inputs(10), 2, i -> i, Integer[]::new, handle));
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import io.anserini.index.Constants;
+import io.anserini.search.similarity.ImpactSimilarity;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class ImpactQueryProcessorTest extends LuceneTestCase {
+  private static final int NUM_DOCS = 300;
+  private static final Map<String, Integer> WEIGHTS = Map.of("a", 2, "b", 1, "c", 3);
+
+  // Quantized impacts take few distinct values, so most documents tie with many others. Collection docids are assigned
+  // out of Lucene docid order, and some of them order differently as UTF-16 strings and as UTF-8 bytes.
+  private static Path buildIndex() throws Exception {
+    Path path = createTempDir();
+    FieldType impacts = new FieldType();
+    impacts.setIndexOptions(IndexOptions.DOCS_AND_FREQS);
+    impacts.setTokenized(true);
+
+    IndexWriterConfig config = new IndexWriterConfig(new WhitespaceAnalyzer());
+    config.setMergePolicy(NoMergePolicy.INSTANCE);
+    try (Directory dir = FSDirectory.open(path);
+         IndexWriter writer = new IndexWriter(dir, config)) {
+      for (int i = 0; i < NUM_DOCS; i++) {
+        String id = String.format("doc%03d", (i * 37) % NUM_DOCS);
+        if (i % 50 == 0) {
+          id = "x\uFFFD" + i;
+        } else if (i % 50 == 1) {
+          id = "x\uD83D\uDE00" + i;
+        }
+        StringBuilder contents = new StringBuilder();
+        contents.append("a ".repeat(i % 3 + 1));
+        if (i % 2 == 0) {
+          contents.append("b ");
+        }
+        if (i % 5 == 0) {
+          contents.append("c ".repeat(i % 10 == 0 ? 2 : 1));
+        }
+
+        Document doc = new Document();
+        doc.add(new StringField(Constants.ID, id, Field.Store.YES));
+        doc.add(new BinaryDocValuesField(Constants.ID, new BytesRef(id)));
+        doc.add(new Field(Constants.CONTENTS, contents.toString(), impacts));
+        writer.addDocument(doc);
+        if (i % 100 == 99) {
+          writer.commit();
+        }
+      }
+    }
+    return path;
+  }
+
+  private static Query query() {
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    for (Map.Entry<String, Integer> entry : WEIGHTS.entrySet()) {
+      builder.add(new BoostQuery(new TermQuery(new Term(Constants.CONTENTS, entry.getKey())), entry.getValue()),
+          BooleanClause.Occur.SHOULD);
+    }
+    return builder.build();
+  }
+
+  private static void assertSameHits(TopDocs expected, TopDocs actual) {
+    assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+    for (int i = 0; i < expected.scoreDocs.length; i++) {
+      assertEquals("hit " + i, expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+      assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 1e-6f);
+    }
+  }
+
+  @Test
+  public void testTies() throws Exception {
+    try (Directory dir = FSDirectory.open(buildIndex());
+         IndexReader reader = DirectoryReader.open(dir)) {
+      assertEquals(3, reader.leaves().size());
+      IndexSearcher searcher = new IndexSearcher(reader);
+      searcher.setSimilarity(new ImpactSimilarity());
+      ImpactQueryProcessor processor = new ImpactQueryProcessor(reader);
+
+      for (int k : new int[]{1, 5, 10, 37, 100, NUM_DOCS}) {
+        // Ties broken by collection docid.
+        TopDocs expected = TieBreakingTopDocsCollector.search(searcher, query(), k);
+        assertSameHits(expected, processor.search(WEIGHTS, k, 0, true));
+        // A budget that covers all the postings gives exact results.
+        assertSameHits(expected, processor.search(WEIGHTS, k, 10 * NUM_DOCS, true));
+
+        // Ties broken by Lucene docid.
+        expected = searcher.search(query(), k);
+        assertSameHits(expected, processor.search(WEIGHTS, k, 0, false));
+        assertSameHits(expected, processor.search(WEIGHTS, k, 10 * NUM_DOCS, false));
+      }
+    }
+  }
+
+  @Test
+  public void testDeadline() throws Exception {
+    try (Directory dir = FSDirectory.open(buildIndex());
+         IndexReader reader = DirectoryReader.open(dir)) {
+      QueryDeadline deadline = QueryDeadline.afterMillis(1);
+      while (!deadline.isExpired()) {
+        Thread.sleep(1);
+      }
+
+      TopDocs rs = new ImpactQueryProcessor(reader).search(WEIGHTS, 10, 0, true, deadline);
+      assertEquals(0, rs.scoreDocs.length);
+      assertTrue(deadline.isPartial());
+      assertEquals(List.of(QueryTimings.SEARCH), deadline.getPartialStages());
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import io.anserini.index.Constants;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+public class IntraQueryParallelismTest extends LuceneTestCase {
+  @Test
+  public void testSameAsSequential() throws Exception {
+    try (Directory dir = new ByteBuffersDirectory()) {
+      // One segment per commit.
+      IndexWriterConfig config = new IndexWriterConfig(new EnglishAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+      try (IndexWriter writer = new IndexWriter(dir, config)) {
+        for (int i = 0; i < 20; i++) {
+          Document doc = new Document();
+          String id = String.format("doc%02d", i);
+          doc.add(new StringField(Constants.ID, id, Field.Store.YES));
+          doc.add(new BinaryDocValuesField(Constants.ID, new BytesRef(id)));
+          doc.add(new TextField(Constants.CONTENTS, "text " + "more ".repeat(i % 4), Field.Store.NO));
+          writer.addDocument(doc);
+          writer.commit();
+        }
+      }
+
+      try (IndexReader reader = DirectoryReader.open(dir);
+           IntraQueryParallelism parallelism = new IntraQueryParallelism(4, 100, 3)) {
+        assertEquals(20, reader.leaves().size());
+
+        IndexSearcher sequential = new IndexSearcher(reader);
+        sequential.setSimilarity(new BM25Similarity());
+        IndexSearcher parallel = parallelism.newSearcher(reader, new BM25Similarity());
+        assertEquals(7, parallel.getSlices().length);
+
+        TermQuery query = new TermQuery(new Term(Constants.CONTENTS, "more"));
+        TopDocs expected = TieBreakingTopDocsCollector.search(sequential, query, 10);
+        TopDocs results = TieBreakingTopDocsCollector.search(parallel, query, 10);
+
+        assertEquals(10, results.scoreDocs.length);
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+          assertEquals(expected.scoreDocs[i].doc, results.scoreDocs[i].doc);
+          assertEquals(expected.scoreDocs[i].score, results.scoreDocs[i].score, 1e-6f);
+        }
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidThreads() {
+    new IntraQueryParallelism(0);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+public class LatencyStatsTest extends LuceneTestCase {
+  @Test
+  public void testHistogramPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long v = 1; v <= 100000; v++) {
+      histogram.record(v * 1000);
+    }
+
+    assertEquals(100000, histogram.getCount());
+    assertEquals(100000000L, histogram.getMax());
+    assertEquals(50000500.0, histogram.getMean(), 1e-6);
+    // Bucket resolution is within about 1.6% of the true value.
+    assertEquals(50000000.0, histogram.getValueAtPercentile(50), 50000000.0 * 0.016);
+    assertEquals(90000000.0, histogram.getValueAtPercentile(90), 90000000.0 * 0.016);
+    assertEquals(99000000.0, histogram.getValueAtPercentile(99), 99000000.0 * 0.016);
+    assertEquals(100000000L, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testSmallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long v = 0; v < 100; v++) {
+      histogram.record(v);
+    }
+    assertEquals(49, histogram.getValueAtPercentile(50));
+    assertEquals(99, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testEmpty() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getValueAtPercentile(99));
+    assertEquals(0.0, histogram.getMean(), 0.0);
+  }
+
+  @Test
+  public void testStages() throws Exception {
+    LatencyStats stats = new LatencyStats();
+    for (int i = 0; i < 3; i++) {
+      QueryTimings timings = new QueryTimings();
+      timings.lap(QueryTimings.QUERY);
+      timings.lap(QueryTimings.SEARCH);
+      timings.lap(QueryTimings.SEARCH);
+      stats.record(timings);
+    }
+
+    JsonNode json = new ObjectMapper().readTree(stats.toJson());
+    JsonNode stages = json.get("stages");
+    assertEquals(3, stages.size());
+    assertEquals(3, stages.get(QueryTimings.QUERY).get("count").asInt());
+    // Repeated laps of the same stage within a query add up to a single value.
+    assertEquals(3, stages.get(QueryTimings.SEARCH).get("count").asInt());
+    assertEquals(3, stages.get(QueryTimings.TOTAL).get("count").asInt());
+    assertTrue(stages.get(QueryTimings.TOTAL).has("p99_ms"));
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import io.anserini.index.Constants;
+import io.anserini.index.IndexerTestBase;
+import io.anserini.search.query.BagOfWordsQueryGenerator;
+import io.anserini.search.similarity.AccurateBM25Similarity;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.search.similarities.Similarity;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class ParameterSweepSearcherTest extends IndexerTestBase {
+  @Test
+  public void testSameAsSeparateSearches() throws Exception {
+    List<Similarity> similarities = List.of(
+        new BM25Similarity(0.9f, 0.4f),
+        new BM25Similarity(1.2f, 0.75f),
+        new BM25Similarity(3.0f, 1.0f),
+        new AccurateBM25Similarity(0.9f, 0.4f));
+
+    try (IndexReader reader = DirectoryReader.open(FSDirectory.open(tempDir1))) {
+      ParameterSweepSearcher sweepSearcher = new ParameterSweepSearcher(reader, Constants.CONTENTS, similarities);
+      // Analyzed query "text here more text": "text" twice.
+      TopDocs[] results = sweepSearcher.search(Map.of("text", 2, "here", 1, "more", 1), 10);
+      assertEquals(similarities.size(), results.length);
+
+      Query query = new BagOfWordsQueryGenerator().buildQuery(Constants.CONTENTS, new EnglishAnalyzer(),
+          "text here more texts");
+      for (int i = 0; i < similarities.size(); i++) {
+        IndexSearcher searcher = new IndexSearcher(reader);
+        searcher.setSimilarity(similarities.get(i));
+        TopDocs expected = searcher.search(query, 10, SearchCollection.BREAK_SCORE_TIES_BY_DOCID, true);
+
+        assertEquals(expected.scoreDocs.length, results[i].scoreDocs.length);
+        for (int j = 0; j < expected.scoreDocs.length; j++) {
+          assertEquals(expected.scoreDocs[j].doc, results[i].scoreDocs[j].doc);
+          assertEquals(expected.scoreDocs[j].score, results[i].scoreDocs[j].score, 1e-5f);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNoMatches() throws Exception {
+    try (IndexReader reader = DirectoryReader.open(FSDirectory.open(tempDir1))) {
+      ParameterSweepSearcher sweepSearcher = new ParameterSweepSearcher(reader, Constants.CONTENTS,
+          List.of(new BM25Similarity(0.9f, 0.4f), new BM25Similarity(1.2f, 0.75f)));
+      TopDocs[] results = sweepSearcher.search(Map.of("nonexistent", 1), 10);
+      assertEquals(2, results.length);
+      assertEquals(0, results[0].scoreDocs.length);
+      assertEquals(0, results[1].scoreDocs.length);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import io.anserini.index.Constants;
+import io.anserini.index.IndexerTestBase;
+import io.anserini.search.query.BagOfWordsQueryGenerator;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.Test;
+
+import java.util.List;
+
+public class ProfilingIndexSearcherTest extends IndexerTestBase {
+  @Test
+  public void testProfile() throws Exception {
+    Query query = new BagOfWordsQueryGenerator().buildQuery(Constants.CONTENTS, new EnglishAnalyzer(), "text more");
+
+    try (IndexReader reader = DirectoryReader.open(FSDirectory.open(tempDir1))) {
+      IndexSearcher searcher = new IndexSearcher(reader);
+      searcher.setSimilarity(new BM25Similarity());
+      TopDocs expected = TieBreakingTopDocsCollector.search(searcher, query, 10);
+
+      ProfilingIndexSearcher profilingSearcher = new ProfilingIndexSearcher(reader, new BM25Similarity());
+      TopDocs results = TieBreakingTopDocsCollector.search(profilingSearcher, query, 10);
+
+      // Profiling doesn't change the results.
+      assertEquals(expected.scoreDocs.length, results.scoreDocs.length);
+      for (int i = 0; i < expected.scoreDocs.length; i++) {
+        assertEquals(expected.scoreDocs[i].doc, results.scoreDocs[i].doc);
+        assertEquals(expected.scoreDocs[i].score, results.scoreDocs[i].score, 1e-6f);
+      }
+
+      List<QueryProfile> profiles = profilingSearcher.getProfiles();
+      assertEquals(1, profiles.size());
+      QueryProfile root = profiles.get(0);
+      assertEquals("BooleanQuery", root.getType());
+      assertEquals(2, root.getChildren().size());
+      assertEquals("TermQuery", root.getChildren().get(0).getType());
+      assertTrue(root.getCreateWeightNanos() > 0);
+      assertFalse(root.getSegments().isEmpty());
+      assertEquals(expected.scoreDocs.length, root.getTotal().getScored());
+
+      // "text" appears in two documents (doc3 has "test"), and both of them are scored.
+      QueryProfile text = root.getChildren().get(0).getDescription().contains("text") ?
+          root.getChildren().get(0) : root.getChildren().get(1);
+      assertEquals(2, text.getTotal().getScored());
+      assertEquals(0, text.getTotal().getSkipped());
+
+      // A second query is profiled as a separate root.
+      profilingSearcher.search(query, 1);
+      assertEquals(2, profilingSearcher.getProfiles().size());
+    }
+  }
+
+  @Test
+  public void testSlowest() throws Exception {
+    Query query = new BagOfWordsQueryGenerator().buildQuery(Constants.CONTENTS, new EnglishAnalyzer(), "text");
+
+    try (IndexReader reader = DirectoryReader.open(FSDirectory.open(tempDir1))) {
+      ProfilingIndexSearcher profilingSearcher = new ProfilingIndexSearcher(reader, new BM25Similarity());
+      profilingSearcher.search(query, 10);
+
+      QueryProfileLog log = new QueryProfileLog(2);
+      log.record("q1", "text", 300, profilingSearcher.getProfiles());
+      log.record("q2", "text", 100, profilingSearcher.getProfiles());
+      log.record("q3", "text", 200, profilingSearcher.getProfiles());
+      log.record("q4", "text", 50, profilingSearcher.getProfiles());
+
+      List<QueryProfileLog.Entry> slowest = log.getSlowest();
+      assertEquals(2, slowest.size());
+      assertEquals("q1", slowest.get(0).getId());
+      assertEquals("q3", slowest.get(1).getId());
+
+      String json = log.toJson();
+      assertTrue(json.contains("\"id\" : \"q1\""));
+      assertTrue(json.contains("\"docs_scored\""));
+      assertTrue(json.contains("\"segments\""));
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import io.anserini.index.Constants;
+import io.anserini.index.IndexerTestBase;
+import io.anserini.rerank.RerankerCascade;
+import io.anserini.rerank.RerankerContext;
+import io.anserini.rerank.ScoredDocuments;
+import io.anserini.rerank.lib.Rm3Reranker;
+import io.anserini.rerank.lib.ScoreTiesAdjusterReranker;
+import io.anserini.search.query.BagOfWordsQueryGenerator;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.Test;
+
+import java.util.List;
+
+public class QueryDeadlineTest extends IndexerTestBase {
+  private static QueryDeadline expiredDeadline() throws InterruptedException {
+    QueryDeadline deadline = QueryDeadline.afterMillis(1);
+    while (!deadline.isExpired()) {
+      Thread.sleep(1);
+    }
+    return deadline;
+  }
+
+  @Test
+  public void testNoBudget() throws Exception {
+    assertSame(QueryDeadline.NONE, QueryDeadline.afterMillis(0));
+    assertFalse(QueryDeadline.NONE.isExpired());
+
+    Query query = new BagOfWordsQueryGenerator().buildQuery(Constants.CONTENTS, new EnglishAnalyzer(), "text");
+    try (IndexReader reader = DirectoryReader.open(FSDirectory.open(tempDir1))) {
+      IndexSearcher searcher = new IndexSearcher(reader);
+      QueryDeadline deadline = QueryDeadline.afterMillis(60_000);
+      TopDocs rs = deadline.search(QueryTimings.SEARCH, searcher, query, 10);
+
+      assertEquals(2, rs.scoreDocs.length);
+      assertFalse(deadline.isPartial());
+      assertTrue(deadline.getPartialStages().isEmpty());
+    }
+  }
+
+  @Test
+  public void testExpired() throws Exception {
+    Query query = new BagOfWordsQueryGenerator().buildQuery(Constants.CONTENTS, new EnglishAnalyzer(), "text");
+    try (IndexReader reader = DirectoryReader.open(FSDirectory.open(tempDir1))) {
+      IndexSearcher searcher = new IndexSearcher(reader);
+      QueryDeadline deadline = expiredDeadline();
+      TopDocs rs = deadline.search(QueryTimings.SEARCH, searcher, query, 10);
+
+      // Nothing is collected, and the query is flagged as partial.
+      assertEquals(0, rs.scoreDocs.length);
+      assertTrue(deadline.isPartial());
+      assertEquals(List.of(QueryTimings.SEARCH), deadline.getPartialStages());
+    }
+  }
+
+  // Any search can run under the deadline, without leaving the timeout on the searcher shared with other queries.
+  @Test
+  public void testSharedSearcher() throws Exception {
+    Query query = new BagOfWordsQueryGenerator().buildQuery(Constants.CONTENTS, new EnglishAnalyzer(), "text");
+    try (IndexReader reader = DirectoryReader.open(FSDirectory.open(tempDir1))) {
+      IndexSearcher searcher = new IndexSearcher(reader);
+      QueryDeadline deadline = expiredDeadline();
+      TopDocs rs = deadline.search(QueryTimings.SEARCH, searcher, s -> s.search(query, 10));
+
+      assertEquals(0, rs.scoreDocs.length);
+      assertEquals(List.of(QueryTimings.SEARCH), deadline.getPartialStages());
+
+      assertFalse(searcher.timedOut());
+      assertEquals(2, searcher.search(query, 10).scoreDocs.length);
+      assertFalse(searcher.timedOut());
+    }
+  }
+
+  // The searcher a timed search runs on keeps the slices of the given searcher, e.g., a custom slice policy.
+  @Test
+  public void testSlices() throws Exception {
+    try (IndexReader reader = DirectoryReader.open(FSDirectory.open(tempDir1));
+         IntraQueryParallelism parallelism = new IntraQueryParallelism(2, 1, 1)) {
+      IndexSearcher searcher = parallelism.newSearcher(reader, new IndexSearcher(reader).getSimilarity());
+      IndexSearcher.LeafSlice[] slices = searcher.getSlices();
+      assertEquals(reader.leaves().size(), slices.length);
+
+      QueryDeadline deadline = QueryDeadline.afterMillis(60_000);
+      IndexSearcher.LeafSlice[] timedSlices = deadline.search(QueryTimings.SEARCH, searcher, s -> {
+        assertNotSame(searcher, s);
+        return s.getSlices();
+      });
+      assertEquals(slices.length, timedSlices.length);
+      for (int i = 0; i < slices.length; i++) {
+        assertArrayEquals(slices[i].leaves, timedSlices[i].leaves);
+      }
+    }
+  }
+
+  @Test
+  public void testCascade() throws Exception {
+    Query query = new BagOfWordsQueryGenerator().buildQuery(Constants.CONTENTS, new EnglishAnalyzer(), "text");
+    try (IndexReader reader = DirectoryReader.open(FSDirectory.open(tempDir1))) {
+      IndexSearcher searcher = new IndexSearcher(reader);
+      ScoredDocuments docs = ScoredDocuments.fromTopDocs(TieBreakingTopDocsCollector.search(searcher, query, 10),
+          searcher);
+
+      RerankerContext<String> context = new RerankerContext<>(searcher, "q1", query, null, "text",
+          List.of("text"), null, new SearchCollection.Args());
+      QueryDeadline deadline = expiredDeadline();
+      context.setDeadline(deadline);
+
+      RerankerCascade cascade = new RerankerCascade();
+      cascade.add(new ScoreTiesAdjusterReranker());
+
+      // The reranker is skipped, so the input comes back as is.
+      assertSame(docs, cascade.run(docs, context));
+      assertTrue(deadline.isPartial());
+      assertEquals(List.of(QueryTimings.RERANK_PREFIX + "ScoreTiesAdjusterReranker"), deadline.getPartialStages());
+    }
+  }
+
+  // RM3 only falls back to the original ranking when its own expanded query is cut short, and doesn't run the expanded
+  // query at all once the budget is exhausted.
+  @Test
+  public void testRm3() throws Exception {
+    Query query = new BagOfWordsQueryGenerator().buildQuery(Constants.CONTENTS, new EnglishAnalyzer(), "text");
+    try (IndexReader reader = DirectoryReader.open(FSDirectory.open(tempDir1))) {
+      IndexSearcher searcher = new IndexSearcher(reader);
+      ScoredDocuments docs = ScoredDocuments.fromTopDocs(TieBreakingTopDocsCollector.search(searcher, query, 10),
+          searcher);
+      Rm3Reranker rm3 = new Rm3Reranker(new EnglishAnalyzer(), null, Constants.CONTENTS, 10, 10, 0.5f, false, true);
+      String stage = QueryTimings.RERANK_PREFIX + rm3.tag();
+
+      // An earlier stage cut short doesn't throw away the expanded query.
+      RerankerContext<String> context = new RerankerContext<>(searcher, "q1", query, null, "text",
+          List.of("text"), null, new SearchCollection.Args());
+      QueryDeadline deadline = QueryDeadline.afterMillis(60_000);
+      deadline.markPartial(QueryTimings.SEARCH);
+      context.setDeadline(deadline);
+      assertNotSame(docs, rm3.rerank(docs, context));
+      assertEquals(List.of(QueryTimings.SEARCH), deadline.getPartialStages());
+
+      context = new RerankerContext<>(searcher, "q1", query, null, "text",
+          List.of("text"), null, new SearchCollection.Args());
+      deadline = expiredDeadline();
+      context.setDeadline(deadline);
+      assertSame(docs, rm3.rerank(docs, context));
+      assertEquals(List.of(stage), deadline.getPartialStages());
+    }
+  }
+}
@@ -209,6 +209,92 @@ public class SimpleImpactSearcherTest extends IndexerTestBase {
     searcher.close();
   }
 
+  @Test
+  public void testSearchWeighted() throws Exception {
+    SimpleImpactSearcher searcher = new SimpleImpactSearcher(super.tempDir1.toString());
+
+    Map<String, Float> testQuery = new HashMap<>();
+    testQuery.put("text", 0.5f);
+    testQuery.put("test", 2.0f);
+
+    Result[] results = searcher.search_weighted(testQuery, 10);
+    assertEquals(3, results.length);
+    assertEquals("doc3", results[0].docid);
+    assertEquals(2.0f, results[0].score, 10e-6);
+    assertEquals("doc1", results[1].docid);
+    assertEquals(1.0f, results[1].score, 10e-6);
+    assertEquals("doc2", results[2].docid);
+    assertEquals(0.5f, results[2].score, 10e-6);
+
+    searcher.close();
+  }
+
+  @Test
+  public void testQueryPruning() throws Exception {
+    SimpleImpactSearcher searcher = new SimpleImpactSearcher(super.tempDir1.toString());
+
+    Map<String, Integer> testQuery = new HashMap<>();
+    testQuery.put("text", 1);
+    testQuery.put("test", 3);
+    testQuery.put("city", 0);
+
+    Result[] results = searcher.search(testQuery, 10);
+    assertEquals(3, results.length);
+
+    // Keep only the highest-weighted term.
+    searcher.set_query_pruning(1, 0.0f);
+    results = searcher.search(testQuery, 10);
+    assertEquals(1, results.length);
+    assertEquals("doc3", results[0].docid);
+    assertEquals(3.0f, results[0].score, 10e-6);
+
+    // Drop terms with weight up to 1.
+    searcher.set_query_pruning(0, 1.0f);
+    results = searcher.search(testQuery, 10);
+    assertEquals(1, results.length);
+    assertEquals("doc3", results[0].docid);
+
+    searcher.unset_query_pruning();
+    results = searcher.search(testQuery, 10);
+    assertEquals(3, results.length);
+
+    searcher.close();
+  }
+
+  @Test
+  public void testDynamicPruning() throws Exception {
+    SimpleImpactSearcher searcher = new SimpleImpactSearcher(super.tempDir1.toString());
+
+    Map<String, Integer> testQuery = new HashMap<>();
+    testQuery.put("text", 1);
+    testQuery.put("test", 3);
+
+    Result[] expected = searcher.search(testQuery, 10);
+
+    searcher.set_dynamic_pruning();
+    for (int k = 1; k <= 3; k++) {
+      Result[] results = searcher.search(testQuery, k);
+      assertEquals(k, results.length);
+      for (int i = 0; i < k; i++) {
+        assertEquals(expected[i].docid, results[i].docid);
+        assertEquals(expected[i].score, results[i].score, 10e-6);
+      }
+    }
+
+    // With a budget of a single posting, only the highest-impact term is evaluated.
+    searcher.set_dynamic_pruning(1);
+    Result[] results = searcher.search(testQuery, 10);
+    assertEquals(1, results.length);
+    assertEquals("doc3", results[0].docid);
+    assertEquals(3.0f, results[0].score, 10e-6);
+
+    searcher.unset_dynamic_pruning();
+    results = searcher.search(testQuery, 10);
+    assertEquals(3, results.length);
+
+    searcher.close();
+  }
+
   @Test
   public void testTotalNumDocuments() throws Exception {
     SimpleImpactSearcher searcher = new SimpleImpactSearcher(super.tempDir1.toString());
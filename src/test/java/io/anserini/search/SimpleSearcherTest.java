@@ -88,6 +88,57 @@ public class SimpleSearcherTest extends IndexerTestBase {
     searcher.close();
   }
 
+  @Test
+  public void testBatchArrays() throws Exception {
+    SimpleSearcher searcher = new SimpleSearcher(super.tempDir1.toString());
+
+    // Repeated batches reuse the searcher's thread pool; results come back in input order.
+    for (int i = 0; i < 3; i++) {
+      SimpleSearcher.Result[][] hits = searcher.batch_search_array(List.of("test", "more", "nonexistent"), 10, 2);
+      assertEquals(3, hits.length);
+      assertEquals(1, hits[0].length);
+      assertEquals("doc3", hits[0][0].docid);
+      assertEquals(2, hits[1].length);
+      assertEquals("doc2", hits[1][0].docid);
+      assertEquals(0, hits[2].length);
+    }
+
+    Document[] docs = searcher.batch_get_docs_array(List.of("doc3", "fake_doc", "doc1"), 2);
+    assertEquals(3, docs.length);
+    assertEquals("here is a test", docs[0].get("contents"));
+    assertNull(docs[1]);
+    assertEquals("here is some text here is some more text. city.", docs[2].get("contents"));
+
+    searcher.close();
+  }
+
+  @Test
+  public void testBatchColumnar() throws Exception {
+    SimpleSearcher searcher = new SimpleSearcher(super.tempDir1.toString());
+
+    List<String> queries = List.of("test", "more", "nonexistent");
+    SimpleSearcher.Result[][] expected = searcher.batch_search_array(queries, 10, 2);
+    ColumnarResults results = searcher.batch_search_columnar(queries, 10, 2);
+
+    assertEquals(3, results.size());
+    assertArrayEquals(new int[] {0, 1, 3, 3}, results.offsets);
+    for (int q = 0; q < expected.length; q++) {
+      for (int i = 0; i < expected[q].length; i++) {
+        int hit = results.offsets[q] + i;
+        assertEquals(expected[q][i].docid, results.docid(hit));
+        assertEquals(expected[q][i].lucene_docid, results.lucene_docids[hit]);
+        assertEquals(expected[q][i].score, results.scores[hit], 1e-6f);
+      }
+    }
+
+    // Text is fetched on demand.
+    String[] contents = searcher.doc_contents_array(new int[] {results.lucene_docids[0], 1000});
+    assertEquals("here is a test", contents[0]);
+    assertNull(contents[1]);
+
+    searcher.close();
+  }
+
   @Test
   public void testGetDocByField() throws Exception {
     SimpleSearcher searcher = new SimpleSearcher(super.tempDir1.toString());
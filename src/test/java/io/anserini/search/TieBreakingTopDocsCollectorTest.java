@@ -0,0 +1,121 @@
+/*
+ * Anserini: A Lucene toolkit for reproducible information retrieval research
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.anserini.search;
+
+import io.anserini.index.Constants;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class TieBreakingTopDocsCollectorTest extends LuceneTestCase {
+  // Indexes docs with heavily tied scores, with docids added in random order across several segments.
+  private Directory buildIndex(boolean storeRanks) throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(new WhitespaceAnalyzer()));
+
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      ids.add(String.format(Locale.ROOT, "doc%03d", i));
+    }
+    Random random = new Random(42);
+    Collections.shuffle(ids, random);
+
+    for (String id : ids) {
+      Document doc = new Document();
+      doc.add(new StringField(Constants.ID, id, Field.Store.YES));
+      doc.add(new BinaryDocValuesField(Constants.ID, new BytesRef(id)));
+      if (storeRanks) {
+        doc.add(new NumericDocValuesField(Constants.ID_RANK, Long.parseLong(id.substring(3))));
+      }
+      // Only a handful of distinct term frequencies, hence lots of ties.
+      StringBuilder text = new StringBuilder();
+      for (int j = 0; j <= random.nextInt(3); j++) {
+        text.append("hello ");
+      }
+      doc.add(new TextField(Constants.CONTENTS, text.toString(), Field.Store.NO));
+      writer.addDocument(doc);
+      if (random.nextInt(50) == 0) {
+        writer.commit();
+      }
+    }
+    writer.close();
+
+    return dir;
+  }
+
+  private void assertSameRanking(Directory dir) throws IOException {
+    try (IndexReader reader = DirectoryReader.open(dir)) {
+      IndexSearcher searcher = new IndexSearcher(reader);
+      Query query = new TermQuery(new Term(Constants.CONTENTS, "hello"));
+
+      for (int k : new int[]{1, 5, 17, 100, 500}) {
+        TopDocs expected = searcher.search(query, k, SearchCollection.BREAK_SCORE_TIES_BY_DOCID, true);
+        TopDocs actual = TieBreakingTopDocsCollector.search(searcher, query, k);
+
+        assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+          assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+          assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 1e-6f);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testTiesBrokenByDocid() throws IOException {
+    try (Directory dir = buildIndex(false)) {
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        assertFalse(TieBreakingTopDocsCollector.hasDocidRanks(reader));
+      }
+      assertSameRanking(dir);
+    }
+  }
+
+  @Test
+  public void testTiesBrokenByDocidRank() throws IOException {
+    try (Directory dir = buildIndex(true)) {
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        assertTrue(TieBreakingTopDocsCollector.hasDocidRanks(reader));
+      }
+      assertSameRanking(dir);
+    }
+  }
+}